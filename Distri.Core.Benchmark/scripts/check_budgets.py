@@ -0,0 +1,67 @@
+#!/usr/bin/env python3
+"""
+按固定预算检查JMH结果（-rf json），不依赖基线。
+
+用法：
+    python3 scripts/check_budgets.py results/current.json [budgets.json]
+
+budgets.json 以 "类名.方法名" 为键，每项给出指标（primary 或次级指标名，如 gc.alloc.rate.norm）、
+上限与单位。次级指标只有在使用对应profiler（如 -prof gc）运行时才有，缺失时跳过。
+有超出预算的项时以退出码1结束。
+"""
+import json
+import sys
+
+
+def secondary(result, name):
+    # 旧版JMH的次级指标名带"·"前缀
+    metrics = result.get("secondaryMetrics") or {}
+    return metrics.get(name) or metrics.get("·" + name)
+
+
+def main():
+    if len(sys.argv) < 2:
+        print(__doc__)
+        return 2
+    results_path = sys.argv[1]
+    budgets_path = sys.argv[2] if len(sys.argv) > 2 else "budgets.json"
+
+    with open(results_path, encoding="utf-8") as f:
+        results = json.load(f)
+    with open(budgets_path, encoding="utf-8") as f:
+        budgets = json.load(f)
+
+    failures = 0
+    for name, checks in budgets.items():
+        matched = [r for r in results if r["benchmark"].endswith("." + name)]
+        if not matched:
+            print(f"SKIPPED    {name}: 本次未运行")
+            continue
+        for r in matched:
+            params = ",".join(f"{k}={v}" for k, v in sorted((r.get("params") or {}).items()))
+            label = f"{name}[{params}]" if params else name
+            for check in checks:
+                metric_name = check["metric"]
+                metric = r["primaryMetric"] if metric_name == "primary" else secondary(r, metric_name)
+                if metric is None:
+                    print(f"SKIPPED    {label} {metric_name}: 结果中没有该指标")
+                    continue
+                if metric["scoreUnit"] != check["unit"]:
+                    print(f"FAILED     {label} {metric_name}: 单位 {metric['scoreUnit']} 与预算 {check['unit']} 不一致")
+                    failures += 1
+                    continue
+                score = float(metric["score"])
+                ok = score <= check["max"]
+                status = "OK" if ok else "OVER"
+                print(f"{status:<10} {label} {metric_name}: {score:.3f} / {check['max']} {check['unit']}")
+                if not ok:
+                    failures += 1
+
+    if failures:
+        print(f"\n{failures} 项超出预算")
+        return 1
+    return 0
+
+
+if __name__ == "__main__":
+    sys.exit(main())
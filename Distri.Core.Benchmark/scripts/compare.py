@@ -0,0 +1,85 @@
+#!/usr/bin/env python3
+"""
+对比两份JMH JSON结果（-rf json），标出性能回退。
+
+用法：
+    python3 scripts/compare.py baselines/baseline.json results/current.json [--threshold 0.10]
+
+同一基准（方法名 + 参数 + 模式）的得分变化超过阈值，且差值大于两次结果误差之和时判为回退；
+吞吐量模式越高越好，其余模式（平均耗时、采样、单次）越低越好。存在回退时以退出码1结束。
+"""
+import argparse
+import json
+import sys
+
+HIGHER_IS_BETTER = {"thrpt"}
+
+
+def load(path):
+    with open(path, encoding="utf-8") as f:
+        results = json.load(f)
+    indexed = {}
+    for r in results:
+        params = ",".join(f"{k}={v}" for k, v in sorted((r.get("params") or {}).items()))
+        key = (r["benchmark"], params, r["mode"])
+        metric = r["primaryMetric"]
+        error = metric.get("scoreError")
+        indexed[key] = {
+            "score": float(metric["score"]),
+            # 单次迭代时JMH输出NaN
+            "error": float(error) if error not in (None, "NaN") and error == error else 0.0,
+            "unit": metric["scoreUnit"],
+        }
+    return indexed
+
+
+def label(key):
+    benchmark, params, mode = key
+    name = benchmark.rsplit(".", 2)
+    name = ".".join(name[-2:])
+    return f"{name}[{params}]({mode})" if params else f"{name}({mode})"
+
+
+def main():
+    parser = argparse.ArgumentParser(description="对比JMH基线与当前结果")
+    parser.add_argument("baseline")
+    parser.add_argument("current")
+    parser.add_argument("--threshold", type=float, default=0.10, help="判定回退的相对变化，默认0.10")
+    args = parser.parse_args()
+
+    baseline = load(args.baseline)
+    current = load(args.current)
+
+    regressions = 0
+    for key in sorted(current.keys() | baseline.keys()):
+        if key not in baseline:
+            print(f"NEW        {label(key)}: {current[key]['score']:.3f} {current[key]['unit']}")
+            continue
+        if key not in current:
+            print(f"MISSING    {label(key)}")
+            continue
+
+        old, new = baseline[key], current[key]
+        if old["score"] == 0:
+            continue
+        change = (new["score"] - old["score"]) / old["score"]
+        worse = -change if key[2] in HIGHER_IS_BETTER else change
+        significant = abs(new["score"] - old["score"]) > old["error"] + new["error"]
+
+        if worse > args.threshold and significant:
+            status = "REGRESSION"
+            regressions += 1
+        elif -worse > args.threshold and significant:
+            status = "IMPROVED"
+        else:
+            status = "OK"
+        print(f"{status:<10} {label(key)}: {old['score']:.3f} -> {new['score']:.3f} {new['unit']} ({change:+.1%})")
+
+    if regressions:
+        print(f"\n{regressions} 项基准回退超过 {args.threshold:.0%}")
+        return 1
+    return 0
+
+
+if __name__ == "__main__":
+    sys.exit(main())
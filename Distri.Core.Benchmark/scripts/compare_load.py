@@ -0,0 +1,47 @@
+#!/usr/bin/env python3
+"""
+并排对比两份压测结果（HttpLoadTest 输出的JSON），如平台线程模式与虚拟线程模式。
+
+用法：
+    python3 scripts/compare_load.py results/load-platform.json results/load-virtual.json
+
+只做展示，不判定通过与否：两次压测须使用相同的接口、并发数、时长与服务端配置才有可比性。
+"""
+import argparse
+import json
+
+
+def load(path):
+    with open(path, encoding="utf-8") as f:
+        return json.load(f)
+
+
+def rows(report):
+    yield "throughput/s", report["throughputPerSecond"]
+    yield "succeeded", report["succeeded"]
+    for name, value in report["latencyMillis"].items():
+        yield f"{name} ms", value
+    for name, value in report["failures"].items():
+        yield f"failed {name}", value
+
+
+def main():
+    parser = argparse.ArgumentParser()
+    parser.add_argument("first")
+    parser.add_argument("second")
+    args = parser.parse_args()
+
+    a, b = load(args.first), load(args.second)
+    if (a["url"], a["concurrency"], a["durationSeconds"]) != (b["url"], b["concurrency"], b["durationSeconds"]):
+        print("警告：两次压测的接口、并发数或时长不同，结果不可直接比较")
+
+    left, right = dict(rows(a)), dict(rows(b))
+    print(f"{'':<18}{a['label']:>16}{b['label']:>16}{'change':>10}")
+    for name in list(left) + [n for n in right if n not in left]:
+        x, y = left.get(name, 0), right.get(name, 0)
+        change = f"{(y - x) / x:+.1%}" if x else ""
+        print(f"{name:<18}{x:>16}{y:>16}{change:>10}")
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,29 @@
+#!/usr/bin/env bash
+# 对运行中的服务做闭环HTTP压测，结果写入 results/load-<label>.json。
+# 用法：scripts/loadtest.sh <label> <url> [--token T] [--concurrency 10000] [--duration 60] [--warmup 15]
+# 平台线程与虚拟线程各跑一次（服务分别以 --spring.threads.virtual.enabled=false/true 启动），然后：
+#   python3 scripts/compare_load.py results/load-platform.json results/load-virtual.json
+# 没有部署环境时可先用 load.PlatformServer 在本机启动服务，它把压测URL与令牌写入 --out 指定的文件（见README）。
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+if [[ $# -lt 2 ]]; then
+    echo "用法：scripts/loadtest.sh <label> <url> [--token T] [--concurrency N] [--duration S] [--warmup S]" >&2
+    exit 2
+fi
+LABEL=$1
+URL=$2
+shift 2
+
+if [[ ! -f target/benchmarks.jar ]]; then
+    (cd ../Distri.Core.Platform && mvn -B -q install -DskipTests)
+    mvn -B -q package
+fi
+
+# 1万并发连接需要足够的文件描述符，压测机与服务端都要放开
+ulimit -n 65535 2>/dev/null || echo "无法调高文件描述符上限，当前 $(ulimit -n)" >&2
+
+mkdir -p results
+java -cp target/benchmarks.jar com.distri.chat.benchmark.load.HttpLoadTest \
+    --label "$LABEL" --url "$URL" --out "results/load-$LABEL.json" "$@"
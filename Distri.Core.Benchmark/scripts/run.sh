@@ -0,0 +1,37 @@
+#!/usr/bin/env bash
+# 构建并运行全部基准，结果写入 results/current.json；
+# 传入 --update-baseline 时把本次结果保存为 baselines/baseline.json，否则与现有基线对比；
+# 随后按 budgets.json 检查固定预算（分配预算需加 -prof gc 运行）。
+# 其余参数原样传给JMH，例如只跑认证相关：scripts/run.sh 'com.distri.chat.benchmark.auth.*'
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+UPDATE_BASELINE=false
+JMH_ARGS=()
+for arg in "$@"; do
+    if [[ "$arg" == "--update-baseline" ]]; then
+        UPDATE_BASELINE=true
+    else
+        JMH_ARGS+=("$arg")
+    fi
+done
+
+(cd ../Distri.Core.Platform && mvn -B -q install -DskipTests)
+mvn -B -q package
+
+mkdir -p results
+java -jar target/benchmarks.jar -rf json -rff results/current.json "${JMH_ARGS[@]}"
+
+STATUS=0
+if [[ "$UPDATE_BASELINE" == true ]]; then
+    cp results/current.json baselines/baseline.json
+    echo "基线已更新：baselines/baseline.json"
+elif [[ -f baselines/baseline.json ]]; then
+    python3 scripts/compare.py baselines/baseline.json results/current.json || STATUS=$?
+else
+    echo "尚无基线，使用 --update-baseline 生成 baselines/baseline.json"
+fi
+
+python3 scripts/check_budgets.py results/current.json budgets.json || STATUS=$?
+exit $STATUS
@@ -0,0 +1,145 @@
+package com.distri.chat.benchmark.auth;
+
+import com.distri.chat.benchmark.support.Fixtures;
+import com.distri.chat.biz.user.api.AuthController;
+import com.distri.chat.biz.user.domain.model.User;
+import com.distri.chat.biz.user.domain.service.PasswordHashService;
+import com.distri.chat.biz.user.domain.service.UserAuthService;
+import com.distri.chat.biz.user.infra.cache.RefreshTokenStore;
+import com.distri.chat.biz.user.infra.repo.UserMapper;
+import com.distri.chat.common.exception.GlobalExceptionHandler;
+import com.distri.chat.common.utils.JwtUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * 经MockMvc走完整的登录与刷新令牌流程（参数校验、控制器、领域服务、JSON序列化）
+ * <p>
+ * 用户查询与刷新令牌存储换成内存实现，隔离Redis/MySQL的网络耗时，对比的是两条路径本身的CPU成本：
+ * 登录需BCrypt校验密码，刷新只签发新令牌。另测generateClientId。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuthFlowBenchmark {
+
+    private static final String PHONE = "13800000000";
+    private static final String PASSWORD = "benchmark-password";
+    private static final Long USER_ID = 10001L;
+
+    private PasswordHashService passwordHashService;
+    private UserAuthService userAuthService;
+    private MockMvc mockMvc;
+    private String loginBody;
+    private String refreshBody;
+
+    @Setup
+    public void setup() throws Exception {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        JwtUtil jwtUtil = Fixtures.jwtUtil(meterRegistry);
+
+        String encodedPassword = new BCryptPasswordEncoder().encode(PASSWORD);
+        // 登录成功后会清除返回对象上的哈希，每次查询返回新实例
+        UserMapper userMapper = (UserMapper) Proxy.newProxyInstance(UserMapper.class.getClassLoader(),
+                new Class<?>[]{UserMapper.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("findByPhone")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    if (!PHONE.equals(args[0])) {
+                        return null;
+                    }
+                    User user = new User(PHONE, encodedPassword);
+                    user.setId(USER_ID);
+                    user.setNickname(PHONE);
+                    return user;
+                });
+        RefreshTokenStore refreshTokenStore = new InMemoryRefreshTokenStore(meterRegistry);
+
+        passwordHashService = new PasswordHashService(meterRegistry, 0, 256);
+        userAuthService = new UserAuthService(userMapper, null, passwordHashService, jwtUtil, null, null,
+                Fixtures.tokenRevocationService(meterRegistry, 1_000_000), refreshTokenStore,
+                Fixtures.rateLimiterRegistry(meterRegistry), meterRegistry, 1e9, Integer.MAX_VALUE, 1, false);
+
+        mockMvc = MockMvcBuilders.standaloneSetup(new AuthController(userAuthService))
+                .setControllerAdvice(new GlobalExceptionHandler(meterRegistry))
+                .build();
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        loginBody = objectMapper.writeValueAsString(Map.of("phone", PHONE, "password", PASSWORD));
+        refreshBody = objectMapper.writeValueAsString(Map.of("refreshToken", "benchmark-refresh-token"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        passwordHashService.shutdown();
+        userAuthService.shutdown();
+    }
+
+    @Benchmark
+    public String login() throws Exception {
+        MvcResult started = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(loginBody))
+                .andReturn();
+        return checkOk(mockMvc.perform(asyncDispatch(started)).andReturn());
+    }
+
+    @Benchmark
+    public String refresh() throws Exception {
+        return checkOk(mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(refreshBody))
+                .andReturn());
+    }
+
+    @Benchmark
+    public String generateClientId() {
+        return userAuthService.generateClientId();
+    }
+
+    private static String checkOk(MvcResult result) throws Exception {
+        int status = result.getResponse().getStatus();
+        if (status != 200) {
+            throw new IllegalStateException("请求失败：" + status + " " + result.getResponse().getContentAsString());
+        }
+        return result.getResponse().getContentAsString();
+    }
+
+    /**
+     * 签发照常生成随机串，消费总是成功，省去Redis往返
+     */
+    private static final class InMemoryRefreshTokenStore extends RefreshTokenStore {
+
+        InMemoryRefreshTokenStore(MeterRegistry meterRegistry) {
+            super(null, meterRegistry, 30);
+        }
+
+        @Override
+        public String issue(Long userId, String clientId) {
+            return UUID.randomUUID().toString();
+        }
+
+        @Override
+        public Binding consume(String token) {
+            return new Binding(USER_ID, "client_benchmark");
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.distri.chat.benchmark.auth;
+
+import com.distri.chat.benchmark.support.Fixtures;
+import com.distri.chat.common.utils.JwtUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtUtil签发与校验
+ * parseToken为线上路径（验签缓存命中 + 吊销名单），verifyToken为缓存未命中时的完整HMAC验签
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtBenchmark {
+
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setup() {
+        jwtUtil = Fixtures.jwtUtil(new SimpleMeterRegistry());
+        token = jwtUtil.generateToken(10001L, "client_benchmark");
+        jwtUtil.parseToken(token);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(10001L, "client_benchmark");
+    }
+
+    @Benchmark
+    public JwtUtil.JwtClaims parseToken() {
+        return jwtUtil.parseToken(token);
+    }
+
+    @Benchmark
+    public JwtUtil.JwtClaims verifyToken() {
+        return jwtUtil.verifyToken(token);
+    }
+}
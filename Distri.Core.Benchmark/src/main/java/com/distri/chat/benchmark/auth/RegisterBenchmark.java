@@ -0,0 +1,213 @@
+package com.distri.chat.benchmark.auth;
+
+import com.distri.chat.benchmark.support.Fixtures;
+import com.distri.chat.biz.user.domain.model.User;
+import com.distri.chat.biz.user.domain.service.PasswordHashService;
+import com.distri.chat.biz.user.domain.service.UserAuthService;
+import com.distri.chat.biz.user.infra.cache.PhoneExistenceIndex;
+import com.distri.chat.biz.user.infra.repo.UserMapper;
+import com.distri.chat.common.exception.BusinessException;
+import com.distri.chat.common.outbox.OutboxMapper;
+import com.distri.chat.common.outbox.OutboxWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.ibatis.session.SqlSessionManager;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 注册吞吐：手机号查重走存在性索引（index）与先查后插（select）的对比
+ * <p>
+ * users表预置 preloadedUsers 个用户（H2，MySQL兼容模式），index 模式下布隆过滤器由预热流式加载、Redis集合在嵌入式Redis中；
+ * select 模式把索引换成每次 findByPhone，即引入索引之前的做法。
+ * registerExisting 模拟注册机器人与重试客户端（手机号已存在，在哈希前被拒绝），
+ * registerNew 为新手机号的完整注册（BCrypt + 用户行与发件箱落库，H2下两者各自提交）。
+ * 吞吐之外，辅助计数 userSelects 为测量期内对用户表的点查总数（与调用次数相除即每次注册的点查数），即索引为MySQL省下的读；
+ * H2是进程内数据库，点查远比经网络的MySQL便宜，吞吐差距在线上只会更大。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RegisterBenchmark {
+
+    private static final long PHONE_BASE = 13_000_000_000L;
+    private static final long NEW_PHONE_BASE = 15_000_000_000L;
+    private static final String PASSWORD = "benchmark-password";
+    private static final int SEED_BATCH = 1000;
+
+    private static final AtomicLong USER_SELECTS = new AtomicLong();
+
+    @Param({"index", "select"})
+    public String check;
+
+    @Param({"100000"})
+    public int preloadedUsers;
+
+    private LettuceConnectionFactory connectionFactory;
+    private PasswordHashService passwordHashService;
+    private UserAuthService userAuthService;
+    private final AtomicLong nextNewPhone = new AtomicLong(NEW_PHONE_BASE);
+
+    /**
+     * 对用户表的点查次数
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Reads {
+        public long userSelects;
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        JdbcDataSource dataSource = Fixtures.h2DataSource("register_benchmark");
+        seed(dataSource);
+
+        SqlSessionManager sessionManager = Fixtures.sqlSessionManager(dataSource, UserMapper.class, OutboxMapper.class);
+        UserMapper userMapper = countingSelects(sessionManager.getMapper(UserMapper.class));
+        OutboxWriter outboxWriter = new OutboxWriter(sessionManager.getMapper(OutboxMapper.class), new ObjectMapper());
+
+        PhoneExistenceIndex phoneExistenceIndex;
+        if ("index".equals(check)) {
+            connectionFactory = Fixtures.redisConnectionFactory();
+            RedisTemplate<String, Object> redisTemplate = Fixtures.redisTemplate(connectionFactory);
+            flush(redisTemplate);
+            phoneExistenceIndex = new PhoneExistenceIndex(userMapper, redisTemplate, meterRegistry, 1_000_000, 0.001, 5000);
+            phoneExistenceIndex.startWarmup();
+            while (!phoneExistenceIndex.isWarmedUp()) {
+                Thread.sleep(50);
+            }
+        } else {
+            phoneExistenceIndex = new SelectBeforeInsert(userMapper, meterRegistry);
+        }
+
+        passwordHashService = new PasswordHashService(meterRegistry, 0, 256);
+        userAuthService = new UserAuthService(userMapper, phoneExistenceIndex, passwordHashService, Fixtures.jwtUtil(meterRegistry),
+                outboxWriter, new TransactionTemplate(new DataSourceTransactionManager(dataSource)),
+                Fixtures.tokenRevocationService(meterRegistry, 1000), null,
+                Fixtures.rateLimiterRegistry(meterRegistry), meterRegistry, 1e9, Integer.MAX_VALUE, 4, false);
+    }
+
+    @TearDown
+    public void tearDown() {
+        passwordHashService.shutdown();
+        userAuthService.shutdown();
+        if (connectionFactory != null) {
+            flush(Fixtures.redisTemplate(connectionFactory));
+            connectionFactory.destroy();
+        }
+    }
+
+    /**
+     * 已注册的手机号再次注册，在BCrypt之前被拒绝
+     */
+    @Benchmark
+    public Object registerExisting(Reads reads) {
+        long before = USER_SELECTS.get();
+        String phone = String.valueOf(PHONE_BASE + ThreadLocalRandom.current().nextInt(preloadedUsers));
+        try {
+            userAuthService.register(phone, PASSWORD).join();
+            throw new IllegalStateException("重复手机号注册成功：" + phone);
+        } catch (BusinessException e) {
+            return e;
+        } finally {
+            reads.userSelects += USER_SELECTS.get() - before;
+        }
+    }
+
+    /**
+     * 新手机号的完整注册
+     */
+    @Benchmark
+    public User registerNew(Reads reads) {
+        long before = USER_SELECTS.get();
+        try {
+            return userAuthService.register(String.valueOf(nextNewPhone.getAndIncrement()), PASSWORD).join();
+        } finally {
+            reads.userSelects += USER_SELECTS.get() - before;
+        }
+    }
+
+    private void seed(JdbcDataSource dataSource) throws Exception {
+        String encodedPassword = new BCryptPasswordEncoder().encode(PASSWORD);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "INSERT INTO users (phone, password, nickname) VALUES (?, ?, ?)")) {
+            connection.createStatement().execute("TRUNCATE TABLE users RESTART IDENTITY");
+            for (int i = 0; i < preloadedUsers; i++) {
+                String phone = String.valueOf(PHONE_BASE + i);
+                statement.setString(1, phone);
+                statement.setString(2, encodedPassword);
+                statement.setString(3, phone);
+                statement.addBatch();
+                if ((i + 1) % SEED_BATCH == 0 || i == preloadedUsers - 1) {
+                    statement.executeBatch();
+                }
+            }
+        }
+    }
+
+    /**
+     * findByPhone计数，其余方法原样转发
+     */
+    private static UserMapper countingSelects(UserMapper target) {
+        return (UserMapper) Proxy.newProxyInstance(UserMapper.class.getClassLoader(),
+                new Class<?>[]{UserMapper.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("findByPhone")) {
+                        USER_SELECTS.incrementAndGet();
+                    }
+                    try {
+                        return method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private static void flush(RedisTemplate<String, Object> redisTemplate) {
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        });
+    }
+
+    /**
+     * 引入索引之前的查重：每次注册先按手机号查库
+     */
+    private static final class SelectBeforeInsert extends PhoneExistenceIndex {
+
+        private final UserMapper userMapper;
+
+        SelectBeforeInsert(UserMapper userMapper, MeterRegistry meterRegistry) {
+            super(userMapper, null, meterRegistry, 1, 0.5, 1);
+            this.userMapper = userMapper;
+        }
+
+        @Override
+        public boolean isRegistered(String phone) {
+            return userMapper.findByPhone(phone) != null;
+        }
+
+        @Override
+        public void add(String phone) {
+        }
+    }
+}
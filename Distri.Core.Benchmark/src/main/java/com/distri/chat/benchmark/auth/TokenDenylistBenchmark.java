@@ -0,0 +1,65 @@
+package com.distri.chat.benchmark.auth;
+
+import com.distri.chat.common.auth.TokenDenylist;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 吊销名单热路径查询：名单规模到100万条时，未吊销令牌（绝大多数请求）与已吊销令牌的查询耗时
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Threads(4)
+@State(Scope.Benchmark)
+public class TokenDenylistBenchmark {
+
+    private static final int PROBES = 4096;
+
+    @Param({"10000", "1000000"})
+    public int revokedCount;
+
+    private TokenDenylist denylist;
+    private String[] revoked;
+    private String[] active;
+
+    @Setup
+    public void setup() {
+        denylist = new TokenDenylist(revokedCount, 0.001);
+        long expiresAt = System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1);
+        revoked = new String[PROBES];
+        for (int i = 0; i < revokedCount; i++) {
+            String jti = UUID.randomUUID().toString();
+            denylist.add(jti, expiresAt);
+            if (i < PROBES) {
+                revoked[i] = jti;
+            }
+        }
+        active = new String[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            active[i] = UUID.randomUUID().toString();
+        }
+    }
+
+    @Benchmark
+    public boolean activeToken() {
+        return denylist.contains(active[ThreadLocalRandom.current().nextInt(PROBES)]);
+    }
+
+    @Benchmark
+    public boolean revokedToken() {
+        return denylist.contains(revoked[ThreadLocalRandom.current().nextInt(Math.min(PROBES, revokedCount))]);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void purgeNothingExpired(Blackhole blackhole) {
+        blackhole.consume(denylist.purgeExpired(System.currentTimeMillis()));
+    }
+}
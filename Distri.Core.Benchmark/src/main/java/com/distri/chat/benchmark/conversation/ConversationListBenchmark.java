@@ -0,0 +1,126 @@
+package com.distri.chat.benchmark.conversation;
+
+import com.distri.chat.benchmark.support.Fixtures;
+import com.distri.chat.biz.message.domain.model.ChatMessage;
+import com.distri.chat.biz.message.domain.model.ConversationIds;
+import com.distri.chat.biz.message.domain.service.ConversationService;
+import com.distri.chat.biz.message.infra.cache.ConversationStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 打开应用时加载会话列表的耗时（默认用进程内嵌入式Redis，见 Fixtures.redisConnectionFactory）
+ * <p>
+ * 一个用户预置conversations个会话（单聊与群聊各半，每10个群中1个为带时间线的大群），全部带未读与预览；
+ * 测首页、列表中部的一页，以及一次批量已读。取页为一次脚本往返，耗时应与会话总数基本无关。
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConversationListBenchmark {
+
+    private static final long USER_ID = 1;
+    private static final long GROUP_ID_BASE = 1_000_000_000_000L;
+    private static final int SEED_CHUNK = 500;
+
+    @Param({"100", "5000"})
+    public int conversations;
+
+    @Param({"20"})
+    public int limit;
+
+    private LettuceConnectionFactory connectionFactory;
+    private ConversationService conversationService;
+    private String middleCursor;
+    private List<Long> firstPageIds;
+
+    @Setup
+    public void setup() {
+        connectionFactory = Fixtures.redisConnectionFactory();
+        RedisTemplate<String, Object> redisTemplate = Fixtures.redisTemplate(connectionFactory);
+        flush(redisTemplate);
+
+        ConversationStore store = new ConversationStore(redisTemplate, new ObjectMapper(), 10_000, 3600);
+        // 预览全部命中，不会回源消息表
+        conversationService = new ConversationService(store, null, new SimpleMeterRegistry(), 64, 5000);
+        seed(store, redisTemplate);
+
+        ConversationService.Page page = conversationService.page(USER_ID, null, limit);
+        firstPageIds = page.items().stream().map(ConversationStore.Item::conversationId).toList();
+        for (int skipped = limit; page.hasMore() && skipped < conversations / 2; skipped += limit) {
+            page = conversationService.page(USER_ID, page.nextCursor(), limit);
+        }
+        middleCursor = page.nextCursor();
+    }
+
+    @TearDown
+    public void tearDown() {
+        flush(Fixtures.redisTemplate(connectionFactory));
+        connectionFactory.destroy();
+    }
+
+    @Benchmark
+    public ConversationService.Page firstPage() {
+        return conversationService.page(USER_ID, null, limit);
+    }
+
+    @Benchmark
+    public ConversationService.Page middlePage() {
+        return conversationService.page(USER_ID, middleCursor, limit);
+    }
+
+    /**
+     * 首屏会话全部标记已读；重复执行时未读已清零，测的是脚本本身的开销
+     */
+    @Benchmark
+    public long markFirstPageRead() {
+        return conversationService.markRead(USER_ID, firstPageIds);
+    }
+
+    private void seed(ConversationStore store, RedisTemplate<String, Object> redisTemplate) {
+        long now = System.currentTimeMillis();
+        List<ConversationStore.Activity> activities = new ArrayList<>(SEED_CHUNK);
+        List<ChatMessage> previews = new ArrayList<>(SEED_CHUNK);
+        for (int i = 0; i < conversations; i++) {
+            long conversationId = i % 2 == 0 ? ConversationIds.single(USER_ID, i + 2) : GROUP_ID_BASE + i;
+            long sendTime = now - i * 1000L;
+            long messageId = GROUP_ID_BASE * 1000 + i;
+            activities.add(new ConversationStore.Activity(conversationId, sendTime, messageId, i % 7));
+            previews.add(ChatMessage.builder()
+                    .messageId(messageId)
+                    .conversationId(conversationId)
+                    .senderId(i + 2L)
+                    .content("会话" + i + "的最后一条消息，预览已按长度截断")
+                    .sendTime(sendTime)
+                    .build());
+            if (i % 20 == 1) {
+                redisTemplate.opsForValue().set("distri-chat:group:seq:" + conversationId, "1000");
+                redisTemplate.opsForHash().put("distri-chat:group:cursor:" + conversationId, String.valueOf(USER_ID), "900");
+            }
+            if (activities.size() == SEED_CHUNK || i == conversations - 1) {
+                store.apply(Map.of(USER_ID, activities), List.of(), previews);
+                activities = new ArrayList<>(SEED_CHUNK);
+                previews = new ArrayList<>(SEED_CHUNK);
+            }
+        }
+    }
+
+    private static void flush(RedisTemplate<String, Object> redisTemplate) {
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        });
+    }
+}
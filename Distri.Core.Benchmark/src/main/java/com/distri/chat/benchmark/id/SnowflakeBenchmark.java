@@ -0,0 +1,40 @@
+package com.distri.chat.benchmark.id;
+
+import com.distri.chat.common.id.SnowflakeIdGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 雪花ID发号：多线程争用同一生成器时的单个发号与批量预留
+ * 使用固定workerId，不经Redis租约。发号速率远超每毫秒4096个的序号空间，
+ * 因此放开逻辑时钟领先上限，测的是CAS预留本身的开销而非序号容量
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class SnowflakeBenchmark {
+
+    private SnowflakeIdGenerator generator;
+
+    @Setup
+    public void setup() {
+        generator = new SnowflakeIdGenerator(null, new SimpleMeterRegistry(), 1, Long.MAX_VALUE);
+        generator.init();
+    }
+
+    @Benchmark
+    public long nextId() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    public long[] nextIds64() {
+        return generator.nextIds(64);
+    }
+}
@@ -0,0 +1,409 @@
+package com.distri.chat.benchmark.load;
+
+import com.distri.chat.gateway.delivery.DeliveryTracker;
+import com.distri.chat.gateway.handler.DeliverAckFrameProcessor;
+import com.distri.chat.gateway.protocol.ChatFrame;
+import com.distri.chat.gateway.protocol.FrameType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 可靠投递故障注入（非JMH）
+ * <p>
+ * 真实的 DeliveryTracker（窗口、去重环、积压与重传时间轮）与 DeliverAckFrameProcessor 跑在 --devices 个 EmbeddedChannel 上，
+ * 按 --rate 条/秒轮流向各设备投递，--redeliver-ratio 比例的消息紧接着再投递一次（模拟Kafka重投）。
+ * 设备与网关之间是模拟的有损链路：下行DELIVER与上行DELIVER_ACK各自按 --drop-ratio 丢弃、
+ * 按 --delay-ratio 延迟 (0, --max-delay-millis]（会乱序，且可超过重传超时而引起重复到达）。
+ * 模拟客户端按投递ID维护累计确认位置与其后已收到的ID，每 --ack-interval-millis 回一次累计+选择确认，
+ * 再按消息ID去重后展示。
+ * <p>
+ * 校验：每条消息在其设备上恰好展示一次（无丢失）、同一消息没有以两个投递ID到达（网关侧没有重复投递）、
+ * 重投全部被网关去重、写出的帧全部被确认，且没有连接因重传超限或积压超限被断开。任一校验失败时退出码为1。
+ * EmbeddedChannel不是线程安全的，重传时间轮不启动自身线程，而是由唯一的驱动线程按刻度推进，
+ * 回调与线上一样经 eventLoop().execute 转到连接上执行。
+ */
+public final class DeliveryFaultInjectionTest {
+
+    private final String label;
+    private final int deviceCount;
+    private final double rate;
+    private final Duration duration;
+    private final Duration drain;
+    private final double dropRatio;
+    private final double delayRatio;
+    private final long maxDelayNanos;
+    private final double redeliverRatio;
+    private final long ackIntervalNanos;
+    private final int windowSize;
+    private final long retransmitTimeoutMillis;
+    private final int maxRetransmits;
+    private final long tickMillis;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Timer displayTimer;
+    private final SplittableRandom random;
+    private final List<String> failures = new ArrayList<>();
+
+    // 模拟链路上的在途帧，按到达时刻排序
+    private final PriorityQueue<Packet> network = new PriorityQueue<>(
+            Comparator.comparingLong(Packet::dueNanos).thenComparingLong(Packet::order));
+    // 尚未展示的消息 -> 首次投递时刻
+    private final Map<Long, Long> pending = new HashMap<>();
+
+    private long packetOrder;
+    private long produced;
+    private long redelivered;
+    private long received;
+    private long transportDuplicates;
+    private long redundantDeliveries;
+    private long acksSent;
+    private final long[] dropped = new long[2];
+    private final long[] delayed = new long[2];
+
+    private DeliveryFaultInjectionTest(Map<String, String> args) {
+        this.label = args.getOrDefault("label", "default");
+        this.deviceCount = Integer.parseInt(args.getOrDefault("devices", "200"));
+        this.rate = Double.parseDouble(args.getOrDefault("rate", "20000"));
+        this.duration = Duration.ofSeconds(Long.parseLong(args.getOrDefault("duration", "20")));
+        this.drain = Duration.ofSeconds(Long.parseLong(args.getOrDefault("drain", "30")));
+        this.dropRatio = Double.parseDouble(args.getOrDefault("drop-ratio", "0.05"));
+        this.delayRatio = Double.parseDouble(args.getOrDefault("delay-ratio", "0.1"));
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(args.getOrDefault("max-delay-millis", "300")));
+        this.redeliverRatio = Double.parseDouble(args.getOrDefault("redeliver-ratio", "0.02"));
+        this.ackIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(args.getOrDefault("ack-interval-millis", "20")));
+        this.windowSize = Integer.parseInt(args.getOrDefault("window-size", "64"));
+        this.retransmitTimeoutMillis = Long.parseLong(args.getOrDefault("retransmit-timeout-millis", "200"));
+        this.maxRetransmits = Integer.parseInt(args.getOrDefault("max-retransmits", "5"));
+        this.tickMillis = Long.parseLong(args.getOrDefault("tick-millis", "10"));
+        this.random = new SplittableRandom(Long.parseLong(args.getOrDefault("seed", "42")));
+
+        this.displayTimer = Timer.builder("load.delivery.display")
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .percentilePrecision(3)
+                .distributionStatisticExpiry(Duration.ofDays(1))
+                .distributionStatisticBufferLength(1)
+                .register(meterRegistry);
+    }
+
+    public static void main(String[] argv) throws Exception {
+        Map<String, String> args = parse(argv);
+        DeliveryFaultInjectionTest test = new DeliveryFaultInjectionTest(args);
+        Map<String, Object> report = test.run();
+
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        System.out.println(mapper.writeValueAsString(report));
+        String out = args.get("out");
+        if (out != null) {
+            mapper.writeValue(new File(out), report);
+        }
+        System.exit(test.failures.isEmpty() ? 0 : 1);
+    }
+
+    private Map<String, Object> run() {
+        DeliveryTracker tracker = new DeliveryTracker(meterRegistry, windowSize, 1024, 128,
+                retransmitTimeoutMillis, maxRetransmits, tickMillis);
+        Object retransmitWheel = ReflectionTestUtils.getField(tracker, "retransmitWheel");
+        DeliverAckFrameProcessor ackProcessor = new DeliverAckFrameProcessor(tracker);
+
+        Device[] devices = new Device[deviceCount];
+        for (int i = 0; i < deviceCount; i++) {
+            devices[i] = new Device(i, new EmbeddedChannel());
+        }
+        System.err.printf("[%s] %d台设备，%.0f条/秒，计时%ds；丢包%.1f%%，延迟%.1f%%（至多%dms），重投%.1f%%，重传超时%dms%n",
+                label, deviceCount, rate, duration.toSeconds(), dropRatio * 100, delayRatio * 100,
+                TimeUnit.NANOSECONDS.toMillis(maxDelayNanos), redeliverRatio * 100, retransmitTimeoutMillis);
+
+        long startedAt = System.nanoTime();
+        long until = startedAt + duration.toNanos();
+        long drainUntil = until + drain.toNanos();
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        long nextTick = startedAt + tickNanos;
+        long next = 0;
+        while (true) {
+            long now = System.nanoTime();
+            boolean producing = now < until;
+            if (!producing && pending.isEmpty() && settled(devices) || now >= drainUntil) {
+                break;
+            }
+            for (; producing && startedAt + next * intervalNanos <= now; next++) {
+                produce(tracker, devices[(int) (next % deviceCount)], next + 1, now);
+            }
+            if (now >= nextTick) {
+                ReflectionTestUtils.invokeMethod(retransmitWheel, "advance");
+                nextTick += tickNanos;
+                for (Device device : devices) {
+                    device.channel.runPendingTasks();
+                }
+            }
+            boolean busy = false;
+            for (Device device : devices) {
+                ChatFrame frame;
+                while ((frame = device.channel.readOutbound()) != null) {
+                    transmit(device, frame, false, now);
+                    busy = true;
+                }
+            }
+            Packet packet;
+            while ((packet = network.peek()) != null && packet.dueNanos() <= now) {
+                network.poll();
+                if (packet.uplink()) {
+                    ackProcessor.process(packet.device().channel, packet.frame());
+                } else {
+                    receive(packet.device(), packet.frame(), now);
+                }
+                busy = true;
+            }
+            for (Device device : devices) {
+                if (device.ackPending && now - device.lastAckAt >= ackIntervalNanos) {
+                    transmit(device, device.ack(windowSize), true, now);
+                    acksSent++;
+                }
+            }
+            if (!busy) {
+                LockSupport.parkNanos(100_000);
+            }
+        }
+        double seconds = (System.nanoTime() - startedAt) / 1e9;
+
+        long sent = count("delivery.sent");
+        long acked = count("delivery.acked");
+        long trackerDuplicates = count("delivery.duplicate");
+        long unresponsive = count("delivery.unresponsive");
+        long slowConsumers = count("delivery.slow.consumer");
+        long closed = 0;
+        for (Device device : devices) {
+            if (!device.channel.isActive()) {
+                closed++;
+            }
+        }
+
+        check(pending.isEmpty(), pending.size() + "条消息没有展示（丢失）");
+        check(redundantDeliveries == 0, redundantDeliveries + "条消息以不同的投递ID重复到达");
+        check(trackerDuplicates == redelivered, "网关去重" + trackerDuplicates + "条，重投" + redelivered + "条");
+        check(sent == produced, "写出" + sent + "帧，投递" + produced + "条");
+        check(acked == sent, "确认" + acked + "帧，写出" + sent + "帧");
+        check(unresponsive == 0 && slowConsumers == 0 && closed == 0,
+                "断开连接" + closed + "个（重传超限" + unresponsive + "，积压超限" + slowConsumers + "）");
+        System.err.printf("[%s] 投递%d条，展示%d条，重传%d帧，客户端收到重复帧%d，失败%d项%n",
+                label, produced, produced - pending.size(), count("delivery.retransmit"), transportDuplicates, failures.size());
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("label", label);
+        report.put("devices", deviceCount);
+        report.put("targetRatePerSecond", rate);
+        report.put("durationSeconds", duration.toSeconds());
+        report.put("dropRatio", dropRatio);
+        report.put("delayRatio", delayRatio);
+        report.put("maxDelayMillis", TimeUnit.NANOSECONDS.toMillis(maxDelayNanos));
+        report.put("redeliverRatio", redeliverRatio);
+        report.put("windowSize", windowSize);
+        report.put("retransmitTimeoutMillis", retransmitTimeoutMillis);
+        report.put("elapsedSeconds", round(seconds));
+        report.put("produced", produced);
+        report.put("displayed", produced - pending.size());
+        report.put("lost", pending.size());
+        report.put("redelivered", redelivered);
+        report.put("gatewayDuplicatesDropped", trackerDuplicates);
+        report.put("redundantDeliveries", redundantDeliveries);
+        report.put("framesSent", sent);
+        report.put("framesAcked", acked);
+        report.put("retransmits", count("delivery.retransmit"));
+        report.put("framesReceived", received);
+        report.put("transportDuplicates", transportDuplicates);
+        report.put("acksSent", acksSent);
+        report.put("downlinkDropped", dropped[0]);
+        report.put("downlinkDelayed", delayed[0]);
+        report.put("uplinkDropped", dropped[1]);
+        report.put("uplinkDelayed", delayed[1]);
+        report.put("closedConnections", closed);
+        report.put("firstDisplayMillis", latency(displayTimer));
+        report.put("failures", failures);
+        return report;
+    }
+
+    private void produce(DeliveryTracker tracker, Device device, long messageId, long now) {
+        ChatFrame frame = ChatFrame.builder()
+                .type(FrameType.DELIVER)
+                .seq(messageId)
+                .conversationId(device.index + 1)
+                .messageId(messageId)
+                .body("m" + messageId)
+                .build();
+        pending.put(messageId, now);
+        produced++;
+        tracker.deliver(device.channel, List.of(frame));
+        if (random.nextDouble() < redeliverRatio) {
+            tracker.deliver(device.channel, List.of(frame));
+            redelivered++;
+        }
+    }
+
+    /**
+     * 经模拟链路发出一帧：按比例丢弃，或延迟后到达
+     */
+    private void transmit(Device device, ChatFrame frame, boolean uplink, long now) {
+        int direction = uplink ? 1 : 0;
+        if (random.nextDouble() < dropRatio) {
+            dropped[direction]++;
+            return;
+        }
+        long due = now;
+        if (random.nextDouble() < delayRatio) {
+            due += 1 + random.nextLong(maxDelayNanos);
+            delayed[direction]++;
+        }
+        network.add(new Packet(due, packetOrder++, device, frame, uplink));
+    }
+
+    /**
+     * 客户端收到DELIVER帧：按投递ID推进确认状态，按消息ID去重后展示
+     */
+    private void receive(Device device, ChatFrame frame, long now) {
+        received++;
+        device.ackPending = true;
+        long deliveryId = frame.getDeliveryId();
+        if (deliveryId <= device.cumulative || !device.above.add(deliveryId)) {
+            transportDuplicates++;
+            return;
+        }
+        while (device.above.remove(device.cumulative + 1)) {
+            device.cumulative++;
+        }
+        Long previous = device.displayed.putIfAbsent(frame.getMessageId(), deliveryId);
+        if (previous != null) {
+            redundantDeliveries++;
+            return;
+        }
+        Long producedAt = pending.remove(frame.getMessageId());
+        if (producedAt != null) {
+            displayTimer.record(now - producedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 链路上没有在途帧、客户端没有待发的确认，且网关写出的帧均已被确认
+     */
+    private boolean settled(Device[] devices) {
+        if (!network.isEmpty()) {
+            return false;
+        }
+        for (Device device : devices) {
+            if (device.ackPending) {
+                return false;
+            }
+        }
+        return count("delivery.acked") == count("delivery.sent");
+    }
+
+    private long count(String name) {
+        Counter counter = meterRegistry.find(name).counter();
+        return counter == null ? 0 : (long) counter.count();
+    }
+
+    private void check(boolean condition, String failure) {
+        if (!condition) {
+            failures.add(failure);
+        }
+    }
+
+    private record Packet(long dueNanos, long order, Device device, ChatFrame frame, boolean uplink) {
+    }
+
+    /**
+     * 一台设备：网关一侧的连接与模拟客户端的确认、展示状态
+     */
+    private static final class Device {
+
+        final int index;
+        final EmbeddedChannel channel;
+        // 累计确认位置，及其后已收到的投递ID
+        long cumulative;
+        final Set<Long> above = new HashSet<>();
+        // 已展示的消息ID -> 首次到达的投递ID
+        final Map<Long, Long> displayed = new HashMap<>();
+        boolean ackPending;
+        long lastAckAt;
+
+        Device(int index, EmbeddedChannel channel) {
+            this.index = index;
+            this.channel = channel;
+        }
+
+        /**
+         * 与客户端相同的确认帧：累计位置 + 逗号分隔的选择确认ID（至多一个窗口）
+         */
+        ChatFrame ack(int maxSelective) {
+            StringJoiner selective = new StringJoiner(",");
+            int n = 0;
+            for (Long id : above) {
+                if (n++ == maxSelective) {
+                    break;
+                }
+                selective.add(String.valueOf(id));
+            }
+            ackPending = false;
+            lastAckAt = System.nanoTime();
+            return ChatFrame.builder()
+                    .type(FrameType.DELIVER_ACK)
+                    .deliveryId(cumulative)
+                    .body(n == 0 ? null : selective.toString())
+                    .build();
+        }
+    }
+
+    private static Map<String, Object> latency(Timer timer) {
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        Map<String, Object> latencyMillis = new LinkedHashMap<>();
+        latencyMillis.put("count", snapshot.count());
+        latencyMillis.put("mean", round(snapshot.mean(TimeUnit.MILLISECONDS)));
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            latencyMillis.put("p" + trim(percentile.percentile() * 100), round(percentile.value(TimeUnit.MILLISECONDS)));
+        }
+        latencyMillis.put("max", round(snapshot.max(TimeUnit.MILLISECONDS)));
+        return latencyMillis;
+    }
+
+    private static Map<String, String> parse(String[] argv) {
+        Map<String, String> args = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < argv.length; i += 2) {
+            if (!argv[i].startsWith("--")) {
+                throw new IllegalArgumentException("参数应为 --name value 形式: " + argv[i]);
+            }
+            args.put(argv[i].substring(2), argv[i + 1]);
+        }
+        return args;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    private static String trim(double value) {
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.valueOf(value);
+    }
+}
@@ -0,0 +1,345 @@
+package com.distri.chat.benchmark.load;
+
+import com.distri.chat.biz.ephemeral.domain.model.EphemeralEvent;
+import com.distri.chat.biz.ephemeral.domain.service.EphemeralBroadcaster;
+import com.distri.chat.biz.ephemeral.domain.service.EphemeralDeliveryService;
+import com.distri.chat.biz.ephemeral.domain.service.ReadReceiptService;
+import com.distri.chat.biz.ephemeral.domain.service.TypingService;
+import com.distri.chat.biz.ephemeral.infra.repo.ReadPositionMapper;
+import com.distri.chat.biz.group.infra.cache.GroupMemberCache;
+import com.distri.chat.biz.group.infra.repo.GroupMemberMapper;
+import com.distri.chat.common.metrics.ReductionMeter;
+import com.distri.chat.common.outbox.OutboxWriter;
+import com.distri.chat.gateway.session.LocalChannelRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.File;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 正在输入与已读回执的合并效果模拟（单进程，不依赖Redis/Kafka/MySQL）
+ * <p>
+ * groups个群、每群members个成员全部在线（每人一个连接），群内按messages-per-second持续有新消息，
+ * 每个成员每个tick发现新消息就上报一次已读；其中active-ratio比例的成员在输入，输入期间每
+ * typing-interval-millis上报一次TYPING。上报直接进入 TypingService / ReadReceiptService，
+ * 广播换成进程内按窗口攒批的队列，写库与发件箱换成计数桩（每行发件箱由中继投递为一条Kafka记录），推送写到丢弃输出的EmbeddedChannel。
+ * <p>
+ * 报告每类事件的收到数、合并后发出数与削减比例，以及与“逐条转发”相比的推送帧数、写库行数与Kafka记录数。
+ */
+public final class EphemeralEventLoadTest {
+
+    private static final long GROUP_ID_BASE = 1_000_000_000_000L;
+    private static final long TICK_MILLIS = 250;
+
+    private final String label;
+    private final int groups;
+    private final int members;
+    private final double activeRatio;
+    private final double messagesPerSecond;
+    private final long typingIntervalMillis;
+    private final long typingCollapseMillis;
+    private final long receiptFlushMillis;
+    private final long broadcastWindowMillis;
+    private final Duration duration;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong[] latestMessageIds;
+
+    private final LongAdder pushedFrames = new LongAdder();
+    private final LongAdder broadcastBatches = new LongAdder();
+    private final LongAdder upsertStatements = new LongAdder();
+    private final LongAdder upsertRows = new LongAdder();
+    private final LongAdder kafkaRecords = new LongAdder();
+
+    private EphemeralEventLoadTest(Map<String, String> args) {
+        this.label = args.getOrDefault("label", "default");
+        this.groups = Integer.parseInt(args.getOrDefault("groups", "20"));
+        this.members = Integer.parseInt(args.getOrDefault("members", "500"));
+        this.activeRatio = Double.parseDouble(args.getOrDefault("active-ratio", "0.05"));
+        this.messagesPerSecond = Double.parseDouble(args.getOrDefault("messages-per-second", "2"));
+        this.typingIntervalMillis = Long.parseLong(args.getOrDefault("typing-interval-millis", "1000"));
+        this.typingCollapseMillis = Long.parseLong(args.getOrDefault("typing-collapse-millis", "3000"));
+        this.receiptFlushMillis = Long.parseLong(args.getOrDefault("receipt-flush-millis", "1000"));
+        this.broadcastWindowMillis = Long.parseLong(args.getOrDefault("broadcast-window-millis", "50"));
+        this.duration = Duration.ofSeconds(Long.parseLong(args.getOrDefault("duration", "60")));
+
+        this.latestMessageIds = new AtomicLong[groups];
+        for (int g = 0; g < groups; g++) {
+            latestMessageIds[g] = new AtomicLong();
+        }
+    }
+
+    public static void main(String[] argv) throws Exception {
+        Map<String, String> args = parse(argv);
+        Map<String, Object> report = new EphemeralEventLoadTest(args).run();
+
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        System.out.println(mapper.writeValueAsString(report));
+        String out = args.get("out");
+        if (out != null) {
+            mapper.writeValue(new File(out), report);
+        }
+    }
+
+    private Map<String, Object> run() throws InterruptedException {
+        LocalChannelRegistry channelRegistry = new LocalChannelRegistry();
+        for (int g = 0; g < groups; g++) {
+            for (int m = 0; m < members; m++) {
+                channelRegistry.bind(userId(g, m), "c1", new EmbeddedChannel(new DiscardingHandler()));
+            }
+        }
+        GroupMemberCache groupMemberCache = new GroupMemberCache(groupMemberMapper(), meterRegistry, 10_000, 3600, 3600, 1);
+        EphemeralDeliveryService deliveryService = new EphemeralDeliveryService(
+                channelRegistry, groupMemberCache, meterRegistry, members);
+
+        WindowedBroadcaster broadcaster = new WindowedBroadcaster(deliveryService);
+        TypingService typingService = new TypingService(broadcaster, meterRegistry, typingCollapseMillis, 1_000_000);
+        ReadReceiptService readReceiptService = new ReadReceiptService(
+                readPositionMapper(), new CountingOutboxWriter(), new DirectTransactionTemplate(),
+                broadcaster, meterRegistry, receiptFlushMillis, 500);
+
+        System.err.printf("[%s] %d个群 x %d人，输入比例%.2f，每群%.1f条/秒，计时%ds%n",
+                label, groups, members, activeRatio, messagesPerSecond, duration.toSeconds());
+
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+        broadcaster.start(scheduler);
+        readReceiptService.start();
+        long messagePeriodMicros = (long) (1_000_000 / messagesPerSecond);
+        scheduler.scheduleAtFixedRate(() -> {
+            for (AtomicLong latest : latestMessageIds) {
+                latest.incrementAndGet();
+            }
+        }, messagePeriodMicros, messagePeriodMicros, TimeUnit.MICROSECONDS);
+
+        long until = System.nanoTime() + duration.toNanos();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int g = 0; g < groups; g++) {
+                for (int m = 0; m < members; m++) {
+                    int group = g;
+                    long userId = userId(g, m);
+                    boolean active = ThreadLocalRandom.current().nextDouble() < activeRatio;
+                    clients.submit(() -> member(group, userId, active, until, typingService, readReceiptService));
+                }
+            }
+        }
+
+        scheduler.shutdown();
+        scheduler.awaitTermination(1, TimeUnit.SECONDS);
+        readReceiptService.shutdown();
+        groupMemberCache.shutdown();
+        broadcaster.drain();
+        return report(typingService.reductionMeter(), readReceiptService.reductionMeter());
+    }
+
+    /**
+     * 每个tick发现新消息即上报已读；输入中的成员按间隔上报TYPING，输入2~8秒后停顿同样时长
+     */
+    private void member(int group, long userId, boolean active, long until,
+                        TypingService typingService, ReadReceiptService readReceiptService) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long conversationId = GROUP_ID_BASE + group;
+        long lastRead = 0;
+        long phaseEnd = System.currentTimeMillis() + random.nextLong(2000, 8000);
+        boolean typing = active;
+        long nextTyping = 0;
+        try {
+            Thread.sleep(random.nextLong(TICK_MILLIS));
+            while (System.nanoTime() < until) {
+                long now = System.currentTimeMillis();
+                long latest = latestMessageIds[group].get();
+                if (latest > lastRead) {
+                    readReceiptService.onRead(userId, conversationId, latest);
+                    lastRead = latest;
+                }
+                if (active) {
+                    if (now >= phaseEnd) {
+                        typing = !typing;
+                        phaseEnd = now + random.nextLong(2000, 8000);
+                    }
+                    if (typing && now >= nextTyping) {
+                        typingService.onTyping(userId, conversationId);
+                        nextTyping = now + typingIntervalMillis;
+                    }
+                }
+                Thread.sleep(TICK_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Map<String, Object> report(ReductionMeter typing, ReductionMeter read) {
+        // 逐条转发时：TYPING推给其余成员，READ推给全部成员（含本人设备），每条已读各写一行、各发一条Kafka记录
+        double naivePushes = typing.receivedCount() * (members - 1) + read.receivedCount() * members;
+
+        Map<String, Object> events = new LinkedHashMap<>();
+        events.put("typing", meter(typing));
+        events.put("read", meter(read));
+
+        Map<String, Object> pushes = new LinkedHashMap<>();
+        pushes.put("naive", (long) naivePushes);
+        pushes.put("actual", pushedFrames.sum());
+        pushes.put("reductionRatio", round(naivePushes == 0 ? 0 : 1 - pushedFrames.sum() / naivePushes));
+        pushes.put("broadcastBatches", broadcastBatches.sum());
+
+        Map<String, Object> storage = new LinkedHashMap<>();
+        storage.put("naiveRows", (long) read.receivedCount());
+        storage.put("upsertRows", upsertRows.sum());
+        storage.put("upsertStatements", upsertStatements.sum());
+        storage.put("kafkaRecords", kafkaRecords.sum());
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("label", label);
+        report.put("groups", groups);
+        report.put("membersPerGroup", members);
+        report.put("activeRatio", activeRatio);
+        report.put("messagesPerSecondPerGroup", messagesPerSecond);
+        report.put("durationSeconds", duration.toSeconds());
+        report.put("events", events);
+        report.put("pushes", pushes);
+        report.put("storage", storage);
+        return report;
+    }
+
+    private static Map<String, Object> meter(ReductionMeter meter) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("received", (long) meter.receivedCount());
+        values.put("emitted", (long) meter.emittedCount());
+        values.put("reductionRatio", round(meter.ratio()));
+        return values;
+    }
+
+    private long userId(int group, int member) {
+        return (long) group * members + member + 1;
+    }
+
+    private GroupMemberMapper groupMemberMapper() {
+        return (GroupMemberMapper) Proxy.newProxyInstance(GroupMemberMapper.class.getClassLoader(),
+                new Class<?>[]{GroupMemberMapper.class}, (proxy, method, methodArgs) -> {
+                    if (!method.getName().equals("findUserIds")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    int group = (int) ((long) methodArgs[0] - GROUP_ID_BASE);
+                    List<Long> userIds = new ArrayList<>(members);
+                    for (int m = 0; m < members; m++) {
+                        userIds.add(userId(group, m));
+                    }
+                    return userIds;
+                });
+    }
+
+    private ReadPositionMapper readPositionMapper() {
+        return positions -> {
+            upsertStatements.increment();
+            upsertRows.add(positions.size());
+            return positions.size();
+        };
+    }
+
+    private static Map<String, String> parse(String[] argv) {
+        Map<String, String> args = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < argv.length; i += 2) {
+            if (!argv[i].startsWith("--")) {
+                throw new IllegalArgumentException("参数应为 --name value 形式: " + argv[i]);
+            }
+            args.put(argv[i].substring(2), argv[i + 1]);
+        }
+        return args;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10000) / 10000.0;
+    }
+
+    /**
+     * 代替Redis广播：按窗口攒批后在单个线程上交给本地推送，与 RedisEphemeralRouter 的节奏一致
+     */
+    private final class WindowedBroadcaster implements EphemeralBroadcaster {
+
+        private final ConcurrentLinkedQueue<EphemeralEvent> queue = new ConcurrentLinkedQueue<>();
+        private final EphemeralDeliveryService deliveryService;
+
+        private WindowedBroadcaster(EphemeralDeliveryService deliveryService) {
+            this.deliveryService = deliveryService;
+        }
+
+        private void start(ScheduledExecutorService scheduler) {
+            scheduler.scheduleWithFixedDelay(this::drain, broadcastWindowMillis, broadcastWindowMillis, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void broadcast(EphemeralEvent event) {
+            queue.offer(event);
+        }
+
+        private synchronized void drain() {
+            List<EphemeralEvent> batch = new ArrayList<>();
+            EphemeralEvent event;
+            while ((event = queue.poll()) != null) {
+                batch.add(event);
+            }
+            if (!batch.isEmpty()) {
+                broadcastBatches.increment();
+                deliveryService.deliver(batch);
+            }
+        }
+    }
+
+    private final class CountingOutboxWriter extends OutboxWriter {
+
+        private CountingOutboxWriter() {
+            super(null, null);
+        }
+
+        @Override
+        public void append(String topic, String key, Object event) {
+            kafkaRecords.increment();
+        }
+    }
+
+    /**
+     * 计数桩不需要事务，回调直接执行
+     */
+    private static final class DirectTransactionTemplate extends TransactionTemplate {
+
+        @Override
+        public <T> T execute(TransactionCallback<T> action) {
+            return action.doInTransaction((TransactionStatus) null);
+        }
+    }
+
+    /**
+     * 计数后直接丢弃出站帧，不经过编码
+     */
+    private final class DiscardingHandler extends ChannelOutboundHandlerAdapter {
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            pushedFrames.increment();
+            promise.setSuccess();
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package com.distri.chat.benchmark.load;
+
+import com.distri.chat.benchmark.support.Fixtures;
+import com.distri.chat.biz.group.domain.service.GroupService;
+import com.distri.chat.biz.group.infra.cache.GroupMemberCache;
+import com.distri.chat.biz.group.infra.repo.GroupMemberMapper;
+import com.distri.chat.biz.message.domain.model.ChatMessage;
+import com.distri.chat.biz.message.domain.model.InboxEntry;
+import com.distri.chat.biz.message.domain.service.ConversationService;
+import com.distri.chat.biz.message.domain.service.DeliveryDispatcher;
+import com.distri.chat.biz.message.domain.service.GroupTimelineService;
+import com.distri.chat.biz.message.domain.service.InboxService;
+import com.distri.chat.biz.message.domain.service.MessageFanoutHandler;
+import com.distri.chat.biz.message.infra.cache.ConversationStore;
+import com.distri.chat.biz.message.infra.cache.GroupTimelineStore;
+import com.distri.chat.biz.message.infra.cache.InboxStore;
+import com.distri.chat.biz.message.infra.repo.InboxArchiveMapper;
+import com.distri.chat.common.id.SnowflakeIdGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.io.File;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 群规模扫描：写扩散与读扩散的成本交叉点（非JMH）
+ * <p>
+ * 真实的 MessageFanoutHandler / InboxService / GroupTimelineService / ConversationService 跑在嵌入式Redis上，
+ * 对 --sizes 中的每个群规模各跑两遍：写扩散（阈值取最大值）与读扩散（阈值取0）。每遍先清空Redis，
+ * 以 --batch 条一批扇出 --warmup 条预热消息与 --messages 条计时消息，再随机抽 --readers 个成员从预热之后补拉到最新，
+ * 校验每人恰好拉到 --messages 条。补拉模拟 --active-ratio 比例的活跃成员每 --sync-every 条消息同步一次：写扩散每次拉一页自己的收件箱，
+ * 读扩散每次拉一页本群时间线，并对成员所在的其余 --groups-per-member - 1 个（本轮无新消息的）读扩散群各探查一次。
+ * 推送只计条目数不发送：两种模式推给在线成员的条目相同，不影响比较。
+ * <p>
+ * 报告每条消息的扇出耗时、Redis命令数与内存增量，每个成员补拉的耗时与Redis命令数，
+ * 以及折算到单条消息的总成本：扇出耗时 + 群规模 × 活跃比例 × 每成员补拉耗时 / 消息数。
+ * crossover 为从该规模起直到最大规模读扩散都更便宜的最小群规模（没有则为null），可作为 group.write-diffusion-threshold 的参考；
+ * 交叉点随活跃比例、同步频率与成员所在群数变化，应按线上的实际分布设置这三个参数。
+ * 正式扫描前先用最小规模空跑两种模式各一遍，排除JIT预热。
+ * 有成员补拉条数不符时退出码为1。
+ */
+public final class FanoutCrossoverLoadTest {
+
+    private static final long GROUP_ID_BASE = 1_000L;
+    private static final long QUIET_GROUP_ID_BASE = 100_000L;
+    private static final long USER_ID_BASE = 1_000_000_000L;
+    private static final String MODE_WRITE = "write";
+    private static final String MODE_READ = "read";
+
+    private final String label;
+    private final List<Integer> sizes = new ArrayList<>();
+    private final int messages;
+    private final int warmup;
+    private final int batch;
+    private final int readers;
+    private final double activeRatio;
+    private final int syncEvery;
+    private final int groupsPerMember;
+    private final int contentLength;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SnowflakeIdGenerator idGenerator = new SnowflakeIdGenerator(null, meterRegistry, 1, Long.MAX_VALUE);
+    private long failures;
+    private final List<String> failureSamples = new ArrayList<>();
+
+    private FanoutCrossoverLoadTest(Map<String, String> args) {
+        this.label = args.getOrDefault("label", "default");
+        for (String size : args.getOrDefault("sizes", "20,50,100,200,500,1000,2000,5000").split(",")) {
+            sizes.add(Integer.parseInt(size.trim()));
+        }
+        this.messages = Integer.parseInt(args.getOrDefault("messages", "200"));
+        this.warmup = Integer.parseInt(args.getOrDefault("warmup", "50"));
+        this.batch = Integer.parseInt(args.getOrDefault("batch", "10"));
+        this.readers = Integer.parseInt(args.getOrDefault("readers", "100"));
+        this.activeRatio = Double.parseDouble(args.getOrDefault("active-ratio", "0.1"));
+        this.syncEvery = Integer.parseInt(args.getOrDefault("sync-every", "10"));
+        this.groupsPerMember = Integer.parseInt(args.getOrDefault("groups-per-member", "10"));
+        this.contentLength = Integer.parseInt(args.getOrDefault("content-length", "64"));
+        if (syncEvery <= 0 || syncEvery > InboxService.MAX_SYNC_PAGE_SIZE) {
+            throw new IllegalArgumentException("--sync-every 取值范围为1~" + InboxService.MAX_SYNC_PAGE_SIZE);
+        }
+    }
+
+    public static void main(String[] argv) throws Exception {
+        Map<String, String> args = parse(argv);
+        Map<String, Object> report = new FanoutCrossoverLoadTest(args).run();
+
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        System.out.println(mapper.writeValueAsString(report));
+        String out = args.get("out");
+        if (out != null) {
+            mapper.writeValue(new File(out), report);
+        }
+        System.exit(((Number) report.get("failedReaders")).longValue() == 0 ? 0 : 1);
+    }
+
+    private Map<String, Object> run() {
+        idGenerator.init();
+        LettuceConnectionFactory connectionFactory = Fixtures.redisConnectionFactory();
+        try {
+            RedisTemplate<String, Object> redisTemplate = Fixtures.redisTemplate(connectionFactory);
+            InboxArchiveMapper archiveMapper = Fixtures.sqlSessionManager(Fixtures.h2DataSource("fanout_crossover"),
+                    InboxArchiveMapper.class).getMapper(InboxArchiveMapper.class);
+
+            runMode(redisTemplate, archiveMapper, GROUP_ID_BASE - 1, sizes.get(0), MODE_WRITE);
+            runMode(redisTemplate, archiveMapper, GROUP_ID_BASE - 1, sizes.get(0), MODE_READ);
+            failures = 0;
+            failureSamples.clear();
+
+            List<Map<String, Object>> rows = new ArrayList<>();
+            boolean[] readCheaper = new boolean[sizes.size()];
+            for (int i = 0; i < sizes.size(); i++) {
+                int size = sizes.get(i);
+                long groupId = GROUP_ID_BASE + i;
+                Map<String, Object> write = runMode(redisTemplate, archiveMapper, groupId, size, MODE_WRITE);
+                Map<String, Object> read = runMode(redisTemplate, archiveMapper, groupId, size, MODE_READ);
+
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("groupSize", size);
+                row.put(MODE_WRITE, write);
+                row.put(MODE_READ, read);
+                double writeTotal = (double) write.get("totalMillisPerMessage");
+                double readTotal = (double) read.get("totalMillisPerMessage");
+                row.put("readToWriteRatio", round(readTotal / writeTotal));
+                rows.add(row);
+                readCheaper[i] = readTotal < writeTotal;
+                System.err.printf("[%s] %d人：写扩散%.3fms/条，读扩散%.3fms/条%n", label, size, writeTotal, readTotal);
+            }
+
+            Integer crossover = null;
+            for (int i = sizes.size() - 1; i >= 0 && readCheaper[i]; i--) {
+                crossover = sizes.get(i);
+            }
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("label", label);
+            report.put("messages", messages);
+            report.put("batch", batch);
+            report.put("readers", readers);
+            report.put("activeRatio", activeRatio);
+            report.put("syncEvery", syncEvery);
+            report.put("groupsPerMember", groupsPerMember);
+            report.put("failedReaders", failures);
+            report.put("failureSamples", failureSamples);
+            report.put("crossover", crossover);
+            report.put("sizes", rows);
+            return report;
+        } finally {
+            flush(Fixtures.redisTemplate(connectionFactory));
+            connectionFactory.destroy();
+        }
+    }
+
+    private Map<String, Object> runMode(RedisTemplate<String, Object> redisTemplate, InboxArchiveMapper archiveMapper,
+                                        long groupId, int size, String mode) {
+        flush(redisTemplate);
+        GroupMemberCache groupMemberCache = new GroupMemberCache(groupMemberMapper(size), meterRegistry,
+                groupsPerMember + 1, 3600, 3600, 1);
+        try {
+            InboxService inboxService = new InboxService(new InboxStore(redisTemplate, objectMapper, 3600),
+                    archiveMapper, null, meterRegistry, Math.max(1000, warmup + messages), 200);
+            GroupTimelineService groupTimelineService = new GroupTimelineService(
+                    new GroupTimelineStore(redisTemplate, Math.max(5000, warmup + messages)),
+                    new GroupService(null, null, groupMemberCache, Integer.MAX_VALUE), inboxService);
+            ConversationService conversationService = new ConversationService(
+                    new ConversationStore(redisTemplate, objectMapper, 10_000, 3600), null, meterRegistry, 64, 5000);
+            CountingDispatcher dispatcher = new CountingDispatcher(meterRegistry);
+            MessageFanoutHandler handler = new MessageFanoutHandler(inboxService, groupTimelineService, groupMemberCache,
+                    dispatcher, conversationService, meterRegistry, MODE_WRITE.equals(mode) ? Integer.MAX_VALUE : 0);
+            groupMemberCache.getMembers(groupId);
+
+            fanout(handler, groupId, warmup);
+            dispatcher.pushed = 0;
+            long commandsBefore = totalCommands(redisTemplate);
+            long memoryBefore = usedMemory(redisTemplate);
+            long startedAt = System.nanoTime();
+            fanout(handler, groupId, messages);
+            double fanoutMillis = (System.nanoTime() - startedAt) / 1e6;
+            long memoryAfter = usedMemory(redisTemplate);
+            // 减去两次INFO memory与第一次INFO commandstats自身
+            long fanoutCommands = totalCommands(redisTemplate) - commandsBefore - 3;
+
+            long syncCommandsBefore = totalCommands(redisTemplate);
+            long syncStartedAt = System.nanoTime();
+            for (int i = 0; i < readers; i++) {
+                long userId = USER_ID_BASE + ThreadLocalRandom.current().nextInt(size);
+                catchUp(inboxService, groupTimelineService, groupId, userId, mode);
+            }
+            double catchUpMillis = (System.nanoTime() - syncStartedAt) / 1e6 / readers;
+            long syncCommands = totalCommands(redisTemplate) - syncCommandsBefore - 1;
+
+            double fanoutPerMessage = fanoutMillis / messages;
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("fanoutMillisPerMessage", round3(fanoutPerMessage));
+            result.put("fanoutRedisCommandsPerMessage", round(fanoutCommands / (double) messages));
+            result.put("redisBytesPerMessage", Math.round((memoryAfter - memoryBefore) / (double) messages));
+            result.put("pushedPerMessage", round(dispatcher.pushed / (double) messages));
+            result.put("catchUpMillisPerMember", round3(catchUpMillis));
+            result.put("catchUpRedisCommandsPerMember", round(syncCommands / (double) readers));
+            result.put("totalMillisPerMessage", round3(fanoutPerMessage + size * activeRatio * catchUpMillis / messages));
+            return result;
+        } finally {
+            groupMemberCache.shutdown();
+        }
+    }
+
+    private void fanout(MessageFanoutHandler handler, long groupId, int count) {
+        String content = "x".repeat(contentLength);
+        List<ChatMessage> pending = new ArrayList<>(batch);
+        for (int i = 0; i < count; i++) {
+            long messageId = idGenerator.nextId();
+            long senderId = USER_ID_BASE;
+            pending.add(ChatMessage.builder()
+                    .messageId(messageId)
+                    .conversationId(groupId)
+                    .senderId(senderId)
+                    .senderClientId("load_" + senderId)
+                    .clientSeq(messageId)
+                    .content(content)
+                    .sendTime(SnowflakeIdGenerator.timestampOf(messageId))
+                    .build());
+            if (pending.size() == batch || i == count - 1) {
+                handler.handle(pending);
+                pending = new ArrayList<>(batch);
+            }
+        }
+    }
+
+    /**
+     * 从预热之后每次一页补拉到最新，校验恰好拉到本轮计时的全部消息；读扩散每次同步还要探查成员所在的其余群
+     */
+    private void catchUp(InboxService inboxService, GroupTimelineService groupTimelineService,
+                         long groupId, long userId, String mode) {
+        long cursor = warmup;
+        int received = 0;
+        InboxService.SyncResult result;
+        do {
+            if (MODE_WRITE.equals(mode)) {
+                result = inboxService.sync(userId, cursor, syncEvery);
+            } else {
+                result = groupTimelineService.sync(userId, groupId, cursor, syncEvery);
+                for (int k = 1; k < groupsPerMember; k++) {
+                    groupTimelineService.sync(userId, QUIET_GROUP_ID_BASE + k, 0, syncEvery);
+                }
+            }
+            for (InboxEntry entry : result.entries()) {
+                if (entry.getMessage() == null) {
+                    fail(userId, mode, "缺少正文：seq=" + entry.getSeq());
+                    return;
+                }
+                cursor = entry.getSeq();
+                received++;
+            }
+        } while (result.hasMore() && !result.entries().isEmpty());
+        if (received != messages) {
+            fail(userId, mode, "补拉" + received + "条，期望" + messages);
+        }
+    }
+
+    private void fail(long userId, String mode, String reason) {
+        failures++;
+        if (failureSamples.size() < 10) {
+            failureSamples.add(mode + " userId=" + userId + " " + reason);
+        }
+    }
+
+    /**
+     * 任一群的成员都是 USER_ID_BASE 起连续的 size 个用户，发送者为其中第一个
+     */
+    private static GroupMemberMapper groupMemberMapper(int size) {
+        return (GroupMemberMapper) Proxy.newProxyInstance(GroupMemberMapper.class.getClassLoader(),
+                new Class<?>[]{GroupMemberMapper.class}, (proxy, method, methodArgs) -> {
+                    if (!method.getName().equals("findUserIds")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    List<Long> userIds = new ArrayList<>(size);
+                    for (int m = 0; m < size; m++) {
+                        userIds.add(USER_ID_BASE + m);
+                    }
+                    return userIds;
+                });
+    }
+
+    /**
+     * 只计推送条目数，不投递
+     */
+    private static final class CountingDispatcher extends DeliveryDispatcher {
+
+        private long pushed;
+
+        CountingDispatcher(MeterRegistry meterRegistry) {
+            super(null, null, null, meterRegistry);
+        }
+
+        @Override
+        public void dispatch(List<InboxEntry> entries) {
+            pushed += entries.size();
+        }
+    }
+
+    private static long totalCommands(RedisTemplate<String, Object> redisTemplate) {
+        Properties stats = redisTemplate.execute((RedisCallback<Properties>) connection ->
+                connection.serverCommands().info("commandstats"));
+        long total = 0;
+        if (stats != null) {
+            for (String value : stats.stringPropertyNames()) {
+                String line = stats.getProperty(value);
+                int from = line.indexOf("calls=");
+                if (from >= 0) {
+                    total += Long.parseLong(line.substring(from + 6, line.indexOf(',', from)));
+                }
+            }
+        }
+        return total;
+    }
+
+    private static long usedMemory(RedisTemplate<String, Object> redisTemplate) {
+        Properties stats = redisTemplate.execute((RedisCallback<Properties>) connection ->
+                connection.serverCommands().info("memory"));
+        return stats == null ? 0 : Long.parseLong(stats.getProperty("used_memory", "0"));
+    }
+
+    private static void flush(RedisTemplate<String, Object> redisTemplate) {
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        });
+    }
+
+    private static Map<String, String> parse(String[] argv) {
+        Map<String, String> args = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < argv.length; i += 2) {
+            if (!argv[i].startsWith("--")) {
+                throw new IllegalArgumentException("参数应为 --name value 形式: " + argv[i]);
+            }
+            args.put(argv[i].substring(2), argv[i + 1]);
+        }
+        return args;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    private static double round3(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
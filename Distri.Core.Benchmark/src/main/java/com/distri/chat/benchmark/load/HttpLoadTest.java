@@ -0,0 +1,189 @@
+package com.distri.chat.benchmark.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 闭环HTTP压测：固定数量的并发客户端各自循环发请求，收到响应后立即发下一个。
+ * 每个客户端是一个虚拟线程，1万并发不需要1万个平台线程；预热期内的请求不计入结果。
+ * <p>
+ * 用于对比服务端平台线程与虚拟线程两种模式（spring.threads.virtual.enabled），
+ * 目标接口应包含阻塞的数据库/Redis访问，例如 /api/messages/history。用法见 scripts/loadtest.sh。
+ */
+public final class HttpLoadTest {
+
+    private final String label;
+    private final URI uri;
+    private final String token;
+    private final int concurrency;
+    private final Duration warmup;
+    private final Duration duration;
+    private final Duration requestTimeout;
+
+    private final Timer succeeded;
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder ioErrors = new LongAdder();
+    private final Map<Integer, LongAdder> failedByStatus = new ConcurrentHashMap<>();
+
+    private HttpLoadTest(Map<String, String> args) {
+        this.label = args.getOrDefault("label", "default");
+        this.uri = URI.create(required(args, "url"));
+        this.token = args.get("token");
+        this.concurrency = Integer.parseInt(args.getOrDefault("concurrency", "10000"));
+        this.warmup = Duration.ofSeconds(Long.parseLong(args.getOrDefault("warmup", "15")));
+        this.duration = Duration.ofSeconds(Long.parseLong(args.getOrDefault("duration", "60")));
+        this.requestTimeout = Duration.ofSeconds(Long.parseLong(args.getOrDefault("timeout", "30")));
+
+        this.succeeded = Timer.builder("load.request")
+                .publishPercentiles(0.5, 0.9, 0.99, 0.999)
+                .percentilePrecision(3)
+                // 整个压测只有一个统计窗口，避免分位数随时间衰减
+                .distributionStatisticExpiry(warmup.plus(duration).multipliedBy(2))
+                .distributionStatisticBufferLength(1)
+                .register(new SimpleMeterRegistry());
+    }
+
+    public static void main(String[] argv) throws Exception {
+        Map<String, String> args = parse(argv);
+        Map<String, Object> report = new HttpLoadTest(args).run();
+
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        String json = mapper.writeValueAsString(report);
+        System.out.println(json);
+        String out = args.get("out");
+        if (out != null) {
+            mapper.writeValue(new File(out), report);
+        }
+    }
+
+    private Map<String, Object> run() throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(requestTimeout)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri).timeout(requestTimeout).GET();
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        HttpRequest request = builder.build();
+
+        long startedAt = System.nanoTime();
+        long measureFrom = startedAt + warmup.toNanos();
+        long measureUntil = measureFrom + duration.toNanos();
+
+        System.err.printf("[%s] %d并发 -> %s，预热%ds，计时%ds%n",
+                label, concurrency, uri, warmup.toSeconds(), duration.toSeconds());
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                clients.submit(() -> loop(client, request, measureFrom, measureUntil));
+            }
+        }
+        return report();
+    }
+
+    private void loop(HttpClient client, HttpRequest request, long measureFrom, long measureUntil) {
+        while (true) {
+            long start = System.nanoTime();
+            if (start >= measureUntil) {
+                return;
+            }
+            boolean measured = start >= measureFrom;
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                if (!measured) {
+                    continue;
+                }
+                if (response.statusCode() / 100 == 2) {
+                    succeeded.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                } else {
+                    failedByStatus.computeIfAbsent(response.statusCode(), s -> new LongAdder()).increment();
+                }
+            } catch (HttpTimeoutException e) {
+                if (measured) {
+                    timeouts.increment();
+                }
+            } catch (IOException e) {
+                if (measured) {
+                    ioErrors.increment();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private Map<String, Object> report() {
+        HistogramSnapshot snapshot = succeeded.takeSnapshot();
+        Map<String, Object> latencyMillis = new LinkedHashMap<>();
+        latencyMillis.put("mean", round(snapshot.mean(TimeUnit.MILLISECONDS)));
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            latencyMillis.put("p" + trim(percentile.percentile() * 100), round(percentile.value(TimeUnit.MILLISECONDS)));
+        }
+        latencyMillis.put("max", round(snapshot.max(TimeUnit.MILLISECONDS)));
+
+        Map<String, Long> failures = new LinkedHashMap<>();
+        failedByStatus.forEach((status, count) -> failures.put("http_" + status, count.sum()));
+        failures.put("timeout", timeouts.sum());
+        failures.put("io", ioErrors.sum());
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("label", label);
+        report.put("url", uri.toString());
+        report.put("concurrency", concurrency);
+        report.put("durationSeconds", duration.toSeconds());
+        report.put("succeeded", snapshot.count());
+        report.put("throughputPerSecond", round(snapshot.count() / (double) duration.toSeconds()));
+        report.put("latencyMillis", latencyMillis);
+        report.put("failures", failures);
+        return report;
+    }
+
+    private static Map<String, String> parse(String[] argv) {
+        Map<String, String> args = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < argv.length; i += 2) {
+            if (!argv[i].startsWith("--")) {
+                throw new IllegalArgumentException("参数应为 --name value 形式: " + argv[i]);
+            }
+            args.put(argv[i].substring(2), argv[i + 1]);
+        }
+        return args;
+    }
+
+    private static String required(Map<String, String> args, String name) {
+        String value = args.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("缺少参数 --" + name);
+        }
+        return value;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    private static String trim(double value) {
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.valueOf(value);
+    }
+}
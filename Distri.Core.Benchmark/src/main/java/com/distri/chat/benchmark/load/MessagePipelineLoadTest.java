@@ -0,0 +1,312 @@
+package com.distri.chat.benchmark.load;
+
+import com.distri.chat.benchmark.support.Fixtures;
+import com.distri.chat.biz.group.infra.cache.GroupMemberCache;
+import com.distri.chat.biz.message.domain.model.ChatMessage;
+import com.distri.chat.biz.message.domain.model.ConversationIds;
+import com.distri.chat.biz.message.domain.service.ConversationAccess;
+import com.distri.chat.biz.message.domain.service.MessageBatchHandler;
+import com.distri.chat.biz.message.domain.service.MessagePersistHandler;
+import com.distri.chat.biz.message.domain.service.MessageSendService;
+import com.distri.chat.biz.message.infra.cache.MessageDedupStore;
+import com.distri.chat.biz.message.infra.mq.MessageBatchConsumer;
+import com.distri.chat.biz.message.infra.mq.MessageProducer;
+import com.distri.chat.biz.message.infra.repo.MessageMapper;
+import com.distri.chat.biz.message.infra.repo.MessageShardRouter;
+import com.distri.chat.biz.message.infra.repo.MessageStore;
+import com.distri.chat.common.id.SnowflakeIdGenerator;
+import com.distri.chat.config.KafkaConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.ssl.DefaultSslBundleRegistry;
+import org.springframework.core.annotation.AnnotationAwareOrderComparator;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.BatchMessageListener;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 消息管道端到端压测：发送 -> Kafka -> 批量消费 -> 持久化 -> 投递（非JMH）
+ * <p>
+ * 在本进程内启动单节点嵌入式Kafka（KRaft），消息主题按线上默认3个分区创建。发送端是真实的
+ * MessageSendService + MessageProducer（含linger/batch/压缩与max.block.ms收紧后的模板，重发去重记录在嵌入式Redis上），
+ * 由单个线程按 --rate 开环匀速发送，模拟EventLoop；消费端用 KafkaConfig 中的批量监听容器工厂，
+ * 经 MessageBatchConsumer 依次交给持久化（嵌入式H2上的分表存储）与一个记录投递时刻的末端环节，
+ * 后者代替扇出推送。
+ * <p>
+ * 报告发送到回执（写入Kafka成功）与发送到投递的p50/p99、吞吐、消费批大小，以及丢失与重复投递数。
+ * 嵌入式单节点没有副本同步与网络往返，数字是管道自身开销的下界。
+ */
+public final class MessagePipelineLoadTest {
+
+    private static final long USER_ID_BASE = 1_000_000_000L;
+
+    private final String label;
+    private final double rate;
+    private final int conversations;
+    private final int contentLength;
+    private final Duration warmup;
+    private final Duration duration;
+    private final int lingerMs;
+    private final int batchSize;
+    private final String compression;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Timer ackTimer;
+    private final Timer deliverTimer;
+    // 计时窗口内发出、尚未投递的消息：clientSeq -> 发送时刻
+    private final Map<Long, Long> inFlight = new ConcurrentHashMap<>();
+    private final Set<Long> deliveredSeqs = ConcurrentHashMap.newKeySet();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder sendFailures = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+
+    private volatile long measureFrom;
+
+    private MessagePipelineLoadTest(Map<String, String> args) {
+        this.label = args.getOrDefault("label", "default");
+        this.rate = Double.parseDouble(args.getOrDefault("rate", "5000"));
+        this.conversations = Integer.parseInt(args.getOrDefault("conversations", "1000"));
+        this.contentLength = Integer.parseInt(args.getOrDefault("content-length", "64"));
+        this.warmup = Duration.ofSeconds(Long.parseLong(args.getOrDefault("warmup", "10")));
+        this.duration = Duration.ofSeconds(Long.parseLong(args.getOrDefault("duration", "30")));
+        this.lingerMs = Integer.parseInt(args.getOrDefault("linger-ms", "5"));
+        this.batchSize = Integer.parseInt(args.getOrDefault("batch-size", "65536"));
+        this.compression = args.getOrDefault("compression", "lz4");
+
+        this.ackTimer = latencyTimer("load.pipeline.ack");
+        this.deliverTimer = latencyTimer("load.pipeline.deliver");
+    }
+
+    public static void main(String[] argv) throws Exception {
+        Map<String, String> args = parse(argv);
+        Map<String, Object> report = new MessagePipelineLoadTest(args).run();
+
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        System.out.println(mapper.writeValueAsString(report));
+        String out = args.get("out");
+        if (out != null) {
+            mapper.writeValue(new File(out), report);
+        }
+    }
+
+    private Map<String, Object> run() throws InterruptedException {
+        EmbeddedKafkaKraftBroker broker = new EmbeddedKafkaKraftBroker(1, 3, KafkaConfig.MESSAGE_TOPIC);
+        broker.afterPropertiesSet();
+        ConcurrentMessageListenerContainer<String, String> container = null;
+        ProducerFactory<String, String> producerFactory = null;
+        LettuceConnectionFactory connectionFactory = Fixtures.redisConnectionFactory();
+        MessageDedupStore dedupStore = null;
+        try {
+            RedisTemplate<String, Object> redisTemplate = Fixtures.redisTemplate(connectionFactory);
+            flush(redisTemplate);
+            KafkaProperties kafkaProperties = new KafkaProperties();
+            kafkaProperties.setBootstrapServers(List.of(broker.getBrokersAsString()));
+            kafkaProperties.getConsumer().setAutoOffsetReset("earliest");
+            DefaultSslBundleRegistry sslBundles = new DefaultSslBundleRegistry();
+            KafkaConfig kafkaConfig = new KafkaConfig();
+            ReflectionTestUtils.setField(kafkaConfig, "messagePartitions", 3);
+            ObjectMapper objectMapper = new ObjectMapper();
+
+            producerFactory = kafkaConfig.producerFactory(kafkaProperties, sslBundles, meterRegistry, lingerMs, batchSize, compression);
+            KafkaTemplate<String, String> template = kafkaConfig.messageKafkaTemplate(producerFactory, 200);
+            SnowflakeIdGenerator idGenerator = new SnowflakeIdGenerator(null, meterRegistry, 1, 2000);
+            idGenerator.init();
+            dedupStore = new MessageDedupStore(redisTemplate, 600, 4);
+            MessageSendService sendService = new MessageSendService(new MessageProducer(template, objectMapper), idGenerator,
+                    new ConversationAccess(new GroupMemberCache(null, meterRegistry, 1, 60, 600, 1)), dedupStore, meterRegistry);
+
+            MessageMapper messageMapper = Fixtures.sqlSessionManager(Fixtures.h2DataSource("message_pipeline"), MessageMapper.class)
+                    .getMapper(MessageMapper.class);
+            DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+            beanFactory.setDependencyComparator(AnnotationAwareOrderComparator.INSTANCE);
+            beanFactory.registerSingleton("persist", new MessagePersistHandler(
+                    new MessageStore(messageMapper, new MessageShardRouter(8), meterRegistry, 500)));
+            beanFactory.registerSingleton("deliver", (MessageBatchHandler) this::onDelivered);
+            MessageBatchConsumer consumer = new MessageBatchConsumer(objectMapper,
+                    beanFactory.getBeanProvider(MessageBatchHandler.class), meterRegistry);
+
+            container = kafkaConfig.batchKafkaListenerContainerFactory(kafkaProperties, sslBundles, meterRegistry, 500, 16384, 20, false)
+                    .createContainer(KafkaConfig.MESSAGE_TOPIC);
+            container.getContainerProperties().setGroupId("distri-chat-message-load");
+            container.getContainerProperties().getKafkaConsumerProperties()
+                    .setProperty(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+            container.setupMessageListener((BatchMessageListener<String, String>) consumer::onMessages);
+            container.start();
+
+            System.err.printf("[%s] %.0f条/秒，%d个单聊会话，预热%ds，计时%ds，linger=%dms batch=%d %s%n",
+                    label, rate, conversations, warmup.toSeconds(), duration.toSeconds(), lingerMs, batchSize, compression);
+            String content = "x".repeat(contentLength);
+            long startedAt = System.nanoTime();
+            measureFrom = startedAt + warmup.toNanos();
+            long until = measureFrom + duration.toNanos();
+            long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+            for (long i = 0; ; i++) {
+                long due = startedAt + i * intervalNanos;
+                if (due >= until) {
+                    break;
+                }
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                send(sendService, i, content);
+            }
+
+            // 等待在途消息投递完成
+            long drainUntil = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (!inFlight.isEmpty() && System.nanoTime() < drainUntil) {
+                Thread.sleep(100);
+            }
+            return report();
+        } finally {
+            if (container != null) {
+                container.stop();
+            }
+            if (producerFactory != null) {
+                producerFactory.reset();
+            }
+            broker.destroy();
+            if (dedupStore != null) {
+                dedupStore.shutdown();
+            }
+            flush(Fixtures.redisTemplate(connectionFactory));
+            connectionFactory.destroy();
+        }
+    }
+
+    private static void flush(RedisTemplate<String, Object> redisTemplate) {
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        });
+    }
+
+    /**
+     * 第i条消息以i为clientSeq，投递端据此找回发送时刻
+     */
+    private void send(MessageSendService sendService, long i, String content) {
+        long sender = USER_ID_BASE + i % conversations;
+        long conversationId = ConversationIds.single(sender, sender + conversations);
+        long startedAt = System.nanoTime();
+        boolean measured = startedAt >= measureFrom;
+        if (measured) {
+            inFlight.put(i, startedAt);
+        }
+        try {
+            sendService.send(sender, "load_" + sender, conversationId, i, content).whenComplete((message, ex) -> {
+                if (ex != null) {
+                    sendFailures.increment();
+                    inFlight.remove(i);
+                } else if (measured) {
+                    ackTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                }
+            });
+            sent.increment();
+        } catch (RuntimeException e) {
+            sendFailures.increment();
+            inFlight.remove(i);
+        }
+    }
+
+    private void onDelivered(List<ChatMessage> messages) {
+        long now = System.nanoTime();
+        for (ChatMessage message : messages) {
+            long clientSeq = message.getClientSeq();
+            if (!deliveredSeqs.add(clientSeq)) {
+                duplicates.increment();
+                continue;
+            }
+            Long startedAt = inFlight.remove(clientSeq);
+            if (startedAt != null) {
+                deliverTimer.record(now - startedAt, TimeUnit.NANOSECONDS);
+                delivered.increment();
+            }
+        }
+    }
+
+    private Map<String, Object> report() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("label", label);
+        report.put("targetRatePerSecond", rate);
+        report.put("conversations", conversations);
+        report.put("durationSeconds", duration.toSeconds());
+        report.put("sent", sent.sum());
+        report.put("sendFailures", sendFailures.sum());
+        report.put("ackedInWindow", ackTimer.count());
+        report.put("deliveredInWindow", delivered.sum());
+        report.put("missing", inFlight.size());
+        report.put("duplicates", duplicates.sum());
+        report.put("throughputPerSecond", round(ackTimer.count() / (double) duration.toSeconds()));
+        report.put("sendToAckMillis", latency(ackTimer));
+        report.put("sendToDeliverMillis", latency(deliverTimer));
+        DistributionSummary batch = meterRegistry.find("message.consume.batch.size").summary();
+        report.put("meanConsumeBatchSize", batch == null ? 0 : round(batch.mean()));
+        return report;
+    }
+
+    private Timer latencyTimer(String name) {
+        return Timer.builder(name)
+                .publishPercentiles(0.5, 0.9, 0.99, 0.999)
+                .percentilePrecision(3)
+                .distributionStatisticExpiry(Duration.ofDays(1))
+                .distributionStatisticBufferLength(1)
+                .register(meterRegistry);
+    }
+
+    private static Map<String, Object> latency(Timer timer) {
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        Map<String, Object> latencyMillis = new LinkedHashMap<>();
+        latencyMillis.put("mean", round(snapshot.mean(TimeUnit.MILLISECONDS)));
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            latencyMillis.put("p" + trim(percentile.percentile() * 100), round(percentile.value(TimeUnit.MILLISECONDS)));
+        }
+        latencyMillis.put("max", round(snapshot.max(TimeUnit.MILLISECONDS)));
+        return latencyMillis;
+    }
+
+    private static Map<String, String> parse(String[] argv) {
+        Map<String, String> args = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < argv.length; i += 2) {
+            if (!argv[i].startsWith("--")) {
+                throw new IllegalArgumentException("参数应为 --name value 形式: " + argv[i]);
+            }
+            args.put(argv[i].substring(2), argv[i + 1]);
+        }
+        return args;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    private static String trim(double value) {
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.valueOf(value);
+    }
+}
@@ -0,0 +1,261 @@
+package com.distri.chat.benchmark.load;
+
+import com.distri.chat.benchmark.support.Fixtures;
+import com.distri.chat.biz.message.domain.model.ChatMessage;
+import com.distri.chat.biz.message.domain.model.ConversationIds;
+import com.distri.chat.biz.message.infra.repo.MessageMapper;
+import com.distri.chat.biz.message.infra.repo.MessageShardRouter;
+import com.distri.chat.biz.message.infra.repo.MessageStore;
+import com.distri.chat.common.id.SnowflakeIdGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个会话增长到数百万条时的写入速率与翻页耗时（非JMH）
+ * <p>
+ * 真实的 MessageStore（分表路由 + 多行INSERT + 主键游标）跑在嵌入式H2（MySQL兼容模式）上。
+ * 一个单聊会话分 --checkpoints 段写到 --rows 条，每段内按 --batch 条一次多行INSERT，
+ * 段末各采样 --samples 次：最新一页、随机深度向前翻一页、随机位置向后补拉一页。
+ * 计时前先往另一个会话写 --warmup-rows 条并翻页，让首段不含JIT预热。
+ * 报告每段的写入速率与INSERT耗时、三种翻页的分位数，以及末段相对首段的比值；
+ * 游标分页的耗时应与会话已有条数无关，比值应接近1。
+ * <p>
+ * H2是内存数据库，没有磁盘与网络耗时，只用于观察随数据量的变化趋势；数百万行需要 -Xmx2g 以上。
+ */
+public final class MessageShardGrowthTest {
+
+    private static final long SENDER_ID = 1_000_000_001L;
+    private static final long RECEIVER_ID = 1_000_000_002L;
+    private static final long WARMUP_RECEIVER_ID = 1_000_000_003L;
+
+    private final String label;
+    private final long rows;
+    private final int checkpoints;
+    private final int batch;
+    private final int pageSize;
+    private final int samples;
+    private final int contentLength;
+    private final long warmupRows;
+
+    private MessageShardGrowthTest(Map<String, String> args) {
+        this.label = args.getOrDefault("label", "default");
+        this.rows = Long.parseLong(args.getOrDefault("rows", "2000000"));
+        this.checkpoints = Integer.parseInt(args.getOrDefault("checkpoints", "10"));
+        this.batch = Integer.parseInt(args.getOrDefault("batch", "500"));
+        this.pageSize = Integer.parseInt(args.getOrDefault("page-size", "20"));
+        this.samples = Integer.parseInt(args.getOrDefault("samples", "2000"));
+        this.contentLength = Integer.parseInt(args.getOrDefault("content-length", "64"));
+        this.warmupRows = Long.parseLong(args.getOrDefault("warmup-rows", "100000"));
+    }
+
+    public static void main(String[] argv) throws Exception {
+        Map<String, String> args = parse(argv);
+        Map<String, Object> report = new MessageShardGrowthTest(args).run();
+
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        System.out.println(mapper.writeValueAsString(report));
+        String out = args.get("out");
+        if (out != null) {
+            mapper.writeValue(new File(out), report);
+        }
+    }
+
+    private Map<String, Object> run() {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        MessageMapper messageMapper = Fixtures.sqlSessionManager(Fixtures.h2DataSource("message_shard_growth"), MessageMapper.class)
+                .getMapper(MessageMapper.class);
+        MessageStore store = new MessageStore(messageMapper, new MessageShardRouter(8), meterRegistry, batch);
+        SnowflakeIdGenerator idGenerator = new SnowflakeIdGenerator(null, meterRegistry, 1, Long.MAX_VALUE);
+        idGenerator.init();
+
+        long conversationId = ConversationIds.single(SENDER_ID, RECEIVER_ID);
+        String content = "x".repeat(contentLength);
+        warmup(store, idGenerator, meterRegistry, content);
+        long segmentRows = rows / checkpoints;
+        System.err.printf("[%s] 会话%d写入%d条，分%d段，每批%d条，每段采样%d次%n",
+                label, conversationId, rows, checkpoints, batch, samples);
+
+        List<Map<String, Object>> segments = new ArrayList<>();
+        long written = 0;
+        long firstId = 0;
+        long lastId = 0;
+        for (int segment = 1; segment <= checkpoints; segment++) {
+            Timer insertTimer = latencyTimer(meterRegistry, "load.growth.insert", segment);
+            long target = segment == checkpoints ? rows : segmentRows * segment;
+            long startedAt = System.nanoTime();
+            while (written < target) {
+                int count = (int) Math.min(batch, target - written);
+                long[] ids = insertBatch(store, idGenerator, conversationId, written, count, content, insertTimer);
+                if (firstId == 0) {
+                    firstId = ids[0];
+                }
+                lastId = ids[count - 1];
+                written += count;
+            }
+            double insertSeconds = (System.nanoTime() - startedAt) / 1e9;
+            long segmentWritten = target - (segment == 1 ? 0 : segmentRows * (segment - 1));
+
+            Timer latestTimer = latencyTimer(meterRegistry, "load.growth.page.latest", segment);
+            Timer beforeTimer = latencyTimer(meterRegistry, "load.growth.page.before", segment);
+            Timer afterTimer = latencyTimer(meterRegistry, "load.growth.page.after", segment);
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < samples; i++) {
+                long cursor = random.nextLong(firstId, lastId + 1);
+                long latestStartedAt = System.nanoTime();
+                store.findBefore(conversationId, null, pageSize);
+                latestTimer.record(System.nanoTime() - latestStartedAt, TimeUnit.NANOSECONDS);
+                long beforeStartedAt = System.nanoTime();
+                store.findBefore(conversationId, cursor, pageSize);
+                beforeTimer.record(System.nanoTime() - beforeStartedAt, TimeUnit.NANOSECONDS);
+                long afterStartedAt = System.nanoTime();
+                store.findAfter(conversationId, cursor, pageSize);
+                afterTimer.record(System.nanoTime() - afterStartedAt, TimeUnit.NANOSECONDS);
+            }
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("rows", written);
+            result.put("insertRowsPerSecond", round(segmentWritten / insertSeconds));
+            result.put("insertBatchMillis", latency(insertTimer));
+            result.put("latestPageMillis", latency(latestTimer));
+            result.put("pageBeforeMillis", latency(beforeTimer));
+            result.put("pageAfterMillis", latency(afterTimer));
+            segments.add(result);
+            System.err.printf("[%s] %d条：写入%.0f条/秒，向前翻页p99=%.3fms%n", label, written,
+                    segmentWritten / insertSeconds, percentile(beforeTimer, 0.99));
+        }
+        return report(segments);
+    }
+
+    private void warmup(MessageStore store, SnowflakeIdGenerator idGenerator, MeterRegistry meterRegistry, String content) {
+        long conversationId = ConversationIds.single(SENDER_ID, WARMUP_RECEIVER_ID);
+        Timer insertTimer = latencyTimer(meterRegistry, "load.growth.warmup", 0);
+        long lastId = 0;
+        for (long written = 0; written < warmupRows; written += batch) {
+            int count = (int) Math.min(batch, warmupRows - written);
+            long[] ids = insertBatch(store, idGenerator, conversationId, written, count, content, insertTimer);
+            lastId = ids[count - 1];
+            store.findBefore(conversationId, null, pageSize);
+            store.findBefore(conversationId, lastId, pageSize);
+            store.findAfter(conversationId, ids[0], pageSize);
+        }
+    }
+
+    /**
+     * 写入count条连续消息，返回其ID
+     */
+    private long[] insertBatch(MessageStore store, SnowflakeIdGenerator idGenerator, long conversationId,
+                               long written, int count, String content, Timer insertTimer) {
+        long[] ids = idGenerator.nextIds(count);
+        List<ChatMessage> messages = new ArrayList<>(count);
+        for (long id : ids) {
+            messages.add(ChatMessage.builder()
+                    .messageId(id)
+                    .conversationId(conversationId)
+                    .senderId(SENDER_ID)
+                    .senderClientId("load_" + SENDER_ID)
+                    .clientSeq(written + messages.size())
+                    .content(content)
+                    .sendTime(SnowflakeIdGenerator.timestampOf(id))
+                    .build());
+        }
+        long startedAt = System.nanoTime();
+        int inserted = store.saveBatch(messages);
+        insertTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        if (inserted != count) {
+            throw new IllegalStateException("写入行数不符：期望" + count + "，实际" + inserted);
+        }
+        return ids;
+    }
+
+    private Map<String, Object> report(List<Map<String, Object>> segments) {
+        Map<String, Object> first = segments.get(0);
+        Map<String, Object> last = segments.get(segments.size() - 1);
+        Map<String, Object> growth = new LinkedHashMap<>();
+        growth.put("insertRowsPerSecond", ratio(last.get("insertRowsPerSecond"), first.get("insertRowsPerSecond")));
+        for (String key : List.of("latestPageMillis", "pageBeforeMillis", "pageAfterMillis")) {
+            growth.put(key + ".p99", ratio(((Map<?, ?>) last.get(key)).get("p99"), ((Map<?, ?>) first.get(key)).get("p99")));
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("label", label);
+        report.put("rows", rows);
+        report.put("warmupRows", warmupRows);
+        report.put("batch", batch);
+        report.put("pageSize", pageSize);
+        report.put("samplesPerCheckpoint", samples);
+        report.put("checkpoints", segments);
+        report.put("lastToFirstRatio", growth);
+        return report;
+    }
+
+    private static Timer latencyTimer(MeterRegistry meterRegistry, String name, int segment) {
+        return Timer.builder(name)
+                .tag("segment", String.valueOf(segment))
+                .publishPercentiles(0.5, 0.99)
+                .percentilePrecision(3)
+                .distributionStatisticExpiry(Duration.ofDays(1))
+                .distributionStatisticBufferLength(1)
+                .register(meterRegistry);
+    }
+
+    private static double percentile(Timer timer, double percentile) {
+        for (ValueAtPercentile value : timer.takeSnapshot().percentileValues()) {
+            if (value.percentile() == percentile) {
+                return value.value(TimeUnit.MILLISECONDS);
+            }
+        }
+        return Double.NaN;
+    }
+
+    private static Map<String, Object> latency(Timer timer) {
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        Map<String, Object> latencyMillis = new LinkedHashMap<>();
+        latencyMillis.put("mean", round3(snapshot.mean(TimeUnit.MILLISECONDS)));
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            latencyMillis.put("p" + trim(percentile.percentile() * 100), round3(percentile.value(TimeUnit.MILLISECONDS)));
+        }
+        latencyMillis.put("max", round3(snapshot.max(TimeUnit.MILLISECONDS)));
+        return latencyMillis;
+    }
+
+    private static double ratio(Object last, Object first) {
+        return round(((Number) last).doubleValue() / ((Number) first).doubleValue());
+    }
+
+    private static Map<String, String> parse(String[] argv) {
+        Map<String, String> args = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < argv.length; i += 2) {
+            if (!argv[i].startsWith("--")) {
+                throw new IllegalArgumentException("参数应为 --name value 形式: " + argv[i]);
+            }
+            args.put(argv[i].substring(2), argv[i + 1]);
+        }
+        return args;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    private static double round3(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    private static String trim(double value) {
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.valueOf(value);
+    }
+}
@@ -0,0 +1,347 @@
+package com.distri.chat.benchmark.load;
+
+import com.distri.chat.benchmark.support.Fixtures;
+import com.distri.chat.common.outbox.OutboxMapper;
+import com.distri.chat.common.outbox.OutboxRelay;
+import com.distri.chat.gateway.GatewayProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 发件箱中继的崩溃恢复校验（非JMH）
+ * <p>
+ * 真实的 OutboxRelay 跑在H2发件箱表与嵌入式Redis租约上，Kafka换成记录发送内容的桩。
+ * 中继不启动自身的调度线程，由本程序逐轮调用，"崩溃"即丢弃该实例而不释放租约。三个场景：
+ * <ol>
+ *     <li>crash-before-delete：--events 条积压事件，第一个中继在第二批确认之后、删除之前崩溃，
+ *     租约过期后第二个中继接手；校验全部事件至少投递一次、只有崩溃那一批重复、表被清空；</li>
+ *     <li>takeover-in-flight：接手时表头之前还有未提交的事务（占着更小的id），其后的行已提交；
+ *     校验中继等到第一行超过空洞超时，事务在此之前提交后其事件不会被越过；</li>
+ *     <li>late-commit：中继已在投递中，一个事务超过空洞超时才提交，中继先跳过空洞投递后面的行；
+ *     校验迟到的行不会被删除，而是在复查中补发。</li>
+ * </ol>
+ * 任一校验失败时退出码为1。
+ */
+public final class OutboxCrashRecoveryTest {
+
+    private static final String TOPIC = "distri-chat-v1-outbox-check";
+    private static final String INSERT_SQL =
+            "INSERT INTO event_outbox (topic, event_key, payload, create_time) VALUES (?, ?, ?, ?)";
+
+    private final int events;
+    private final int batchSize;
+    private final long gapTimeoutMillis;
+    private final List<String> failures = new ArrayList<>();
+
+    private RedisTemplate<String, Object> redisTemplate;
+
+    private OutboxCrashRecoveryTest(Map<String, String> args) {
+        this.events = Integer.parseInt(args.getOrDefault("events", "5000"));
+        this.batchSize = Integer.parseInt(args.getOrDefault("batch-size", "1000"));
+        this.gapTimeoutMillis = Long.parseLong(args.getOrDefault("gap-timeout-millis", "1000"));
+    }
+
+    public static void main(String[] argv) throws Exception {
+        Map<String, String> args = parse(argv);
+        OutboxCrashRecoveryTest test = new OutboxCrashRecoveryTest(args);
+        Map<String, Object> report = test.run();
+
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        System.out.println(mapper.writeValueAsString(report));
+        String out = args.get("out");
+        if (out != null) {
+            mapper.writeValue(new File(out), report);
+        }
+        System.exit(test.failures.isEmpty() ? 0 : 1);
+    }
+
+    private Map<String, Object> run() throws Exception {
+        LettuceConnectionFactory connectionFactory = Fixtures.redisConnectionFactory();
+        redisTemplate = Fixtures.redisTemplate(connectionFactory);
+        try {
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("events", events);
+            report.put("batchSize", batchSize);
+            report.put("gapTimeoutMillis", gapTimeoutMillis);
+            flush(redisTemplate);
+            report.put("crashBeforeDelete", crashBeforeDelete());
+            flush(redisTemplate);
+            report.put("takeoverInFlight", takeoverInFlight());
+            flush(redisTemplate);
+            report.put("lateCommit", lateCommit());
+            report.put("failures", failures);
+            return report;
+        } finally {
+            flush(redisTemplate);
+            connectionFactory.destroy();
+        }
+    }
+
+    private Map<String, Object> crashBeforeDelete() throws Exception {
+        JdbcDataSource dataSource = Fixtures.h2DataSource("outbox_crash_before_delete");
+        OutboxMapper mapper = mapper(dataSource);
+        // 积压在中继停摆期间写入，均已超过空洞超时
+        try (Connection connection = dataSource.getConnection()) {
+            insert(connection, 1, events, System.currentTimeMillis() - gapTimeoutMillis * 10);
+        }
+
+        RecordingKafkaTemplate kafka = new RecordingKafkaTemplate();
+        AtomicInteger deletes = new AtomicInteger();
+        OutboxMapper crashing = (OutboxMapper) Proxy.newProxyInstance(OutboxMapper.class.getClassLoader(),
+                new Class<?>[]{OutboxMapper.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("deleteRange") && deletes.incrementAndGet() == 2) {
+                        throw new IllegalStateException("模拟崩溃：第二批已确认、尚未删除");
+                    }
+                    try {
+                        return method.invoke(mapper, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        OutboxRelay first = relay(crashing, kafka, "outbox-check-a");
+        relayOnce(first);
+        long sentBeforeCrash = kafka.sent();
+        // 第一个中继就此消失，不释放租约
+
+        OutboxRelay second = relay(mapper, kafka, "outbox-check-b");
+        long startedAt = System.currentTimeMillis();
+        boolean drained = runUntil(second, () -> count(dataSource) == 0, 30_000);
+        second.shutdown();
+
+        Map<String, Object> result = verify("crash-before-delete", kafka, dataSource, events, batchSize);
+        check(drained, "crash-before-delete：30秒内未清空发件箱");
+        check(sentBeforeCrash == 2L * batchSize, "crash-before-delete：崩溃前发送" + sentBeforeCrash + "条，期望" + 2L * batchSize);
+        result.put("sentBeforeCrash", sentBeforeCrash);
+        result.put("recoverySeconds", round((System.currentTimeMillis() - startedAt) / 1000.0));
+        return result;
+    }
+
+    private Map<String, Object> takeoverInFlight() throws Exception {
+        JdbcDataSource dataSource = Fixtures.h2DataSource("outbox_takeover_in_flight");
+        OutboxMapper mapper = mapper(dataSource);
+        RecordingKafkaTemplate kafka = new RecordingKafkaTemplate();
+        int rows = Math.min(events, batchSize / 2);
+
+        try (Connection inFlight = dataSource.getConnection(); Connection committed = dataSource.getConnection()) {
+            inFlight.setAutoCommit(false);
+            insert(inFlight, 1, 1, System.currentTimeMillis());
+            insert(committed, 2, rows - 1, System.currentTimeMillis());
+
+            OutboxRelay relay = relay(mapper, kafka, "outbox-check-c");
+            long deadline = System.currentTimeMillis() + gapTimeoutMillis / 2;
+            while (System.currentTimeMillis() < deadline) {
+                relayOnce(relay);
+                Thread.sleep(20);
+            }
+            long sentBeforeCommit = kafka.sent();
+            inFlight.commit();
+            boolean drained = runUntil(relay, () -> count(dataSource) == 0, gapTimeoutMillis * 5);
+            relay.shutdown();
+
+            Map<String, Object> result = verify("takeover-in-flight", kafka, dataSource, rows, 0);
+            check(drained, "takeover-in-flight：未清空发件箱");
+            check(sentBeforeCommit == 0, "takeover-in-flight：接手后未等第一行超时即发送了" + sentBeforeCommit + "条");
+            result.put("sentBeforeCommit", sentBeforeCommit);
+            return result;
+        }
+    }
+
+    private Map<String, Object> lateCommit() throws Exception {
+        JdbcDataSource dataSource = Fixtures.h2DataSource("outbox_late_commit");
+        OutboxMapper mapper = mapper(dataSource);
+        RecordingKafkaTemplate kafka = new RecordingKafkaTemplate();
+        int head = 10;
+        int tail = Math.max(1, Math.min(events, batchSize / 2) - head - 1);
+
+        try (Connection late = dataSource.getConnection(); Connection committed = dataSource.getConnection()) {
+            insert(committed, 1, head, System.currentTimeMillis() - gapTimeoutMillis * 10);
+            OutboxRelay relay = relay(mapper, kafka, "outbox-check-d");
+            runUntil(relay, () -> count(dataSource) == 0, gapTimeoutMillis * 5);
+
+            late.setAutoCommit(false);
+            insert(late, head + 1, 1, System.currentTimeMillis());
+            insert(committed, head + 2, tail, System.currentTimeMillis());
+            // 跳过空洞、投递其后的行，此时迟到的事务仍未提交
+            boolean skipped = runUntil(relay, () -> kafka.sent() == head + tail, gapTimeoutMillis * 5);
+            late.commit();
+            boolean drained = runUntil(relay, () -> count(dataSource) == 0, gapTimeoutMillis * 5);
+            relay.shutdown();
+
+            Map<String, Object> result = verify("late-commit", kafka, dataSource, head + 1 + tail, 0);
+            check(skipped, "late-commit：空洞超时后未投递其后的行");
+            check(drained, "late-commit：迟到的行没有补发");
+            return result;
+        }
+    }
+
+    /**
+     * 对比期望的事件与桩记录的发送，报告丢失、重复与残留行数
+     */
+    private Map<String, Object> verify(String scenario, RecordingKafkaTemplate kafka, JdbcDataSource dataSource,
+                                       int expected, long expectedDuplicates) throws SQLException {
+        long lost = 0;
+        long duplicates = 0;
+        for (int i = 1; i <= expected; i++) {
+            int times = kafka.sends.getOrDefault(payload(i), 0);
+            if (times == 0) {
+                lost++;
+            }
+            duplicates += Math.max(0, times - 1);
+        }
+        long remaining = count(dataSource);
+        check(lost == 0, scenario + "：丢失" + lost + "条");
+        check(duplicates == expectedDuplicates, scenario + "：重复" + duplicates + "条，期望" + expectedDuplicates);
+        check(remaining == 0, scenario + "：发件箱残留" + remaining + "行");
+        System.err.printf("[%s] 事件%d，发送%d，丢失%d，重复%d，残留%d%n", scenario, expected, kafka.sent(), lost, duplicates, remaining);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("events", expected);
+        result.put("sent", kafka.sent());
+        result.put("lost", lost);
+        result.put("duplicates", duplicates);
+        result.put("remainingRows", remaining);
+        return result;
+    }
+
+    private OutboxRelay relay(OutboxMapper mapper, RecordingKafkaTemplate kafka, String nodeId) {
+        GatewayProperties properties = new GatewayProperties();
+        ReflectionTestUtils.setField(properties, "nodeId", nodeId);
+        return new OutboxRelay(mapper, kafka, redisTemplate, properties, new SimpleMeterRegistry(),
+                batchSize, 1, gapTimeoutMillis, 60_000, 5_000, 20);
+    }
+
+    /**
+     * 调用一轮中继（与调度线程上的一次执行相同），租约未到手时什么也不做
+     */
+    private static void relayOnce(OutboxRelay relay) {
+        ReflectionTestUtils.invokeMethod(relay, "relay");
+    }
+
+    private static boolean runUntil(OutboxRelay relay, BooleanSupplier done, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (System.currentTimeMillis() < deadline) {
+            relayOnce(relay);
+            if (done.getAsBoolean()) {
+                return true;
+            }
+            Thread.sleep(20);
+        }
+        return done.getAsBoolean();
+    }
+
+    private static OutboxMapper mapper(JdbcDataSource dataSource) {
+        return Fixtures.sqlSessionManager(dataSource, OutboxMapper.class).getMapper(OutboxMapper.class);
+    }
+
+    private static void insert(Connection connection, int from, int count, long createTime) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+            for (int i = from; i < from + count; i++) {
+                statement.setString(1, TOPIC);
+                statement.setString(2, String.valueOf(i));
+                statement.setString(3, payload(i));
+                statement.setLong(4, createTime);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    private static long count(JdbcDataSource dataSource) {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM event_outbox")) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String payload(int n) {
+        return "{\"n\":" + n + "}";
+    }
+
+    private void check(boolean condition, String failure) {
+        if (!condition) {
+            failures.add(failure);
+        }
+    }
+
+    /**
+     * 不连接Kafka、立即确认并记录每条负载发送次数的模板
+     */
+    private static final class RecordingKafkaTemplate extends KafkaTemplate<String, String> {
+
+        final Map<String, Integer> sends = new HashMap<>();
+
+        RecordingKafkaTemplate() {
+            super(new DefaultKafkaProducerFactory<>(Map.of()));
+        }
+
+        @Override
+        public CompletableFuture<SendResult<String, String>> send(String topic, String key, String data) {
+            sends.merge(data, 1, Integer::sum);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        long sent() {
+            long total = 0;
+            for (int times : sends.values()) {
+                total += times;
+            }
+            return total;
+        }
+    }
+
+    private static void flush(RedisTemplate<String, Object> redisTemplate) {
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        });
+    }
+
+    private static Map<String, String> parse(String[] argv) {
+        Map<String, String> args = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < argv.length; i += 2) {
+            if (!argv[i].startsWith("--")) {
+                throw new IllegalArgumentException("参数应为 --name value 形式: " + argv[i]);
+            }
+            args.put(argv[i].substring(2), argv[i + 1]);
+        }
+        return args;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
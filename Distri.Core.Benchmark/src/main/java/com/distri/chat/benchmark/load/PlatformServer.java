@@ -0,0 +1,123 @@
+package com.distri.chat.benchmark.load;
+
+import com.distri.chat.DistriChatApplication;
+import com.distri.chat.benchmark.support.Fixtures;
+import com.distri.chat.biz.message.domain.model.ChatMessage;
+import com.distri.chat.biz.message.domain.model.ConversationIds;
+import com.distri.chat.biz.message.infra.repo.MessageMapper;
+import com.distri.chat.biz.message.infra.repo.MessageShardRouter;
+import com.distri.chat.biz.message.infra.repo.MessageStore;
+import com.distri.chat.common.id.SnowflakeIdGenerator;
+import com.distri.chat.config.KafkaConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 在本进程内启动完整的服务（DistriChatApplication），外部依赖换成嵌入式实现：H2（MySQL模式）、嵌入式Redis与嵌入式Kafka（KRaft单节点）。
+ * 启动前在一个单聊会话里预置 --messages 条消息，并签发会话一方的访问令牌（默认jwt.secret），
+ * 把压测URL与令牌写入 --out，供另一个进程里的 HttpLoadTest 压测 /api/messages/history。
+ * 形如 --spring.threads.virtual.enabled=true 的参数原样传给Spring。
+ * <p>
+ * 没有网络往返且H2比MySQL快，单次请求的阻塞时间比生产短，数字只用于两种线程模式之间的对比。用法见README。
+ */
+public final class PlatformServer {
+
+    private static final long USER_ID = 10001L;
+    private static final long PEER_ID = 10002L;
+    private static final String DATABASE = "platform_server";
+    private static final String DATABASE_USER = "load";
+
+    public static void main(String[] argv) throws Exception {
+        Map<String, String> args = new LinkedHashMap<>();
+        List<String> springArgs = new ArrayList<>();
+        for (int i = 0; i < argv.length; i++) {
+            if (argv[i].startsWith("--") && argv[i].contains("=")) {
+                springArgs.add(argv[i]);
+            } else if (argv[i].startsWith("--") && i + 1 < argv.length) {
+                args.put(argv[i].substring(2), argv[++i]);
+            } else {
+                throw new IllegalArgumentException("参数应为 --name value 或 --spring.key=value 形式: " + argv[i]);
+            }
+        }
+        int port = Integer.parseInt(args.getOrDefault("port", "8080"));
+        int messages = Integer.parseInt(args.getOrDefault("messages", "200"));
+
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        long conversationId = ConversationIds.single(USER_ID, PEER_ID);
+        seed(meterRegistry, conversationId, messages);
+
+        LettuceConnectionFactory redis = Fixtures.redisConnectionFactory();
+        EmbeddedKafkaKraftBroker broker = new EmbeddedKafkaKraftBroker(1, 3,
+                KafkaConfig.MESSAGE_TOPIC, KafkaConfig.USER_EVENT_TOPIC);
+        broker.afterPropertiesSet();
+
+        // 命令行参数优先于系统属性，可覆盖这里的任意一项
+        System.setProperty("server.port", String.valueOf(port));
+        System.setProperty("spring.datasource.url",
+                "jdbc:h2:mem:" + DATABASE + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        System.setProperty("spring.datasource.driver-class-name", "org.h2.Driver");
+        System.setProperty("spring.datasource.username", DATABASE_USER);
+        System.setProperty("spring.data.redis.host", redis.getHostName());
+        System.setProperty("spring.data.redis.port", String.valueOf(redis.getPort()));
+        System.setProperty("spring.data.redis.database", String.valueOf(redis.getDatabase()));
+        System.setProperty("spring.kafka.bootstrap-servers", broker.getBrokersAsString());
+        System.setProperty("gateway.enabled", "false");
+        System.setProperty("search.index-dir", Files.createTempDirectory("platform-server-index").toString());
+        redis.destroy();
+
+        DistriChatApplication.main(springArgs.toArray(String[]::new));
+
+        Map<String, Object> target = new LinkedHashMap<>();
+        target.put("url", "http://127.0.0.1:" + port + "/api/messages/history?conversationId=" + conversationId);
+        target.put("token", Fixtures.jwtUtil(meterRegistry).generateToken(USER_ID, "load_" + USER_ID));
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        System.out.println(mapper.writeValueAsString(target));
+        String out = args.get("out");
+        if (out != null) {
+            mapper.writeValue(new File(out), target);
+        }
+    }
+
+    private static void seed(MeterRegistry meterRegistry, long conversationId, int count) throws SQLException {
+        JdbcDataSource dataSource = Fixtures.h2DataSource(DATABASE);
+        // 建库的连接没有用户名，Spring的数据源需要一个有名字的用户
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE USER IF NOT EXISTS " + DATABASE_USER + " PASSWORD '' ADMIN");
+        }
+        MessageMapper messageMapper = Fixtures.sqlSessionManager(dataSource, MessageMapper.class)
+                .getMapper(MessageMapper.class);
+        MessageStore store = new MessageStore(messageMapper, new MessageShardRouter(8), meterRegistry, 500);
+        SnowflakeIdGenerator idGenerator = new SnowflakeIdGenerator(null, meterRegistry, 1, Long.MAX_VALUE);
+        idGenerator.init();
+
+        List<ChatMessage> batch = new ArrayList<>(count);
+        for (long id : idGenerator.nextIds(count)) {
+            batch.add(ChatMessage.builder()
+                    .messageId(id)
+                    .conversationId(conversationId)
+                    .senderId(batch.size() % 2 == 0 ? USER_ID : PEER_ID)
+                    .senderClientId("load_" + USER_ID)
+                    .clientSeq((long) batch.size())
+                    .content("load message " + batch.size())
+                    .sendTime(SnowflakeIdGenerator.timestampOf(id))
+                    .build());
+        }
+        store.saveBatch(batch);
+    }
+}
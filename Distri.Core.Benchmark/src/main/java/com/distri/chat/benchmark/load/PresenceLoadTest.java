@@ -0,0 +1,527 @@
+package com.distri.chat.benchmark.load;
+
+import com.distri.chat.benchmark.support.Fixtures;
+import com.distri.chat.biz.session.domain.service.SessionRegistry;
+import com.distri.chat.biz.user.domain.event.UserEvent;
+import com.distri.chat.biz.user.infra.mq.UserEventPublisher;
+import com.distri.chat.gateway.GatewayProperties;
+import com.distri.chat.gateway.delivery.DeliveryTracker;
+import com.distri.chat.gateway.handler.GatewaySessionHandler;
+import com.distri.chat.gateway.session.ChannelAttributes;
+import com.distri.chat.gateway.session.HeartbeatWheel;
+import com.distri.chat.gateway.session.LocalChannelRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.EmptyHttpHeaders;
+import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
+import io.netty.util.AttributeKey;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 20万设备的在线状态模拟（非JMH）
+ * <p>
+ * 真实的 GatewaySessionHandler / HeartbeatWheel / SessionRegistry 跑在嵌入式Redis上，每个设备是一个 EmbeddedChannel，
+ * 握手完成事件与连接关闭走与网关相同的处理；心跳等价于 ChatFrameHandler 与 HeartbeatFrameProcessor 的动作
+ * （刷新lastSeen并登记续期），由一个驱动线程每 --heartbeat-seconds 把全部设备轮一遍。
+ * 用户事件发布换成计数桩，会话变更与续期按线上的间隔定时刷新。
+ * <p>
+ * 三个阶段：
+ * <ol>
+ *     <li>建连：--users 个用户各 --devices-per-user 台设备上线，校验每个用户恰好一次上线事件；</li>
+ *     <li>稳态：持续心跳 --steady-seconds 秒，校验没有连接被误判超时、没有状态事件，
+ *     报告时间轮线程与心跳驱动线程的CPU占用以及每台设备每分钟的Redis命令数；</li>
+ *     <li>掉线：--drop-ratio 比例的用户停止心跳，其中一半丢全部设备、一半只丢一台，
+ *     校验只有全部掉线的用户产生下线事件、没有连接早于超时被关闭，报告从最后一次心跳到关闭的检测延迟。</li>
+ *     <li>宕机：另一个节点的注册表为 --crash-users 个用户登记会话后不再续期也不注销（等价于节点宕机），
+ *     其中一半由本节点的 evictNode 清理（路由未命中），另一半等会话TTL（--crash-ttl-seconds）过期后由 sweepExpired 清理，
+ *     校验每个用户恰好一次下线事件，重复扫描不再产生事件。</li>
+ * </ol>
+ * 另报告建连后每台设备的堆增量（含EmbeddedChannel自身，为上界）。任一校验失败时退出码为1。
+ * 默认 --idle-timeout-seconds 为10秒（线上为90秒），只为缩短运行时间，时间轮的开销与超时长度无关。
+ */
+public final class PresenceLoadTest {
+
+    private static final long USER_ID_BASE = 1_000_000_000L;
+    private static final long CRASH_USER_ID_BASE = 2_000_000_000L;
+    private static final String CRASHED_NODE_ID = "presence-load-crashed";
+    private static final long FLUSH_OPS_MILLIS = 50;
+    private static final long FLUSH_TOUCHES_MILLIS = 10_000;
+    private static final AttributeKey<Long> CLOSED_AT = AttributeKey.valueOf("load.closedAt");
+
+    private final String label;
+    private final int users;
+    private final int devicesPerUser;
+    private final int idleTimeoutSeconds;
+    private final long tickMillis;
+    private final int heartbeatSeconds;
+    private final int steadySeconds;
+    private final double dropRatio;
+    private final int crashUsers;
+    private final int crashTtlSeconds;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong onlineEvents = new AtomicLong();
+    private final AtomicLong offlineEvents = new AtomicLong();
+    private final Timer detectionTimer;
+    private final List<String> failures = new ArrayList<>();
+
+    private SessionRegistry sessionRegistry;
+    private HeartbeatWheel heartbeatWheel;
+    private EmbeddedChannel[] devices;
+    // 已完成握手的设备数，心跳驱动线程只轮询这些设备
+    private volatile int connected;
+    private volatile boolean[] dropped;
+    private volatile boolean heartbeating;
+
+    private PresenceLoadTest(Map<String, String> args) {
+        this.label = args.getOrDefault("label", "default");
+        this.users = Integer.parseInt(args.getOrDefault("users", "100000"));
+        this.devicesPerUser = Integer.parseInt(args.getOrDefault("devices-per-user", "2"));
+        this.idleTimeoutSeconds = Integer.parseInt(args.getOrDefault("idle-timeout-seconds", "10"));
+        this.tickMillis = Long.parseLong(args.getOrDefault("tick-millis", "100"));
+        this.heartbeatSeconds = Integer.parseInt(args.getOrDefault("heartbeat-seconds", "3"));
+        this.steadySeconds = Integer.parseInt(args.getOrDefault("steady-seconds", "30"));
+        this.dropRatio = Double.parseDouble(args.getOrDefault("drop-ratio", "0.1"));
+        this.crashUsers = Integer.parseInt(args.getOrDefault("crash-users", "1000"));
+        this.crashTtlSeconds = Integer.parseInt(args.getOrDefault("crash-ttl-seconds", "3"));
+        if (heartbeatSeconds >= idleTimeoutSeconds) {
+            throw new IllegalArgumentException("--heartbeat-seconds 需小于 --idle-timeout-seconds");
+        }
+
+        this.detectionTimer = Timer.builder("load.presence.detection")
+                .publishPercentiles(0.5, 0.99)
+                .percentilePrecision(3)
+                .distributionStatisticExpiry(Duration.ofDays(1))
+                .distributionStatisticBufferLength(1)
+                .register(meterRegistry);
+    }
+
+    public static void main(String[] argv) throws Exception {
+        Map<String, String> args = parse(argv);
+        PresenceLoadTest test = new PresenceLoadTest(args);
+        Map<String, Object> report = test.run();
+
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        System.out.println(mapper.writeValueAsString(report));
+        String out = args.get("out");
+        if (out != null) {
+            mapper.writeValue(new File(out), report);
+        }
+        System.exit(test.failures.isEmpty() ? 0 : 1);
+    }
+
+    private Map<String, Object> run() throws InterruptedException {
+        GatewayProperties properties = new GatewayProperties();
+        ReflectionTestUtils.setField(properties, "nodeId", "presence-load");
+        ReflectionTestUtils.setField(properties, "idleTimeoutSeconds", idleTimeoutSeconds);
+        ReflectionTestUtils.setField(properties, "heartbeatTickMillis", tickMillis);
+
+        LettuceConnectionFactory connectionFactory = Fixtures.redisConnectionFactory();
+        RedisTemplate<String, Object> redisTemplate = Fixtures.redisTemplate(connectionFactory);
+        flush(redisTemplate);
+        sessionRegistry = new SessionRegistry(redisTemplate, new CountingPublisher(), properties,
+                meterRegistry, 180, 2000, users);
+        heartbeatWheel = new HeartbeatWheel(properties, meterRegistry);
+        GatewaySessionHandler sessionHandler = new GatewaySessionHandler(new LocalChannelRegistry(), sessionRegistry,
+                heartbeatWheel, new DeliveryTracker(meterRegistry, 64, 1024, 128, 3000, 5, 100));
+
+        ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor();
+        flusher.scheduleWithFixedDelay(sessionRegistry::flushOps, FLUSH_OPS_MILLIS, FLUSH_OPS_MILLIS, TimeUnit.MILLISECONDS);
+        flusher.scheduleWithFixedDelay(sessionRegistry::flushTouches, FLUSH_TOUCHES_MILLIS, FLUSH_TOUCHES_MILLIS, TimeUnit.MILLISECONDS);
+        heartbeatWheel.start();
+        Thread driver = null;
+        try {
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("label", label);
+            report.put("users", users);
+            report.put("devices", (long) users * devicesPerUser);
+            report.put("idleTimeoutSeconds", idleTimeoutSeconds);
+            report.put("tickMillis", tickMillis);
+            report.put("heartbeatSeconds", heartbeatSeconds);
+
+            devices = new EmbeddedChannel[users * devicesPerUser];
+            dropped = new boolean[devices.length];
+            heartbeating = true;
+            driver = new Thread(this::driveHeartbeats, "presence-heartbeat-driver");
+            driver.setDaemon(true);
+            driver.start();
+
+            report.put("connect", connect(sessionHandler));
+            report.put("steady", steady(redisTemplate));
+            report.put("drop", drop());
+            report.put("crash", crash(redisTemplate));
+            report.put("failures", failures);
+            return report;
+        } finally {
+            heartbeating = false;
+            if (driver != null) {
+                driver.join();
+            }
+            heartbeatWheel.shutdown();
+            flusher.shutdownNow();
+            flush(redisTemplate);
+            connectionFactory.destroy();
+        }
+    }
+
+    private Map<String, Object> connect(GatewaySessionHandler sessionHandler) throws InterruptedException {
+        int count = devices.length;
+        long heapBefore = usedHeap();
+        WebSocketServerProtocolHandler.HandshakeComplete handshake =
+                new WebSocketServerProtocolHandler.HandshakeComplete("/ws", EmptyHttpHeaders.INSTANCE, null);
+
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            EmbeddedChannel channel = new EmbeddedChannel(sessionHandler);
+            channel.attr(ChannelAttributes.USER_ID).set(userId(i));
+            channel.attr(ChannelAttributes.CLIENT_ID).set("device_" + i);
+            channel.closeFuture().addListener(future -> channel.attr(CLOSED_AT).set(System.currentTimeMillis()));
+            channel.pipeline().fireUserEventTriggered(handshake);
+            devices[i] = channel;
+            connected = i + 1;
+        }
+        double connectSeconds = (System.nanoTime() - startedAt) / 1e9;
+        awaitEvents(onlineEvents, users, "上线");
+        double settledSeconds = (System.nanoTime() - startedAt) / 1e9;
+        long heapAfter = usedHeap();
+
+        check(onlineEvents.get() == users, "上线事件" + onlineEvents.get() + "，期望" + users);
+        System.err.printf("[%s] %d台设备建连%.1fs，上线事件%d%n", label, count, connectSeconds, onlineEvents.get());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("seconds", round(connectSeconds));
+        result.put("devicesPerSecond", round(count / connectSeconds));
+        result.put("onlineEventsSettledSeconds", round(settledSeconds));
+        result.put("onlineEvents", onlineEvents.get());
+        result.put("heapBytesPerDevice", (heapAfter - heapBefore) / count);
+        return result;
+    }
+
+    private Map<String, Object> steady(RedisTemplate<String, Object> redisTemplate) throws InterruptedException {
+        long timeoutsBefore = timeouts();
+        long eventsBefore = onlineEvents.get() + offlineEvents.get();
+        long wheelCpuBefore = threadCpuNanos("heartbeat-wheel-");
+        long driverCpuBefore = threadCpuNanos("presence-heartbeat-driver");
+        long commandsBefore = totalCommands(redisTemplate);
+        long startedAt = System.nanoTime();
+
+        Thread.sleep(TimeUnit.SECONDS.toMillis(steadySeconds));
+
+        double seconds = (System.nanoTime() - startedAt) / 1e9;
+        long commands = totalCommands(redisTemplate) - commandsBefore - 1;
+        long wheelCpu = threadCpuNanos("heartbeat-wheel-") - wheelCpuBefore;
+        long driverCpu = threadCpuNanos("presence-heartbeat-driver") - driverCpuBefore;
+        long falseTimeouts = timeouts() - timeoutsBefore;
+        long events = onlineEvents.get() + offlineEvents.get() - eventsBefore;
+        int count = devices.length;
+
+        check(falseTimeouts == 0, "稳态下" + falseTimeouts + "个持续心跳的连接被判超时");
+        check(events == 0, "稳态下发布了" + events + "个状态事件");
+        System.err.printf("[%s] 稳态%ds：误判超时%d，时间轮CPU %.2f%%%n", label, steadySeconds, falseTimeouts,
+                wheelCpu / 1e9 / seconds * 100);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("seconds", round(seconds));
+        result.put("falseTimeouts", falseTimeouts);
+        result.put("presenceEvents", events);
+        result.put("wheelCpuPercent", round(wheelCpu / 1e9 / seconds * 100));
+        result.put("wheelCpuNanosPerDevicePerSecond", round(wheelCpu / seconds / count));
+        result.put("heartbeatDriverCpuPercent", round(driverCpu / 1e9 / seconds * 100));
+        result.put("redisCommandsPerDevicePerMinute", round(commands / (seconds / 60) / count));
+        return result;
+    }
+
+    /**
+     * 一半被选中的用户丢全部设备，另一半只丢第一台设备
+     */
+    private Map<String, Object> drop() throws InterruptedException {
+        int droppedUsers = (int) (users * dropRatio);
+        int fullyDropped = droppedUsers / 2;
+        long expectedClosed = (long) fullyDropped * devicesPerUser + (droppedUsers - fullyDropped);
+        long timeoutsBefore = timeouts();
+        long offlineBefore = offlineEvents.get();
+        long onlineBefore = onlineEvents.get();
+
+        boolean[] marks = new boolean[devices.length];
+        for (int u = 0; u < droppedUsers; u++) {
+            int perUser = u < fullyDropped ? devicesPerUser : 1;
+            for (int d = 0; d < perUser; d++) {
+                marks[u * devicesPerUser + d] = true;
+            }
+        }
+        dropped = marks;
+
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(idleTimeoutSeconds + heartbeatSeconds + 30);
+        while (timeouts() - timeoutsBefore < expectedClosed && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        awaitEvents(offlineEvents, offlineBefore + fullyDropped, "下线");
+        // 多等一个刷新周期，确认只丢一台设备的用户没有产生下线事件
+        Thread.sleep(FLUSH_OPS_MILLIS * 10);
+
+        long closed = timeouts() - timeoutsBefore;
+        long early = 0;
+        long timeoutMillis = TimeUnit.SECONDS.toMillis(idleTimeoutSeconds);
+        for (int i = 0; i < devices.length; i++) {
+            if (!marks[i]) {
+                check(devices[i].isActive(), "持续心跳的设备被关闭：" + i);
+                continue;
+            }
+            Long lastSeen = devices[i].attr(ChannelAttributes.LAST_SEEN).get();
+            Long closedAt = devices[i].attr(CLOSED_AT).get();
+            if (closedAt == null || lastSeen == null) {
+                continue;
+            }
+            long detection = closedAt - lastSeen;
+            if (detection < timeoutMillis) {
+                early++;
+            }
+            detectionTimer.record(detection, TimeUnit.MILLISECONDS);
+        }
+        long offline = offlineEvents.get() - offlineBefore;
+
+        check(closed == expectedClosed, "超时关闭" + closed + "台设备，期望" + expectedClosed);
+        check(early == 0, early + "台设备早于超时被关闭");
+        check(offline == fullyDropped, "下线事件" + offline + "，期望" + fullyDropped);
+        check(onlineEvents.get() == onlineBefore, "掉线阶段出现上线事件");
+        System.err.printf("[%s] 掉线：关闭%d台，下线事件%d%n", label, closed, offline);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("droppedUsers", droppedUsers);
+        result.put("fullyDroppedUsers", fullyDropped);
+        result.put("closedDevices", closed);
+        result.put("offlineEvents", offline);
+        result.put("closedBeforeTimeout", early);
+        result.put("detectionMillis", latency(detectionTimer));
+        return result;
+    }
+
+    /**
+     * 另一个节点登记会话后宕机：前一半用户由路由未命中清理，后一半等TTL过期后由扫描清理
+     */
+    private Map<String, Object> crash(RedisTemplate<String, Object> redisTemplate) throws InterruptedException {
+        GatewayProperties crashedProperties = new GatewayProperties();
+        ReflectionTestUtils.setField(crashedProperties, "nodeId", CRASHED_NODE_ID);
+        SessionRegistry crashed = new SessionRegistry(redisTemplate, new CountingPublisher(), crashedProperties,
+                meterRegistry, crashTtlSeconds, 2000, crashUsers);
+        long onlineBefore = onlineEvents.get();
+        long offlineBefore = offlineEvents.get();
+
+        List<Long> routed = new ArrayList<>();
+        for (int c = 0; c < crashUsers; c++) {
+            crashed.register(CRASH_USER_ID_BASE + c, "crash_" + c);
+            if (c < crashUsers / 2) {
+                routed.add(CRASH_USER_ID_BASE + c);
+            }
+        }
+        crashed.flushOps();
+        check(onlineEvents.get() - onlineBefore == crashUsers,
+                "宕机节点上线事件" + (onlineEvents.get() - onlineBefore) + "，期望" + crashUsers);
+
+        long evicted = sessionRegistry.evictNode(CRASHED_NODE_ID, routed);
+        long evictedOffline = offlineEvents.get() - offlineBefore;
+        check(evicted == routed.size(), "路由未命中清理" + evicted + "个会话，期望" + routed.size());
+        check(evictedOffline == routed.size(), "路由未命中清理后下线事件" + evictedOffline + "，期望" + routed.size());
+
+        // 过期时间按秒截断，多等一秒
+        Thread.sleep(TimeUnit.SECONDS.toMillis(crashTtlSeconds + 1));
+        long sweepStartedAt = System.nanoTime();
+        sessionRegistry.sweepExpired();
+        double sweepMillis = (System.nanoTime() - sweepStartedAt) / 1e6;
+        long sweptOffline = offlineEvents.get() - offlineBefore - evictedOffline;
+        sessionRegistry.sweepExpired();
+        long repeated = offlineEvents.get() - offlineBefore - evictedOffline - sweptOffline;
+        long leftover = redisTemplate.execute((RedisCallback<Long>) connection ->
+                connection.zSetCommands().zCard("distri-chat:session:expiry".getBytes(StandardCharsets.UTF_8)));
+        // 本节点仍有在线设备的用户：全部设备掉线的用户已随注销移出索引
+        long expectedLeftover = users - (int) (users * dropRatio) / 2;
+
+        check(sweptOffline == crashUsers - routed.size(), "过期扫描下线事件" + sweptOffline + "，期望" + (crashUsers - routed.size()));
+        check(repeated == 0, "重复扫描产生了" + repeated + "个下线事件");
+        check(leftover == expectedLeftover, "过期索引剩余" + leftover + "个用户，期望" + expectedLeftover);
+        System.err.printf("[%s] 宕机：路由清理下线%d，过期扫描下线%d%n", label, evictedOffline, sweptOffline);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("crashedUsers", crashUsers);
+        result.put("evictedOffline", evictedOffline);
+        result.put("sweptOffline", sweptOffline);
+        result.put("repeatedSweepOffline", repeated);
+        result.put("sweepMillis", round(sweepMillis));
+        return result;
+    }
+
+    /**
+     * 每个心跳周期把已连接且未掉线的设备轮一遍，匀速分布在周期内；等价于收到HEARTBEAT帧时的处理
+     */
+    private void driveHeartbeats() {
+        long periodNanos = TimeUnit.SECONDS.toNanos(heartbeatSeconds);
+        while (heartbeating) {
+            long roundStartedAt = System.nanoTime();
+            int count = connected;
+            boolean[] skip = dropped;
+            for (int i = 0; i < count && heartbeating; i++) {
+                if (skip[i]) {
+                    continue;
+                }
+                heartbeatWheel.touch(devices[i]);
+                sessionRegistry.touch(userId(i));
+                if ((i & 1023) == 0) {
+                    long due = roundStartedAt + periodNanos * i / count;
+                    long wait = due - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                }
+            }
+            long wait = roundStartedAt + periodNanos - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+        }
+    }
+
+    private void awaitEvents(AtomicLong counter, long expected, String kind) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (counter.get() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        check(counter.get() >= expected, kind + "事件" + counter.get() + "，60秒内未达到" + expected);
+    }
+
+    private long timeouts() {
+        Counter counter = meterRegistry.find("gateway.heartbeat.timeout").counter();
+        return counter == null ? 0 : (long) counter.count();
+    }
+
+    private void check(boolean condition, String failure) {
+        if (!condition) {
+            failures.add(failure);
+        }
+    }
+
+    private long userId(int device) {
+        return USER_ID_BASE + device / devicesPerUser;
+    }
+
+    /**
+     * 只计数不发送的用户事件发布者
+     */
+    private final class CountingPublisher extends UserEventPublisher {
+
+        CountingPublisher() {
+            super(null, null);
+        }
+
+        @Override
+        public void publishAll(List<UserEvent> events) {
+            for (UserEvent event : events) {
+                publish(event);
+            }
+        }
+
+        @Override
+        public void publish(UserEvent event) {
+            (UserEvent.USER_ONLINE.equals(event.getType()) ? onlineEvents : offlineEvents).incrementAndGet();
+        }
+    }
+
+    private static long threadCpuNanos(String namePrefix) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long total = 0;
+        for (ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds())) {
+            if (info != null && info.getThreadName().startsWith(namePrefix)) {
+                total += Math.max(0, threads.getThreadCpuTime(info.getThreadId()));
+            }
+        }
+        return total;
+    }
+
+    private static long totalCommands(RedisTemplate<String, Object> redisTemplate) {
+        Properties stats = redisTemplate.execute((RedisCallback<Properties>) connection ->
+                connection.serverCommands().info("commandstats"));
+        long total = 0;
+        if (stats != null) {
+            for (String value : stats.stringPropertyNames()) {
+                String line = stats.getProperty(value);
+                int from = line.indexOf("calls=");
+                if (from >= 0) {
+                    total += Long.parseLong(line.substring(from + 6, line.indexOf(',', from)));
+                }
+            }
+        }
+        return total;
+    }
+
+    private static void flush(RedisTemplate<String, Object> redisTemplate) {
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        });
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static Map<String, Object> latency(Timer timer) {
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        Map<String, Object> latencyMillis = new LinkedHashMap<>();
+        latencyMillis.put("count", snapshot.count());
+        latencyMillis.put("mean", round(snapshot.mean(TimeUnit.MILLISECONDS)));
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            latencyMillis.put("p" + trim(percentile.percentile() * 100), round(percentile.value(TimeUnit.MILLISECONDS)));
+        }
+        latencyMillis.put("max", round(snapshot.max(TimeUnit.MILLISECONDS)));
+        return latencyMillis;
+    }
+
+    private static Map<String, String> parse(String[] argv) {
+        Map<String, String> args = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < argv.length; i += 2) {
+            if (!argv[i].startsWith("--")) {
+                throw new IllegalArgumentException("参数应为 --name value 形式: " + argv[i]);
+            }
+            args.put(argv[i].substring(2), argv[i + 1]);
+        }
+        return args;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    private static String trim(double value) {
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.valueOf(value);
+    }
+}
@@ -0,0 +1,325 @@
+package com.distri.chat.benchmark.load;
+
+import com.distri.chat.benchmark.support.Fixtures;
+import com.distri.chat.biz.message.domain.model.ChatMessage;
+import com.distri.chat.biz.message.domain.model.ConversationIds;
+import com.distri.chat.biz.message.domain.model.InboxEntry;
+import com.distri.chat.biz.message.domain.service.InboxService;
+import com.distri.chat.biz.message.infra.cache.InboxStore;
+import com.distri.chat.biz.message.infra.repo.InboxArchiveMapper;
+import com.distri.chat.biz.message.infra.repo.MessageMapper;
+import com.distri.chat.biz.message.infra.repo.MessageShardRouter;
+import com.distri.chat.biz.message.infra.repo.MessageStore;
+import com.distri.chat.common.id.SnowflakeIdGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.ibatis.session.SqlSessionManager;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 网关重启后的大规模重连：全部设备同时按收件箱序号补拉离线消息（非JMH）
+ * <p>
+ * 真实的 InboxService / InboxStore 跑在嵌入式Redis上（归档表与消息分表在H2上，只在落后到归档区间或正文缓存未命中时访问）。
+ * --users 个用户两两组成单聊，每个用户的收件箱预置 --messages-per-user 条；写入时按 --redelivery-ratio
+ * 把部分批次再写一遍，模拟Kafka重投。随后 --users 个设备同时重连，各自从随机的已确认序号
+ * （不超过 --max-acked-ratio）起按 --page-size 翻页同步到最新，由 --concurrency 个线程执行。
+ * <p>
+ * 校验每个设备收到的序号从已确认序号之后连续到最新、无缺无重、正文齐全，且重投没有消耗序号
+ * （最大序号恰为每用户的消息数）；报告整体耗时、单设备补齐耗时与单次同步耗时的分位数、
+ * 每设备的同步次数与Redis命令数（取自INFO commandstats），以及访问MySQL归档与回源正文的次数。
+ */
+public final class ReconnectReplayLoadTest {
+
+    private static final long USER_ID_BASE = 1_000_000_000L;
+    private static final int SEED_BATCH = 500;
+
+    private final String label;
+    private final int users;
+    private final int messagesPerUser;
+    private final double redeliveryRatio;
+    private final double maxAckedRatio;
+    private final int pageSize;
+    private final int concurrency;
+    private final int contentLength;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Timer catchUpTimer;
+    private final Timer syncTimer;
+    private final LongAdder syncCalls = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final List<String> failureSamples = new ArrayList<>();
+
+    private ReconnectReplayLoadTest(Map<String, String> args) {
+        this.label = args.getOrDefault("label", "default");
+        this.users = Integer.parseInt(args.getOrDefault("users", "50000"));
+        this.messagesPerUser = Integer.parseInt(args.getOrDefault("messages-per-user", "20"));
+        this.redeliveryRatio = Double.parseDouble(args.getOrDefault("redelivery-ratio", "0.1"));
+        this.maxAckedRatio = Double.parseDouble(args.getOrDefault("max-acked-ratio", "0.5"));
+        this.pageSize = Integer.parseInt(args.getOrDefault("page-size", "100"));
+        this.concurrency = Integer.parseInt(args.getOrDefault("concurrency", "64"));
+        this.contentLength = Integer.parseInt(args.getOrDefault("content-length", "64"));
+        if (users % 2 != 0) {
+            throw new IllegalArgumentException("--users 需为偶数（两两组成单聊）");
+        }
+
+        this.catchUpTimer = latencyTimer("load.reconnect.catchup");
+        this.syncTimer = latencyTimer("load.reconnect.sync");
+    }
+
+    public static void main(String[] argv) throws Exception {
+        Map<String, String> args = parse(argv);
+        Map<String, Object> report = new ReconnectReplayLoadTest(args).run();
+
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        System.out.println(mapper.writeValueAsString(report));
+        String out = args.get("out");
+        if (out != null) {
+            mapper.writeValue(new File(out), report);
+        }
+        System.exit(((Number) report.get("failedDevices")).longValue() == 0 ? 0 : 1);
+    }
+
+    private Map<String, Object> run() throws InterruptedException {
+        LettuceConnectionFactory connectionFactory = Fixtures.redisConnectionFactory();
+        try {
+            RedisTemplate<String, Object> redisTemplate = Fixtures.redisTemplate(connectionFactory);
+            flush(redisTemplate);
+
+            SqlSessionManager sessionManager = Fixtures.sqlSessionManager(Fixtures.h2DataSource("reconnect_replay"),
+                    MessageMapper.class, InboxArchiveMapper.class);
+            MessageStore messageStore = new MessageStore(sessionManager.getMapper(MessageMapper.class),
+                    new MessageShardRouter(8), meterRegistry, 500);
+            ObjectMapper objectMapper = new ObjectMapper();
+            InboxService inboxService = new InboxService(new InboxStore(redisTemplate, objectMapper, 3600),
+                    sessionManager.getMapper(InboxArchiveMapper.class), messageStore, meterRegistry,
+                    Math.max(1000, messagesPerUser), 200);
+
+            long seedStartedAt = System.nanoTime();
+            seed(inboxService);
+            double seedSeconds = (System.nanoTime() - seedStartedAt) / 1e9;
+            System.err.printf("[%s] 预置完成：%d个用户，每人%d条，重投%d批，耗时%.1fs%n",
+                    label, users, messagesPerUser, replayed.sum(), seedSeconds);
+
+            long commandsBefore = totalCommands(redisTemplate);
+            ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+            long startedAt = System.nanoTime();
+            for (int i = 0; i < users; i++) {
+                long userId = USER_ID_BASE + i;
+                executor.execute(() -> reconnect(inboxService, userId));
+            }
+            executor.shutdown();
+            if (!executor.awaitTermination(30, TimeUnit.MINUTES)) {
+                throw new IllegalStateException("重连补拉未在30分钟内完成");
+            }
+            double replaySeconds = (System.nanoTime() - startedAt) / 1e9;
+            // 减去第一次INFO自身（INFO返回的统计不含本次调用）
+            long redisCommands = totalCommands(redisTemplate) - commandsBefore - 1;
+            return report(seedSeconds, replaySeconds, redisCommands);
+        } finally {
+            flush(Fixtures.redisTemplate(connectionFactory));
+            connectionFactory.destroy();
+        }
+    }
+
+    /**
+     * 每对用户依次产生 messagesPerUser 条消息，两人各收一条收件箱条目；按批写入，部分批次重复写入一次
+     */
+    private void seed(InboxService inboxService) {
+        SnowflakeIdGenerator idGenerator = new SnowflakeIdGenerator(null, meterRegistry, 1, Long.MAX_VALUE);
+        idGenerator.init();
+        String content = "x".repeat(contentLength);
+        List<ChatMessage> messages = new ArrayList<>(SEED_BATCH);
+        Map<Long, List<ChatMessage>> recipients = new HashMap<>();
+        for (int pair = 0; pair < users / 2; pair++) {
+            long a = USER_ID_BASE + 2L * pair;
+            long b = a + 1;
+            long conversationId = ConversationIds.single(a, b);
+            for (int i = 0; i < messagesPerUser; i++) {
+                long messageId = idGenerator.nextId();
+                long sender = i % 2 == 0 ? a : b;
+                ChatMessage message = ChatMessage.builder()
+                        .messageId(messageId)
+                        .conversationId(conversationId)
+                        .senderId(sender)
+                        .senderClientId("load_" + sender)
+                        .clientSeq((long) i)
+                        .content(content)
+                        .sendTime(SnowflakeIdGenerator.timestampOf(messageId))
+                        .build();
+                messages.add(message);
+                recipients.computeIfAbsent(a, k -> new ArrayList<>()).add(message);
+                recipients.computeIfAbsent(b, k -> new ArrayList<>()).add(message);
+                if (messages.size() == SEED_BATCH) {
+                    append(inboxService, messages, recipients);
+                    messages = new ArrayList<>(SEED_BATCH);
+                    recipients = new HashMap<>();
+                }
+            }
+        }
+        if (!messages.isEmpty()) {
+            append(inboxService, messages, recipients);
+        }
+    }
+
+    private void append(InboxService inboxService, List<ChatMessage> messages, Map<Long, List<ChatMessage>> recipients) {
+        inboxService.append(messages, recipients);
+        if (ThreadLocalRandom.current().nextDouble() < redeliveryRatio) {
+            inboxService.append(messages, recipients);
+            replayed.increment();
+        }
+    }
+
+    private void reconnect(InboxService inboxService, long userId) {
+        long acked = ThreadLocalRandom.current().nextLong((long) (messagesPerUser * maxAckedRatio) + 1);
+        long startedAt = System.nanoTime();
+        try {
+            long cursor = acked;
+            InboxService.SyncResult result;
+            do {
+                long syncStartedAt = System.nanoTime();
+                result = inboxService.sync(userId, cursor, pageSize);
+                syncTimer.record(System.nanoTime() - syncStartedAt, TimeUnit.NANOSECONDS);
+                syncCalls.increment();
+                for (InboxEntry entry : result.entries()) {
+                    if (entry.getSeq() != cursor + 1) {
+                        fail(userId, "序号不连续：期望" + (cursor + 1) + "，实际" + entry.getSeq());
+                        return;
+                    }
+                    if (entry.getMessage() == null) {
+                        fail(userId, "缺少正文：seq=" + entry.getSeq());
+                        return;
+                    }
+                    cursor = entry.getSeq();
+                }
+            } while (result.hasMore() && !result.entries().isEmpty());
+            catchUpTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+
+            if (result.maxSeq() != messagesPerUser || cursor != messagesPerUser) {
+                fail(userId, "最大序号=" + result.maxSeq() + "，补拉到" + cursor + "，期望均为" + messagesPerUser);
+            }
+        } catch (RuntimeException e) {
+            fail(userId, e.toString());
+        }
+    }
+
+    private void fail(long userId, String reason) {
+        failures.increment();
+        synchronized (failureSamples) {
+            if (failureSamples.size() < 10) {
+                failureSamples.add("userId=" + userId + " " + reason);
+            }
+        }
+    }
+
+    private Map<String, Object> report(double seedSeconds, double replaySeconds, long redisCommands) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("label", label);
+        report.put("users", users);
+        report.put("messagesPerUser", messagesPerUser);
+        report.put("redeliveredBatches", replayed.sum());
+        report.put("pageSize", pageSize);
+        report.put("concurrency", concurrency);
+        report.put("seedSeconds", round(seedSeconds));
+        report.put("replaySeconds", round(replaySeconds));
+        report.put("devicesPerSecond", round(users / replaySeconds));
+        report.put("failedDevices", failures.sum());
+        report.put("failureSamples", failureSamples);
+        report.put("syncCallsPerDevice", round(syncCalls.sum() / (double) users));
+        report.put("redisCommandsPerDevice", round(redisCommands / (double) users));
+        report.put("archiveReads", count("inbox.sync.archive"));
+        report.put("bodyMisses", count("inbox.sync.body.miss"));
+        report.put("catchUpMillis", latency(catchUpTimer));
+        report.put("syncMillis", latency(syncTimer));
+        return report;
+    }
+
+    private long count(String name) {
+        Counter counter = meterRegistry.find(name).counter();
+        return counter == null ? 0 : (long) counter.count();
+    }
+
+    private static long totalCommands(RedisTemplate<String, Object> redisTemplate) {
+        Properties stats = redisTemplate.execute((RedisCallback<Properties>) connection ->
+                connection.serverCommands().info("commandstats"));
+        long total = 0;
+        if (stats != null) {
+            for (String value : stats.stringPropertyNames()) {
+                String line = stats.getProperty(value);
+                int from = line.indexOf("calls=");
+                if (from >= 0) {
+                    total += Long.parseLong(line.substring(from + 6, line.indexOf(',', from)));
+                }
+            }
+        }
+        return total;
+    }
+
+    private static void flush(RedisTemplate<String, Object> redisTemplate) {
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        });
+    }
+
+    private Timer latencyTimer(String name) {
+        return Timer.builder(name)
+                .publishPercentiles(0.5, 0.9, 0.99, 0.999)
+                .percentilePrecision(3)
+                .distributionStatisticExpiry(Duration.ofDays(1))
+                .distributionStatisticBufferLength(1)
+                .register(meterRegistry);
+    }
+
+    private static Map<String, Object> latency(Timer timer) {
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        Map<String, Object> latencyMillis = new LinkedHashMap<>();
+        latencyMillis.put("mean", round(snapshot.mean(TimeUnit.MILLISECONDS)));
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            latencyMillis.put("p" + trim(percentile.percentile() * 100), round(percentile.value(TimeUnit.MILLISECONDS)));
+        }
+        latencyMillis.put("max", round(snapshot.max(TimeUnit.MILLISECONDS)));
+        return latencyMillis;
+    }
+
+    private static Map<String, String> parse(String[] argv) {
+        Map<String, String> args = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < argv.length; i += 2) {
+            if (!argv[i].startsWith("--")) {
+                throw new IllegalArgumentException("参数应为 --name value 形式: " + argv[i]);
+            }
+            args.put(argv[i].substring(2), argv[i + 1]);
+        }
+        return args;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    private static String trim(double value) {
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.valueOf(value);
+    }
+}
@@ -0,0 +1,444 @@
+package com.distri.chat.benchmark.load;
+
+import com.distri.chat.benchmark.support.Fixtures;
+import com.distri.chat.biz.session.domain.service.SessionRegistry;
+import com.distri.chat.common.utils.JwtUtil;
+import com.distri.chat.gateway.GatewayChannelInitializer;
+import com.distri.chat.gateway.GatewayProperties;
+import com.distri.chat.gateway.delivery.DeliveryTracker;
+import com.distri.chat.gateway.handler.ChatFrameHandler;
+import com.distri.chat.gateway.handler.GatewaySessionHandler;
+import com.distri.chat.gateway.handler.HeartbeatFrameProcessor;
+import com.distri.chat.gateway.protocol.BinaryFrameCodec;
+import com.distri.chat.gateway.protocol.ChatFrame;
+import com.distri.chat.gateway.protocol.FrameType;
+import com.distri.chat.gateway.session.HeartbeatWheel;
+import com.distri.chat.gateway.session.LocalChannelRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.AdaptiveRecvByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketClientProtocolConfig;
+import io.netty.handler.codec.http.websocketx.WebSocketClientProtocolHandler;
+import io.netty.handler.codec.http.websocketx.WebSocketVersion;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import io.netty.util.concurrent.ScheduledFuture;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * WebSocket长连接压测：模拟客户端按固定速率建连、完成握手鉴权后保持连接并定期发心跳（非JMH）。
+ * <p>
+ * 每个模拟客户端使用独立的userId与设备ID，访问令牌用与服务端默认配置相同的密钥签发（服务端需使用默认的jwt.secret）。
+ * 报告握手耗时（TCP建连 + 令牌校验 + 协议升级）与失败数、实际建连速率、心跳往返耗时，以及压测结束时仍存活的连接数。
+ * <p>
+ * 不指定 --url 时在本进程内启动一个只挂心跳处理的网关（会话注册换成空实现，不依赖Redis），
+ * 并报告每连接的堆与池化直接内存增量；进程内模式下该增量同时包含客户端一侧的连接对象，是服务端单连接成本的上界。
+ */
+public final class WebSocketLoadTest {
+
+    private static final String PATH = "/ws";
+    private static final long USER_ID_BASE = 2_000_000_000L;
+    // 单个源地址到同一目标端口最多约2.8万个临时端口，进程内模式轮换127.0.0.x源地址突破该限制
+    private static final int CONNECTIONS_PER_SOURCE_ADDRESS = 20_000;
+
+    private final String label;
+    private final URI target;
+    private final boolean inProcess;
+    private final int connections;
+    private final double connectRate;
+    private final int maxPending;
+    private final Duration hold;
+    private final long heartbeatMillis;
+    private final int clientThreads;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Timer handshakeTimer;
+    private final Timer heartbeatTimer;
+    private final LongAdder established = new LongAdder();
+    private final LongAdder connectFailures = new LongAdder();
+    private final LongAdder handshakeFailures = new LongAdder();
+    private final LongAdder closedByServer = new LongAdder();
+    private final LongAdder heartbeatsSent = new LongAdder();
+
+    private HeartbeatWheel gatewayHeartbeatWheel;
+
+    private WebSocketLoadTest(Map<String, String> args) {
+        this.label = args.getOrDefault("label", "default");
+        String url = args.get("url");
+        this.inProcess = url == null;
+        this.target = inProcess ? null : URI.create(url);
+        this.connections = Integer.parseInt(args.getOrDefault("connections", "10000"));
+        this.connectRate = Double.parseDouble(args.getOrDefault("rate", "1000"));
+        this.maxPending = Integer.parseInt(args.getOrDefault("max-pending", "1000"));
+        this.hold = Duration.ofSeconds(Long.parseLong(args.getOrDefault("hold", "30")));
+        this.heartbeatMillis = TimeUnit.SECONDS.toMillis(Long.parseLong(args.getOrDefault("heartbeat-seconds", "10")));
+        this.clientThreads = Integer.parseInt(args.getOrDefault("client-threads", "0"));
+
+        Duration expiry = Duration.ofDays(1);
+        this.handshakeTimer = Timer.builder("load.ws.handshake")
+                .publishPercentiles(0.5, 0.9, 0.99, 0.999)
+                .percentilePrecision(3)
+                .distributionStatisticExpiry(expiry)
+                .distributionStatisticBufferLength(1)
+                .register(meterRegistry);
+        this.heartbeatTimer = Timer.builder("load.ws.heartbeat")
+                .publishPercentiles(0.5, 0.9, 0.99, 0.999)
+                .percentilePrecision(3)
+                .distributionStatisticExpiry(expiry)
+                .distributionStatisticBufferLength(1)
+                .register(meterRegistry);
+    }
+
+    public static void main(String[] argv) throws Exception {
+        Map<String, String> args = parse(argv);
+        Map<String, Object> report = new WebSocketLoadTest(args).run();
+
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        System.out.println(mapper.writeValueAsString(report));
+        String out = args.get("out");
+        if (out != null) {
+            mapper.writeValue(new File(out), report);
+        }
+    }
+
+    private Map<String, Object> run() throws InterruptedException {
+        JwtUtil jwtUtil = Fixtures.jwtUtil(meterRegistry);
+        EventLoopGroup serverGroup = null;
+        EventLoopGroup clientGroup = new NioEventLoopGroup(clientThreads, new DefaultThreadFactory("load-client"));
+        ChannelGroup clients = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+        Map<String, Object> memory = new LinkedHashMap<>();
+
+        try {
+            URI base = target;
+            if (inProcess) {
+                serverGroup = new NioEventLoopGroup(0, new DefaultThreadFactory("load-gateway"));
+                base = URI.create("ws://127.0.0.1:" + startGateway(serverGroup, jwtUtil) + PATH);
+            }
+            String host = base.getHost();
+            int port = base.getPort() > 0 ? base.getPort() : 80;
+            Bootstrap bootstrap = new Bootstrap()
+                    .group(clientGroup)
+                    .channel(NioSocketChannel.class)
+                    .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                    .option(ChannelOption.TCP_NODELAY, true)
+                    .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 10_000);
+
+            long heapBefore = usedHeap();
+            long directBefore = PooledByteBufAllocator.DEFAULT.metric().usedDirectMemory();
+
+            System.err.printf("[%s] %d个连接 -> %s，建连速率%.0f/秒，保持%ds，心跳间隔%dms%n",
+                    label, connections, base, connectRate, hold.toSeconds(), heartbeatMillis);
+            Semaphore pending = new Semaphore(maxPending);
+            long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / connectRate);
+            long connectStartedAt = System.nanoTime();
+            for (int i = 0; i < connections; i++) {
+                long wait = connectStartedAt + i * intervalNanos - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                pending.acquire();
+
+                long userId = USER_ID_BASE + i;
+                URI uri = URI.create(base + "?proto=binary&token=" + jwtUtil.generateToken(userId, "load_" + i));
+                SimulatedClient client = new SimulatedClient(pending, System.nanoTime());
+                Bootstrap connect = bootstrap.clone().handler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        ch.pipeline().addLast(new HttpClientCodec());
+                        ch.pipeline().addLast(new HttpObjectAggregator(8 * 1024));
+                        ch.pipeline().addLast(new WebSocketClientProtocolHandler(WebSocketClientProtocolConfig.newBuilder()
+                                .webSocketUri(uri)
+                                .version(WebSocketVersion.V13)
+                                .handshakeTimeoutMillis(10_000)
+                                .dropPongFrames(true)
+                                .build()));
+                        ch.pipeline().addLast(client);
+                    }
+                });
+                ChannelFuture future = inProcess
+                        ? connect.connect(new InetSocketAddress(host, port),
+                        new InetSocketAddress("127.0.0." + (2 + i / CONNECTIONS_PER_SOURCE_ADDRESS), 0))
+                        : connect.connect(host, port);
+                clients.add(future.channel());
+                future.addListener(f -> {
+                    if (!f.isSuccess()) {
+                        connectFailures.increment();
+                        client.release();
+                    }
+                });
+            }
+            // 等待最后一批握手完成
+            pending.acquire(maxPending);
+            pending.release(maxPending);
+            double connectSeconds = (System.nanoTime() - connectStartedAt) / 1e9;
+
+            long heapAfter = usedHeap();
+            long directAfter = PooledByteBufAllocator.DEFAULT.metric().usedDirectMemory();
+            long count = Math.max(1, established.sum());
+            memory.put("includesClientSide", inProcess);
+            memory.put("heapBytesPerConnection", (heapAfter - heapBefore) / count);
+            memory.put("pooledDirectBytesPerConnection", (directAfter - directBefore) / count);
+
+            System.err.printf("[%s] 已建立%d个连接，用时%.1fs，保持%ds%n", label, established.sum(), connectSeconds, hold.toSeconds());
+            Thread.sleep(hold.toMillis());
+            long alive = clients.stream().filter(Channel::isActive).count();
+
+            return report(connectSeconds, alive, memory);
+        } finally {
+            clients.close().awaitUninterruptibly();
+            clientGroup.shutdownGracefully().syncUninterruptibly();
+            if (serverGroup != null) {
+                serverGroup.shutdownGracefully().syncUninterruptibly();
+            }
+            if (gatewayHeartbeatWheel != null) {
+                gatewayHeartbeatWheel.shutdown();
+            }
+        }
+    }
+
+    /**
+     * 按 NettyGatewayServer 的连接参数启动只处理心跳的网关，返回监听端口
+     */
+    private int startGateway(EventLoopGroup group, JwtUtil jwtUtil) throws InterruptedException {
+        GatewayProperties properties = new GatewayProperties();
+        ReflectionTestUtils.setField(properties, "nodeId", "load-test");
+        ReflectionTestUtils.setField(properties, "path", PATH);
+        ReflectionTestUtils.setField(properties, "idleTimeoutSeconds", 90);
+        ReflectionTestUtils.setField(properties, "heartbeatTickMillis", 1000L);
+        ReflectionTestUtils.setField(properties, "maxFramePayloadLength", 64 * 1024);
+
+        LocalChannelRegistry channelRegistry = new LocalChannelRegistry();
+        SessionRegistry sessionRegistry = new NoopSessionRegistry(properties, meterRegistry);
+        HeartbeatWheel heartbeatWheel = new HeartbeatWheel(properties, meterRegistry);
+        heartbeatWheel.start();
+        gatewayHeartbeatWheel = heartbeatWheel;
+        DeliveryTracker deliveryTracker = new DeliveryTracker(meterRegistry, 64, 1024, 128, 3000, 5, 100);
+        GatewaySessionHandler sessionHandler = new GatewaySessionHandler(channelRegistry, sessionRegistry, heartbeatWheel, deliveryTracker);
+        ChatFrameHandler frameHandler = new ChatFrameHandler(List.of(new HeartbeatFrameProcessor(sessionRegistry)), heartbeatWheel);
+
+        Channel server = new ServerBootstrap()
+                .group(group)
+                .channel(NioServerSocketChannel.class)
+                .option(ChannelOption.SO_BACKLOG, 4096)
+                .option(ChannelOption.SO_REUSEADDR, true)
+                .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                .childOption(ChannelOption.RCVBUF_ALLOCATOR, new AdaptiveRecvByteBufAllocator(64, 512, 64 * 1024))
+                .childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(32 * 1024, 64 * 1024))
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childHandler(new GatewayChannelInitializer(properties, jwtUtil, sessionHandler, frameHandler))
+                .bind(new InetSocketAddress("127.0.0.1", 0))
+                .sync()
+                .channel();
+        return ((InetSocketAddress) server.localAddress()).getPort();
+    }
+
+    private Map<String, Object> report(double connectSeconds, long alive, Map<String, Object> memory) {
+        Map<String, Long> failures = new LinkedHashMap<>();
+        failures.put("connect", connectFailures.sum());
+        failures.put("handshake", handshakeFailures.sum());
+        failures.put("closedByServer", closedByServer.sum());
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("label", label);
+        report.put("target", inProcess ? "in-process" : target.toString());
+        report.put("connections", connections);
+        report.put("established", established.sum());
+        report.put("aliveAtEnd", alive);
+        report.put("targetConnectRatePerSecond", connectRate);
+        report.put("achievedConnectRatePerSecond", round(established.sum() / connectSeconds));
+        report.put("handshakeMillis", latency(handshakeTimer));
+        report.put("heartbeatsSent", heartbeatsSent.sum());
+        report.put("heartbeatRttMillis", latency(heartbeatTimer));
+        report.put("failures", failures);
+        report.put("memory", memory);
+        return report;
+    }
+
+    private static Map<String, Object> latency(Timer timer) {
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        Map<String, Object> latencyMillis = new LinkedHashMap<>();
+        latencyMillis.put("count", snapshot.count());
+        latencyMillis.put("mean", round(snapshot.mean(TimeUnit.MILLISECONDS)));
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            latencyMillis.put("p" + trim(percentile.percentile() * 100), round(percentile.value(TimeUnit.MILLISECONDS)));
+        }
+        latencyMillis.put("max", round(snapshot.max(TimeUnit.MILLISECONDS)));
+        return latencyMillis;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * 单个模拟客户端：握手完成后按心跳间隔（首个心跳随机错开）发送HEARTBEAT，统计回送耗时
+     */
+    private final class SimulatedClient extends ChannelInboundHandlerAdapter {
+
+        private final Semaphore pending;
+        private final long connectStartedAt;
+        private boolean released;
+        private boolean handshaken;
+        private ScheduledFuture<?> heartbeatTask;
+        private long heartbeatSeq;
+        private long heartbeatSentAt;
+
+        SimulatedClient(Semaphore pending, long connectStartedAt) {
+            this.pending = pending;
+            this.connectStartedAt = connectStartedAt;
+        }
+
+        @Override
+        public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+            if (evt == WebSocketClientProtocolHandler.ClientHandshakeStateEvent.HANDSHAKE_COMPLETE) {
+                handshaken = true;
+                handshakeTimer.record(System.nanoTime() - connectStartedAt, TimeUnit.NANOSECONDS);
+                established.increment();
+                release();
+                long firstDelay = ThreadLocalRandom.current().nextLong(heartbeatMillis);
+                heartbeatTask = ctx.executor().scheduleAtFixedRate(() -> heartbeat(ctx),
+                        firstDelay, heartbeatMillis, TimeUnit.MILLISECONDS);
+                return;
+            }
+            if (evt == WebSocketClientProtocolHandler.ClientHandshakeStateEvent.HANDSHAKE_TIMEOUT) {
+                handshakeFailures.increment();
+                release();
+            }
+            super.userEventTriggered(ctx, evt);
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            try {
+                if (msg instanceof BinaryWebSocketFrame frame) {
+                    ChatFrame chatFrame = BinaryFrameCodec.decode(frame.content());
+                    if (chatFrame.getType() == FrameType.HEARTBEAT && chatFrame.getSeq() == heartbeatSeq) {
+                        heartbeatTimer.record(System.nanoTime() - heartbeatSentAt, TimeUnit.NANOSECONDS);
+                    }
+                }
+            } finally {
+                ReferenceCountUtil.release(msg);
+            }
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            if (heartbeatTask != null) {
+                heartbeatTask.cancel(false);
+            }
+            if (handshaken) {
+                closedByServer.increment();
+            } else if (!released) {
+                handshakeFailures.increment();
+                release();
+            }
+            super.channelInactive(ctx);
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            ctx.close();
+        }
+
+        private void heartbeat(ChannelHandlerContext ctx) {
+            heartbeatSeq++;
+            heartbeatSentAt = System.nanoTime();
+            ByteBuf buf = ctx.alloc().buffer(16);
+            BinaryFrameCodec.encode(ChatFrame.of(FrameType.HEARTBEAT, heartbeatSeq), buf);
+            ctx.writeAndFlush(new BinaryWebSocketFrame(buf));
+            heartbeatsSent.increment();
+        }
+
+        void release() {
+            if (!released) {
+                released = true;
+                pending.release();
+            }
+        }
+    }
+
+    /**
+     * 不连接Redis的会话注册表：进程内网关只测连接本身的成本
+     */
+    private static final class NoopSessionRegistry extends SessionRegistry {
+
+        NoopSessionRegistry(GatewayProperties properties, MeterRegistry meterRegistry) {
+            super(null, null, properties, meterRegistry, 180, 2000, 1);
+        }
+
+        @Override
+        public void register(Long userId, String clientId) {
+        }
+
+        @Override
+        public void unregister(Long userId, String clientId) {
+        }
+
+        @Override
+        public void touch(Long userId) {
+        }
+    }
+
+    private static Map<String, String> parse(String[] argv) {
+        Map<String, String> args = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < argv.length; i += 2) {
+            if (!argv[i].startsWith("--")) {
+                throw new IllegalArgumentException("参数应为 --name value 形式: " + argv[i]);
+            }
+            args.put(argv[i].substring(2), argv[i + 1]);
+        }
+        return args;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    private static String trim(double value) {
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.valueOf(value);
+    }
+}
@@ -0,0 +1,66 @@
+package com.distri.chat.benchmark.metrics;
+
+import com.distri.chat.common.metrics.OutcomeTimer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单次埋点的开销（Prometheus注册表、开启直方图），预算见 budgets.json
+ * 用 -prof gc 运行时同时检查每次记录的分配字节数
+ * <p>
+ * 线程数等于可用CPU数：AverageTime是每个线程的墙钟时间，线程多于CPU时测到的是分时而不是争用，
+ * 单核机器上@Threads(Threads.MAX)会把单次开销放大约4倍
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class MetricsOverheadBenchmark {
+
+    private OutcomeTimer timer;
+    private OutcomeTimer sloTimer;
+    private Counter counter;
+
+    @Setup
+    public void setup() {
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        timer = new OutcomeTimer(registry, "benchmark.timer", "基准测试", "method", "benchmark");
+        sloTimer = new OutcomeTimer(registry, "benchmark.slo.timer", "基准测试", OutcomeTimer.LATENCY_SLOS,
+                "method", "benchmark");
+        counter = Counter.builder("benchmark.counter").register(registry);
+    }
+
+    /**
+     * 对照组：只取两次时间
+     */
+    @Benchmark
+    public long nanoTimeOnly() {
+        long start = System.nanoTime();
+        return System.nanoTime() - start;
+    }
+
+    @Benchmark
+    public void outcomeTimer() {
+        timer.record(System.nanoTime(), true);
+    }
+
+    /**
+     * 带SLO桶的Timer（语句与认证服务入口），只用于对比直方图的额外开销，不设预算
+     */
+    @Benchmark
+    public void outcomeTimerWithSlos() {
+        sloTimer.record(System.nanoTime(), true);
+    }
+
+    @Benchmark
+    public void counter() {
+        counter.increment();
+    }
+}
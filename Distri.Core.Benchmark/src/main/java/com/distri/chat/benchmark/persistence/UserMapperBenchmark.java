@@ -0,0 +1,118 @@
+package com.distri.chat.benchmark.persistence;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.MybatisSqlSessionFactoryBuilder;
+import com.baomidou.mybatisplus.core.toolkit.GlobalConfigUtils;
+import com.distri.chat.biz.user.domain.model.User;
+import com.distri.chat.biz.user.infra.repo.UserMapper;
+import com.distri.chat.common.metrics.MybatisMetricsInterceptor;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MyBatis-Plus UserMapper 在嵌入式H2（MySQL兼容模式）上的调用开销
+ * <p>
+ * 测的是映射层（SQL生成、参数绑定、结果映射）加内存数据库的成本，不代表MySQL的磁盘与网络耗时。
+ * instrumented=true 时挂上 MybatisMetricsInterceptor，两组结果之差即语句指标的开销。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserMapperBenchmark {
+
+    private static final int PRELOADED_USERS = 10_000;
+
+    @Param({"false", "true"})
+    public boolean instrumented;
+
+    private SqlSession session;
+    private UserMapper userMapper;
+    private long nextPhone;
+
+    @Setup
+    public void setup() throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:user_mapper_benchmark;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             InputStream schema = getClass().getResourceAsStream("/schema-h2.sql")) {
+            statement.execute(new String(schema.readAllBytes(), StandardCharsets.UTF_8));
+            statement.execute("TRUNCATE TABLE users RESTART IDENTITY");
+        }
+
+        MybatisConfiguration configuration = new MybatisConfiguration();
+        configuration.setEnvironment(new Environment("benchmark", new JdbcTransactionFactory(), dataSource));
+        configuration.setMapUnderscoreToCamelCase(true);
+        GlobalConfigUtils.setGlobalConfig(configuration, GlobalConfigUtils.defaults());
+        if (instrumented) {
+            configuration.addInterceptor(new MybatisMetricsInterceptor(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT)));
+        }
+        configuration.addMapper(UserMapper.class);
+        SqlSessionFactory sqlSessionFactory = new MybatisSqlSessionFactoryBuilder().build(configuration);
+
+        session = sqlSessionFactory.openSession(true);
+        userMapper = session.getMapper(UserMapper.class);
+        for (int i = 0; i < PRELOADED_USERS; i++) {
+            userMapper.insert(newUser());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        session.close();
+    }
+
+    @Benchmark
+    public User selectById() {
+        return userMapper.selectById(randomId());
+    }
+
+    @Benchmark
+    public User findByPhone() {
+        return userMapper.findByPhone(phoneOf(randomId()));
+    }
+
+    @Benchmark
+    public List<User> findPhonesAfter() {
+        return userMapper.findPhonesAfter(randomId(), 100);
+    }
+
+    @Benchmark
+    public int insert() {
+        return userMapper.insert(newUser());
+    }
+
+    private User newUser() {
+        User user = new User(phoneOf(++nextPhone), "$2a$10$abcdefghijklmnopqrstuuSo7Kq5sFv7Q4R6tQqS9cX0sTqYhLm2a");
+        user.setNickname("user" + nextPhone);
+        return user;
+    }
+
+    private static long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, PRELOADED_USERS + 1);
+    }
+
+    /**
+     * 第n个用户的手机号，与自增id一一对应
+     */
+    private static String phoneOf(long n) {
+        return "1" + String.format("%010d", 3_000_000_000L + n);
+    }
+}
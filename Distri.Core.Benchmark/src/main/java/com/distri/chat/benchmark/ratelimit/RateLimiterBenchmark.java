@@ -0,0 +1,57 @@
+package com.distri.chat.benchmark.ratelimit;
+
+import com.distri.chat.benchmark.support.Fixtures;
+import com.distri.chat.common.ratelimit.RateLimiter;
+import com.distri.chat.common.ratelimit.TokenBucket;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 限流的单次请求开销
+ * hotBucket/hotKey：所有线程争用同一个桶（单用户/单IP被刷）；spreadKeys：请求分散在大量键上。
+ * 默认8线程争用，无争用基线用 -t 1 运行
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class RateLimiterBenchmark {
+
+    private static final int KEYS = 10_000;
+
+    private TokenBucket bucket;
+    private RateLimiter limiter;
+    private String[] keys;
+
+    @Setup
+    public void setup() {
+        // 速率足够高，测的是放行路径而不是拒绝路径
+        bucket = new TokenBucket(1e9, Integer.MAX_VALUE);
+        limiter = Fixtures.rateLimiterRegistry(new SimpleMeterRegistry()).limiter("benchmark", 1e9, Integer.MAX_VALUE);
+        keys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "10.0." + (i >> 8) + "." + (i & 0xff);
+        }
+    }
+
+    @Benchmark
+    public boolean hotBucket() {
+        return bucket.tryAcquire();
+    }
+
+    @Benchmark
+    public boolean hotKey() {
+        return limiter.tryAcquire(keys[0]);
+    }
+
+    @Benchmark
+    public boolean spreadKeys() {
+        return limiter.tryAcquire(keys[ThreadLocalRandom.current().nextInt(KEYS)]);
+    }
+}
@@ -0,0 +1,114 @@
+package com.distri.chat.benchmark.search;
+
+import com.distri.chat.biz.message.domain.model.ChatMessage;
+import com.distri.chat.biz.message.domain.model.ConversationIds;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * 生成式消息语料，同一种子与下标总是生成同一条消息
+ * <p>
+ * 一半单聊、一半群聊；正文由常用词按Zipf分布拼成，词表尾部是低频词，用于对比高频与低频搜索词。
+ * 用户SEARCHER在群 [GROUP_BASE, GROUP_BASE + SEARCHER_GROUPS) 中，其余成员关系不影响搜索。
+ */
+final class MessageCorpus {
+
+    static final long SEARCHER = 1;
+    static final long GROUP_BASE = 1_000_000_000_000L;
+    static final int SEARCHER_GROUPS = 50;
+
+    static final String COMMON_WORD = "明天";
+    static final String RARE_WORD = "光刻机";
+
+    private static final int USERS = 100_000;
+    private static final int GROUPS = 20_000;
+    private static final long MESSAGE_ID_BASE = 7_000_000_000_000_000L;
+    private static final long START_TIME = 1_700_000_000_000L;
+
+    private static final String[] WORDS = {
+            "我们", "明天", "今天", "一起", "开会", "吃饭", "项目", "时间", "问题", "可以",
+            "没有", "已经", "知道", "需要", "上线", "测试", "代码", "下午", "晚上", "周末",
+            "会议", "方案", "文档", "客户", "数据", "服务", "接口", "版本", "发布", "确认",
+            "地址", "电话", "附件", "图片", "链接", "群里", "通知", "安排", "同事", "领导",
+            "报告", "进度", "预算", "合同", "审批", "出差", "机票", "酒店", "火车", "地铁",
+            "咖啡", "外卖", "快递", "天气", "下雨", "北京", "上海", "深圳", "杭州", "成都",
+            "生日", "礼物", "电影", "音乐", "游戏", "篮球", "足球", "跑步", "健身", "旅游",
+            "医院", "学校", "老师", "孩子", "父母", "朋友", "周一", "周五", "月底", "年终",
+            "数据库", "服务器", "缓存", "消息队列", "分布式", "性能", "延迟", "吞吐", "索引", "分片",
+            "故障", "告警", "回滚", "监控", "日志", "压测", "容量", "扩容", "迁移", "备份",
+            "光刻机", "量子计算", "碳中和", "元宇宙", "区块链", "半导体", "芯片", "卫星", "火箭", "疫苗"
+    };
+
+    private static final String[] PUNCTUATION = {"，", "。", "！", "？", " "};
+
+    private final long seed;
+    private final double[] cumulative;
+
+    MessageCorpus(long seed) {
+        this.seed = seed;
+        this.cumulative = new double[WORDS.length];
+        double sum = 0;
+        for (int i = 0; i < WORDS.length; i++) {
+            sum += 1.0 / (i + 1);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < WORDS.length; i++) {
+            cumulative[i] /= sum;
+        }
+    }
+
+    List<ChatMessage> batch(long from, int size) {
+        List<ChatMessage> messages = new ArrayList<>(size);
+        for (long i = from; i < from + size; i++) {
+            messages.add(message(i));
+        }
+        return messages;
+    }
+
+    ChatMessage message(long index) {
+        SplittableRandom random = new SplittableRandom(seed ^ (index * 0x9E3779B97F4A7C15L));
+        long senderId = 1 + random.nextInt(USERS);
+        long conversationId;
+        if (random.nextBoolean()) {
+            long peerId = 1 + random.nextInt(USERS);
+            if (peerId == senderId) {
+                peerId = senderId % USERS + 1;
+            }
+            conversationId = ConversationIds.single(senderId, peerId);
+        } else {
+            conversationId = GROUP_BASE + random.nextInt(GROUPS);
+        }
+
+        int words = 3 + random.nextInt(15);
+        StringBuilder content = new StringBuilder(words * 4);
+        for (int w = 0; w < words; w++) {
+            content.append(word(random.nextDouble()));
+            if (random.nextInt(4) == 0) {
+                content.append(PUNCTUATION[random.nextInt(PUNCTUATION.length)]);
+            }
+        }
+        return ChatMessage.builder()
+                .messageId(MESSAGE_ID_BASE + index)
+                .conversationId(conversationId)
+                .senderId(senderId)
+                .content(content.toString())
+                .sendTime(START_TIME + index * 10)
+                .build();
+    }
+
+    private String word(double p) {
+        int low = 0;
+        int high = cumulative.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulative[mid] < p) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return WORDS[low];
+    }
+}
@@ -0,0 +1,64 @@
+package com.distri.chat.benchmark.search;
+
+import com.distri.chat.biz.message.domain.model.ChatMessage;
+import com.distri.chat.biz.search.infra.index.MessageIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 消息索引写入吞吐（条/秒）
+ * 每次操作写入一批消费端大小（500条）的生成消息，含smartcn分词；近实时刷新按线上默认的1秒周期进行，
+ * 提交周期拉长到测量结束之后，只测写入本身。索引写在临时目录，结束后删除。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MessageIndexBenchmark {
+
+    private static final int BATCH = 500;
+    private static final int PREGENERATED_BATCHES = 200;
+
+    private Path dir;
+    private MessageIndex index;
+    private List<ChatMessage>[] batches;
+    private long offset;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("message-index-bench");
+        index = new MessageIndex(new SimpleMeterRegistry(), dir.toString(), 64, 1000, 3600);
+        index.open();
+
+        // 预先生成，测量中不含语料生成的开销
+        MessageCorpus corpus = new MessageCorpus(42);
+        batches = new List[PREGENERATED_BATCHES];
+        for (int i = 0; i < PREGENERATED_BATCHES; i++) {
+            batches[i] = corpus.batch((long) i * BATCH, BATCH);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        index.close();
+        FileSystemUtils.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void indexBatch() {
+        index.index(batches[(int) (offset % PREGENERATED_BATCHES)], Map.of(0, offset));
+        offset++;
+    }
+}
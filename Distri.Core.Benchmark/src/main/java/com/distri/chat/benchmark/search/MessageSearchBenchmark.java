@@ -0,0 +1,135 @@
+package com.distri.chat.benchmark.search;
+
+import com.distri.chat.biz.group.infra.cache.GroupMemberCache;
+import com.distri.chat.biz.group.infra.repo.GroupMemberMapper;
+import com.distri.chat.biz.message.domain.model.ChatMessage;
+import com.distri.chat.biz.message.domain.service.ConversationAccess;
+import com.distri.chat.biz.search.domain.service.MessageSearchService;
+import com.distri.chat.biz.search.infra.index.MessageIndex;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * 消息搜索单页（20条）耗时，经 MessageSearchService 走用户可见范围过滤
+ * <p>
+ * 语料默认1000万条，首次运行时生成并建索引到 target/search-corpus-{messages}（数分钟），之后复用；
+ * 条数不同或索引不完整时重建。高频词约出现在六成消息中，低频词约2%；
+ * 搜索用户在50个群中，可见消息约占全部的千分之一多。
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class MessageSearchBenchmark {
+
+    private static final int LIMIT = 20;
+    private static final int BUILD_BATCH = 10_000;
+
+    @Param({"10000000"})
+    public long messages;
+
+    private MessageIndex index;
+    private MessageSearchService searchService;
+    private long secondPageCursor;
+
+    @Setup
+    public void setup() throws IOException {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        Path dir = Path.of("target", "search-corpus-" + messages);
+        index = openOrBuild(dir, meterRegistry);
+
+        GroupMemberMapper groupMemberMapper = groupMemberMapper();
+        ConversationAccess conversationAccess = new ConversationAccess(
+                new GroupMemberCache(groupMemberMapper, meterRegistry, 10_000, 3600, 3600, 1));
+        searchService = new MessageSearchService(index, conversationAccess, groupMemberMapper, meterRegistry, 3600);
+
+        List<ChatMessage> firstPage = commonWord();
+        secondPageCursor = firstPage.get(firstPage.size() - 1).getMessageId();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        index.close();
+    }
+
+    @Benchmark
+    public List<ChatMessage> commonWord() {
+        return searchService.search(MessageCorpus.SEARCHER, MessageCorpus.COMMON_WORD, null, null, LIMIT);
+    }
+
+    @Benchmark
+    public List<ChatMessage> rareWord() {
+        return searchService.search(MessageCorpus.SEARCHER, MessageCorpus.RARE_WORD, null, null, LIMIT);
+    }
+
+    /**
+     * 整句搜索，分词后各词都须命中
+     */
+    @Benchmark
+    public List<ChatMessage> sentence() {
+        return searchService.search(MessageCorpus.SEARCHER, "明天下午开会确认方案", null, null, LIMIT);
+    }
+
+    @Benchmark
+    public List<ChatMessage> commonWordSecondPage() {
+        return searchService.search(MessageCorpus.SEARCHER, MessageCorpus.COMMON_WORD, null, secondPageCursor, LIMIT);
+    }
+
+    @Benchmark
+    public List<ChatMessage> inConversation() {
+        return searchService.search(MessageCorpus.SEARCHER, MessageCorpus.COMMON_WORD,
+                MessageCorpus.GROUP_BASE, null, LIMIT);
+    }
+
+    private MessageIndex openOrBuild(Path dir, MeterRegistry meterRegistry) throws IOException {
+        MessageIndex existing = new MessageIndex(meterRegistry, dir.toString(), 256, 1000, 3600);
+        existing.open();
+        if (Long.valueOf(messages - 1).equals(existing.indexedOffsets().get(0))) {
+            return existing;
+        }
+        existing.close();
+        FileSystemUtils.deleteRecursively(dir);
+
+        MessageIndex built = new MessageIndex(meterRegistry, dir.toString(), 256, 1000, 3600);
+        built.open();
+        MessageCorpus corpus = new MessageCorpus(42);
+        long start = System.nanoTime();
+        for (long from = 0; from < messages; from += BUILD_BATCH) {
+            int size = (int) Math.min(BUILD_BATCH, messages - from);
+            built.index(corpus.batch(from, size), Map.of(0, from + size - 1));
+            if ((from / BUILD_BATCH) % 100 == 99) {
+                System.err.printf("已索引 %d 条%n", from + size);
+            }
+        }
+        built.commit();
+        built.refresh();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("语料建索引完成：%d条，%.1fs，%.0f条/秒%n", messages, seconds, messages / seconds);
+        return built;
+    }
+
+    private static GroupMemberMapper groupMemberMapper() {
+        List<Long> searcherGroups = LongStream.range(0, MessageCorpus.SEARCHER_GROUPS)
+                .map(g -> MessageCorpus.GROUP_BASE + g)
+                .boxed()
+                .toList();
+        return (GroupMemberMapper) Proxy.newProxyInstance(GroupMemberMapper.class.getClassLoader(),
+                new Class<?>[]{GroupMemberMapper.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findGroupIds" -> searcherGroups;
+                    case "findUserIds" -> searcherGroups.contains((Long) args[0]) ? List.of(MessageCorpus.SEARCHER) : List.of();
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,79 @@
+package com.distri.chat.benchmark.serialization;
+
+import com.distri.chat.gateway.protocol.BinaryFrameCodec;
+import com.distri.chat.gateway.protocol.ChatFrame;
+import com.distri.chat.gateway.protocol.FrameType;
+import com.distri.chat.gateway.protocol.JsonFrameCodec;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 网关帧编解码：二进制协议与JSON调试模式对比
+ * 分配情况用 -prof gc 查看
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FrameCodecBenchmark {
+
+    @Param({"16", "256"})
+    public int bodyLength;
+
+    private ChatFrame frame;
+    private ByteBuf out;
+    private ByteBuf binaryEncoded;
+    private ByteBuf jsonEncoded;
+
+    @Setup
+    public void setup() throws Exception {
+        frame = ChatFrame.of(FrameType.DELIVER, 42);
+        frame.setConversationId(1_234_567_890L);
+        frame.setMessageId(716_532_881_201_152L);
+        frame.setUserId(10001L);
+        frame.setDeliveryId(17);
+        frame.setBody("消".repeat(bodyLength / 3) + "x".repeat(bodyLength % 3));
+
+        out = PooledByteBufAllocator.DEFAULT.directBuffer(BinaryFrameCodec.MAX_FRAME_LENGTH);
+        binaryEncoded = PooledByteBufAllocator.DEFAULT.directBuffer();
+        BinaryFrameCodec.encode(frame, binaryEncoded);
+        jsonEncoded = PooledByteBufAllocator.DEFAULT.directBuffer();
+        JsonFrameCodec.encode(frame, jsonEncoded);
+    }
+
+    @TearDown
+    public void tearDown() {
+        out.release();
+        binaryEncoded.release();
+        jsonEncoded.release();
+    }
+
+    @Benchmark
+    public int binaryEncode() {
+        out.clear();
+        BinaryFrameCodec.encode(frame, out);
+        return out.writerIndex();
+    }
+
+    @Benchmark
+    public ChatFrame binaryDecode() {
+        return BinaryFrameCodec.decode(binaryEncoded.duplicate());
+    }
+
+    @Benchmark
+    public int jsonEncode() throws Exception {
+        out.clear();
+        JsonFrameCodec.encode(frame, out);
+        return out.writerIndex();
+    }
+
+    @Benchmark
+    public ChatFrame jsonDecode() throws Exception {
+        return JsonFrameCodec.decode(jsonEncoded.duplicate());
+    }
+}
@@ -0,0 +1,49 @@
+package com.distri.chat.benchmark.serialization;
+
+import com.distri.chat.biz.user.api.response.UserAuthResponse;
+import com.distri.chat.common.dto.Result;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 登录/注册响应 Result&lt;UserAuthResponse&gt; 的Jackson序列化
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResultSerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private ObjectWriter writer;
+    private Result<UserAuthResponse> result;
+
+    @Setup
+    public void setup() {
+        objectMapper = new ObjectMapper();
+        writer = objectMapper.writerFor(Result.class);
+        result = Result.success("登录成功", UserAuthResponse.builder()
+                .userId(10001L)
+                .accessToken("eyJhbGciOiJIUzI1NiJ9.eyJzdWIiOiIxMDAwMSIsInVzZXJfaWQiOjEwMDAxLCJjbGllbnRfaWQiOiJjbGllbnRfYmVuY2htYXJrIn0.signature")
+                .refreshToken("Vq3m8c0oW2pQd7yJk1x9ZrT4bNf6hLsGe5uAiCvYXwM")
+                .clientId("client_0f8fad5bd9cb469fa16570867728950e")
+                .nickname("13800000000")
+                .avatar("https://cdn.example.com/avatar/10001.png")
+                .build());
+    }
+
+    @Benchmark
+    public byte[] objectMapper() throws Exception {
+        return objectMapper.writeValueAsBytes(result);
+    }
+
+    @Benchmark
+    public byte[] objectWriter() throws Exception {
+        return writer.writeValueAsBytes(result);
+    }
+}
@@ -0,0 +1,164 @@
+package com.distri.chat.benchmark.support;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.MybatisSqlSessionFactoryBuilder;
+import com.baomidou.mybatisplus.core.toolkit.GlobalConfigUtils;
+import com.distri.chat.common.auth.TokenRevocationListener;
+import com.distri.chat.common.auth.TokenRevocationService;
+import com.distri.chat.common.ratelimit.RateLimiterRegistry;
+import com.distri.chat.common.utils.JwtUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.SqlSessionManager;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.h2.jdbcx.JdbcDataSource;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.embedded.RedisServer;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 基准测试用的组件构造
+ * 只构造对象、不调用依赖Redis/Kafka的启动方法；被测方法的热路径本身不访问外部服务。
+ * 需要真实Redis的基准经 redisConnectionFactory 连接（默认嵌入式Redis）；数据库统一用嵌入式H2。
+ */
+public final class Fixtures {
+
+    public static final String JWT_SECRET = "distriChat2025SecretKeyForJwtTokenGeneration";
+
+    private static RedisServer embeddedRedis;
+
+    private Fixtures() {
+    }
+
+    /**
+     * 未连接Redis的吊销服务，只用于本地名单查询
+     */
+    public static TokenRevocationService tokenRevocationService(MeterRegistry meterRegistry, long expectedSize) {
+        return new TokenRevocationService(
+                new RedisTemplate<>(),
+                new RedisMessageListenerContainer(),
+                new DefaultListableBeanFactory().getBeanProvider(TokenRevocationListener.class),
+                meterRegistry,
+                30,
+                expectedSize,
+                0.001);
+    }
+
+    /**
+     * 与线上默认配置一致的JwtUtil
+     */
+    public static JwtUtil jwtUtil(MeterRegistry meterRegistry) {
+        JwtUtil jwtUtil = new JwtUtil(meterRegistry, tokenRevocationService(meterRegistry, 1_000_000));
+        ReflectionTestUtils.setField(jwtUtil, "jwtSecret", JWT_SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "accessExpirationMinutes", 30L);
+        ReflectionTestUtils.setField(jwtUtil, "accessExpirationJitter", 0.2);
+        ReflectionTestUtils.setField(jwtUtil, "claimsCacheMaxSize", 100_000L);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    /**
+     * 不做跨节点同步的限流器注册表（不调用sync）
+     */
+    public static RateLimiterRegistry rateLimiterRegistry(MeterRegistry meterRegistry) {
+        return new RateLimiterRegistry(new RedisTemplate<>(), meterRegistry, 1000, 100_000);
+    }
+
+    /**
+     * 连接基准测试用的Redis：默认在本进程内启动嵌入式Redis（随JVM退出停止）；
+     * 指定 -Dbenchmark.redis.host（及 port / database，默认6379的15号库，会被清空）时改连外部实例
+     */
+    public static LettuceConnectionFactory redisConnectionFactory() {
+        String host = System.getProperty("benchmark.redis.host");
+        RedisStandaloneConfiguration configuration = host != null
+                ? new RedisStandaloneConfiguration(host, Integer.getInteger("benchmark.redis.port", 6379))
+                : new RedisStandaloneConfiguration("127.0.0.1", embeddedRedisPort());
+        configuration.setDatabase(Integer.getInteger("benchmark.redis.database", 15));
+        LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(configuration);
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        return connectionFactory;
+    }
+
+    /**
+     * 进程内共享一个嵌入式Redis（随机端口、不落盘），首次使用时启动
+     */
+    private static synchronized int embeddedRedisPort() {
+        if (embeddedRedis == null) {
+            try {
+                int port;
+                try (ServerSocket socket = new ServerSocket(0)) {
+                    port = socket.getLocalPort();
+                }
+                RedisServer server = RedisServer.newRedisServer()
+                        .bind("127.0.0.1")
+                        .port(port)
+                        .setting("save \"\"")
+                        .setting("appendonly no")
+                        .onShutdownForceStop(true)
+                        .build();
+                server.start();
+                embeddedRedis = server;
+            } catch (IOException e) {
+                throw new IllegalStateException("启动嵌入式Redis失败", e);
+            }
+        }
+        return embeddedRedis.ports().get(0);
+    }
+
+    /**
+     * 嵌入式H2（MySQL兼容模式），按 schema-h2.sql 建表；同名库在进程内共享
+     */
+    public static JdbcDataSource h2DataSource(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("RUNSCRIPT FROM 'classpath:/schema-h2.sql'");
+        } catch (SQLException e) {
+            throw new IllegalStateException("初始化H2失败：" + name, e);
+        }
+        return dataSource;
+    }
+
+    /**
+     * 与线上一致的MyBatis-Plus配置（下划线转驼峰），注册给定的Mapper；
+     * 返回的SqlSessionManager线程安全，经其getMapper取得的Mapper每次调用各用一个会话并提交
+     */
+    public static SqlSessionManager sqlSessionManager(DataSource dataSource, Class<?>... mappers) {
+        MybatisConfiguration configuration = new MybatisConfiguration();
+        configuration.setEnvironment(new Environment("benchmark", new JdbcTransactionFactory(), dataSource));
+        configuration.setMapUnderscoreToCamelCase(true);
+        GlobalConfigUtils.setGlobalConfig(configuration, GlobalConfigUtils.defaults());
+        for (Class<?> mapper : mappers) {
+            configuration.addMapper(mapper);
+        }
+        return SqlSessionManager.newInstance(new MybatisSqlSessionFactoryBuilder().build(configuration));
+    }
+
+    /**
+     * 与 RedisConfig 中序列化方式一致的模板
+     */
+    public static RedisTemplate<String, Object> redisTemplate(LettuceConnectionFactory connectionFactory) {
+        RedisTemplate<String, Object> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setHashKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(new StringRedisSerializer());
+        template.setHashValueSerializer(new StringRedisSerializer());
+        template.afterPropertiesSet();
+        return template;
+    }
+}
@@ -0,0 +1,162 @@
+-- 与 Distri.Core.Platform/src/main/resources/mysql.sql 一致，去掉H2不支持的表选项与注释
+CREATE TABLE IF NOT EXISTS users (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    phone VARCHAR(11) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    nickname VARCHAR(50) NOT NULL,
+    avatar VARCHAR(255) DEFAULT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'ACTIVE',
+    extra VARCHAR(4096) DEFAULT NULL,
+    create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    update_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    deleted TINYINT NOT NULL DEFAULT 0,
+    UNIQUE KEY uk_phone (phone)
+);
+
+CREATE TABLE IF NOT EXISTS messages_0 (
+    conversation_id BIGINT NOT NULL,
+    message_id BIGINT NOT NULL,
+    sender_id BIGINT NOT NULL,
+    sender_client_id VARCHAR(64) DEFAULT NULL,
+    client_seq BIGINT NOT NULL DEFAULT 0,
+    content TEXT NOT NULL,
+    send_time BIGINT NOT NULL,
+    create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (conversation_id, message_id)
+);
+
+CREATE TABLE IF NOT EXISTS messages_1 (
+    conversation_id BIGINT NOT NULL,
+    message_id BIGINT NOT NULL,
+    sender_id BIGINT NOT NULL,
+    sender_client_id VARCHAR(64) DEFAULT NULL,
+    client_seq BIGINT NOT NULL DEFAULT 0,
+    content TEXT NOT NULL,
+    send_time BIGINT NOT NULL,
+    create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (conversation_id, message_id)
+);
+
+CREATE TABLE IF NOT EXISTS messages_2 (
+    conversation_id BIGINT NOT NULL,
+    message_id BIGINT NOT NULL,
+    sender_id BIGINT NOT NULL,
+    sender_client_id VARCHAR(64) DEFAULT NULL,
+    client_seq BIGINT NOT NULL DEFAULT 0,
+    content TEXT NOT NULL,
+    send_time BIGINT NOT NULL,
+    create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (conversation_id, message_id)
+);
+
+CREATE TABLE IF NOT EXISTS messages_3 (
+    conversation_id BIGINT NOT NULL,
+    message_id BIGINT NOT NULL,
+    sender_id BIGINT NOT NULL,
+    sender_client_id VARCHAR(64) DEFAULT NULL,
+    client_seq BIGINT NOT NULL DEFAULT 0,
+    content TEXT NOT NULL,
+    send_time BIGINT NOT NULL,
+    create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (conversation_id, message_id)
+);
+
+CREATE TABLE IF NOT EXISTS messages_4 (
+    conversation_id BIGINT NOT NULL,
+    message_id BIGINT NOT NULL,
+    sender_id BIGINT NOT NULL,
+    sender_client_id VARCHAR(64) DEFAULT NULL,
+    client_seq BIGINT NOT NULL DEFAULT 0,
+    content TEXT NOT NULL,
+    send_time BIGINT NOT NULL,
+    create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (conversation_id, message_id)
+);
+
+CREATE TABLE IF NOT EXISTS messages_5 (
+    conversation_id BIGINT NOT NULL,
+    message_id BIGINT NOT NULL,
+    sender_id BIGINT NOT NULL,
+    sender_client_id VARCHAR(64) DEFAULT NULL,
+    client_seq BIGINT NOT NULL DEFAULT 0,
+    content TEXT NOT NULL,
+    send_time BIGINT NOT NULL,
+    create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (conversation_id, message_id)
+);
+
+CREATE TABLE IF NOT EXISTS messages_6 (
+    conversation_id BIGINT NOT NULL,
+    message_id BIGINT NOT NULL,
+    sender_id BIGINT NOT NULL,
+    sender_client_id VARCHAR(64) DEFAULT NULL,
+    client_seq BIGINT NOT NULL DEFAULT 0,
+    content TEXT NOT NULL,
+    send_time BIGINT NOT NULL,
+    create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (conversation_id, message_id)
+);
+
+CREATE TABLE IF NOT EXISTS messages_7 (
+    conversation_id BIGINT NOT NULL,
+    message_id BIGINT NOT NULL,
+    sender_id BIGINT NOT NULL,
+    sender_client_id VARCHAR(64) DEFAULT NULL,
+    client_seq BIGINT NOT NULL DEFAULT 0,
+    content TEXT NOT NULL,
+    send_time BIGINT NOT NULL,
+    create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (conversation_id, message_id)
+);
+
+-- 仅H2：InnoDB可沿主键反向扫描，H2不能，向前翻页需要倒序索引才能按索引顺序取前N条
+CREATE INDEX IF NOT EXISTS idx_messages_0_desc ON messages_0 (conversation_id DESC, message_id DESC);
+CREATE INDEX IF NOT EXISTS idx_messages_1_desc ON messages_1 (conversation_id DESC, message_id DESC);
+CREATE INDEX IF NOT EXISTS idx_messages_2_desc ON messages_2 (conversation_id DESC, message_id DESC);
+CREATE INDEX IF NOT EXISTS idx_messages_3_desc ON messages_3 (conversation_id DESC, message_id DESC);
+CREATE INDEX IF NOT EXISTS idx_messages_4_desc ON messages_4 (conversation_id DESC, message_id DESC);
+CREATE INDEX IF NOT EXISTS idx_messages_5_desc ON messages_5 (conversation_id DESC, message_id DESC);
+CREATE INDEX IF NOT EXISTS idx_messages_6_desc ON messages_6 (conversation_id DESC, message_id DESC);
+CREATE INDEX IF NOT EXISTS idx_messages_7_desc ON messages_7 (conversation_id DESC, message_id DESC);
+
+CREATE TABLE IF NOT EXISTS user_inbox (
+    user_id BIGINT NOT NULL,
+    seq BIGINT NOT NULL,
+    conversation_id BIGINT NOT NULL,
+    message_id BIGINT NOT NULL,
+    create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (user_id, seq)
+);
+
+CREATE TABLE IF NOT EXISTS chat_groups (
+    id BIGINT PRIMARY KEY,
+    name VARCHAR(50) NOT NULL,
+    owner_id BIGINT NOT NULL,
+    member_count INT NOT NULL DEFAULT 0,
+    create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    update_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    deleted TINYINT NOT NULL DEFAULT 0
+);
+
+CREATE TABLE IF NOT EXISTS group_members (
+    group_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    join_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (group_id, user_id)
+);
+
+CREATE TABLE IF NOT EXISTS event_outbox (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    topic VARCHAR(128) NOT NULL,
+    event_key VARCHAR(128) DEFAULT NULL,
+    payload TEXT NOT NULL,
+    create_time BIGINT NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS conversation_read_position (
+    user_id BIGINT NOT NULL,
+    conversation_id BIGINT NOT NULL,
+    read_message_id BIGINT NOT NULL,
+    update_time BIGINT NOT NULL,
+    PRIMARY KEY (user_id, conversation_id)
+);
@@ -2,14 +2,36 @@ package com.distri.chat;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.util.Map;
 
 /**
  * DistriChat 分布式即时通讯系统启动类
+ * <p>
+ * spring.threads.virtual.enabled=true 时Tomcat请求、@Scheduled任务与Kafka监听均运行在虚拟线程上（需JDK 21）；本项目没有启用@Async。
+ * 此时请求并发不再受Tomcat线程数约束，真正的上限是数据库与Redis连接池，
+ * 因此连接池显式定容，并缩短等待连接的超时，池耗尽时快速失败而不是让大量虚拟线程排队。
  */
 @SpringBootApplication
+@EnableScheduling
 public class DistriChatApplication {
 
     public static void main(String[] args) {
-        SpringApplication.run(DistriChatApplication.class, args);
+        SpringApplication application = new SpringApplication(DistriChatApplication.class);
+        // 默认值，可被配置文件覆盖
+        application.setDefaultProperties(Map.ofEntries(
+                Map.entry("management.endpoints.web.exposure.include", "health,info,prometheus"),
+                Map.entry("management.metrics.tags.application", "distri-chat"),
+                Map.entry("spring.threads.virtual.enabled", "false"),
+                Map.entry("server.tomcat.max-connections", "20000"),
+                Map.entry("server.tomcat.accept-count", "1000"),
+                Map.entry("spring.datasource.hikari.maximum-pool-size", "32"),
+                Map.entry("spring.datasource.hikari.connection-timeout", "3000"),
+                Map.entry("spring.data.redis.lettuce.pool.enabled", "true"),
+                Map.entry("spring.data.redis.lettuce.pool.max-active", "64"),
+                Map.entry("spring.data.redis.lettuce.pool.max-idle", "64"),
+                Map.entry("spring.data.redis.lettuce.pool.max-wait", "2s")));
+        application.run(args);
     }
 } 
\ No newline at end of file
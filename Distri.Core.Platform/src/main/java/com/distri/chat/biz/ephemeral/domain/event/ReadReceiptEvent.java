@@ -0,0 +1,41 @@
+package com.distri.chat.biz.ephemeral.domain.event;
+
+import com.distri.chat.biz.user.domain.event.UserEvent;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 已读回执批次事件
+ * 一个刷新周期内同一用户的全部已读位置合并为一条，发布到 distri-chat-v1-user-event，
+ * 与上线/下线事件同主题同key（userId），type为 {@link UserEvent#READ_RECEIPTS}
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReadReceiptEvent {
+
+    private String type;
+
+    private Long userId;
+
+    private List<Read> reads;
+
+    // 事件发生时间（毫秒）
+    private Long timestamp;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Read {
+
+        private Long conversationId;
+
+        // 已读到的消息ID（含）
+        private Long messageId;
+    }
+}
@@ -0,0 +1,20 @@
+package com.distri.chat.biz.ephemeral.domain.model;
+
+import com.distri.chat.gateway.protocol.FrameType;
+
+/**
+ * 瞬时事件：正在输入（TYPING）或已读位置（READ）
+ * 只推送给在线的会话成员，不进入消息存储与收件箱，丢失由下一次事件自然覆盖
+ *
+ * @param messageId READ为已读到的消息ID，TYPING为0
+ */
+public record EphemeralEvent(FrameType type, long conversationId, long userId, long messageId) {
+
+    public static EphemeralEvent typing(long conversationId, long userId) {
+        return new EphemeralEvent(FrameType.TYPING, conversationId, userId, 0);
+    }
+
+    public static EphemeralEvent read(long conversationId, long userId, long messageId) {
+        return new EphemeralEvent(FrameType.READ, conversationId, userId, messageId);
+    }
+}
@@ -0,0 +1,26 @@
+package com.distri.chat.biz.ephemeral.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 会话已读位置
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReadPosition {
+
+    private Long userId;
+
+    private Long conversationId;
+
+    // 已读到的消息ID（含）
+    private Long readMessageId;
+
+    // 最后更新时间（毫秒）
+    private Long updateTime;
+}
@@ -0,0 +1,15 @@
+package com.distri.chat.biz.ephemeral.domain.service;
+
+import com.distri.chat.biz.ephemeral.domain.model.EphemeralEvent;
+
+/**
+ * 瞬时事件的跨节点广播
+ * 实现方按时间窗口攒批发出，各节点收到后交给 EphemeralDeliveryService 推送本节点在线的会话成员
+ */
+public interface EphemeralBroadcaster {
+
+    /**
+     * 入队即返回，不阻塞调用线程（可在EventLoop上调用）
+     */
+    void broadcast(EphemeralEvent event);
+}
@@ -0,0 +1,102 @@
+package com.distri.chat.biz.ephemeral.domain.service;
+
+import com.distri.chat.biz.ephemeral.domain.model.EphemeralEvent;
+import com.distri.chat.biz.group.infra.cache.GroupMemberCache;
+import com.distri.chat.biz.message.domain.model.ConversationIds;
+import com.distri.chat.gateway.protocol.ChatFrame;
+import com.distri.chat.gateway.protocol.FrameType;
+import com.distri.chat.gateway.session.LocalChannelRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.Channel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 瞬时事件的本节点推送
+ * <p>
+ * 推送给本节点在线的会话成员，seq为0，不进入投递窗口、不要求确认。
+ * TYPING不推给本人；READ同时推给本人的其他设备，用于多端同步已读位置。
+ * 成员数超过 ephemeral.max-group-size 的群不推送瞬时事件。
+ * 一批事件处理完后每个连接只flush一次。
+ */
+@Service
+public class EphemeralDeliveryService {
+
+    private final LocalChannelRegistry channelRegistry;
+    private final GroupMemberCache groupMemberCache;
+    private final int maxGroupSize;
+
+    private final Counter pushCounter;
+    private final Counter largeGroupCounter;
+
+    public EphemeralDeliveryService(LocalChannelRegistry channelRegistry,
+                                    GroupMemberCache groupMemberCache,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${ephemeral.max-group-size:500}") int maxGroupSize) {
+        this.channelRegistry = channelRegistry;
+        this.groupMemberCache = groupMemberCache;
+        this.maxGroupSize = maxGroupSize;
+
+        this.pushCounter = Counter.builder("ephemeral.push")
+                .description("推送给本节点连接的瞬时事件帧数")
+                .register(meterRegistry);
+        this.largeGroupCounter = Counter.builder("ephemeral.large-group.skipped")
+                .description("因群成员过多而未推送的瞬时事件数")
+                .register(meterRegistry);
+    }
+
+    public void deliver(List<EphemeralEvent> events) {
+        Set<Channel> touched = new HashSet<>();
+        for (EphemeralEvent event : events) {
+            Collection<Long> recipients = recipients(event);
+            if (recipients == null) {
+                largeGroupCounter.increment();
+                continue;
+            }
+            ChatFrame frame = toFrame(event);
+            boolean skipActor = event.type() == FrameType.TYPING;
+            for (Long recipient : recipients) {
+                if (skipActor && recipient == event.userId()) {
+                    continue;
+                }
+                for (Channel channel : channelRegistry.getChannels(recipient)) {
+                    if (channel.isActive()) {
+                        channel.write(frame);
+                        touched.add(channel);
+                        pushCounter.increment();
+                    }
+                }
+            }
+        }
+        for (Channel channel : touched) {
+            channel.flush();
+        }
+    }
+
+    /**
+     * @return 会话成员，超大群返回null
+     */
+    private Collection<Long> recipients(EphemeralEvent event) {
+        long conversationId = event.conversationId();
+        if (ConversationIds.isSingle(conversationId)) {
+            return List.of(event.userId(), ConversationIds.peerOf(conversationId, event.userId()));
+        }
+        Set<Long> members = groupMemberCache.getMembers(conversationId);
+        return members.size() > maxGroupSize ? null : members;
+    }
+
+    private static ChatFrame toFrame(EphemeralEvent event) {
+        return ChatFrame.builder()
+                .type(event.type())
+                .conversationId(event.conversationId())
+                .userId(event.userId())
+                .messageId(event.messageId())
+                .build();
+    }
+}
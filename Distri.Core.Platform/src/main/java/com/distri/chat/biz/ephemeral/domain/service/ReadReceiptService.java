@@ -0,0 +1,191 @@
+package com.distri.chat.biz.ephemeral.domain.service;
+
+import com.distri.chat.biz.ephemeral.domain.event.ReadReceiptEvent;
+import com.distri.chat.biz.ephemeral.domain.model.EphemeralEvent;
+import com.distri.chat.biz.ephemeral.domain.model.ReadPosition;
+import com.distri.chat.biz.ephemeral.infra.repo.ReadPositionMapper;
+import com.distri.chat.biz.user.domain.event.UserEvent;
+import com.distri.chat.common.metrics.ReductionMeter;
+import com.distri.chat.common.outbox.OutboxWriter;
+import com.distri.chat.config.KafkaConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 已读回执
+ * <p>
+ * 客户端每看到一条消息都可能上报一次，服务端按（用户，会话）只保留最大的消息ID，
+ * 每个 receipt.flush-interval-millis 周期由独立线程统一处理一次：先广播给在线成员，
+ * 再按（用户，会话）排序后分批写入已读位置表，每批按用户合并为READ_RECEIPTS事件，与该批位置在同一事务写入发件箱，
+ * 由中继投递到用户事件主题。写库失败的位置并回待处理集合，下个周期重试。
+ */
+@Slf4j
+@Service
+public class ReadReceiptService {
+
+    private final ReadPositionMapper readPositionMapper;
+    private final OutboxWriter outboxWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final EphemeralBroadcaster broadcaster;
+    private final long flushIntervalMillis;
+    private final int batchSize;
+
+    // 待处理的已读位置，同一（用户，会话）只保留最大的消息ID
+    private final Map<ReadKey, Long> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flushExecutor;
+
+    private final ReductionMeter reductionMeter;
+    private final DistributionSummary flushSizeSummary;
+    private final Counter persistFailedCounter;
+
+    public ReadReceiptService(ReadPositionMapper readPositionMapper,
+                              OutboxWriter outboxWriter,
+                              TransactionTemplate transactionTemplate,
+                              EphemeralBroadcaster broadcaster,
+                              MeterRegistry meterRegistry,
+                              @Value("${receipt.flush-interval-millis:1000}") long flushIntervalMillis,
+                              @Value("${receipt.batch-size:500}") int batchSize) {
+        this.readPositionMapper = readPositionMapper;
+        this.outboxWriter = outboxWriter;
+        this.transactionTemplate = transactionTemplate;
+        this.broadcaster = broadcaster;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.batchSize = batchSize;
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("receipt-flush-");
+        threadFactory.setDaemon(true);
+        this.flushExecutor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+
+        this.reductionMeter = new ReductionMeter(meterRegistry, "ephemeral.events", "瞬时事件合并", "type", "read");
+        this.flushSizeSummary = DistributionSummary.builder("receipt.flush.size")
+                .description("每个刷新周期合并后的已读位置数")
+                .register(meterRegistry);
+        this.persistFailedCounter = Counter.builder("receipt.persist.failed")
+                .description("写库失败、留待下个周期重试的已读位置数")
+                .register(meterRegistry);
+        Gauge.builder("receipt.pending", pending, Map::size)
+                .description("等待刷新的已读位置数")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        flushExecutor.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushExecutor.shutdown();
+        try {
+            flushExecutor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    /**
+     * 记录已读位置，只做内存合并，可在EventLoop上调用
+     */
+    public void onRead(Long userId, long conversationId, long messageId) {
+        reductionMeter.received();
+        pending.merge(new ReadKey(userId, conversationId), messageId, Math::max);
+    }
+
+    /**
+     * 取走周期内合并后的全部位置并处理，异常不外抛，避免终止调度
+     */
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<ReadPosition> positions = new ArrayList<>(pending.size());
+        for (ReadKey key : pending.keySet()) {
+            Long messageId = pending.remove(key);
+            if (messageId != null) {
+                positions.add(new ReadPosition(key.userId(), key.conversationId(), messageId, now));
+            }
+        }
+        if (positions.isEmpty()) {
+            return;
+        }
+        reductionMeter.emitted(positions.size());
+        flushSizeSummary.record(positions.size());
+
+        try {
+            for (ReadPosition position : positions) {
+                broadcaster.broadcast(EphemeralEvent.read(position.getConversationId(),
+                        position.getUserId(), position.getReadMessageId()));
+            }
+            persist(positions, now);
+        } catch (Exception e) {
+            log.error("已读回执处理失败：{}条", positions.size(), e);
+        }
+    }
+
+    public ReductionMeter reductionMeter() {
+        return reductionMeter;
+    }
+
+    /**
+     * 分批写库，每批的位置与其事件在同一事务提交；按主键排序，同一用户的位置尽量落在同一批
+     */
+    private void persist(List<ReadPosition> positions, long now) {
+        positions.sort(Comparator.comparingLong(ReadPosition::getUserId).thenComparingLong(ReadPosition::getConversationId));
+        for (int from = 0; from < positions.size(); from += batchSize) {
+            List<ReadPosition> chunk = positions.subList(from, Math.min(from + batchSize, positions.size()));
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    readPositionMapper.upsertBatch(chunk);
+                    appendEvents(chunk, now);
+                });
+            } catch (Exception e) {
+                persistFailedCounter.increment(chunk.size());
+                log.error("已读位置写入失败，下个周期重试：{}条", chunk.size(), e);
+                for (ReadPosition position : chunk) {
+                    pending.merge(new ReadKey(position.getUserId(), position.getConversationId()),
+                            position.getReadMessageId(), Math::max);
+                }
+            }
+        }
+    }
+
+    private void appendEvents(List<ReadPosition> positions, long now) {
+        Map<Long, List<ReadReceiptEvent.Read>> byUser = new LinkedHashMap<>();
+        for (ReadPosition position : positions) {
+            byUser.computeIfAbsent(position.getUserId(), k -> new ArrayList<>())
+                    .add(new ReadReceiptEvent.Read(position.getConversationId(), position.getReadMessageId()));
+        }
+        for (Map.Entry<Long, List<ReadReceiptEvent.Read>> entry : byUser.entrySet()) {
+            outboxWriter.append(KafkaConfig.USER_EVENT_TOPIC, String.valueOf(entry.getKey()), ReadReceiptEvent.builder()
+                    .type(UserEvent.READ_RECEIPTS)
+                    .userId(entry.getKey())
+                    .reads(entry.getValue())
+                    .timestamp(now)
+                    .build());
+        }
+    }
+
+    private record ReadKey(long userId, long conversationId) {
+    }
+}
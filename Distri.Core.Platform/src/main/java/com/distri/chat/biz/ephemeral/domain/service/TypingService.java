@@ -0,0 +1,57 @@
+package com.distri.chat.biz.ephemeral.domain.service;
+
+import com.distri.chat.biz.ephemeral.domain.model.EphemeralEvent;
+import com.distri.chat.common.metrics.ReductionMeter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * 正在输入
+ * <p>
+ * 不落库，只广播给在线成员。客户端在输入期间会反复上报，同一（用户，会话）在 typing.collapse-millis
+ * 内只转发第一次，其余直接丢弃；客户端收到后展示略长于该窗口的时间即可保持提示连续。
+ */
+@Service
+public class TypingService {
+
+    private final EphemeralBroadcaster broadcaster;
+    private final Cache<TypingKey, Boolean> recent;
+    private final ReductionMeter reductionMeter;
+
+    public TypingService(EphemeralBroadcaster broadcaster,
+                         MeterRegistry meterRegistry,
+                         @Value("${typing.collapse-millis:3000}") long collapseMillis,
+                         @Value("${typing.max-tracked:1000000}") long maxTracked) {
+        this.broadcaster = broadcaster;
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(maxTracked)
+                .expireAfterWrite(Duration.ofMillis(collapseMillis))
+                .build();
+        this.reductionMeter = new ReductionMeter(meterRegistry, "ephemeral.events", "瞬时事件合并", "type", "typing");
+    }
+
+    /**
+     * @return 是否转发（窗口内的重复上报返回false）
+     */
+    public boolean onTyping(Long userId, long conversationId) {
+        reductionMeter.received();
+        if (recent.asMap().putIfAbsent(new TypingKey(userId, conversationId), Boolean.TRUE) != null) {
+            return false;
+        }
+        broadcaster.broadcast(EphemeralEvent.typing(conversationId, userId));
+        reductionMeter.emitted(1);
+        return true;
+    }
+
+    public ReductionMeter reductionMeter() {
+        return reductionMeter;
+    }
+
+    private record TypingKey(long userId, long conversationId) {
+    }
+}
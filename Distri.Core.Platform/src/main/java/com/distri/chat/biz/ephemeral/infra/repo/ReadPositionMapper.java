@@ -0,0 +1,29 @@
+package com.distri.chat.biz.ephemeral.infra.repo;
+
+import com.distri.chat.biz.ephemeral.domain.model.ReadPosition;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * 会话已读位置数据访问层
+ */
+@Mapper
+public interface ReadPositionMapper {
+
+    /**
+     * 批量写入，已存在时只向前推进（乱序到达的旧位置不会覆盖新位置）
+     */
+    @Insert("<script>"
+            + "INSERT INTO conversation_read_position (user_id, conversation_id, read_message_id, update_time) VALUES "
+            + "<foreach collection='positions' item='p' separator=','>"
+            + "(#{p.userId}, #{p.conversationId}, #{p.readMessageId}, #{p.updateTime})"
+            + "</foreach>"
+            + " ON DUPLICATE KEY UPDATE "
+            + "update_time = IF(VALUES(read_message_id) &gt; read_message_id, VALUES(update_time), update_time), "
+            + "read_message_id = GREATEST(read_message_id, VALUES(read_message_id))"
+            + "</script>")
+    int upsertBatch(@Param("positions") List<ReadPosition> positions);
+}
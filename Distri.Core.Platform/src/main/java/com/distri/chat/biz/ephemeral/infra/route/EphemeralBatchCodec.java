@@ -0,0 +1,60 @@
+package com.distri.chat.biz.ephemeral.infra.route;
+
+import com.distri.chat.biz.ephemeral.domain.model.EphemeralEvent;
+import com.distri.chat.gateway.protocol.FrameType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 瞬时事件批次编解码，每条事件定长25字节
+ * <pre>
+ * [version(1)] [条数(4)] [事件: type(1) conversationId(8) userId(8) messageId(8) ...]
+ * </pre>
+ */
+final class EphemeralBatchCodec {
+
+    private static final byte VERSION = 1;
+    private static final int EVENT_BYTES = 25;
+
+    private EphemeralBatchCodec() {
+    }
+
+    static byte[] encode(List<EphemeralEvent> events) {
+        ByteBuffer buffer = ByteBuffer.allocate(5 + events.size() * EVENT_BYTES);
+        buffer.put(VERSION);
+        buffer.putInt(events.size());
+        for (EphemeralEvent event : events) {
+            buffer.put(event.type().code());
+            buffer.putLong(event.conversationId());
+            buffer.putLong(event.userId());
+            buffer.putLong(event.messageId());
+        }
+        return buffer.array();
+    }
+
+    static List<EphemeralEvent> decode(byte[] payload) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        byte version = buffer.get();
+        if (version != VERSION) {
+            throw new IOException("不支持的瞬时事件批次版本：" + version);
+        }
+        int count = buffer.getInt();
+        if (count < 0 || buffer.remaining() != count * EVENT_BYTES) {
+            throw new IOException("瞬时事件批次长度不符：条数=" + count + ", 剩余=" + buffer.remaining());
+        }
+        List<EphemeralEvent> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            FrameType type = FrameType.fromCode(buffer.get());
+            long conversationId = buffer.getLong();
+            long userId = buffer.getLong();
+            long messageId = buffer.getLong();
+            if (type == FrameType.TYPING || type == FrameType.READ) {
+                events.add(new EphemeralEvent(type, conversationId, userId, messageId));
+            }
+        }
+        return events;
+    }
+}
@@ -0,0 +1,150 @@
+package com.distri.chat.biz.ephemeral.infra.route;
+
+import com.distri.chat.biz.ephemeral.domain.model.EphemeralEvent;
+import com.distri.chat.biz.ephemeral.domain.service.EphemeralBroadcaster;
+import com.distri.chat.biz.ephemeral.domain.service.EphemeralDeliveryService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基于Redis发布订阅的瞬时事件广播
+ * <p>
+ * 全部网关节点订阅同一频道 distri-chat:ephemeral。事件在合并之后已很稀疏，且按会话成员查路由
+ * 反而比直接广播更贵，因此不区分目标节点：每个时间窗口（或攒满一批）以一次PUBLISH发出，
+ * 各节点只推送本节点在线的成员。发布失败直接丢弃，瞬时事件不重试。
+ */
+@Slf4j
+@Component
+public class RedisEphemeralRouter implements EphemeralBroadcaster, MessageListener {
+
+    private static final String CHANNEL = "distri-chat:ephemeral";
+
+    private final RedisTemplate<String, byte[]> byteRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final EphemeralDeliveryService deliveryService;
+    private final long flushIntervalMillis;
+    private final int maxBatchSize;
+
+    private final ConcurrentLinkedQueue<EphemeralEvent> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final ScheduledExecutorService flushExecutor;
+
+    private final DistributionSummary publishBatchSummary;
+    private final Counter publishFailedCounter;
+    private final Counter decodeErrorCounter;
+
+    public RedisEphemeralRouter(RedisTemplate<String, byte[]> byteRedisTemplate,
+                                RedisMessageListenerContainer listenerContainer,
+                                EphemeralDeliveryService deliveryService,
+                                MeterRegistry meterRegistry,
+                                @Value("${ephemeral.flush-interval-millis:50}") long flushIntervalMillis,
+                                @Value("${ephemeral.max-batch-size:1000}") int maxBatchSize) {
+        this.byteRedisTemplate = byteRedisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.deliveryService = deliveryService;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.maxBatchSize = maxBatchSize;
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("ephemeral-flush-");
+        threadFactory.setDaemon(true);
+        this.flushExecutor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+
+        this.publishBatchSummary = DistributionSummary.builder("ephemeral.publish.batch.size")
+                .description("每次PUBLISH携带的瞬时事件数")
+                .register(meterRegistry);
+        this.publishFailedCounter = Counter.builder("ephemeral.publish.failed")
+                .description("发布失败而丢弃的瞬时事件数")
+                .register(meterRegistry);
+        this.decodeErrorCounter = Counter.builder("ephemeral.decode.error")
+                .description("无法解码的瞬时事件批次数")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        listenerContainer.addMessageListener(this, ChannelTopic.of(CHANNEL));
+        flushExecutor.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void broadcast(EphemeralEvent event) {
+        queue.offer(event);
+        if (size.incrementAndGet() == maxBatchSize) {
+            flushExecutor.execute(this::flush);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        List<EphemeralEvent> events;
+        try {
+            events = EphemeralBatchCodec.decode(message.getBody());
+        } catch (Exception e) {
+            decodeErrorCounter.increment();
+            log.error("瞬时事件批次解码失败，长度={}", message.getBody().length, e);
+            return;
+        }
+        deliveryService.deliver(events);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        listenerContainer.removeMessageListener(this);
+        flushExecutor.shutdown();
+        try {
+            flushExecutor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private void flush() {
+        while (size.get() > 0) {
+            List<EphemeralEvent> batch = new ArrayList<>(Math.min(size.get(), maxBatchSize));
+            EphemeralEvent event;
+            while (batch.size() < maxBatchSize && (event = queue.poll()) != null) {
+                batch.add(event);
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            size.addAndGet(-batch.size());
+            publish(batch);
+        }
+    }
+
+    private void publish(List<EphemeralEvent> batch) {
+        try {
+            byte[] channel = RedisSerializer.string().serialize(CHANNEL);
+            byte[] payload = EphemeralBatchCodec.encode(batch);
+            byteRedisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(channel, payload));
+            publishBatchSummary.record(batch.size());
+        } catch (Exception e) {
+            publishFailedCounter.increment(batch.size());
+            log.error("瞬时事件批次发布失败：条数={}", batch.size(), e);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.distri.chat.biz.group.api;
+
+import com.distri.chat.biz.group.api.request.AddMembersRequest;
+import com.distri.chat.biz.group.api.request.CreateGroupRequest;
+import com.distri.chat.biz.group.api.response.GroupView;
+import com.distri.chat.biz.group.domain.service.GroupService;
+import com.distri.chat.common.auth.AuthInterceptor;
+import com.distri.chat.common.dto.Result;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 群组控制器
+ */
+@RestController
+@RequestMapping("/api/groups")
+@Tag(name = "群组", description = "建群、成员管理接口")
+public class GroupController {
+
+    private final GroupService groupService;
+
+    public GroupController(GroupService groupService) {
+        this.groupService = groupService;
+    }
+
+    @Operation(summary = "建群", description = "创建者自动成为群主和成员")
+    @PostMapping
+    public Result<GroupView> create(@RequestAttribute(AuthInterceptor.USER_ID) Long userId,
+                                    @Valid @RequestBody CreateGroupRequest req) {
+        return Result.success(GroupView.from(groupService.create(userId, req.getName(), req.getMemberIds())));
+    }
+
+    @Operation(summary = "我的群", description = "当前用户加入的全部群")
+    @GetMapping("/mine")
+    public Result<List<GroupView>> mine(@RequestAttribute(AuthInterceptor.USER_ID) Long userId) {
+        return Result.success(groupService.getUserGroups(userId).stream().map(GroupView::from).toList());
+    }
+
+    @Operation(summary = "拉人入群")
+    @PostMapping("/{groupId}/members")
+    public Result<Void> addMembers(@RequestAttribute(AuthInterceptor.USER_ID) Long userId,
+                                   @PathVariable long groupId,
+                                   @Valid @RequestBody AddMembersRequest req) {
+        groupService.addMembers(userId, groupId, req.getUserIds());
+        return Result.success();
+    }
+
+    @Operation(summary = "退群")
+    @DeleteMapping("/{groupId}/members/me")
+    public Result<Void> leave(@RequestAttribute(AuthInterceptor.USER_ID) Long userId,
+                              @PathVariable long groupId) {
+        groupService.leave(userId, groupId);
+        return Result.success();
+    }
+}
@@ -0,0 +1,22 @@
+package com.distri.chat.biz.group.api.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AddMembersRequest {
+
+    @NotEmpty(message = "成员列表不能为空")
+    @Size(max = 500, message = "单次最多添加500人")
+    private List<Long> userIds;
+
+}
@@ -0,0 +1,26 @@
+package com.distri.chat.biz.group.api.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreateGroupRequest {
+
+    @NotBlank(message = "群名称不能为空")
+    @Size(max = 50, message = "群名称不能超过50个字符")
+    private String name;
+
+    @NotNull(message = "成员列表不能为空")
+    private List<Long> memberIds;
+
+}
@@ -0,0 +1,23 @@
+package com.distri.chat.biz.group.api.response;
+
+import com.distri.chat.biz.group.domain.model.ChatGroup;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GroupView {
+    // 群ID即会话ID，雪花ID以字符串返回
+    private String groupId;
+    private String name;
+    private Long ownerId;
+    private Integer memberCount;
+
+    public static GroupView from(ChatGroup group) {
+        return new GroupView(String.valueOf(group.getId()), group.getName(), group.getOwnerId(), group.getMemberCount());
+    }
+}
@@ -0,0 +1,37 @@
+package com.distri.chat.biz.group.domain.model;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@TableName("chat_groups")
+public class ChatGroup {
+
+    // 雪花ID，同时作为群聊会话ID
+    @TableId(type = IdType.ASSIGN_ID)
+    private Long id;
+
+    @TableField(value = "name")
+    private String name;
+
+    @TableField(value = "owner_id")
+    private Long ownerId;
+
+    @TableField(value = "member_count")
+    private Integer memberCount;
+
+    @TableField(value = "create_time", fill = FieldFill.INSERT)
+    private LocalDateTime createTime;
+
+    @TableField(value = "update_time", fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updateTime;
+
+    @TableLogic
+    @TableField(value = "deleted")
+    private Integer deleted; // 0 means not deleted
+}
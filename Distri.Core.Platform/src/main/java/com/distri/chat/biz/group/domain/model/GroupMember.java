@@ -0,0 +1,24 @@
+package com.distri.chat.biz.group.domain.model;
+
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@TableName("group_members")
+public class GroupMember {
+
+    @TableField(value = "group_id")
+    private Long groupId;
+
+    @TableField(value = "user_id")
+    private Long userId;
+
+    @TableField(value = "join_time")
+    private LocalDateTime joinTime;
+}
@@ -0,0 +1,116 @@
+package com.distri.chat.biz.group.domain.service;
+
+import com.distri.chat.biz.group.domain.model.ChatGroup;
+import com.distri.chat.biz.group.infra.cache.GroupMemberCache;
+import com.distri.chat.biz.group.infra.repo.ChatGroupMapper;
+import com.distri.chat.biz.group.infra.repo.GroupMemberMapper;
+import com.distri.chat.common.exception.BusinessException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 群组领域服务
+ * 负责建群、加人、退群；成员变更后失效本节点的成员缓存
+ */
+@Service
+public class GroupService {
+
+    private final ChatGroupMapper chatGroupMapper;
+    private final GroupMemberMapper groupMemberMapper;
+    private final GroupMemberCache groupMemberCache;
+    private final int maxMembers;
+
+    public GroupService(ChatGroupMapper chatGroupMapper,
+                        GroupMemberMapper groupMemberMapper,
+                        GroupMemberCache groupMemberCache,
+                        @Value("${group.max-members:10000}") int maxMembers) {
+        this.chatGroupMapper = chatGroupMapper;
+        this.groupMemberMapper = groupMemberMapper;
+        this.groupMemberCache = groupMemberCache;
+        this.maxMembers = maxMembers;
+    }
+
+    /**
+     * 建群，群主自动成为成员
+     */
+    @Transactional
+    public ChatGroup create(Long ownerId, String name, Collection<Long> memberIds) {
+        Set<Long> members = new LinkedHashSet<>();
+        members.add(ownerId);
+        members.addAll(memberIds);
+        if (members.size() > maxMembers) {
+            throw BusinessException.badRequest("群成员不能超过" + maxMembers + "人");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        ChatGroup group = ChatGroup.builder()
+                .name(name)
+                .ownerId(ownerId)
+                .memberCount(members.size())
+                .createTime(now)
+                .updateTime(now)
+                .deleted(0)
+                .build();
+        chatGroupMapper.insert(group);
+        groupMemberMapper.insertBatch(group.getId(), members);
+        return group;
+    }
+
+    /**
+     * 拉人入群，仅群成员可操作
+     */
+    @Transactional
+    public void addMembers(Long operatorId, long groupId, Collection<Long> userIds) {
+        ChatGroup group = getGroup(groupId);
+        requireMember(groupId, operatorId);
+        if (group.getMemberCount() + userIds.size() > maxMembers) {
+            throw BusinessException.badRequest("群成员不能超过" + maxMembers + "人");
+        }
+
+        groupMemberMapper.insertBatch(groupId, userIds);
+        chatGroupMapper.refreshMemberCount(groupId);
+        groupMemberCache.invalidate(groupId);
+    }
+
+    /**
+     * 退群
+     */
+    @Transactional
+    public void leave(Long userId, long groupId) {
+        getGroup(groupId);
+        if (groupMemberMapper.deleteMember(groupId, userId) == 0) {
+            throw BusinessException.badRequest("不在该群中");
+        }
+        chatGroupMapper.refreshMemberCount(groupId);
+        groupMemberCache.invalidate(groupId);
+    }
+
+    public ChatGroup getGroup(long groupId) {
+        ChatGroup group = chatGroupMapper.selectById(groupId);
+        if (group == null) {
+            throw BusinessException.notFound("群不存在");
+        }
+        return group;
+    }
+
+    /**
+     * 用户加入的全部群
+     */
+    public List<ChatGroup> getUserGroups(Long userId) {
+        List<Long> groupIds = groupMemberMapper.findGroupIds(userId);
+        return groupIds.isEmpty() ? List.of() : chatGroupMapper.selectBatchIds(groupIds);
+    }
+
+    public void requireMember(long groupId, Long userId) {
+        if (!groupMemberCache.isMember(groupId, userId)) {
+            throw BusinessException.forbidden("不是该群的成员");
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.distri.chat.biz.group.infra.cache;
+
+import com.distri.chat.biz.group.infra.repo.GroupMemberMapper;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 群成员本地缓存
+ * 发消息鉴权与扇出每条消息都要读成员列表，本地缓存按群整体加载；
+ * 查库在独立的加载线程池上进行，写入满ttl后读到旧列表的同时在后台刷新，只有从未加载或超过expire的群才需要等待加载。
+ * EventLoop上只能用返回CompletableFuture的方法，阻塞版本供消费线程与HTTP请求线程使用。
+ * 成员变更时本节点立即失效，其他节点最多在ttl（加一次刷新耗时）内读到旧列表。
+ */
+@Component
+public class GroupMemberCache {
+
+    private final AsyncLoadingCache<Long, Set<Long>> members;
+    private final ExecutorService loadExecutor;
+
+    public GroupMemberCache(GroupMemberMapper groupMemberMapper,
+                            MeterRegistry meterRegistry,
+                            @Value("${group.member-cache.max-size:10000}") long maxSize,
+                            @Value("${group.member-cache.ttl-seconds:30}") long ttlSeconds,
+                            @Value("${group.member-cache.expire-seconds:600}") long expireSeconds,
+                            @Value("${group.member-cache.load-pool-size:4}") int loadPoolSize) {
+        this.loadExecutor = Executors.newFixedThreadPool(loadPoolSize, new CustomizableThreadFactory("group-member-load-"));
+        this.members = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .refreshAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .expireAfterWrite(Duration.ofSeconds(Math.max(expireSeconds, ttlSeconds)))
+                .executor(loadExecutor)
+                .recordStats()
+                .buildAsync(groupId -> Set.copyOf(groupMemberMapper.findUserIds(groupId)));
+        CaffeineCacheMetrics.monitor(meterRegistry, members, "group.members");
+    }
+
+    /**
+     * 群成员ID集合，群不存在时为空集合；未缓存时在加载线程池上查库，不阻塞调用方
+     */
+    public CompletableFuture<Set<Long>> getMembersAsync(long groupId) {
+        return members.get(groupId);
+    }
+
+    public CompletableFuture<Boolean> isMemberAsync(long groupId, long userId) {
+        return getMembersAsync(groupId).thenApply(ids -> ids.contains(userId));
+    }
+
+    /**
+     * 阻塞版本：未缓存时等待加载完成，不能在EventLoop上调用
+     */
+    public Set<Long> getMembers(long groupId) {
+        return members.synchronous().get(groupId);
+    }
+
+    public boolean isMember(long groupId, long userId) {
+        return getMembers(groupId).contains(userId);
+    }
+
+    public void invalidate(long groupId) {
+        members.synchronous().invalidate(groupId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loadExecutor.shutdown();
+    }
+}
@@ -0,0 +1,21 @@
+package com.distri.chat.biz.group.infra.repo;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.distri.chat.biz.group.domain.model.ChatGroup;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+
+/**
+ * 群组数据访问层
+ */
+@Mapper
+public interface ChatGroupMapper extends BaseMapper<ChatGroup> {
+
+    /**
+     * 按成员表重算成员数
+     */
+    @Update("UPDATE chat_groups SET member_count = "
+            + "(SELECT COUNT(*) FROM group_members WHERE group_id = #{groupId}) WHERE id = #{groupId}")
+    int refreshMemberCount(@Param("groupId") long groupId);
+}
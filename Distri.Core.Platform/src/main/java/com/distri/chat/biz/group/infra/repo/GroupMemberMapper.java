@@ -0,0 +1,37 @@
+package com.distri.chat.biz.group.infra.repo;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.distri.chat.biz.group.domain.model.GroupMember;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 群成员数据访问层
+ */
+@Mapper
+public interface GroupMemberMapper extends BaseMapper<GroupMember> {
+
+    @Select("SELECT user_id FROM group_members WHERE group_id = #{groupId}")
+    List<Long> findUserIds(@Param("groupId") long groupId);
+
+    @Select("SELECT group_id FROM group_members WHERE user_id = #{userId}")
+    List<Long> findGroupIds(@Param("userId") long userId);
+
+    /**
+     * 多行INSERT批量加入，已在群中的忽略
+     */
+    @Insert("<script>"
+            + "INSERT IGNORE INTO group_members (group_id, user_id) VALUES "
+            + "<foreach collection='userIds' item='userId' separator=','>(#{groupId}, #{userId})</foreach>"
+            + "</script>")
+    int insertBatch(@Param("groupId") long groupId, @Param("userIds") Collection<Long> userIds);
+
+    @Delete("DELETE FROM group_members WHERE group_id = #{groupId} AND user_id = #{userId}")
+    int deleteMember(@Param("groupId") long groupId, @Param("userId") long userId);
+}
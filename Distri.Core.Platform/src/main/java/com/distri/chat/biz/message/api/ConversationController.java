@@ -0,0 +1,88 @@
+package com.distri.chat.biz.message.api;
+
+import com.distri.chat.biz.message.api.request.MarkConversationsReadRequest;
+import com.distri.chat.biz.message.api.response.ConversationPageResponse;
+import com.distri.chat.biz.message.api.response.ConversationView;
+import com.distri.chat.biz.message.api.response.MessageView;
+import com.distri.chat.biz.message.domain.model.ConversationIds;
+import com.distri.chat.biz.message.domain.service.ConversationService;
+import com.distri.chat.biz.message.infra.cache.ConversationStore;
+import com.distri.chat.biz.user.domain.model.User;
+import com.distri.chat.biz.user.infra.cache.UserCache;
+import com.distri.chat.common.auth.AuthInterceptor;
+import com.distri.chat.common.dto.Result;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 会话列表控制器
+ * 首页"我的会话"：按最近活跃倒序，带未读数与最后一条消息预览
+ * 单聊对方的昵称与头像经用户两级缓存批量读取，一页只有一次批量查询
+ */
+@RestController
+@RequestMapping("/api/conversations")
+@Tag(name = "会话", description = "会话列表与批量已读接口")
+public class ConversationController {
+
+    private final ConversationService conversationService;
+    private final UserCache userCache;
+
+    public ConversationController(ConversationService conversationService, UserCache userCache) {
+        this.conversationService = conversationService;
+        this.userCache = userCache;
+    }
+
+    @Operation(summary = "会话列表", description = "按最后活跃时间倒序分页；hasMore为true时以nextCursor继续拉取")
+    @GetMapping
+    public Result<ConversationPageResponse> list(@RequestAttribute(AuthInterceptor.USER_ID) Long userId,
+                                                 @RequestParam(required = false) String cursor,
+                                                 @RequestParam(defaultValue = "20") int limit) {
+        ConversationService.Page page = conversationService.page(userId, cursor, limit);
+        List<Long> peerIds = new ArrayList<>(page.items().size());
+        for (ConversationStore.Item item : page.items()) {
+            if (ConversationIds.isSingle(item.conversationId())) {
+                peerIds.add(ConversationIds.peerOf(item.conversationId(), userId));
+            }
+        }
+        Map<Long, User> peers = userCache.getUsers(peerIds);
+        return Result.success(new ConversationPageResponse(
+                page.items().stream().map(item -> toView(userId, item, peers)).toList(),
+                page.nextCursor(),
+                page.hasMore()));
+    }
+
+    @Operation(summary = "批量已读", description = "清除所列会话的未读数，返回实际处理的会话数")
+    @PostMapping("/read")
+    public Result<Long> markRead(@RequestAttribute(AuthInterceptor.USER_ID) Long userId,
+                                 @Valid @RequestBody MarkConversationsReadRequest req) {
+        return Result.success(conversationService.markRead(userId, req.getConversationIds()));
+    }
+
+    private static ConversationView toView(Long userId, ConversationStore.Item item, Map<Long, User> peers) {
+        boolean single = ConversationIds.isSingle(item.conversationId());
+        Long peerId = single ? ConversationIds.peerOf(item.conversationId(), userId) : null;
+        User peer = peerId == null ? null : peers.get(peerId);
+        return ConversationView.builder()
+                .conversationId(String.valueOf(item.conversationId()))
+                .type(single ? "single" : "group")
+                .peerId(peerId == null ? null : String.valueOf(peerId))
+                .peerNickname(peer == null ? null : peer.getNickname())
+                .peerAvatar(peer == null ? null : peer.getAvatar())
+                .lastActiveAt((long) Double.parseDouble(item.score()))
+                .unread(item.unread())
+                .lastMessage(item.preview() == null ? null : MessageView.from(item.preview()))
+                .build();
+    }
+}
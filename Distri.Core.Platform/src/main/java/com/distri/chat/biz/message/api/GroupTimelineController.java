@@ -0,0 +1,57 @@
+package com.distri.chat.biz.message.api;
+
+import com.distri.chat.biz.message.api.response.GroupReadStateView;
+import com.distri.chat.biz.message.api.response.InboxSyncResponse;
+import com.distri.chat.biz.message.domain.service.GroupTimelineService;
+import com.distri.chat.common.auth.AuthInterceptor;
+import com.distri.chat.common.dto.Result;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 大群时间线控制器
+ * 读扩散的群消息不进个人收件箱，客户端对每个大群按群序号单独同步并上报已读位置
+ */
+@RestController
+@RequestMapping("/api/groups/{groupId}")
+@Tag(name = "群时间线", description = "大群消息同步与已读位置接口")
+public class GroupTimelineController {
+
+    private final GroupTimelineService groupTimelineService;
+
+    public GroupTimelineController(GroupTimelineService groupTimelineService) {
+        this.groupTimelineService = groupTimelineService;
+    }
+
+    @Operation(summary = "同步群时间线", description = "返回群序号大于afterSeq的消息，按序号正序")
+    @GetMapping("/timeline")
+    public Result<InboxSyncResponse> timeline(@RequestAttribute(AuthInterceptor.USER_ID) Long userId,
+                                              @PathVariable long groupId,
+                                              @RequestParam(defaultValue = "0") long afterSeq,
+                                              @RequestParam(defaultValue = "100") int limit) {
+        return Result.success(InboxController.toResponse(groupTimelineService.sync(userId, groupId, afterSeq, limit)));
+    }
+
+    @Operation(summary = "已读状态", description = "群时间线最大序号与当前成员的已读位置")
+    @GetMapping("/read-state")
+    public Result<GroupReadStateView> readState(@RequestAttribute(AuthInterceptor.USER_ID) Long userId,
+                                                @PathVariable long groupId) {
+        GroupTimelineService.TimelineState state = groupTimelineService.state(userId, groupId);
+        return Result.success(new GroupReadStateView(state.maxSeq(), state.readSeq()));
+    }
+
+    @Operation(summary = "上报已读", description = "已读位置只前进不后退")
+    @PostMapping("/read")
+    public Result<Long> markRead(@RequestAttribute(AuthInterceptor.USER_ID) Long userId,
+                                 @PathVariable long groupId,
+                                 @RequestParam long seq) {
+        return Result.success(groupTimelineService.markRead(userId, groupId, seq));
+    }
+}
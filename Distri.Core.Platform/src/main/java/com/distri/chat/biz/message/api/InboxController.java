@@ -0,0 +1,49 @@
+package com.distri.chat.biz.message.api;
+
+import com.distri.chat.biz.message.api.response.InboxItemView;
+import com.distri.chat.biz.message.api.response.InboxSyncResponse;
+import com.distri.chat.biz.message.api.response.MessageView;
+import com.distri.chat.biz.message.domain.service.InboxService;
+import com.distri.chat.common.auth.AuthInterceptor;
+import com.distri.chat.common.dto.Result;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 收件箱控制器
+ * 设备重连后以本地已确认的最大收件箱序号增量同步
+ */
+@RestController
+@RequestMapping("/api/inbox")
+@Tag(name = "收件箱", description = "离线消息增量同步接口")
+public class InboxController {
+
+    private final InboxService inboxService;
+
+    public InboxController(InboxService inboxService) {
+        this.inboxService = inboxService;
+    }
+
+    @Operation(summary = "增量同步", description = "返回序号大于afterSeq的条目，按序号正序；hasMore为true时以最后一条的seq继续拉取")
+    @GetMapping("/sync")
+    public Result<InboxSyncResponse> sync(@RequestAttribute(AuthInterceptor.USER_ID) Long userId,
+                                          @RequestParam(defaultValue = "0") long afterSeq,
+                                          @RequestParam(defaultValue = "100") int limit) {
+        return Result.success(toResponse(inboxService.sync(userId, afterSeq, limit)));
+    }
+
+    static InboxSyncResponse toResponse(InboxService.SyncResult result) {
+        return new InboxSyncResponse(
+                result.entries().stream()
+                        .map(entry -> new InboxItemView(entry.getSeq(),
+                                entry.getMessage() == null ? null : MessageView.from(entry.getMessage())))
+                        .toList(),
+                result.maxSeq(),
+                result.hasMore());
+    }
+}
@@ -0,0 +1,60 @@
+package com.distri.chat.biz.message.api;
+
+import com.distri.chat.biz.message.api.response.MessagePageResponse;
+import com.distri.chat.biz.message.api.response.MessageView;
+import com.distri.chat.biz.message.domain.model.ChatMessage;
+import com.distri.chat.biz.message.domain.service.MessageHistoryService;
+import com.distri.chat.common.auth.AuthInterceptor;
+import com.distri.chat.common.dto.Result;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 消息控制器
+ * 历史消息查询，游标为message_id
+ */
+@RestController
+@RequestMapping("/api/messages")
+@Tag(name = "消息", description = "历史消息查询接口")
+public class MessageController {
+
+    private final MessageHistoryService messageHistoryService;
+
+    public MessageController(MessageHistoryService messageHistoryService) {
+        this.messageHistoryService = messageHistoryService;
+    }
+
+    @Operation(summary = "历史消息", description = "从before（不含）向前翻页，按时间倒序；不传before从最新开始")
+    @GetMapping("/history")
+    public Result<MessagePageResponse> history(@RequestAttribute(AuthInterceptor.USER_ID) Long userId,
+                                               @RequestParam long conversationId,
+                                               @RequestParam(required = false) Long before,
+                                               @RequestParam(defaultValue = "20") int limit) {
+        List<ChatMessage> messages = messageHistoryService.findBefore(userId, conversationId, before, limit);
+        return Result.success(buildPage(messages, limit));
+    }
+
+    @Operation(summary = "补拉消息", description = "从after（不含）向后拉取，按时间正序，用于断线重连后补齐")
+    @GetMapping("/sync")
+    public Result<MessagePageResponse> sync(@RequestAttribute(AuthInterceptor.USER_ID) Long userId,
+                                            @RequestParam long conversationId,
+                                            @RequestParam(defaultValue = "0") long after,
+                                            @RequestParam(defaultValue = "50") int limit) {
+        List<ChatMessage> messages = messageHistoryService.findAfter(userId, conversationId, after, limit);
+        return Result.success(buildPage(messages, limit));
+    }
+
+    // 取满一页即认为可能还有下一页
+    private MessagePageResponse buildPage(List<ChatMessage> messages, int limit) {
+        boolean hasMore = messages.size() == limit;
+        String nextCursor = hasMore ? String.valueOf(messages.get(messages.size() - 1).getMessageId()) : null;
+        return new MessagePageResponse(messages.stream().map(MessageView::from).toList(), nextCursor, hasMore);
+    }
+}
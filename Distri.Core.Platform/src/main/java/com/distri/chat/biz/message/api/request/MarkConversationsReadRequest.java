@@ -0,0 +1,23 @@
+package com.distri.chat.biz.message.api.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MarkConversationsReadRequest {
+
+    // 会话ID超出JS安全整数范围，客户端以字符串传入
+    @NotEmpty(message = "会话列表不能为空")
+    @Size(max = 500, message = "单次最多标记500个会话")
+    private List<Long> conversationIds;
+
+}
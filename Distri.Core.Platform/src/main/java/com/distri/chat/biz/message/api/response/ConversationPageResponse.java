@@ -0,0 +1,19 @@
+package com.distri.chat.biz.message.api.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConversationPageResponse {
+    private List<ConversationView> conversations;
+    // 下一页游标，原样传回即可，没有更多时为null
+    private String nextCursor;
+    private Boolean hasMore;
+}
@@ -0,0 +1,30 @@
+package com.distri.chat.biz.message.api.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 会话列表条目
+ * 雪花ID超出JS安全整数范围，ID字段以字符串返回
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConversationView {
+    private String conversationId;
+    // single / group
+    private String type;
+    // 单聊对方的用户ID，群聊为null
+    private String peerId;
+    // 单聊对方的昵称与头像，用户不存在时为null
+    private String peerNickname;
+    private String peerAvatar;
+    // 最后活跃时间（毫秒）
+    private Long lastActiveAt;
+    private Long unread;
+    // 最后一条消息预览，内容已截断；消息已不存在时为null
+    private MessageView lastMessage;
+}
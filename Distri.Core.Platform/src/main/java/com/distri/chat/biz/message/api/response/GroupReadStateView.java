@@ -0,0 +1,17 @@
+package com.distri.chat.biz.message.api.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GroupReadStateView {
+    // 群时间线最大序号
+    private Long maxSeq;
+    // 已读位置，未读数为 maxSeq - readSeq
+    private Long readSeq;
+}
@@ -0,0 +1,16 @@
+package com.distri.chat.biz.message.api.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InboxItemView {
+    private Long seq;
+    // 消息已被清理时为null
+    private MessageView message;
+}
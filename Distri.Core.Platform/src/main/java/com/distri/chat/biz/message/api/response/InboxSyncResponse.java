@@ -0,0 +1,19 @@
+package com.distri.chat.biz.message.api.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InboxSyncResponse {
+    private List<InboxItemView> items;
+    // 当前收件箱的最大序号
+    private Long maxSeq;
+    private Boolean hasMore;
+}
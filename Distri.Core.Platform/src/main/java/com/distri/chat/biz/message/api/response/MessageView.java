@@ -0,0 +1,35 @@
+package com.distri.chat.biz.message.api.response;
+
+import com.distri.chat.biz.message.domain.model.ChatMessage;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 消息视图
+ * 雪花ID超出JS安全整数范围，ID字段以字符串返回
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageView {
+    private String messageId;
+    private String conversationId;
+    private String senderId;
+    private Long clientSeq;
+    private String content;
+    private Long sendTime;
+
+    public static MessageView from(ChatMessage message) {
+        return MessageView.builder()
+                .messageId(String.valueOf(message.getMessageId()))
+                .conversationId(String.valueOf(message.getConversationId()))
+                .senderId(String.valueOf(message.getSenderId()))
+                .clientSeq(message.getClientSeq())
+                .content(message.getContent())
+                .sendTime(message.getSendTime())
+                .build();
+    }
+}
@@ -0,0 +1,35 @@
+package com.distri.chat.biz.message.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 聊天消息
+ * 在 distri-chat-v1-message 上以JSON传输，以conversationId为key保证会话内有序
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatMessage {
+
+    private Long messageId;
+
+    private Long conversationId;
+
+    private Long senderId;
+
+    // 发送设备
+    private String senderClientId;
+
+    // 客户端本地序号，用于发送方去重
+    private Long clientSeq;
+
+    // 消息内容
+    private String content;
+
+    // 服务端接收时间（毫秒）
+    private Long sendTime;
+}
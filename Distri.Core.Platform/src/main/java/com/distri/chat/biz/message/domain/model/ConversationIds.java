@@ -0,0 +1,52 @@
+package com.distri.chat.biz.message.domain.model;
+
+/**
+ * 会话ID规则
+ * <p>
+ * 单聊：第62位置1，其余位由两个用户ID（各31位，小的在前）拼接，双方计算结果一致；
+ * 群聊：会话ID即群ID（雪花ID，第62位在可预见的年限内不会被占用）。
+ */
+public final class ConversationIds {
+
+    private static final long SINGLE_FLAG = 1L << 62;
+    private static final long USER_MASK = (1L << 31) - 1;
+
+    private ConversationIds() {
+    }
+
+    public static long single(long userA, long userB) {
+        if (userA <= 0 || userB <= 0 || userA > USER_MASK || userB > USER_MASK) {
+            throw new IllegalArgumentException("用户ID超出单聊会话ID范围");
+        }
+        long low = Math.min(userA, userB);
+        long high = Math.max(userA, userB);
+        return SINGLE_FLAG | (low << 31) | high;
+    }
+
+    public static boolean isSingle(long conversationId) {
+        return (conversationId & SINGLE_FLAG) != 0;
+    }
+
+    /**
+     * 单聊会话中是否包含该用户
+     */
+    public static boolean isParticipant(long conversationId, long userId) {
+        return isSingle(conversationId)
+                && (userId == ((conversationId >>> 31) & USER_MASK) || userId == (conversationId & USER_MASK));
+    }
+
+    /**
+     * 单聊会话中对方的用户ID
+     */
+    public static long peerOf(long conversationId, long userId) {
+        long low = (conversationId >>> 31) & USER_MASK;
+        long high = conversationId & USER_MASK;
+        if (userId == low) {
+            return high;
+        }
+        if (userId == high) {
+            return low;
+        }
+        throw new IllegalArgumentException("用户不在该会话中");
+    }
+}
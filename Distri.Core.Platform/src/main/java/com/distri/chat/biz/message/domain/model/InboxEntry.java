@@ -0,0 +1,44 @@
+package com.distri.chat.biz.message.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 收件箱条目
+ * 每个接收者一条，seq为该用户收件箱内单调递增的序号；message在需要正文时才填充
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InboxEntry {
+
+    private Long userId;
+
+    private Long seq;
+
+    private Long conversationId;
+
+    private Long messageId;
+
+    private ChatMessage message;
+
+    public InboxEntry(Long userId, Long seq, ChatMessage message) {
+        this(userId, seq, message.getConversationId(), message.getMessageId(), message);
+    }
+
+    /**
+     * Redis有序集合中的成员："conversationId:messageId"
+     */
+    public static String member(long conversationId, long messageId) {
+        return conversationId + ":" + messageId;
+    }
+
+    public static InboxEntry fromMember(Long userId, long seq, String member) {
+        int split = member.indexOf(':');
+        return new InboxEntry(userId, seq,
+                Long.parseLong(member.substring(0, split)),
+                Long.parseLong(member.substring(split + 1)),
+                null);
+    }
+}
@@ -0,0 +1,54 @@
+package com.distri.chat.biz.message.domain.service;
+
+import com.distri.chat.biz.group.infra.cache.GroupMemberCache;
+import com.distri.chat.biz.message.domain.model.ConversationIds;
+import com.distri.chat.common.exception.BusinessException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 会话成员校验
+ * 单聊由会话ID本身判定，群聊查本地成员缓存。
+ * 成员未缓存时 checkParticipant 会同步等待查库，只能在工作线程上调用；EventLoop上用 checkParticipantAsync
+ */
+@Component
+public class ConversationAccess {
+
+    private final GroupMemberCache groupMemberCache;
+
+    public ConversationAccess(GroupMemberCache groupMemberCache) {
+        this.groupMemberCache = groupMemberCache;
+    }
+
+    /**
+     * 不是会话成员时抛出forbidden
+     */
+    public void checkParticipant(Long userId, long conversationId) {
+        if (ConversationIds.isSingle(conversationId)) {
+            if (!ConversationIds.isParticipant(conversationId, userId)) {
+                throw BusinessException.forbidden("不是该会话的成员");
+            }
+            return;
+        }
+        if (!groupMemberCache.isMember(conversationId, userId)) {
+            throw BusinessException.forbidden("不是该群的成员");
+        }
+    }
+
+    /**
+     * 非阻塞版本：不是会话成员时以forbidden异常完成；单聊及已缓存的群立即完成，否则在群成员加载线程上完成
+     */
+    public CompletableFuture<Void> checkParticipantAsync(Long userId, long conversationId) {
+        if (ConversationIds.isSingle(conversationId)) {
+            return ConversationIds.isParticipant(conversationId, userId)
+                    ? CompletableFuture.completedFuture(null)
+                    : CompletableFuture.failedFuture(BusinessException.forbidden("不是该会话的成员"));
+        }
+        return groupMemberCache.isMemberAsync(conversationId, userId).thenAccept(member -> {
+            if (!member) {
+                throw BusinessException.forbidden("不是该群的成员");
+            }
+        });
+    }
+}
@@ -0,0 +1,222 @@
+package com.distri.chat.biz.message.domain.service;
+
+import com.distri.chat.biz.message.domain.model.ChatMessage;
+import com.distri.chat.biz.message.infra.cache.ConversationStore;
+import com.distri.chat.biz.message.infra.repo.MessageStore;
+import com.distri.chat.common.exception.BusinessException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 会话列表服务
+ * <p>
+ * 扇出时顺带更新每个接收者的会话索引（最后活跃时间、未读数）与会话的最后一条消息预览，
+ * 打开应用时按最近活跃倒序分页读取，不查消息表。大群只按 large-group.touch-interval-millis
+ * 节流推进成员索引中的活跃时间，避免每条消息都写一遍全部成员；其未读数取自群时间线。
+ */
+@Slf4j
+@Service
+public class ConversationService {
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private final ConversationStore conversationStore;
+    private final MessageStore messageStore;
+    private final int previewLength;
+    private final Cache<Long, Boolean> touchedGroups;
+
+    private final Timer pageTimer;
+    private final Counter previewMissCounter;
+    private final Counter updateFailedCounter;
+
+    public ConversationService(ConversationStore conversationStore,
+                               MessageStore messageStore,
+                               MeterRegistry meterRegistry,
+                               @Value("${conversation.preview-length:64}") int previewLength,
+                               @Value("${conversation.large-group.touch-interval-millis:5000}") long touchIntervalMillis) {
+        this.conversationStore = conversationStore;
+        this.messageStore = messageStore;
+        this.previewLength = previewLength;
+        this.touchedGroups = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(touchIntervalMillis))
+                .build();
+
+        this.pageTimer = Timer.builder("conversation.page")
+                .description("会话列表单页读取耗时")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.previewMissCounter = Counter.builder("conversation.preview.miss")
+                .description("预览缓存未命中、回源消息表的会话数")
+                .register(meterRegistry);
+        this.updateFailedCounter = Counter.builder("conversation.update.failed")
+                .description("会话索引更新失败的批次数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 扇出后更新会话索引
+     * 索引是派生数据，更新失败只记日志，不让整批消息重试（重试会重复写收件箱与推送）
+     *
+     * @param messages        本批全部消息
+     * @param recipients      写扩散：接收者 -> 按顺序投入其收件箱的消息（含发送者本人）
+     * @param timelineMembers 读扩散：群ID -> 成员
+     */
+    public void onFanout(List<ChatMessage> messages,
+                         Map<Long, List<ChatMessage>> recipients,
+                         Map<Long, Set<Long>> timelineMembers) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        try {
+            Map<Long, ChatMessage> previews = new LinkedHashMap<>();
+            for (ChatMessage message : messages) {
+                previews.put(message.getConversationId(), preview(message));
+            }
+
+            Map<Long, List<ConversationStore.Activity>> activities = new LinkedHashMap<>(recipients.size() * 2);
+            for (Map.Entry<Long, List<ChatMessage>> recipient : recipients.entrySet()) {
+                activities.put(recipient.getKey(), activities(recipient.getKey(), recipient.getValue()));
+            }
+
+            List<ConversationStore.Touch> touches = new ArrayList<>();
+            for (Map.Entry<Long, Set<Long>> group : timelineMembers.entrySet()) {
+                if (touchedGroups.asMap().putIfAbsent(group.getKey(), Boolean.TRUE) == null) {
+                    touches.add(new ConversationStore.Touch(group.getKey(),
+                            activeAt(previews.get(group.getKey())), group.getValue()));
+                }
+            }
+
+            conversationStore.apply(activities, touches, previews.values());
+        } catch (Exception e) {
+            updateFailedCounter.increment();
+            log.error("会话索引更新失败：{}条消息", messages.size(), e);
+        }
+    }
+
+    /**
+     * 按最近活跃倒序取一页
+     *
+     * @param cursor 上一页返回的nextCursor，首页为null
+     */
+    public Page page(Long userId, String cursor, int limit) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw BusinessException.badRequest("limit取值范围为1~" + MAX_PAGE_SIZE);
+        }
+        String cursorScore = null;
+        Long cursorConversationId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            int split = cursor.lastIndexOf(':');
+            try {
+                cursorScore = cursor.substring(0, split);
+                cursorConversationId = Long.parseLong(cursor.substring(split + 1));
+            } catch (RuntimeException e) {
+                throw BusinessException.badRequest("游标格式错误");
+            }
+        }
+
+        long start = System.nanoTime();
+        List<ConversationStore.Item> items = conversationStore.page(userId, cursorScore, cursorConversationId, limit);
+        items = fillPreviews(items);
+        pageTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        boolean hasMore = items.size() == limit;
+        String nextCursor = null;
+        if (hasMore) {
+            ConversationStore.Item last = items.get(items.size() - 1);
+            nextCursor = last.score() + ":" + last.conversationId();
+        }
+        return new Page(items, nextCursor, hasMore);
+    }
+
+    /**
+     * 批量标记已读：清除未读数，大群的已读位置推进到当前最新
+     *
+     * @return 实际处理的会话数（不在会话列表中的忽略）
+     */
+    public long markRead(Long userId, List<Long> conversationIds) {
+        return conversationStore.markRead(userId, new LinkedHashSet<>(conversationIds));
+    }
+
+    /**
+     * 预览缓存过期的会话回源消息表取最后一条并回填；消息已不存在的保持为空
+     */
+    private List<ConversationStore.Item> fillPreviews(List<ConversationStore.Item> items) {
+        List<ChatMessage> loaded = null;
+        List<ConversationStore.Item> filled = items;
+        for (int i = 0; i < items.size(); i++) {
+            ConversationStore.Item item = items.get(i);
+            if (item.preview() != null) {
+                continue;
+            }
+            previewMissCounter.increment();
+            List<ChatMessage> latest = messageStore.findBefore(item.conversationId(), null, 1);
+            if (latest.isEmpty()) {
+                continue;
+            }
+            ChatMessage preview = preview(latest.get(0));
+            if (loaded == null) {
+                loaded = new ArrayList<>();
+                filled = new ArrayList<>(items);
+            }
+            loaded.add(preview);
+            filled.set(i, new ConversationStore.Item(item.conversationId(), item.score(), item.unread(), preview));
+        }
+        if (loaded != null) {
+            conversationStore.savePreviews(loaded);
+        }
+        return filled;
+    }
+
+    /**
+     * 同一会话的消息在批内有序，最后一条即最新
+     */
+    private static List<ConversationStore.Activity> activities(Long userId, List<ChatMessage> messages) {
+        Map<Long, ConversationStore.Activity> byConversation = new LinkedHashMap<>();
+        for (ChatMessage message : messages) {
+            ConversationStore.Activity previous = byConversation.get(message.getConversationId());
+            int unread = (previous == null ? 0 : previous.unread()) + (userId.equals(message.getSenderId()) ? 0 : 1);
+            byConversation.put(message.getConversationId(), new ConversationStore.Activity(
+                    message.getConversationId(), activeAt(message), message.getMessageId(), unread));
+        }
+        return new ArrayList<>(byConversation.values());
+    }
+
+    private ChatMessage preview(ChatMessage message) {
+        String content = message.getContent();
+        if (content != null && content.codePointCount(0, content.length()) > previewLength) {
+            content = content.substring(0, content.offsetByCodePoints(0, previewLength));
+        }
+        return ChatMessage.builder()
+                .messageId(message.getMessageId())
+                .conversationId(message.getConversationId())
+                .senderId(message.getSenderId())
+                .content(content)
+                .sendTime(message.getSendTime())
+                .build();
+    }
+
+    private static long activeAt(ChatMessage message) {
+        return message.getSendTime() != null ? message.getSendTime() : System.currentTimeMillis();
+    }
+
+    /**
+     * @param nextCursor 下一页游标（"分值:会话ID"），没有更多时为null
+     */
+    public record Page(List<ConversationStore.Item> items, String nextCursor, boolean hasMore) {
+    }
+}
@@ -0,0 +1,102 @@
+package com.distri.chat.biz.message.domain.service;
+
+import com.distri.chat.biz.message.domain.model.InboxEntry;
+import com.distri.chat.biz.session.domain.model.DeviceSession;
+import com.distri.chat.biz.session.domain.service.SessionRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 投递分发
+ * <p>
+ * 本节点的连接直接推送（不依赖会话注册表的异步写入）；
+ * 其余接收者按会话注册表查出所在节点，每个节点一批交给NodeDeliveryTransport。
+ */
+@Slf4j
+@Component
+public class DeliveryDispatcher {
+
+    private final LocalDeliveryService localDeliveryService;
+    private final SessionRegistry sessionRegistry;
+    private final ObjectProvider<NodeDeliveryTransport> transportProvider;
+
+    private final DistributionSummary nodeBatchSummary;
+    private final Counter remoteFailedCounter;
+
+    public DeliveryDispatcher(LocalDeliveryService localDeliveryService,
+                              SessionRegistry sessionRegistry,
+                              ObjectProvider<NodeDeliveryTransport> transportProvider,
+                              MeterRegistry meterRegistry) {
+        this.localDeliveryService = localDeliveryService;
+        this.sessionRegistry = sessionRegistry;
+        this.transportProvider = transportProvider;
+
+        this.nodeBatchSummary = DistributionSummary.builder("message.delivery.node.batch")
+                .description("发往单个远端节点的每批条目数")
+                .register(meterRegistry);
+        this.remoteFailedCounter = Counter.builder("message.delivery.remote.failed")
+                .description("发往远端节点失败的条目数")
+                .register(meterRegistry);
+    }
+
+    public void dispatch(List<InboxEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        localDeliveryService.deliver(entries);
+
+        NodeDeliveryTransport transport = transportProvider.getIfAvailable();
+        if (transport == null) {
+            return;
+        }
+
+        Set<Long> userIds = new LinkedHashSet<>();
+        for (InboxEntry entry : entries) {
+            userIds.add(entry.getUserId());
+        }
+        Map<Long, Map<String, DeviceSession>> online = sessionRegistry.lookupAll(userIds);
+        if (online.isEmpty()) {
+            return;
+        }
+
+        String localNodeId = sessionRegistry.getNodeId();
+        Map<String, List<InboxEntry>> byNode = new HashMap<>();
+        Set<String> nodes = new HashSet<>();
+        for (InboxEntry entry : entries) {
+            Map<String, DeviceSession> devices = online.get(entry.getUserId());
+            if (devices == null) {
+                continue;
+            }
+            nodes.clear();
+            for (DeviceSession session : devices.values()) {
+                String nodeId = session.getNodeId();
+                if (!localNodeId.equals(nodeId) && nodes.add(nodeId)) {
+                    byNode.computeIfAbsent(nodeId, k -> new ArrayList<>()).add(entry);
+                }
+            }
+        }
+
+        for (Map.Entry<String, List<InboxEntry>> node : byNode.entrySet()) {
+            nodeBatchSummary.record(node.getValue().size());
+            try {
+                transport.send(node.getKey(), node.getValue());
+            } catch (Exception e) {
+                // 投递失败不影响收件箱，客户端重连后可同步
+                remoteFailedCounter.increment(node.getValue().size());
+                log.warn("投递到节点失败：nodeId={}, 条数={}", node.getKey(), node.getValue().size(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.distri.chat.biz.message.domain.service;
+
+import com.distri.chat.biz.group.domain.service.GroupService;
+import com.distri.chat.biz.message.domain.model.ChatMessage;
+import com.distri.chat.biz.message.domain.model.InboxEntry;
+import com.distri.chat.biz.message.infra.cache.GroupTimelineStore;
+import com.distri.chat.common.exception.BusinessException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 大群时间线服务（读扩散）
+ * 消息只写一份群时间线，成员按自己的已读位置拉取；在线成员仍会收到实时推送
+ */
+@Service
+public class GroupTimelineService {
+
+    private final GroupTimelineStore groupTimelineStore;
+    private final GroupService groupService;
+    private final InboxService inboxService;
+
+    public GroupTimelineService(GroupTimelineStore groupTimelineStore,
+                                GroupService groupService,
+                                InboxService inboxService) {
+        this.groupTimelineStore = groupTimelineStore;
+        this.groupService = groupService;
+        this.inboxService = inboxService;
+    }
+
+    /**
+     * 批量写入群时间线
+     *
+     * @param groups 群ID -> 本批该群的消息（按顺序）
+     * @return 带群序号的条目（userId为空），同一群内序号递增
+     */
+    public List<InboxEntry> append(Map<Long, List<ChatMessage>> groups) {
+        if (groups.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Long> lastSeqs = groupTimelineStore.append(groups);
+        List<InboxEntry> entries = new ArrayList<>();
+        for (Map.Entry<Long, List<ChatMessage>> group : groups.entrySet()) {
+            long seq = lastSeqs.get(group.getKey()) - group.getValue().size();
+            for (ChatMessage message : group.getValue()) {
+                entries.add(new InboxEntry(null, ++seq, message));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * 拉取群序号大于afterSeq的消息
+     */
+    public InboxService.SyncResult sync(Long userId, long groupId, long afterSeq, int limit) {
+        if (limit <= 0 || limit > InboxService.MAX_SYNC_PAGE_SIZE) {
+            throw BusinessException.badRequest("limit取值范围为1~" + InboxService.MAX_SYNC_PAGE_SIZE);
+        }
+        groupService.requireMember(groupId, userId);
+
+        long maxSeq = groupTimelineStore.maxSeq(groupId);
+        if (afterSeq >= maxSeq) {
+            return new InboxService.SyncResult(List.of(), maxSeq, false);
+        }
+        List<InboxEntry> entries = groupTimelineStore.range(groupId, userId, afterSeq, limit);
+        inboxService.fillMessages(entries);
+        long lastSeq = entries.isEmpty() ? afterSeq : entries.get(entries.size() - 1).getSeq();
+        return new InboxService.SyncResult(entries, maxSeq, lastSeq < maxSeq);
+    }
+
+    /**
+     * 上报已读位置
+     *
+     * @return 推进后的已读位置
+     */
+    public long markRead(Long userId, long groupId, long seq) {
+        groupService.requireMember(groupId, userId);
+        return groupTimelineStore.advanceCursor(groupId, userId, Math.min(seq, groupTimelineStore.maxSeq(groupId)));
+    }
+
+    public TimelineState state(Long userId, long groupId) {
+        groupService.requireMember(groupId, userId);
+        return new TimelineState(groupTimelineStore.maxSeq(groupId), groupTimelineStore.getCursor(groupId, userId));
+    }
+
+    /**
+     * @param maxSeq  群时间线最大序号
+     * @param readSeq 该成员的已读位置
+     */
+    public record TimelineState(long maxSeq, long readSeq) {
+    }
+}
@@ -0,0 +1,181 @@
+package com.distri.chat.biz.message.domain.service;
+
+import com.distri.chat.biz.message.domain.model.ChatMessage;
+import com.distri.chat.biz.message.domain.model.InboxEntry;
+import com.distri.chat.biz.message.infra.cache.InboxStore;
+import com.distri.chat.biz.message.infra.repo.InboxArchiveMapper;
+import com.distri.chat.biz.message.infra.repo.MessageStore;
+import com.distri.chat.common.exception.BusinessException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 收件箱服务
+ * <p>
+ * 写入：每条消息为每个接收者分配一个收件箱序号；Redis中每个收件箱最多保留max-size条，
+ * 超过max-size+trim-batch时把最旧的一批归档到MySQL后再从Redis删除。
+ * 同步：客户端带上已确认的最大序号，按页取回之后的条目；只有落后到归档区间时才查MySQL。
+ */
+@Slf4j
+@Service
+public class InboxService {
+
+    public static final int MAX_SYNC_PAGE_SIZE = 200;
+
+    private final InboxStore inboxStore;
+    private final InboxArchiveMapper inboxArchiveMapper;
+    private final MessageStore messageStore;
+    private final long maxSize;
+    private final long trimBatch;
+
+    private final Counter spilledCounter;
+    private final Counter archiveReadCounter;
+    private final Counter bodyMissCounter;
+
+    public InboxService(InboxStore inboxStore,
+                        InboxArchiveMapper inboxArchiveMapper,
+                        MessageStore messageStore,
+                        MeterRegistry meterRegistry,
+                        @Value("${inbox.max-size:1000}") long maxSize,
+                        @Value("${inbox.trim-batch:200}") long trimBatch) {
+        this.inboxStore = inboxStore;
+        this.inboxArchiveMapper = inboxArchiveMapper;
+        this.messageStore = messageStore;
+        this.maxSize = maxSize;
+        this.trimBatch = trimBatch;
+
+        this.spilledCounter = Counter.builder("inbox.spilled")
+                .description("从Redis归档到MySQL的收件箱条目数")
+                .register(meterRegistry);
+        this.archiveReadCounter = Counter.builder("inbox.sync.archive")
+                .description("需要读取MySQL归档的同步请求数")
+                .register(meterRegistry);
+        this.bodyMissCounter = Counter.builder("inbox.sync.body.miss")
+                .description("正文缓存未命中、回源消息表的条目数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 批量写入收件箱
+     *
+     * @param messages   本批全部消息（含不写收件箱的读扩散消息，正文都要缓存）
+     * @param recipients 接收者 -> 按顺序投入其收件箱的消息
+     * @return 带序号的收件箱条目，同一接收者的条目按序号递增；Kafka重投的消息带其原序号
+     */
+    public List<InboxEntry> append(List<ChatMessage> messages, Map<Long, List<ChatMessage>> recipients) {
+        if (messages.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, InboxStore.AppendResult> results = inboxStore.append(messages, recipients);
+
+        List<InboxEntry> entries = new ArrayList<>();
+        for (Map.Entry<Long, List<ChatMessage>> recipient : recipients.entrySet()) {
+            Long userId = recipient.getKey();
+            List<ChatMessage> inbox = recipient.getValue();
+            InboxStore.AppendResult result = results.get(userId);
+            for (int i = 0; i < inbox.size(); i++) {
+                entries.add(new InboxEntry(userId, result.seqs()[i], inbox.get(i)));
+            }
+            if (result.size() > maxSize + trimBatch) {
+                spill(userId, result.size() - maxSize);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * 增量同步
+     *
+     * @param afterSeq 客户端已确认的最大序号
+     */
+    public SyncResult sync(Long userId, long afterSeq, int limit) {
+        if (limit <= 0 || limit > MAX_SYNC_PAGE_SIZE) {
+            throw BusinessException.badRequest("limit取值范围为1~" + MAX_SYNC_PAGE_SIZE);
+        }
+
+        long maxSeq = inboxStore.maxSeq(userId);
+        if (afterSeq >= maxSeq) {
+            return new SyncResult(List.of(), maxSeq, false);
+        }
+
+        List<InboxEntry> entries = new ArrayList<>(limit);
+        Long minSeq = inboxStore.minSeq(userId);
+        if (minSeq == null || afterSeq + 1 < minSeq) {
+            archiveReadCounter.increment();
+            entries.addAll(inboxArchiveMapper.findAfter(userId, afterSeq, limit));
+        }
+        if (entries.size() < limit) {
+            long cursor = entries.isEmpty() ? afterSeq : entries.get(entries.size() - 1).getSeq();
+            entries.addAll(inboxStore.range(userId, cursor, limit - entries.size()));
+        }
+
+        fillMessages(entries);
+        long lastSeq = entries.isEmpty() ? afterSeq : entries.get(entries.size() - 1).getSeq();
+        return new SyncResult(entries, maxSeq, lastSeq < maxSeq);
+    }
+
+    private void spill(Long userId, long count) {
+        try {
+            List<InboxEntry> oldest = inboxStore.oldest(userId, count);
+            if (oldest.isEmpty()) {
+                return;
+            }
+            inboxArchiveMapper.insertBatch(oldest);
+            inboxStore.trim(userId, oldest.get(oldest.size() - 1).getSeq());
+            spilledCounter.increment(oldest.size());
+        } catch (Exception e) {
+            // 归档失败时条目仍在Redis中，下次超限时重试
+            log.error("收件箱归档失败：userId={}", userId, e);
+        }
+    }
+
+    /**
+     * 先批量读正文缓存，未命中的按会话回源消息分表；消息已不存在的条目保留为空正文
+     */
+    void fillMessages(List<InboxEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        Set<Long> messageIds = new HashSet<>();
+        for (InboxEntry entry : entries) {
+            messageIds.add(entry.getMessageId());
+        }
+        Map<Long, ChatMessage> messages = new HashMap<>(inboxStore.getMessages(messageIds));
+
+        Map<Long, List<Long>> missing = new LinkedHashMap<>();
+        for (InboxEntry entry : entries) {
+            if (!messages.containsKey(entry.getMessageId())) {
+                missing.computeIfAbsent(entry.getConversationId(), k -> new ArrayList<>()).add(entry.getMessageId());
+            }
+        }
+        for (Map.Entry<Long, List<Long>> conversation : missing.entrySet()) {
+            bodyMissCounter.increment(conversation.getValue().size());
+            for (ChatMessage message : messageStore.findByIds(conversation.getKey(), conversation.getValue())) {
+                messages.put(message.getMessageId(), message);
+            }
+        }
+
+        for (InboxEntry entry : entries) {
+            entry.setMessage(messages.get(entry.getMessageId()));
+        }
+    }
+
+    /**
+     * @param maxSeq  当前已分配的最大序号
+     * @param hasMore 本页之后是否还有条目
+     */
+    public record SyncResult(List<InboxEntry> entries, long maxSeq, boolean hasMore) {
+    }
+}
@@ -0,0 +1,73 @@
+package com.distri.chat.biz.message.domain.service;
+
+import com.distri.chat.biz.message.domain.model.ChatMessage;
+import com.distri.chat.biz.message.domain.model.InboxEntry;
+import com.distri.chat.gateway.delivery.DeliveryTracker;
+import com.distri.chat.gateway.protocol.ChatFrame;
+import com.distri.chat.gateway.protocol.FrameType;
+import com.distri.chat.gateway.session.ChannelAttributes;
+import com.distri.chat.gateway.session.LocalChannelRegistry;
+import io.netty.channel.Channel;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 本节点投递
+ * 把收件箱条目推给连接在本节点上的接收者设备（不回推给发送设备本身），
+ * DELIVER帧的seq为接收者的收件箱序号（读扩散的大群为群时间线序号）；
+ * 按连接聚合后整批交给DeliveryTracker，由其编号、去重、等待确认与重传
+ */
+@Component
+public class LocalDeliveryService {
+
+    private final LocalChannelRegistry channelRegistry;
+    private final DeliveryTracker deliveryTracker;
+
+    public LocalDeliveryService(LocalChannelRegistry channelRegistry, DeliveryTracker deliveryTracker) {
+        this.channelRegistry = channelRegistry;
+        this.deliveryTracker = deliveryTracker;
+    }
+
+    public void deliver(List<InboxEntry> entries) {
+        Map<Channel, List<ChatFrame>> batches = new HashMap<>();
+        for (InboxEntry entry : entries) {
+            ChatMessage message = entry.getMessage();
+            ChatFrame frame = null;
+            for (Channel channel : channelRegistry.getChannels(entry.getUserId())) {
+                if (!channel.isActive() || isOriginDevice(entry, channel)) {
+                    continue;
+                }
+                if (frame == null) {
+                    frame = toDeliverFrame(entry.getSeq(), message);
+                }
+                batches.computeIfAbsent(channel, k -> new ArrayList<>()).add(frame);
+            }
+        }
+
+        for (Map.Entry<Channel, List<ChatFrame>> batch : batches.entrySet()) {
+            deliveryTracker.deliver(batch.getKey(), batch.getValue());
+        }
+    }
+
+    private static boolean isOriginDevice(InboxEntry entry, Channel channel) {
+        ChatMessage message = entry.getMessage();
+        return entry.getUserId().equals(message.getSenderId())
+                && message.getSenderClientId() != null
+                && message.getSenderClientId().equals(ChannelAttributes.clientId(channel));
+    }
+
+    static ChatFrame toDeliverFrame(long seq, ChatMessage message) {
+        return ChatFrame.builder()
+                .type(FrameType.DELIVER)
+                .seq(seq)
+                .conversationId(message.getConversationId())
+                .messageId(message.getMessageId())
+                .userId(message.getSenderId())
+                .body(message.getContent())
+                .build();
+    }
+}
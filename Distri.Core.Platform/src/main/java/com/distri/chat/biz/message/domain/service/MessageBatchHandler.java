@@ -0,0 +1,15 @@
+package com.distri.chat.biz.message.domain.service;
+
+import com.distri.chat.biz.message.domain.model.ChatMessage;
+
+import java.util.List;
+
+/**
+ * 消息批处理环节
+ * 消费端每拉取一批消息，按@Order顺序依次调用各实现（先持久化，再扇出投递）；
+ * 批内消息保持分区内顺序，即同一会话的消息有序。抛出异常会使整批重试，实现需幂等。
+ */
+public interface MessageBatchHandler {
+
+    void handle(List<ChatMessage> messages);
+}
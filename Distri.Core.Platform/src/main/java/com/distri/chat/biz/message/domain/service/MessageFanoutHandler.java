@@ -0,0 +1,151 @@
+package com.distri.chat.biz.message.domain.service;
+
+import com.distri.chat.biz.group.infra.cache.GroupMemberCache;
+import com.distri.chat.biz.message.domain.model.ChatMessage;
+import com.distri.chat.biz.message.domain.model.ConversationIds;
+import com.distri.chat.biz.message.domain.model.InboxEntry;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 消息扇出：持久化之后，把消息写到接收者可同步的位置，再推送在线设备
+ * <p>
+ * 单聊与成员数不超过 group.write-diffusion-threshold 的群走写扩散：每个成员（含发送者本人，
+ * 以便其其他设备同步）的收件箱各写一条；更大的群走读扩散：只写一份群时间线，
+ * 成员凭各自的已读位置拉取，在线成员照常实时推送。整批消息的Redis写入各只需一次pipeline。
+ * 推送之后再更新各接收者的会话列表索引，不拖慢投递。
+ */
+@Component
+@Order(100)
+public class MessageFanoutHandler implements MessageBatchHandler {
+
+    private static final String MODE_WRITE = "write";
+    private static final String MODE_READ = "read";
+
+    private final InboxService inboxService;
+    private final GroupTimelineService groupTimelineService;
+    private final GroupMemberCache groupMemberCache;
+    private final DeliveryDispatcher deliveryDispatcher;
+    private final ConversationService conversationService;
+    private final int writeDiffusionThreshold;
+
+    private final DistributionSummary writeAmplification;
+    private final DistributionSummary readAmplification;
+    private final DistributionSummary readPushSummary;
+    private final Timer writeLagTimer;
+    private final Timer readLagTimer;
+
+    public MessageFanoutHandler(InboxService inboxService,
+                                GroupTimelineService groupTimelineService,
+                                GroupMemberCache groupMemberCache,
+                                DeliveryDispatcher deliveryDispatcher,
+                                ConversationService conversationService,
+                                MeterRegistry meterRegistry,
+                                @Value("${group.write-diffusion-threshold:500}") int writeDiffusionThreshold) {
+        this.inboxService = inboxService;
+        this.groupTimelineService = groupTimelineService;
+        this.groupMemberCache = groupMemberCache;
+        this.deliveryDispatcher = deliveryDispatcher;
+        this.conversationService = conversationService;
+        this.writeDiffusionThreshold = writeDiffusionThreshold;
+
+        this.writeAmplification = amplification(meterRegistry, MODE_WRITE);
+        this.readAmplification = amplification(meterRegistry, MODE_READ);
+        this.readPushSummary = DistributionSummary.builder("message.fanout.push")
+                .description("读扩散消息的实时推送条目数")
+                .tag("mode", MODE_READ)
+                .register(meterRegistry);
+        this.writeLagTimer = lag(meterRegistry, MODE_WRITE);
+        this.readLagTimer = lag(meterRegistry, MODE_READ);
+    }
+
+    @Override
+    public void handle(List<ChatMessage> messages) {
+        Map<Long, List<ChatMessage>> recipients = new LinkedHashMap<>();
+        Map<Long, List<ChatMessage>> timelines = new LinkedHashMap<>();
+        Map<Long, Set<Long>> timelineMembers = new LinkedHashMap<>();
+        List<ChatMessage> writeMessages = new ArrayList<>();
+
+        for (ChatMessage message : messages) {
+            long conversationId = message.getConversationId();
+            if (ConversationIds.isSingle(conversationId)) {
+                long peerId = ConversationIds.peerOf(conversationId, message.getSenderId());
+                addRecipient(recipients, peerId, message);
+                addRecipient(recipients, message.getSenderId(), message);
+                writeMessages.add(message);
+                writeAmplification.record(2);
+                continue;
+            }
+
+            Set<Long> members = groupMemberCache.getMembers(conversationId);
+            if (members.size() <= writeDiffusionThreshold) {
+                for (Long memberId : members) {
+                    addRecipient(recipients, memberId, message);
+                }
+                writeMessages.add(message);
+                writeAmplification.record(members.size());
+            } else {
+                timelines.computeIfAbsent(conversationId, k -> new ArrayList<>()).add(message);
+                timelineMembers.put(conversationId, members);
+                readAmplification.record(1);
+            }
+        }
+
+        List<InboxEntry> entries = new ArrayList<>(inboxService.append(messages, recipients));
+        for (InboxEntry timelineEntry : groupTimelineService.append(timelines)) {
+            Set<Long> members = timelineMembers.get(timelineEntry.getConversationId());
+            for (Long memberId : members) {
+                entries.add(new InboxEntry(memberId, timelineEntry.getSeq(), timelineEntry.getMessage()));
+            }
+            readPushSummary.record(members.size());
+        }
+        deliveryDispatcher.dispatch(entries);
+        conversationService.onFanout(messages, recipients, timelineMembers);
+
+        long now = System.currentTimeMillis();
+        for (ChatMessage message : writeMessages) {
+            recordLag(writeLagTimer, now, message);
+        }
+        for (List<ChatMessage> timeline : timelines.values()) {
+            for (ChatMessage message : timeline) {
+                recordLag(readLagTimer, now, message);
+            }
+        }
+    }
+
+    private static void addRecipient(Map<Long, List<ChatMessage>> recipients, Long userId, ChatMessage message) {
+        recipients.computeIfAbsent(userId, k -> new ArrayList<>()).add(message);
+    }
+
+    private static void recordLag(Timer timer, long now, ChatMessage message) {
+        if (message.getSendTime() != null) {
+            timer.record(now - message.getSendTime(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static DistributionSummary amplification(MeterRegistry meterRegistry, String mode) {
+        return DistributionSummary.builder("message.fanout.amplification")
+                .description("每条消息产生的收件箱/时间线写入数")
+                .tag("mode", mode)
+                .register(meterRegistry);
+    }
+
+    private static Timer lag(MeterRegistry meterRegistry, String mode) {
+        return Timer.builder("message.fanout.lag")
+                .description("服务端接收消息至扇出完成的耗时")
+                .tag("mode", mode)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+}
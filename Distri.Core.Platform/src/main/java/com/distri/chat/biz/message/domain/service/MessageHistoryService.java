@@ -0,0 +1,51 @@
+package com.distri.chat.biz.message.domain.service;
+
+import com.distri.chat.biz.message.domain.model.ChatMessage;
+import com.distri.chat.biz.message.infra.repo.MessageStore;
+import com.distri.chat.common.exception.BusinessException;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * 历史消息查询
+ * 只支持按message_id游标翻页，不提供页码，深翻页的代价与第一页相同
+ */
+@Service
+public class MessageHistoryService {
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private final MessageStore messageStore;
+    private final ConversationAccess conversationAccess;
+
+    public MessageHistoryService(MessageStore messageStore, ConversationAccess conversationAccess) {
+        this.messageStore = messageStore;
+        this.conversationAccess = conversationAccess;
+    }
+
+    /**
+     * 向前翻页，倒序返回
+     *
+     * @param beforeId 上一页最后一条的message_id，为空表示从最新开始
+     */
+    public List<ChatMessage> findBefore(Long userId, long conversationId, Long beforeId, int limit) {
+        conversationAccess.checkParticipant(userId, conversationId);
+        return messageStore.findBefore(conversationId, beforeId, normalizeLimit(limit));
+    }
+
+    /**
+     * 断线补拉，正序返回
+     */
+    public List<ChatMessage> findAfter(Long userId, long conversationId, long afterId, int limit) {
+        conversationAccess.checkParticipant(userId, conversationId);
+        return messageStore.findAfter(conversationId, afterId, normalizeLimit(limit));
+    }
+
+    private static int normalizeLimit(int limit) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw BusinessException.badRequest("limit取值范围为1~" + MAX_PAGE_SIZE);
+        }
+        return limit;
+    }
+}
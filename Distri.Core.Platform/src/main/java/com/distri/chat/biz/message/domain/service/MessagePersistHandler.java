@@ -0,0 +1,27 @@
+package com.distri.chat.biz.message.domain.service;
+
+import com.distri.chat.biz.message.domain.model.ChatMessage;
+import com.distri.chat.biz.message.infra.repo.MessageStore;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 消息持久化，排在所有投递环节之前
+ */
+@Component
+@Order(0)
+public class MessagePersistHandler implements MessageBatchHandler {
+
+    private final MessageStore messageStore;
+
+    public MessagePersistHandler(MessageStore messageStore) {
+        this.messageStore = messageStore;
+    }
+
+    @Override
+    public void handle(List<ChatMessage> messages) {
+        messageStore.saveBatch(messages);
+    }
+}
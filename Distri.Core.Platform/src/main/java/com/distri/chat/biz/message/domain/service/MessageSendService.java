@@ -0,0 +1,110 @@
+package com.distri.chat.biz.message.domain.service;
+
+import com.distri.chat.biz.message.domain.model.ChatMessage;
+import com.distri.chat.biz.message.infra.cache.MessageDedupStore;
+import com.distri.chat.biz.message.infra.mq.MessageProducer;
+import com.distri.chat.common.exception.BusinessException;
+import com.distri.chat.common.id.SnowflakeIdGenerator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * 消息发送服务
+ * 校验后写入Kafka即返回，持久化与投递由消费端批量完成
+ * 同一设备以相同clientSeq重发（没收到MESSAGE_ACK）时回执原消息ID，不生成新消息；去重记录不可用时照常发送
+ */
+@Slf4j
+@Service
+public class MessageSendService {
+
+    private static final int MAX_CONTENT_LENGTH = 4000;
+
+    private final MessageProducer messageProducer;
+    private final SnowflakeIdGenerator idGenerator;
+    private final ConversationAccess conversationAccess;
+    private final MessageDedupStore messageDedupStore;
+
+    private final Counter duplicateCounter;
+    private final Counter dedupFailedCounter;
+
+    public MessageSendService(MessageProducer messageProducer,
+                              SnowflakeIdGenerator idGenerator,
+                              ConversationAccess conversationAccess,
+                              MessageDedupStore messageDedupStore,
+                              MeterRegistry meterRegistry) {
+        this.messageProducer = messageProducer;
+        this.idGenerator = idGenerator;
+        this.conversationAccess = conversationAccess;
+        this.messageDedupStore = messageDedupStore;
+
+        this.duplicateCounter = Counter.builder("message.send.duplicate")
+                .description("按 (clientId, clientSeq) 识别出的重发消息数")
+                .register(meterRegistry);
+        this.dedupFailedCounter = Counter.builder("message.send.dedup.failed")
+                .description("去重记录读写失败、未经去重直接发送的消息数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 发送消息，可在EventLoop上调用：内容不合法时直接抛出，非会话成员时返回的future以forbidden异常完成，
+     * 原请求仍在写入时以tooManyRequests异常完成
+     *
+     * @param clientSeq 设备内递增的请求序号，与senderClientId一起用于重发去重
+     * @return 写入Kafka成功后完成，携带服务端补全后的消息；重发时消息ID为原消息的ID
+     */
+    public CompletableFuture<ChatMessage> send(Long senderId, String senderClientId,
+                                               long conversationId, long clientSeq, String content) {
+        if (StringUtils.isEmpty(content) || content.length() > MAX_CONTENT_LENGTH) {
+            throw BusinessException.badRequest("消息内容不能为空且不能超过" + MAX_CONTENT_LENGTH + "字");
+        }
+
+        return conversationAccess.checkParticipantAsync(senderId, conversationId).thenCompose(ignored -> {
+            long messageId = idGenerator.nextId();
+            ChatMessage message = ChatMessage.builder()
+                    .messageId(messageId)
+                    .conversationId(conversationId)
+                    .senderId(senderId)
+                    .senderClientId(senderClientId)
+                    .clientSeq(clientSeq)
+                    .content(content)
+                    .sendTime(System.currentTimeMillis())
+                    .build();
+            if (senderClientId == null || clientSeq <= 0) {
+                return messageProducer.send(message).thenApply(result -> message);
+            }
+            return messageDedupStore.claim(senderClientId, clientSeq, messageId)
+                    .handle((claim, ex) -> {
+                        if (ex != null) {
+                            dedupFailedCounter.increment();
+                            log.warn("发送去重记录读取失败，直接发送：clientId={}, clientSeq={}", senderClientId, clientSeq, ex);
+                            return messageId;
+                        }
+                        if (claim.messageId() != messageId && !claim.confirmed()) {
+                            throw BusinessException.tooManyRequests("消息正在发送，请稍后重试");
+                        }
+                        return claim.messageId();
+                    })
+                    .thenCompose(claimedId -> {
+                        if (claimedId != messageId) {
+                            duplicateCounter.increment();
+                            message.setMessageId(claimedId);
+                            return CompletableFuture.completedFuture(message);
+                        }
+                        return messageProducer.send(message).handle((result, ex) -> {
+                            if (ex != null) {
+                                messageDedupStore.release(senderClientId, clientSeq, messageId);
+                                throw ex instanceof CompletionException completion ? completion : new CompletionException(ex);
+                            }
+                            messageDedupStore.confirm(senderClientId, clientSeq, messageId);
+                            return message;
+                        });
+                    });
+        });
+    }
+}
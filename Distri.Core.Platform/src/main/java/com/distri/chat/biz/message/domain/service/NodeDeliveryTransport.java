@@ -0,0 +1,14 @@
+package com.distri.chat.biz.message.domain.service;
+
+import com.distri.chat.biz.message.domain.model.InboxEntry;
+
+import java.util.List;
+
+/**
+ * 跨节点投递通道
+ * 把一批条目发往指定网关节点，由该节点推给其本地连接；未提供实现时只投递本节点
+ */
+public interface NodeDeliveryTransport {
+
+    void send(String nodeId, List<InboxEntry> entries);
+}
@@ -0,0 +1,302 @@
+package com.distri.chat.biz.message.infra.cache;
+
+import com.distri.chat.biz.message.domain.model.ChatMessage;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisZSetCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 会话列表索引
+ * <p>
+ * 每个用户一个有序集合 distri-chat:conv:index:{userId}，成员为conversationId，分值为最后活跃时间（毫秒）；
+ * 未读数在 distri-chat:conv:unread:{userId} 哈希中，另以 "{conversationId}:m" 字段记下已计入的最后一条messageId，
+ * 同一批消息重投时不会重复累加。最后一条消息的预览按会话缓存一份 distri-chat:conv:last:{conversationId}。
+ * 大群（读扩散）不写未读哈希，未读数由群时间线序号与成员已读位置相减得出。
+ * <p>
+ * 取一页在一个脚本内完成（区间查询、未读、预览、群时间线位置），一次往返；
+ * 脚本内按前缀拼出预览与群时间线的key，仅适用于单实例或主从部署的Redis。
+ */
+@Slf4j
+@Component
+public class ConversationStore {
+
+    private static final String INDEX_KEY_PREFIX = "distri-chat:conv:index:";
+    private static final String UNREAD_KEY_PREFIX = "distri-chat:conv:unread:";
+    private static final String PREVIEW_KEY_PREFIX = "distri-chat:conv:last:";
+
+    // ARGV[1]为索引上限，其后每4个一组：conversationId, 活跃时间, messageId, 新增未读数；
+    // messageId不新于已计入的记录时整组跳过；超过上限时淘汰最久未活跃的会话
+    private static final byte[] ACTIVITY_SCRIPT = ("local function newer(a, b) return #a > #b or (#a == #b and a > b) end "
+            + "for i = 2, #ARGV, 4 do "
+            + "local c = ARGV[i] "
+            + "local last = redis.call('HGET', KEYS[2], c .. ':m') "
+            + "if not last or newer(ARGV[i + 2], last) then "
+            + "redis.call('ZADD', KEYS[1], 'GT', ARGV[i + 1], c) "
+            + "redis.call('HSET', KEYS[2], c .. ':m', ARGV[i + 2]) "
+            + "local n = tonumber(ARGV[i + 3]) "
+            + "if n > 0 then redis.call('HINCRBY', KEYS[2], c, n) end "
+            + "end "
+            + "end "
+            + "local over = redis.call('ZCARD', KEYS[1]) - tonumber(ARGV[1]) "
+            + "if over > 0 then "
+            + "for _, c in ipairs(redis.call('ZRANGE', KEYS[1], 0, over - 1)) do redis.call('HDEL', KEYS[2], c, c .. ':m') end "
+            + "redis.call('ZREMRANGEBYRANK', KEYS[1], 0, over - 1) "
+            + "end "
+            + "return 0").getBytes(StandardCharsets.UTF_8);
+
+    // ARGV: limit, 游标分值, 游标会话, 预览前缀, 群序号前缀, 群已读前缀, userId；
+    // 游标会话仍在原分值上时按排名续读（分值相同的会话不会漏掉），否则按分值续读；
+    // 每个会话返回 conversationId, 分值, 未读数, 预览
+    private static final byte[] PAGE_SCRIPT = ("local limit = tonumber(ARGV[1]) "
+            + "local rows "
+            + "if ARGV[2] == '' then "
+            + "rows = redis.call('ZREVRANGE', KEYS[1], 0, limit - 1, 'WITHSCORES') "
+            + "else "
+            + "local rank = redis.call('ZREVRANK', KEYS[1], ARGV[3]) "
+            + "if rank and redis.call('ZSCORE', KEYS[1], ARGV[3]) == ARGV[2] then "
+            + "rows = redis.call('ZREVRANGE', KEYS[1], rank + 1, rank + limit, 'WITHSCORES') "
+            + "else "
+            + "rows = redis.call('ZREVRANGEBYSCORE', KEYS[1], '(' .. ARGV[2], '-inf', 'WITHSCORES', 'LIMIT', 0, limit) "
+            + "end "
+            + "end "
+            + "local out = {} "
+            + "for i = 1, #rows, 2 do "
+            + "local c = rows[i] "
+            + "local unread = tonumber(redis.call('HGET', KEYS[2], c) or '0') "
+            + "local seq = redis.call('GET', ARGV[5] .. c) "
+            + "if seq then "
+            + "unread = unread + math.max(0, tonumber(seq) - tonumber(redis.call('HGET', ARGV[6] .. c, ARGV[7]) or '0')) "
+            + "end "
+            + "out[#out + 1] = c "
+            + "out[#out + 1] = rows[i + 1] "
+            + "out[#out + 1] = unread "
+            + "out[#out + 1] = redis.call('GET', ARGV[4] .. c) or false "
+            + "end "
+            + "return out").getBytes(StandardCharsets.UTF_8);
+
+    // ARGV: 群序号前缀, 群已读前缀, userId, 其后为conversationId；只处理索引中存在的会话，
+    // 清掉未读计数，大群的已读位置推进到当前最大序号；返回处理的会话数
+    private static final byte[] MARK_READ_SCRIPT = ("local n = 0 "
+            + "for i = 4, #ARGV do "
+            + "local c = ARGV[i] "
+            + "if redis.call('ZSCORE', KEYS[1], c) then "
+            + "n = n + 1 "
+            + "redis.call('HDEL', KEYS[2], c) "
+            + "local seq = redis.call('GET', ARGV[1] .. c) "
+            + "if seq then "
+            + "local key = ARGV[2] .. c "
+            + "if tonumber(seq) > tonumber(redis.call('HGET', key, ARGV[3]) or '0') then redis.call('HSET', key, ARGV[3], seq) end "
+            + "end "
+            + "end "
+            + "end "
+            + "return n").getBytes(StandardCharsets.UTF_8);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final byte[] maxSize;
+    private final long previewTtlSeconds;
+
+    public ConversationStore(RedisTemplate<String, Object> redisTemplate,
+                             ObjectMapper objectMapper,
+                             @Value("${conversation.index.max-size:10000}") long maxSize,
+                             @Value("${conversation.preview-ttl-seconds:2592000}") long previewTtlSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.maxSize = bytes(String.valueOf(maxSize));
+        this.previewTtlSeconds = previewTtlSeconds;
+    }
+
+    /**
+     * 批量更新会话索引（单次pipeline）
+     *
+     * @param activities 用户 -> 该用户本批有新消息的会话
+     * @param touches    大群：只把成员索引中的活跃时间推后，不计未读
+     * @param previews   各会话本批的最后一条消息（已截断）
+     */
+    public void apply(Map<Long, List<Activity>> activities, List<Touch> touches, Collection<ChatMessage> previews) {
+        List<byte[]> encoded = new ArrayList<>(previews.size());
+        for (ChatMessage preview : previews) {
+            encoded.add(serialize(preview));
+        }
+
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            int i = 0;
+            for (ChatMessage preview : previews) {
+                byte[] value = encoded.get(i++);
+                if (value != null) {
+                    connection.stringCommands().setEx(previewKey(preview.getConversationId()), previewTtlSeconds, value);
+                }
+            }
+            for (Map.Entry<Long, List<Activity>> entry : activities.entrySet()) {
+                activityScript(connection, entry.getKey(), entry.getValue());
+            }
+            RedisZSetCommands.ZAddArgs newerOnly = RedisZSetCommands.ZAddArgs.empty().gt();
+            for (Touch touch : touches) {
+                byte[] member = bytes(String.valueOf(touch.conversationId()));
+                for (Long userId : touch.userIds()) {
+                    connection.zSetCommands().zAdd(indexKey(userId), touch.lastActiveAt(), member, newerOnly);
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 按最后活跃时间倒序取一页
+     *
+     * @param cursorScore          上一页最后一条的分值，首页为null
+     * @param cursorConversationId 上一页最后一条的会话ID
+     */
+    public List<Item> page(Long userId, String cursorScore, Long cursorConversationId, int limit) {
+        List<?> reply = redisTemplate.execute((RedisCallback<List<?>>) connection -> connection.scriptingCommands()
+                .eval(PAGE_SCRIPT, ReturnType.MULTI, 2,
+                        indexKey(userId),
+                        unreadKey(userId),
+                        bytes(String.valueOf(limit)),
+                        bytes(cursorScore == null ? "" : cursorScore),
+                        bytes(cursorConversationId == null ? "" : String.valueOf(cursorConversationId)),
+                        bytes(PREVIEW_KEY_PREFIX),
+                        bytes(GroupTimelineStore.SEQ_KEY_PREFIX),
+                        bytes(GroupTimelineStore.CURSOR_KEY_PREFIX),
+                        bytes(userId.toString())));
+        if (reply == null || reply.isEmpty()) {
+            return List.of();
+        }
+
+        List<Item> items = new ArrayList<>(reply.size() / 4);
+        for (int i = 0; i + 3 < reply.size(); i += 4) {
+            long conversationId = Long.parseLong(string(reply.get(i)));
+            items.add(new Item(conversationId, string(reply.get(i + 1)), ((Number) reply.get(i + 2)).longValue(),
+                    deserialize(conversationId, reply.get(i + 3))));
+        }
+        return items;
+    }
+
+    /**
+     * 批量清除未读，只处理索引中存在的会话
+     *
+     * @return 处理的会话数
+     */
+    public long markRead(Long userId, Collection<Long> conversationIds) {
+        byte[][] keysAndArgs = new byte[5 + conversationIds.size()][];
+        keysAndArgs[0] = indexKey(userId);
+        keysAndArgs[1] = unreadKey(userId);
+        keysAndArgs[2] = bytes(GroupTimelineStore.SEQ_KEY_PREFIX);
+        keysAndArgs[3] = bytes(GroupTimelineStore.CURSOR_KEY_PREFIX);
+        keysAndArgs[4] = bytes(userId.toString());
+        int i = 5;
+        for (Long conversationId : conversationIds) {
+            keysAndArgs[i++] = bytes(String.valueOf(conversationId));
+        }
+        Long result = redisTemplate.execute((RedisCallback<Long>) connection -> connection.scriptingCommands()
+                .eval(MARK_READ_SCRIPT, ReturnType.INTEGER, 2, keysAndArgs));
+        return result == null ? 0 : result;
+    }
+
+    /**
+     * 回填过期的预览（单次pipeline）
+     */
+    public void savePreviews(Collection<ChatMessage> previews) {
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (ChatMessage preview : previews) {
+                byte[] value = serialize(preview);
+                if (value != null) {
+                    connection.stringCommands().setEx(previewKey(preview.getConversationId()), previewTtlSeconds, value);
+                }
+            }
+            return null;
+        });
+    }
+
+    private void activityScript(RedisConnection connection, Long userId, List<Activity> activities) {
+        byte[][] keysAndArgs = new byte[3 + activities.size() * 4][];
+        keysAndArgs[0] = indexKey(userId);
+        keysAndArgs[1] = unreadKey(userId);
+        keysAndArgs[2] = maxSize;
+        int i = 3;
+        for (Activity activity : activities) {
+            keysAndArgs[i++] = bytes(String.valueOf(activity.conversationId()));
+            keysAndArgs[i++] = bytes(String.valueOf(activity.lastActiveAt()));
+            keysAndArgs[i++] = bytes(String.valueOf(activity.lastMessageId()));
+            keysAndArgs[i++] = bytes(String.valueOf(activity.unread()));
+        }
+        connection.scriptingCommands().eval(ACTIVITY_SCRIPT, ReturnType.INTEGER, 2, keysAndArgs);
+    }
+
+    private byte[] serialize(ChatMessage preview) {
+        try {
+            return objectMapper.writeValueAsBytes(preview);
+        } catch (JsonProcessingException e) {
+            log.error("会话预览序列化失败：conversationId={}", preview.getConversationId(), e);
+            return null;
+        }
+    }
+
+    private ChatMessage deserialize(long conversationId, Object value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue((byte[]) value, ChatMessage.class);
+        } catch (Exception e) {
+            log.warn("会话预览解析失败：conversationId={}", conversationId, e);
+            return null;
+        }
+    }
+
+    private static String string(Object value) {
+        return new String((byte[]) value, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] indexKey(Long userId) {
+        return bytes(INDEX_KEY_PREFIX + userId);
+    }
+
+    private static byte[] unreadKey(Long userId) {
+        return bytes(UNREAD_KEY_PREFIX + userId);
+    }
+
+    private static byte[] previewKey(Long conversationId) {
+        return bytes(PREVIEW_KEY_PREFIX + conversationId);
+    }
+
+    private static byte[] bytes(String value) {
+        return RedisSerializer.string().serialize(value);
+    }
+
+    /**
+     * 某用户在某会话上的一批新消息
+     *
+     * @param lastMessageId 本批最后一条消息，用于重投去重
+     * @param unread        本批中他人发送的条数
+     */
+    public record Activity(long conversationId, long lastActiveAt, long lastMessageId, int unread) {
+    }
+
+    /**
+     * 大群的一次活跃时间推进
+     */
+    public record Touch(long conversationId, long lastActiveAt, Collection<Long> userIds) {
+    }
+
+    /**
+     * @param score   最后活跃时间的原始分值，原样作为翻页游标
+     * @param preview 最后一条消息预览，缓存过期时为null
+     */
+    public record Item(long conversationId, String score, long unread, ChatMessage preview) {
+    }
+}
@@ -0,0 +1,132 @@
+package com.distri.chat.biz.message.infra.cache;
+
+import com.distri.chat.biz.message.domain.model.ChatMessage;
+import com.distri.chat.biz.message.domain.model.InboxEntry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 大群时间线（读扩散）
+ * <p>
+ * 每个群一个有序集合 distri-chat:group:timeline:{groupId}，成员格式与收件箱相同，
+ * 分值为群内序号；每个成员的已读位置记在 distri-chat:group:cursor:{groupId} 哈希中。
+ * 时间线只保留最近max-size条，更早的消息通过历史接口从消息分表读取。
+ */
+@Component
+public class GroupTimelineStore {
+
+    private static final String TIMELINE_KEY_PREFIX = "distri-chat:group:timeline:";
+    // 会话列表取页时在脚本内读取群序号与已读位置
+    static final String SEQ_KEY_PREFIX = "distri-chat:group:seq:";
+    static final String CURSOR_KEY_PREFIX = "distri-chat:group:cursor:";
+
+    // 分配连续群序号、写入并裁剪，返回最后一个序号
+    private static final byte[] APPEND_SCRIPT = ("local n = #ARGV - 1 "
+            + "local last = redis.call('INCRBY', KEYS[2], n) "
+            + "local seq = last - n "
+            + "for i = 2, #ARGV do seq = seq + 1 redis.call('ZADD', KEYS[1], seq, ARGV[i]) end "
+            + "redis.call('ZREMRANGEBYRANK', KEYS[1], 0, -tonumber(ARGV[1]) - 1) "
+            + "return last").getBytes(StandardCharsets.UTF_8);
+
+    // 已读位置只前进不后退
+    private static final byte[] ADVANCE_CURSOR_SCRIPT = ("local cur = tonumber(redis.call('HGET', KEYS[1], ARGV[1]) or '0') "
+            + "if tonumber(ARGV[2]) > cur then redis.call('HSET', KEYS[1], ARGV[1], ARGV[2]) return tonumber(ARGV[2]) end "
+            + "return cur").getBytes(StandardCharsets.UTF_8);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final String maxSize;
+
+    public GroupTimelineStore(RedisTemplate<String, Object> redisTemplate,
+                              @Value("${group.timeline.max-size:5000}") long maxSize) {
+        this.redisTemplate = redisTemplate;
+        this.maxSize = String.valueOf(maxSize);
+    }
+
+    /**
+     * 批量写入各群时间线（单次pipeline）
+     *
+     * @return 群ID -> 本次分配的最后一个序号，本批条目序号为 last-n+1 .. last
+     */
+    public Map<Long, Long> append(Map<Long, List<ChatMessage>> groups) {
+        List<Long> groupIds = new ArrayList<>(groups.keySet());
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Long groupId : groupIds) {
+                appendScript(connection, groupId, groups.get(groupId));
+            }
+            return null;
+        });
+
+        Map<Long, Long> lastSeqs = new HashMap<>(groupIds.size() * 2);
+        for (int i = 0; i < groupIds.size(); i++) {
+            lastSeqs.put(groupIds.get(i), ((Number) results.get(i)).longValue());
+        }
+        return lastSeqs;
+    }
+
+    /**
+     * 读取群序号大于afterSeq的最多limit条；userId仅用于填充条目
+     */
+    public List<InboxEntry> range(long groupId, Long userId, long afterSeq, int limit) {
+        Set<ZSetOperations.TypedTuple<Object>> tuples = redisTemplate.opsForZSet()
+                .rangeByScoreWithScores(TIMELINE_KEY_PREFIX + groupId, afterSeq + 1, Double.POSITIVE_INFINITY, 0, limit);
+        if (tuples == null || tuples.isEmpty()) {
+            return List.of();
+        }
+        List<InboxEntry> entries = new ArrayList<>(tuples.size());
+        for (ZSetOperations.TypedTuple<Object> tuple : tuples) {
+            entries.add(InboxEntry.fromMember(userId, tuple.getScore().longValue(), String.valueOf(tuple.getValue())));
+        }
+        return entries;
+    }
+
+    public long maxSeq(long groupId) {
+        Object value = redisTemplate.opsForValue().get(SEQ_KEY_PREFIX + groupId);
+        return value == null ? 0 : Long.parseLong(value.toString());
+    }
+
+    public long getCursor(long groupId, Long userId) {
+        Object value = redisTemplate.opsForHash().get(CURSOR_KEY_PREFIX + groupId, userId.toString());
+        return value == null ? 0 : Long.parseLong(value.toString());
+    }
+
+    /**
+     * 推进已读位置
+     *
+     * @return 推进后的位置
+     */
+    public long advanceCursor(long groupId, Long userId, long seq) {
+        Long result = redisTemplate.execute((RedisCallback<Long>) connection -> connection.scriptingCommands()
+                .eval(ADVANCE_CURSOR_SCRIPT, ReturnType.INTEGER, 1,
+                        bytes(CURSOR_KEY_PREFIX + groupId), bytes(userId.toString()), bytes(String.valueOf(seq))));
+        return result == null ? 0 : result;
+    }
+
+    private void appendScript(RedisConnection connection, Long groupId, List<ChatMessage> messages) {
+        byte[][] keysAndArgs = new byte[3 + messages.size()][];
+        keysAndArgs[0] = bytes(TIMELINE_KEY_PREFIX + groupId);
+        keysAndArgs[1] = bytes(SEQ_KEY_PREFIX + groupId);
+        keysAndArgs[2] = bytes(maxSize);
+        for (int i = 0; i < messages.size(); i++) {
+            ChatMessage message = messages.get(i);
+            keysAndArgs[3 + i] = bytes(InboxEntry.member(message.getConversationId(), message.getMessageId()));
+        }
+        connection.scriptingCommands().eval(APPEND_SCRIPT, ReturnType.INTEGER, 2, keysAndArgs);
+    }
+
+    private static byte[] bytes(String value) {
+        return RedisSerializer.string().serialize(value);
+    }
+}
@@ -0,0 +1,217 @@
+package com.distri.chat.biz.message.infra.cache;
+
+import com.distri.chat.biz.message.domain.model.ChatMessage;
+import com.distri.chat.biz.message.domain.model.InboxEntry;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Redis收件箱
+ * <p>
+ * 每个用户一个有序集合 distri-chat:inbox:{userId}，成员为 "conversationId:messageId"，
+ * 分值为 distri-chat:inbox:seq:{userId} 自增出的序号，同一成员重复写入不会改变序号；消息正文按messageId单独缓存一份，
+ * 不随接收者数量复制。同步时一次ZRANGEBYSCORE加一次MGET即可取回一页。
+ */
+@Slf4j
+@Component
+public class InboxStore {
+
+    private static final String INBOX_KEY_PREFIX = "distri-chat:inbox:";
+    private static final String SEQ_KEY_PREFIX = "distri-chat:inbox:seq:";
+    private static final String MESSAGE_KEY_PREFIX = "distri-chat:msg:";
+
+    // 只为不在收件箱中的成员分配序号（Kafka重投的消息沿用原序号，不消耗序号），返回 {各成员的序号..., 写入后的条目数}
+    private static final byte[] APPEND_SCRIPT = ("local seqs = {} "
+            + "for i = 1, #ARGV do "
+            + "local seq = redis.call('ZSCORE', KEYS[1], ARGV[i]) "
+            + "if seq then seq = tonumber(seq) else "
+            + "seq = redis.call('INCR', KEYS[2]) redis.call('ZADD', KEYS[1], seq, ARGV[i]) end "
+            + "seqs[i] = seq end "
+            + "seqs[#ARGV + 1] = redis.call('ZCARD', KEYS[1]) "
+            + "return seqs").getBytes(StandardCharsets.UTF_8);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final long messageTtlSeconds;
+
+    public InboxStore(RedisTemplate<String, Object> redisTemplate,
+                      ObjectMapper objectMapper,
+                      @Value("${inbox.message-ttl-seconds:604800}") long messageTtlSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.messageTtlSeconds = messageTtlSeconds;
+    }
+
+    /**
+     * 批量写入收件箱（单次pipeline）
+     *
+     * @param messages   本批全部消息，正文各缓存一份
+     * @param recipients 接收者 -> 按顺序投入其收件箱的消息
+     * @return 每个接收者的分配结果
+     */
+    public Map<Long, AppendResult> append(List<ChatMessage> messages, Map<Long, List<ChatMessage>> recipients) {
+        List<byte[]> bodies = new ArrayList<>(messages.size());
+        for (ChatMessage message : messages) {
+            bodies.add(serialize(message));
+        }
+        List<Long> userIds = new ArrayList<>(recipients.keySet());
+
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (int i = 0; i < messages.size(); i++) {
+                if (bodies.get(i) != null) {
+                    connection.stringCommands().setEx(messageKey(messages.get(i).getMessageId()), messageTtlSeconds, bodies.get(i));
+                }
+            }
+            for (Long userId : userIds) {
+                appendScript(connection, userId, recipients.get(userId));
+            }
+            return null;
+        });
+
+        Map<Long, AppendResult> appended = new HashMap<>(userIds.size() * 2);
+        int offset = results.size() - userIds.size();
+        for (int i = 0; i < userIds.size(); i++) {
+            List<?> reply = (List<?>) results.get(offset + i);
+            long[] seqs = new long[reply.size() - 1];
+            for (int j = 0; j < seqs.length; j++) {
+                seqs[j] = toLong(reply.get(j));
+            }
+            appended.put(userIds.get(i), new AppendResult(seqs, toLong(reply.get(seqs.length))));
+        }
+        return appended;
+    }
+
+    /**
+     * 读取序号大于afterSeq的最多limit条，按序号正序，不含正文
+     */
+    public List<InboxEntry> range(Long userId, long afterSeq, int limit) {
+        return toEntries(userId, redisTemplate.opsForZSet()
+                .rangeByScoreWithScores(INBOX_KEY_PREFIX + userId, afterSeq + 1, Double.POSITIVE_INFINITY, 0, limit));
+    }
+
+    /**
+     * 收件箱中最早的count条（用于溢出归档）
+     */
+    public List<InboxEntry> oldest(Long userId, long count) {
+        return toEntries(userId, redisTemplate.opsForZSet().rangeWithScores(INBOX_KEY_PREFIX + userId, 0, count - 1));
+    }
+
+    /**
+     * 删除序号不大于maxSeq的条目
+     */
+    public void trim(Long userId, long maxSeq) {
+        redisTemplate.opsForZSet().removeRangeByScore(INBOX_KEY_PREFIX + userId, Double.NEGATIVE_INFINITY, maxSeq);
+    }
+
+    /**
+     * 收件箱中最小的序号，为空时返回null
+     */
+    public Long minSeq(Long userId) {
+        List<InboxEntry> first = oldest(userId, 1);
+        return first.isEmpty() ? null : first.get(0).getSeq();
+    }
+
+    /**
+     * 当前已分配的最大序号
+     */
+    public long maxSeq(Long userId) {
+        Object value = redisTemplate.opsForValue().get(SEQ_KEY_PREFIX + userId);
+        return value == null ? 0 : Long.parseLong(value.toString());
+    }
+
+    /**
+     * 批量读取缓存的消息正文，未命中的不在结果中
+     */
+    public Map<Long, ChatMessage> getMessages(Collection<Long> messageIds) {
+        List<Long> ids = new ArrayList<>(messageIds);
+        List<Object> values = redisTemplate.opsForValue()
+                .multiGet(ids.stream().map(id -> MESSAGE_KEY_PREFIX + id).toList());
+        Map<Long, ChatMessage> messages = new HashMap<>(ids.size() * 2);
+        if (values == null) {
+            return messages;
+        }
+        for (int i = 0; i < ids.size(); i++) {
+            Object value = values.get(i);
+            if (value == null) {
+                continue;
+            }
+            try {
+                messages.put(ids.get(i), objectMapper.readValue(value.toString(), ChatMessage.class));
+            } catch (JsonProcessingException e) {
+                log.warn("消息正文缓存解析失败：messageId={}", ids.get(i), e);
+            }
+        }
+        return messages;
+    }
+
+    private static List<InboxEntry> toEntries(Long userId, Set<ZSetOperations.TypedTuple<Object>> tuples) {
+        if (tuples == null || tuples.isEmpty()) {
+            return List.of();
+        }
+        List<InboxEntry> entries = new ArrayList<>(tuples.size());
+        for (ZSetOperations.TypedTuple<Object> tuple : tuples) {
+            entries.add(InboxEntry.fromMember(userId, tuple.getScore().longValue(), String.valueOf(tuple.getValue())));
+        }
+        return entries;
+    }
+
+    private void appendScript(RedisConnection connection, Long userId, List<ChatMessage> messages) {
+        byte[][] keysAndArgs = new byte[2 + messages.size()][];
+        keysAndArgs[0] = inboxKey(userId);
+        keysAndArgs[1] = bytes(SEQ_KEY_PREFIX + userId);
+        for (int i = 0; i < messages.size(); i++) {
+            ChatMessage message = messages.get(i);
+            keysAndArgs[2 + i] = bytes(InboxEntry.member(message.getConversationId(), message.getMessageId()));
+        }
+        connection.scriptingCommands().eval(APPEND_SCRIPT, ReturnType.MULTI, 2, keysAndArgs);
+    }
+
+    private byte[] serialize(ChatMessage message) {
+        try {
+            return objectMapper.writeValueAsBytes(message);
+        } catch (JsonProcessingException e) {
+            log.error("消息序列化失败：messageId={}", message.getMessageId(), e);
+            return null;
+        }
+    }
+
+    private static long toLong(Object value) {
+        return ((Number) value).longValue();
+    }
+
+    private static byte[] inboxKey(Long userId) {
+        return bytes(INBOX_KEY_PREFIX + userId);
+    }
+
+    private static byte[] messageKey(Long messageId) {
+        return bytes(MESSAGE_KEY_PREFIX + messageId);
+    }
+
+    private static byte[] bytes(String value) {
+        return RedisSerializer.string().serialize(value);
+    }
+
+    /**
+     * @param seqs 与投入的消息一一对应的序号；已在收件箱中的消息为其原序号
+     * @param size 写入后收件箱条目数
+     */
+    public record AppendResult(long[] seqs, long size) {
+    }
+}
@@ -0,0 +1,121 @@
+package com.distri.chat.biz.message.infra.cache;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 消息发送去重
+ * <p>
+ * 客户端没收到MESSAGE_ACK时会用同一个 (clientId, clientSeq) 重发，每个组合一个键 distri-chat:msg:dedup:{clientId}:{clientSeq}：
+ * 发送前以 "p:{messageId}" 占位，写入Kafka成功后改为 "{messageId}"，失败时删除占位以便客户端重试。
+ * 重发时读到已确认的消息ID即直接回执原ID，读到占位说明原请求仍在写入。
+ * 访问Redis在独立的线程池上进行，不阻塞EventLoop；键只保留ttl，覆盖ACK超时重发与断线重连后的重发。
+ */
+@Slf4j
+@Component
+public class MessageDedupStore {
+
+    private static final String KEY_PREFIX = "distri-chat:msg:dedup:";
+    private static final String PENDING_PREFIX = "p:";
+
+    // 已有记录时原样返回，否则写入占位并返回占位
+    private static final byte[] CLAIM_SCRIPT = ("local v = redis.call('GET', KEYS[1]) "
+            + "if v then return v end "
+            + "redis.call('SET', KEYS[1], ARGV[1], 'EX', ARGV[2]) return ARGV[1]").getBytes(StandardCharsets.UTF_8);
+
+    // 仅当仍是本次的占位时才删除或确认，不覆盖其他请求的记录
+    private static final byte[] RELEASE_SCRIPT = ("if redis.call('GET', KEYS[1]) == ARGV[1] then "
+            + "return redis.call('DEL', KEYS[1]) end return 0").getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] CONFIRM_SCRIPT = ("if redis.call('GET', KEYS[1]) == ARGV[1] then "
+            + "redis.call('SET', KEYS[1], ARGV[2], 'EX', ARGV[3]) return 1 end return 0").getBytes(StandardCharsets.UTF_8);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final byte[] ttlSeconds;
+    private final ExecutorService executor;
+
+    public MessageDedupStore(RedisTemplate<String, Object> redisTemplate,
+                             @Value("${message.dedup.ttl-seconds:600}") long ttlSeconds,
+                             @Value("${message.dedup.pool-size:4}") int poolSize) {
+        this.redisTemplate = redisTemplate;
+        this.ttlSeconds = bytes(String.valueOf(ttlSeconds));
+        this.executor = Executors.newFixedThreadPool(poolSize, new CustomizableThreadFactory("message-dedup-"));
+    }
+
+    /**
+     * 为本次发送占位
+     *
+     * @return 该组合的当前记录：messageId等于传入值表示占位成功，否则为之前的请求
+     */
+    public CompletableFuture<Claim> claim(String clientId, long clientSeq, long messageId) {
+        return CompletableFuture.supplyAsync(() -> {
+            byte[] reply = redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.scriptingCommands()
+                    .eval(CLAIM_SCRIPT, ReturnType.VALUE, 1, key(clientId, clientSeq),
+                            bytes(PENDING_PREFIX + messageId), ttlSeconds));
+            String value = reply == null ? PENDING_PREFIX + messageId : new String(reply, StandardCharsets.UTF_8);
+            boolean pending = value.startsWith(PENDING_PREFIX);
+            return new Claim(Long.parseLong(pending ? value.substring(PENDING_PREFIX.length()) : value), !pending);
+        }, executor);
+    }
+
+    /**
+     * 写入Kafka成功：占位改为消息ID
+     */
+    public void confirm(String clientId, long clientSeq, long messageId) {
+        executor.execute(() -> {
+            try {
+                redisTemplate.execute((RedisCallback<Object>) connection -> connection.scriptingCommands()
+                        .eval(CONFIRM_SCRIPT, ReturnType.INTEGER, 1, key(clientId, clientSeq),
+                                bytes(PENDING_PREFIX + messageId), bytes(String.valueOf(messageId)), ttlSeconds));
+            } catch (Exception e) {
+                log.warn("发送去重记录确认失败：clientId={}, clientSeq={}", clientId, clientSeq, e);
+            }
+        });
+    }
+
+    /**
+     * 写入Kafka失败：删除占位，客户端重发时重新发送
+     */
+    public void release(String clientId, long clientSeq, long messageId) {
+        executor.execute(() -> {
+            try {
+                redisTemplate.execute((RedisCallback<Object>) connection -> connection.scriptingCommands()
+                        .eval(RELEASE_SCRIPT, ReturnType.INTEGER, 1, key(clientId, clientSeq),
+                                bytes(PENDING_PREFIX + messageId)));
+            } catch (Exception e) {
+                log.warn("发送去重占位删除失败，需等待过期：clientId={}, clientSeq={}", clientId, clientSeq, e);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static byte[] key(String clientId, long clientSeq) {
+        return bytes(KEY_PREFIX + clientId + ":" + clientSeq);
+    }
+
+    private static byte[] bytes(String value) {
+        return RedisSerializer.string().serialize(value);
+    }
+
+    /**
+     * @param confirmed 该消息已写入Kafka；为false时原请求仍在写入
+     */
+    public record Claim(long messageId, boolean confirmed) {
+    }
+}
@@ -0,0 +1,84 @@
+package com.distri.chat.biz.message.infra.mq;
+
+import com.distri.chat.biz.message.domain.model.ChatMessage;
+import com.distri.chat.biz.message.domain.service.MessageBatchHandler;
+import com.distri.chat.config.KafkaConfig;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 消息批量消费者
+ * 一次poll的全部记录作为一批，依次交给各MessageBatchHandler，而不是逐条处理
+ */
+@Slf4j
+@Component
+public class MessageBatchConsumer {
+
+    private final ObjectMapper objectMapper;
+    private final List<MessageBatchHandler> handlers;
+
+    private final DistributionSummary batchSizeSummary;
+    private final Timer batchTimer;
+    private final Timer endToEndTimer;
+
+    public MessageBatchConsumer(ObjectMapper objectMapper,
+                                ObjectProvider<MessageBatchHandler> handlers,
+                                MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.handlers = handlers.orderedStream().toList();
+
+        this.batchSizeSummary = DistributionSummary.builder("message.consume.batch.size")
+                .description("每批消费的消息数")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("message.consume.batch")
+                .description("整批处理耗时")
+                .register(meterRegistry);
+        this.endToEndTimer = Timer.builder("message.send.to.handle")
+                .description("服务端接收到消息至完成处理的耗时")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    @KafkaListener(topics = KafkaConfig.MESSAGE_TOPIC,
+            groupId = "distri-chat-message",
+            containerFactory = KafkaConfig.BATCH_LISTENER_FACTORY)
+    public void onMessages(List<ConsumerRecord<String, String>> records) {
+        long startTime = System.nanoTime();
+
+        List<ChatMessage> messages = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, String> record : records) {
+            try {
+                messages.add(objectMapper.readValue(record.value(), ChatMessage.class));
+            } catch (JsonProcessingException e) {
+                log.error("消息反序列化失败，跳过：partition={}, offset={}", record.partition(), record.offset(), e);
+            }
+        }
+
+        if (!messages.isEmpty()) {
+            for (MessageBatchHandler handler : handlers) {
+                handler.handle(messages);
+            }
+        }
+
+        batchSizeSummary.record(records.size());
+        batchTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        long now = System.currentTimeMillis();
+        for (ChatMessage message : messages) {
+            if (message.getSendTime() != null) {
+                endToEndTimer.record(now - message.getSendTime(), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.distri.chat.biz.message.infra.mq;
+
+import com.distri.chat.biz.message.domain.model.ChatMessage;
+import com.distri.chat.common.exception.BusinessException;
+import com.distri.chat.config.KafkaConfig;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 消息生产者
+ * 以conversationId为key，保证同一会话的消息落在同一分区、顺序一致；
+ * 在EventLoop上调用，使用max.block.ms收紧后的专用模板，Kafka不可用时快速失败而不是阻塞
+ */
+@Component
+public class MessageProducer {
+
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+
+    public MessageProducer(@Qualifier(KafkaConfig.MESSAGE_KAFKA_TEMPLATE) KafkaTemplate<String, String> kafkaTemplate,
+                           ObjectMapper objectMapper) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    public CompletableFuture<SendResult<String, String>> send(ChatMessage message) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(message);
+        } catch (JsonProcessingException e) {
+            throw BusinessException.business("消息序列化失败");
+        }
+        return kafkaTemplate.send(KafkaConfig.MESSAGE_TOPIC, String.valueOf(message.getConversationId()), payload);
+    }
+}
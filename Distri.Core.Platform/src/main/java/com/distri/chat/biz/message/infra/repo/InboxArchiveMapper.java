@@ -0,0 +1,30 @@
+package com.distri.chat.biz.message.infra.repo;
+
+import com.distri.chat.biz.message.domain.model.InboxEntry;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+/**
+ * 收件箱归档数据访问层
+ */
+@Mapper
+public interface InboxArchiveMapper {
+
+    @Insert("<script>"
+            + "INSERT IGNORE INTO user_inbox (user_id, seq, conversation_id, message_id) VALUES "
+            + "<foreach collection='entries' item='e' separator=','>"
+            + "(#{e.userId}, #{e.seq}, #{e.conversationId}, #{e.messageId})"
+            + "</foreach>"
+            + "</script>")
+    int insertBatch(@Param("entries") List<InboxEntry> entries);
+
+    @Select("SELECT user_id, seq, conversation_id, message_id FROM user_inbox "
+            + "WHERE user_id = #{userId} AND seq > #{afterSeq} ORDER BY seq LIMIT #{limit}")
+    List<InboxEntry> findAfter(@Param("userId") long userId,
+                               @Param("afterSeq") long afterSeq,
+                               @Param("limit") int limit);
+}
@@ -0,0 +1,67 @@
+package com.distri.chat.biz.message.infra.repo;
+
+import com.distri.chat.biz.message.domain.model.ChatMessage;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 消息数据访问层
+ * 消息按会话分表，没有单一的物理表，因此不继承BaseMapper；
+ * table参数只能取自MessageShardRouter，不接受外部输入。
+ * 翻页的ORDER BY写全主键列：会话ID为等值条件时对MySQL等价，也让不做等值推导的引擎（如H2）直接按索引顺序取前limit条。
+ */
+@Mapper
+public interface MessageMapper {
+
+    /**
+     * 多行INSERT批量写入，主键冲突（Kafka重投）直接忽略
+     */
+    @Insert("<script>"
+            + "INSERT IGNORE INTO ${table} "
+            + "(conversation_id, message_id, sender_id, sender_client_id, client_seq, content, send_time) VALUES "
+            + "<foreach collection='messages' item='m' separator=','>"
+            + "(#{m.conversationId}, #{m.messageId}, #{m.senderId}, #{m.senderClientId}, "
+            + "IFNULL(#{m.clientSeq}, 0), #{m.content}, #{m.sendTime})"
+            + "</foreach>"
+            + "</script>")
+    int insertBatch(@Param("table") String table, @Param("messages") List<ChatMessage> messages);
+
+    /**
+     * 向前翻页：message_id小于游标的最近limit条，按message_id倒序
+     */
+    @Select("SELECT conversation_id, message_id, sender_id, sender_client_id, client_seq, content, send_time "
+            + "FROM ${table} WHERE conversation_id = #{conversationId} AND message_id < #{beforeId} "
+            + "ORDER BY conversation_id DESC, message_id DESC LIMIT #{limit}")
+    List<ChatMessage> findBefore(@Param("table") String table,
+                                 @Param("conversationId") long conversationId,
+                                 @Param("beforeId") long beforeId,
+                                 @Param("limit") int limit);
+
+    /**
+     * 向后补拉：message_id大于游标的limit条，按message_id正序
+     */
+    @Select("SELECT conversation_id, message_id, sender_id, sender_client_id, client_seq, content, send_time "
+            + "FROM ${table} WHERE conversation_id = #{conversationId} AND message_id > #{afterId} "
+            + "ORDER BY conversation_id, message_id LIMIT #{limit}")
+    List<ChatMessage> findAfter(@Param("table") String table,
+                                @Param("conversationId") long conversationId,
+                                @Param("afterId") long afterId,
+                                @Param("limit") int limit);
+
+    /**
+     * 按ID批量读取同一会话中的消息
+     */
+    @Select("<script>"
+            + "SELECT conversation_id, message_id, sender_id, sender_client_id, client_seq, content, send_time "
+            + "FROM ${table} WHERE conversation_id = #{conversationId} AND message_id IN "
+            + "<foreach collection='messageIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>"
+            + "</script>")
+    List<ChatMessage> findByIds(@Param("table") String table,
+                                @Param("conversationId") long conversationId,
+                                @Param("messageIds") Collection<Long> messageIds);
+}
@@ -0,0 +1,64 @@
+package com.distri.chat.biz.message.infra.repo;
+
+import com.distri.chat.biz.message.domain.model.ChatMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 消息分表路由
+ * 按会话ID散列到 messages_{0..N-1}，同一会话的消息总在同一张表中
+ */
+@Component
+public class MessageShardRouter {
+
+    private static final String TABLE_PREFIX = "messages_";
+
+    private final int shardCount;
+    private final String[] tableNames;
+
+    public MessageShardRouter(@Value("${message.shard.count:8}") int shardCount) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("message.shard.count必须大于0");
+        }
+        this.shardCount = shardCount;
+        this.tableNames = new String[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            tableNames[i] = TABLE_PREFIX + i;
+        }
+    }
+
+    public int shardOf(long conversationId) {
+        return Math.floorMod(mix(conversationId), shardCount);
+    }
+
+    public String tableOf(long conversationId) {
+        return tableNames[shardOf(conversationId)];
+    }
+
+    /**
+     * 按物理表分组，组内保持原有顺序
+     */
+    public Map<String, List<ChatMessage>> groupByTable(Collection<ChatMessage> messages) {
+        Map<String, List<ChatMessage>> groups = new LinkedHashMap<>();
+        for (ChatMessage message : messages) {
+            groups.computeIfAbsent(tableOf(message.getConversationId()), k -> new ArrayList<>()).add(message);
+        }
+        return groups;
+    }
+
+    // 单聊会话ID低位是用户ID，直接取模会偏斜，先打散
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
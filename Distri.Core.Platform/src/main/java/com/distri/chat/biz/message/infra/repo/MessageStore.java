@@ -0,0 +1,95 @@
+package com.distri.chat.biz.message.infra.repo;
+
+import com.distri.chat.biz.message.domain.model.ChatMessage;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分表消息存储
+ * 写入时按物理表分组、再按批大小切分成多行INSERT；读取只走(conversation_id, message_id)主键游标
+ */
+@Repository
+public class MessageStore {
+
+    private final MessageMapper messageMapper;
+    private final MessageShardRouter shardRouter;
+    private final int insertBatchSize;
+
+    private final Timer insertTimer;
+    private final DistributionSummary insertRowsSummary;
+    private final Timer pageTimer;
+
+    public MessageStore(MessageMapper messageMapper,
+                        MessageShardRouter shardRouter,
+                        MeterRegistry meterRegistry,
+                        @Value("${message.store.insert-batch-size:500}") int insertBatchSize) {
+        this.messageMapper = messageMapper;
+        this.shardRouter = shardRouter;
+        this.insertBatchSize = insertBatchSize;
+
+        this.insertTimer = Timer.builder("message.store.insert")
+                .description("单条多行INSERT耗时")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.insertRowsSummary = DistributionSummary.builder("message.store.insert.rows")
+                .description("单条多行INSERT的行数")
+                .register(meterRegistry);
+        this.pageTimer = Timer.builder("message.store.page")
+                .description("历史消息单页查询耗时")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 批量保存
+     *
+     * @return 实际新写入的行数（重复消息不计）
+     */
+    public int saveBatch(List<ChatMessage> messages) {
+        int inserted = 0;
+        for (Map.Entry<String, List<ChatMessage>> entry : shardRouter.groupByTable(messages).entrySet()) {
+            String table = entry.getKey();
+            List<ChatMessage> rows = entry.getValue();
+            for (int from = 0; from < rows.size(); from += insertBatchSize) {
+                List<ChatMessage> chunk = rows.subList(from, Math.min(from + insertBatchSize, rows.size()));
+                inserted += insertTimer.record(() -> messageMapper.insertBatch(table, chunk));
+                insertRowsSummary.record(chunk.size());
+            }
+        }
+        return inserted;
+    }
+
+    /**
+     * 游标之前的limit条，倒序；beforeId为null时从最新一条开始
+     */
+    public List<ChatMessage> findBefore(long conversationId, Long beforeId, int limit) {
+        long cursor = beforeId == null ? Long.MAX_VALUE : beforeId;
+        String table = shardRouter.tableOf(conversationId);
+        return pageTimer.record(() -> messageMapper.findBefore(table, conversationId, cursor, limit));
+    }
+
+    /**
+     * 游标之后的limit条，正序
+     */
+    public List<ChatMessage> findAfter(long conversationId, long afterId, int limit) {
+        String table = shardRouter.tableOf(conversationId);
+        return pageTimer.record(() -> messageMapper.findAfter(table, conversationId, afterId, limit));
+    }
+
+    /**
+     * 按ID批量读取同一会话中的消息，不保证顺序
+     */
+    public List<ChatMessage> findByIds(long conversationId, Collection<Long> messageIds) {
+        if (messageIds.isEmpty()) {
+            return List.of();
+        }
+        return messageMapper.findByIds(shardRouter.tableOf(conversationId), conversationId, messageIds);
+    }
+}
@@ -0,0 +1,227 @@
+package com.distri.chat.biz.message.infra.route;
+
+import com.distri.chat.biz.message.domain.model.InboxEntry;
+import com.distri.chat.biz.message.domain.service.LocalDeliveryService;
+import com.distri.chat.biz.message.domain.service.NodeDeliveryTransport;
+import com.distri.chat.biz.session.domain.service.SessionRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基于Redis发布订阅的跨节点路由
+ * <p>
+ * 每个网关节点订阅自己的频道 distri-chat:route:{nodeId}。发往同一节点的条目先在本地攒批，
+ * 每个时间窗口（或攒满一批）以一次PUBLISH发出；接收端在监听线程上解码后交给本地投递，
+ * 写Channel由Netty转交各自的EventLoop，不阻塞IO线程。
+ * PUBLISH无订阅者时视为节点已下线，在退避期内直接丢弃发往该节点的条目（接收者可通过收件箱同步），
+ * 并在刷新线程上清理被丢弃条目的接收者指向该节点的残留会话，之后的投递不再路由到该节点。
+ */
+@Slf4j
+@Component
+public class RedisNodeRouter implements NodeDeliveryTransport, MessageListener {
+
+    private static final String CHANNEL_PREFIX = "distri-chat:route:";
+
+    private final RedisTemplate<String, byte[]> byteRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final LocalDeliveryService localDeliveryService;
+    private final SessionRegistry sessionRegistry;
+    private final String nodeId;
+    private final long coalesceWindowMillis;
+    private final int maxBatchSize;
+    private final long deadNodeBackoffMillis;
+
+    private final Map<String, NodeBuffer> buffers = new ConcurrentHashMap<>();
+    private final Map<String, Long> deadUntil = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flushExecutor;
+
+    private final DistributionSummary publishBatchSummary;
+    private final DistributionSummary receiveBatchSummary;
+    private final Counter routeMissCounter;
+    private final Counter evictedCounter;
+    private final Counter decodeErrorCounter;
+
+    public RedisNodeRouter(RedisTemplate<String, byte[]> byteRedisTemplate,
+                           RedisMessageListenerContainer listenerContainer,
+                           LocalDeliveryService localDeliveryService,
+                           SessionRegistry sessionRegistry,
+                           MeterRegistry meterRegistry,
+                           @Value("${route.coalesce-window-millis:5}") long coalesceWindowMillis,
+                           @Value("${route.max-batch-size:500}") int maxBatchSize,
+                           @Value("${route.dead-node-backoff-millis:5000}") long deadNodeBackoffMillis) {
+        this.byteRedisTemplate = byteRedisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.localDeliveryService = localDeliveryService;
+        this.sessionRegistry = sessionRegistry;
+        this.nodeId = sessionRegistry.getNodeId();
+        this.coalesceWindowMillis = coalesceWindowMillis;
+        this.maxBatchSize = maxBatchSize;
+        this.deadNodeBackoffMillis = deadNodeBackoffMillis;
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("route-flush-");
+        threadFactory.setDaemon(true);
+        this.flushExecutor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+
+        this.publishBatchSummary = DistributionSummary.builder("route.publish.batch.size")
+                .description("每次PUBLISH携带的条目数")
+                .register(meterRegistry);
+        this.receiveBatchSummary = DistributionSummary.builder("route.receive.batch.size")
+                .description("每次收到的路由批次条目数")
+                .register(meterRegistry);
+        this.routeMissCounter = Counter.builder("route.miss")
+                .description("目标节点无订阅者（已下线）而丢弃的条目数")
+                .register(meterRegistry);
+        this.evictedCounter = Counter.builder("route.evicted.sessions")
+                .description("因目标节点已下线而清理的残留设备会话数")
+                .register(meterRegistry);
+        this.decodeErrorCounter = Counter.builder("route.decode.error")
+                .description("无法解码的路由批次数")
+                .register(meterRegistry);
+        Gauge.builder("route.pending", buffers, b -> b.values().stream().mapToInt(buffer -> buffer.size.get()).sum())
+                .description("等待发布的条目数")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        listenerContainer.addMessageListener(this, ChannelTopic.of(CHANNEL_PREFIX + nodeId));
+        flushExecutor.scheduleWithFixedDelay(this::flushAll, coalesceWindowMillis, coalesceWindowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 入队，由刷新线程按节点攒批发布；攒满一批时立即触发刷新
+     */
+    @Override
+    public void send(String targetNodeId, List<InboxEntry> entries) {
+        Long until = deadUntil.get(targetNodeId);
+        if (until != null) {
+            if (System.currentTimeMillis() < until) {
+                routeMissCounter.increment(entries.size());
+                flushExecutor.execute(() -> evictDeadSessions(targetNodeId, entries));
+                return;
+            }
+            deadUntil.remove(targetNodeId, until);
+        }
+
+        NodeBuffer buffer = buffers.computeIfAbsent(targetNodeId, k -> new NodeBuffer());
+        buffer.queue.addAll(entries);
+        if (buffer.size.addAndGet(entries.size()) >= maxBatchSize) {
+            flushExecutor.execute(() -> flush(targetNodeId, buffer));
+        }
+    }
+
+    /**
+     * 收到发往本节点的批次
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        List<InboxEntry> entries;
+        try {
+            entries = RouteBatchCodec.decode(message.getBody());
+        } catch (Exception e) {
+            decodeErrorCounter.increment();
+            log.error("路由批次解码失败，长度={}", message.getBody().length, e);
+            return;
+        }
+        receiveBatchSummary.record(entries.size());
+        localDeliveryService.deliver(entries);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        listenerContainer.removeMessageListener(this);
+        flushExecutor.shutdown();
+        try {
+            flushExecutor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushAll();
+    }
+
+    private void flushAll() {
+        for (Map.Entry<String, NodeBuffer> entry : buffers.entrySet()) {
+            flush(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void flush(String targetNodeId, NodeBuffer buffer) {
+        while (buffer.size.get() > 0) {
+            List<InboxEntry> batch = new ArrayList<>(Math.min(buffer.size.get(), maxBatchSize));
+            InboxEntry entry;
+            while (batch.size() < maxBatchSize && (entry = buffer.queue.poll()) != null) {
+                batch.add(entry);
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            buffer.size.addAndGet(-batch.size());
+            publish(targetNodeId, batch);
+        }
+    }
+
+    private void publish(String targetNodeId, List<InboxEntry> batch) {
+        try {
+            byte[] channel = RedisSerializer.string().serialize(CHANNEL_PREFIX + targetNodeId);
+            byte[] payload = RouteBatchCodec.encode(batch);
+            Long receivers = byteRedisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(channel, payload));
+            publishBatchSummary.record(batch.size());
+            if (receivers == null || receivers == 0) {
+                routeMissCounter.increment(batch.size());
+                deadUntil.put(targetNodeId, System.currentTimeMillis() + deadNodeBackoffMillis);
+                log.warn("节点无订阅者，暂停向其路由：nodeId={}", targetNodeId);
+                evictDeadSessions(targetNodeId, batch);
+            }
+        } catch (Exception e) {
+            routeMissCounter.increment(batch.size());
+            log.error("路由批次发布失败：nodeId={}, 条数={}", targetNodeId, batch.size(), e);
+        }
+    }
+
+    /**
+     * 清理接收者指向已下线节点的会话，失败时留待下一次路由未命中或TTL过期
+     */
+    private void evictDeadSessions(String targetNodeId, List<InboxEntry> entries) {
+        Set<Long> userIds = new LinkedHashSet<>();
+        for (InboxEntry entry : entries) {
+            userIds.add(entry.getUserId());
+        }
+        try {
+            evictedCounter.increment(sessionRegistry.evictNode(targetNodeId, userIds));
+        } catch (Exception e) {
+            log.error("清理下线节点的残留会话失败：nodeId={}, 用户数={}", targetNodeId, userIds.size(), e);
+        }
+    }
+
+    private static final class NodeBuffer {
+        private final ConcurrentLinkedQueue<InboxEntry> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+    }
+}
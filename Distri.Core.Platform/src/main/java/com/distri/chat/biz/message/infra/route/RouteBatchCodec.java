@@ -0,0 +1,108 @@
+package com.distri.chat.biz.message.infra.route;
+
+import com.distri.chat.biz.message.domain.model.ChatMessage;
+import com.distri.chat.biz.message.domain.model.InboxEntry;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 跨节点路由批次编解码
+ * <pre>
+ * [version(1)] [消息数(4)] [消息...] [条目数(4)] [条目: userId(8) seq(8) 消息下标(4) ...]
+ * </pre>
+ * 同一条消息发给该节点上多个接收者（群扇出）时正文只编码一次。
+ */
+final class RouteBatchCodec {
+
+    private static final byte VERSION = 1;
+
+    private RouteBatchCodec() {
+    }
+
+    static byte[] encode(List<InboxEntry> entries) {
+        Map<ChatMessage, Integer> indexes = new IdentityHashMap<>();
+        List<ChatMessage> messages = new ArrayList<>();
+        for (InboxEntry entry : entries) {
+            if (!indexes.containsKey(entry.getMessage())) {
+                indexes.put(entry.getMessage(), messages.size());
+                messages.add(entry.getMessage());
+            }
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + messages.size() * 128 + entries.size() * 20);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeInt(messages.size());
+            for (ChatMessage message : messages) {
+                out.writeLong(message.getMessageId());
+                out.writeLong(message.getConversationId());
+                out.writeLong(message.getSenderId());
+                writeNullableString(out, message.getSenderClientId());
+                out.writeLong(message.getClientSeq() == null ? 0 : message.getClientSeq());
+                out.writeLong(message.getSendTime() == null ? 0 : message.getSendTime());
+                writeNullableString(out, message.getContent());
+            }
+            out.writeInt(entries.size());
+            for (InboxEntry entry : entries) {
+                out.writeLong(entry.getUserId());
+                out.writeLong(entry.getSeq());
+                out.writeInt(indexes.get(entry.getMessage()));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static List<InboxEntry> decode(byte[] payload) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new IOException("不支持的路由批次版本：" + version);
+            }
+
+            int messageCount = in.readInt();
+            List<ChatMessage> messages = new ArrayList<>(messageCount);
+            for (int i = 0; i < messageCount; i++) {
+                messages.add(ChatMessage.builder()
+                        .messageId(in.readLong())
+                        .conversationId(in.readLong())
+                        .senderId(in.readLong())
+                        .senderClientId(readNullableString(in))
+                        .clientSeq(in.readLong())
+                        .sendTime(in.readLong())
+                        .content(readNullableString(in))
+                        .build());
+            }
+
+            int entryCount = in.readInt();
+            List<InboxEntry> entries = new ArrayList<>(entryCount);
+            for (int i = 0; i < entryCount; i++) {
+                long userId = in.readLong();
+                long seq = in.readLong();
+                entries.add(new InboxEntry(userId, seq, messages.get(in.readInt())));
+            }
+            return entries;
+        }
+    }
+
+    private static void writeNullableString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
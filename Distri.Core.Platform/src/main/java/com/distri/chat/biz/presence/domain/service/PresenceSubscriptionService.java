@@ -0,0 +1,217 @@
+package com.distri.chat.biz.presence.domain.service;
+
+import com.distri.chat.biz.session.domain.service.SessionRegistry;
+import com.distri.chat.biz.user.domain.event.UserEvent;
+import com.distri.chat.common.exception.BusinessException;
+import com.distri.chat.gateway.protocol.ChatFrame;
+import com.distri.chat.gateway.protocol.FrameType;
+import com.distri.chat.gateway.session.ChannelAttributes;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.Channel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 在线状态订阅
+ * <p>
+ * 订阅关系只保存在连接所在节点的内存中（目标用户 -> 订阅连接），连接关闭时自动清除。
+ * 收到的上线/下线事件先按用户合并，每个通知周期只推送一次最终状态；
+ * 与上次推送相同的状态（周期内下线又上线的抖动）直接丢弃，不打扰订阅者。
+ */
+@Slf4j
+@Service
+public class PresenceSubscriptionService {
+
+    public static final String ONLINE = "ONLINE";
+    public static final String OFFLINE = "OFFLINE";
+
+    private final SessionRegistry sessionRegistry;
+    private final int maxSubscriptions;
+
+    private final Map<Long, Set<Channel>> subscribers = new ConcurrentHashMap<>();
+    // 待推送的最新状态，同一用户多次变更只保留最后一次
+    private final Map<Long, Boolean> pending = new ConcurrentHashMap<>();
+    // 最近一次推送给订阅者的状态
+    private final Map<Long, Boolean> notified = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Snapshot> snapshots = new ConcurrentLinkedQueue<>();
+
+    private final Counter notifyCounter;
+    private final Counter coalescedCounter;
+
+    public PresenceSubscriptionService(SessionRegistry sessionRegistry,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${presence.max-subscriptions:1000}") int maxSubscriptions) {
+        this.sessionRegistry = sessionRegistry;
+        this.maxSubscriptions = maxSubscriptions;
+
+        this.notifyCounter = Counter.builder("presence.notify")
+                .description("推送给订阅连接的状态帧数")
+                .register(meterRegistry);
+        this.coalescedCounter = Counter.builder("presence.coalesced")
+                .description("被合并或抖动抵消而未推送的状态变更数")
+                .register(meterRegistry);
+        Gauge.builder("presence.subscribed.users", subscribers, Map::size)
+                .description("本节点被订阅在线状态的用户数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 以新的目标集合替换连接当前的订阅，并在下个通知周期推送这些用户的当前状态
+     */
+    public void subscribe(Channel channel, Set<Long> targets) {
+        if (targets.size() > maxSubscriptions) {
+            throw BusinessException.badRequest("单个连接最多订阅" + maxSubscriptions + "个用户的在线状态");
+        }
+
+        Set<Long> previous = channel.attr(ChannelAttributes.PRESENCE_SUBSCRIPTIONS).getAndSet(targets);
+        if (previous != null) {
+            for (Long target : previous) {
+                if (!targets.contains(target)) {
+                    removeSubscriber(target, channel);
+                }
+            }
+        }
+        for (Long target : targets) {
+            subscribers.compute(target, (k, channels) -> {
+                Set<Channel> set = channels == null ? ConcurrentHashMap.newKeySet() : channels;
+                set.add(channel);
+                return set;
+            });
+        }
+        if (previous == null) {
+            // 已关闭的连接会立即回调，刚加入的订阅随之清除
+            channel.closeFuture().addListener(future -> unsubscribeAll(channel));
+        }
+        snapshots.offer(new Snapshot(channel, targets));
+    }
+
+    /**
+     * 收到上线/下线事件，只记录本节点有订阅者的用户
+     */
+    public void onChanges(List<UserEvent> events) {
+        for (UserEvent event : events) {
+            if (event.getUserId() == null || !subscribers.containsKey(event.getUserId())) {
+                continue;
+            }
+            boolean online = UserEvent.USER_ONLINE.equals(event.getType());
+            if (pending.put(event.getUserId(), online) != null) {
+                coalescedCounter.increment();
+            }
+        }
+    }
+
+    /**
+     * 推送新订阅的当前状态与周期内合并后的状态变更，每个连接只flush一次
+     */
+    @Scheduled(fixedDelayString = "${presence.notify-interval-millis:1000}")
+    public void flush() {
+        Set<Channel> touched = new HashSet<>();
+        try {
+            flushSnapshots(touched);
+        } catch (Exception e) {
+            log.error("在线状态快照推送失败", e);
+        }
+        flushChanges(touched);
+
+        for (Channel channel : touched) {
+            channel.flush();
+        }
+    }
+
+    private void flushSnapshots(Set<Channel> touched) {
+        if (snapshots.isEmpty()) {
+            return;
+        }
+        List<Snapshot> batch = new ArrayList<>();
+        Set<Long> targets = new HashSet<>();
+        Snapshot snapshot;
+        while ((snapshot = snapshots.poll()) != null) {
+            if (snapshot.channel.isActive()) {
+                batch.add(snapshot);
+                targets.addAll(snapshot.targets);
+            }
+        }
+        if (targets.isEmpty()) {
+            return;
+        }
+
+        Set<Long> online = sessionRegistry.lookupAll(targets).keySet();
+        for (Snapshot item : batch) {
+            for (Long target : item.targets) {
+                item.channel.write(toFrame(target, online.contains(target)));
+                notifyCounter.increment();
+            }
+            touched.add(item.channel);
+        }
+    }
+
+    private void flushChanges(Set<Channel> touched) {
+        for (Long userId : pending.keySet()) {
+            Boolean online = pending.remove(userId);
+            if (online == null) {
+                continue;
+            }
+            if (Objects.equals(notified.put(userId, online), online)) {
+                coalescedCounter.increment();
+                continue;
+            }
+
+            Set<Channel> channels = subscribers.get(userId);
+            if (channels == null) {
+                continue;
+            }
+            ChatFrame frame = toFrame(userId, online);
+            for (Channel channel : channels) {
+                if (channel.isActive()) {
+                    channel.write(frame);
+                    touched.add(channel);
+                    notifyCounter.increment();
+                }
+            }
+        }
+    }
+
+    private void unsubscribeAll(Channel channel) {
+        Set<Long> targets = channel.attr(ChannelAttributes.PRESENCE_SUBSCRIPTIONS).getAndSet(null);
+        if (targets != null) {
+            for (Long target : targets) {
+                removeSubscriber(target, channel);
+            }
+        }
+    }
+
+    private void removeSubscriber(Long target, Channel channel) {
+        subscribers.computeIfPresent(target, (k, channels) -> {
+            channels.remove(channel);
+            if (channels.isEmpty()) {
+                notified.remove(target);
+                return null;
+            }
+            return channels;
+        });
+    }
+
+    private static ChatFrame toFrame(Long userId, boolean online) {
+        return ChatFrame.builder()
+                .type(FrameType.PRESENCE)
+                .userId(userId)
+                .body(online ? ONLINE : OFFLINE)
+                .build();
+    }
+
+    private record Snapshot(Channel channel, Set<Long> targets) {
+    }
+}
@@ -0,0 +1,52 @@
+package com.distri.chat.biz.presence.infra.mq;
+
+import com.distri.chat.biz.presence.domain.service.PresenceSubscriptionService;
+import com.distri.chat.biz.user.domain.event.UserEvent;
+import com.distri.chat.config.KafkaConfig;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 在线状态事件消费者
+ * 每个节点使用独立的消费组，收到全部上线/下线事件后只保留本节点有订阅者的部分；
+ * 状态只关心最新值，新节点从最新位置开始消费
+ */
+@Slf4j
+@Component
+public class PresenceEventConsumer {
+
+    private final PresenceSubscriptionService presenceSubscriptionService;
+    private final ObjectMapper objectMapper;
+
+    public PresenceEventConsumer(PresenceSubscriptionService presenceSubscriptionService, ObjectMapper objectMapper) {
+        this.presenceSubscriptionService = presenceSubscriptionService;
+        this.objectMapper = objectMapper;
+    }
+
+    @KafkaListener(topics = KafkaConfig.USER_EVENT_TOPIC,
+            groupId = "#{'distri-chat-presence-' + @gatewayProperties.nodeId}",
+            containerFactory = KafkaConfig.BATCH_LISTENER_FACTORY,
+            concurrency = "1",
+            properties = "auto.offset.reset=latest")
+    public void onEvents(List<ConsumerRecord<String, String>> records) {
+        List<UserEvent> events = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, String> record : records) {
+            try {
+                UserEvent event = objectMapper.readValue(record.value(), UserEvent.class);
+                if (UserEvent.USER_ONLINE.equals(event.getType()) || UserEvent.USER_OFFLINE.equals(event.getType())) {
+                    events.add(event);
+                }
+            } catch (JsonProcessingException e) {
+                log.error("用户事件反序列化失败，跳过：offset={}", record.offset(), e);
+            }
+        }
+        presenceSubscriptionService.onChanges(events);
+    }
+}
@@ -0,0 +1,47 @@
+package com.distri.chat.biz.search.api;
+
+import com.distri.chat.biz.message.api.response.MessagePageResponse;
+import com.distri.chat.biz.message.api.response.MessageView;
+import com.distri.chat.biz.message.domain.model.ChatMessage;
+import com.distri.chat.biz.search.domain.service.MessageSearchService;
+import com.distri.chat.common.auth.AuthInterceptor;
+import com.distri.chat.common.dto.Result;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 搜索控制器
+ * 消息全文搜索，游标为message_id
+ */
+@RestController
+@RequestMapping("/api/search")
+@Tag(name = "搜索", description = "消息全文搜索接口")
+public class SearchController {
+
+    private final MessageSearchService messageSearchService;
+
+    public SearchController(MessageSearchService messageSearchService) {
+        this.messageSearchService = messageSearchService;
+    }
+
+    @Operation(summary = "搜索消息", description = "在自己的单聊与所在群中搜索，按时间倒序；传conversationId只搜该会话，"
+            + "从before（不含）向前翻页。新消息约1秒后可被搜到")
+    @GetMapping("/messages")
+    public Result<MessagePageResponse> messages(@RequestAttribute(AuthInterceptor.USER_ID) Long userId,
+                                                @RequestParam String q,
+                                                @RequestParam(required = false) Long conversationId,
+                                                @RequestParam(required = false) Long before,
+                                                @RequestParam(defaultValue = "20") int limit) {
+        List<ChatMessage> messages = messageSearchService.search(userId, q, conversationId, before, limit);
+        boolean hasMore = messages.size() == limit;
+        String nextCursor = hasMore ? String.valueOf(messages.get(messages.size() - 1).getMessageId()) : null;
+        return Result.success(new MessagePageResponse(messages.stream().map(MessageView::from).toList(), nextCursor, hasMore));
+    }
+}
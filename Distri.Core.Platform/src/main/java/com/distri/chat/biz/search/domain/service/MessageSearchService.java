@@ -0,0 +1,80 @@
+package com.distri.chat.biz.search.domain.service;
+
+import com.distri.chat.biz.group.infra.repo.GroupMemberMapper;
+import com.distri.chat.biz.message.domain.model.ChatMessage;
+import com.distri.chat.biz.message.domain.service.ConversationAccess;
+import com.distri.chat.biz.search.infra.index.MessageIndex;
+import com.distri.chat.common.exception.BusinessException;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 消息搜索
+ * 只在本节点的本地索引中查询，不访问消息表；用户可见范围为其全部单聊与当前所在的群，
+ * 所在群列表按 search.user-groups-ttl-seconds 本地缓存，入群/退群在该时间内生效
+ */
+@Service
+public class MessageSearchService {
+
+    public static final int MAX_PAGE_SIZE = 50;
+    private static final int MAX_KEYWORDS_LENGTH = 100;
+
+    private final MessageIndex messageIndex;
+    private final ConversationAccess conversationAccess;
+    private final LoadingCache<Long, Set<Long>> userGroups;
+    private final Timer searchTimer;
+
+    public MessageSearchService(MessageIndex messageIndex,
+                                ConversationAccess conversationAccess,
+                                GroupMemberMapper groupMemberMapper,
+                                MeterRegistry meterRegistry,
+                                @Value("${search.user-groups-ttl-seconds:30}") long userGroupsTtlSeconds) {
+        this.messageIndex = messageIndex;
+        this.conversationAccess = conversationAccess;
+        this.userGroups = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(Duration.ofSeconds(userGroupsTtlSeconds))
+                .build(userId -> Set.copyOf(groupMemberMapper.findGroupIds(userId)));
+
+        this.searchTimer = Timer.builder("search.query")
+                .description("消息搜索单页耗时")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 按时间倒序搜索用户可见的消息
+     *
+     * @param conversationId 只搜该会话，为null时搜全部可见会话
+     * @param before         上一页最后一条的messageId，首页为null
+     */
+    public List<ChatMessage> search(Long userId, String keywords, Long conversationId, Long before, int limit) {
+        if (StringUtils.isBlank(keywords) || keywords.length() > MAX_KEYWORDS_LENGTH) {
+            throw BusinessException.badRequest("搜索词不能为空且不能超过" + MAX_KEYWORDS_LENGTH + "字");
+        }
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw BusinessException.badRequest("limit取值范围为1~" + MAX_PAGE_SIZE);
+        }
+
+        long start = System.nanoTime();
+        try {
+            if (conversationId != null) {
+                conversationAccess.checkParticipant(userId, conversationId);
+                return messageIndex.search(keywords, null, List.of(conversationId), before, limit);
+            }
+            return messageIndex.search(keywords, userId, userGroups.get(userId), before, limit);
+        } finally {
+            searchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package com.distri.chat.biz.search.infra.index;
+
+import com.distri.chat.biz.message.domain.model.ChatMessage;
+import com.distri.chat.biz.message.domain.model.ConversationIds;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.cn.smart.SmartChineseAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.QueryBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 本节点的消息全文索引（Lucene，本地磁盘）
+ * <p>
+ * 正文用smartcn分词；索引按message_id倒序预排序，按时间倒序取一页时可提前终止，不必收集全部命中。
+ * 写入后每 search.refresh-interval-millis 刷新一次搜索视图（近实时），每 search.commit-interval-seconds
+ * 提交一次，提交时把各分区已索引到的Kafka位移一并写入提交数据；进程崩溃后索引回到上次提交，
+ * 消费端从提交数据中的位移继续，不丢也不重复。
+ * <p>
+ * 可见范围：单聊消息按双方用户ID（participant）过滤，群消息按会话ID过滤。
+ */
+@Slf4j
+@Component
+public class MessageIndex {
+
+    static final String MESSAGE_ID = "message_id";
+    static final String CONVERSATION_ID = "conversation_id";
+    static final String PARTICIPANT = "participant";
+    static final String SENDER_ID = "sender_id";
+    static final String SEND_TIME = "send_time";
+    static final String CONTENT = "content";
+
+    private static final String OFFSET_PREFIX = "offset.";
+    private static final Sort NEWEST_FIRST = new Sort(new SortField(MESSAGE_ID, SortField.Type.LONG, true));
+
+    private final Path indexDir;
+    private final double ramBufferMb;
+    private final long refreshIntervalMillis;
+    private final long commitIntervalSeconds;
+
+    private final Analyzer analyzer = new SmartChineseAnalyzer();
+    private final QueryBuilder queryBuilder = new QueryBuilder(analyzer);
+    // 已加入索引的各分区最大位移
+    private final Map<Integer, Long> indexedOffsets = new ConcurrentHashMap<>();
+    // 写入持读锁可并发，提交持写锁，保证提交数据中的位移与提交的文档一致
+    private final ReadWriteLock commitLock = new ReentrantReadWriteLock();
+    private final ScheduledExecutorService maintenanceExecutor;
+
+    private final Counter indexedCounter;
+    private final Timer indexTimer;
+    private final Timer commitTimer;
+    private final MeterRegistry meterRegistry;
+
+    private FSDirectory directory;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+
+    public MessageIndex(MeterRegistry meterRegistry,
+                        @Value("${search.index-dir:data/search-index}") String indexDir,
+                        @Value("${search.ram-buffer-mb:64}") double ramBufferMb,
+                        @Value("${search.refresh-interval-millis:1000}") long refreshIntervalMillis,
+                        @Value("${search.commit-interval-seconds:60}") long commitIntervalSeconds) {
+        this.meterRegistry = meterRegistry;
+        this.indexDir = Path.of(indexDir);
+        this.ramBufferMb = ramBufferMb;
+        this.refreshIntervalMillis = refreshIntervalMillis;
+        this.commitIntervalSeconds = commitIntervalSeconds;
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("search-index-");
+        threadFactory.setDaemon(true);
+        this.maintenanceExecutor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+
+        this.indexedCounter = Counter.builder("search.index.docs")
+                .description("写入全文索引的消息数")
+                .register(meterRegistry);
+        this.indexTimer = Timer.builder("search.index.batch")
+                .description("一批消息写入索引的耗时")
+                .register(meterRegistry);
+        this.commitTimer = Timer.builder("search.index.commit")
+                .description("索引提交耗时")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        this.directory = FSDirectory.open(indexDir);
+        IndexWriterConfig config = new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND)
+                .setRAMBufferSizeMB(ramBufferMb)
+                .setIndexSort(NEWEST_FIRST)
+                .setCommitOnClose(false);
+        this.writer = new IndexWriter(directory, config);
+        this.searcherManager = new SearcherManager(writer, null);
+        Map<Integer, Long> committedOffsets = readOffsets(writer);
+        indexedOffsets.putAll(committedOffsets);
+
+        Gauge.builder("search.index.size", writer, w -> w.getDocStats().numDocs)
+                .description("索引中的消息数")
+                .register(meterRegistry);
+        maintenanceExecutor.scheduleWithFixedDelay(this::refresh,
+                refreshIntervalMillis, refreshIntervalMillis, TimeUnit.MILLISECONDS);
+        maintenanceExecutor.scheduleWithFixedDelay(this::commitQuietly,
+                commitIntervalSeconds, commitIntervalSeconds, TimeUnit.SECONDS);
+        log.info("消息索引已打开：dir={}, 文档数={}, 已提交位移={}",
+                indexDir.toAbsolutePath(), writer.getDocStats().numDocs, committedOffsets);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        maintenanceExecutor.shutdown();
+        try {
+            maintenanceExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        commit();
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    /**
+     * 各分区已写入索引的最大位移（启动时即上次提交中的位移），消费端分配到分区时据此定位
+     */
+    public Map<Integer, Long> indexedOffsets() {
+        return Map.copyOf(indexedOffsets);
+    }
+
+    /**
+     * 写入一批消息并记录其所在分区的位移，写入后至多一个刷新周期可被搜到
+     *
+     * @param offsets 分区 -> 本批中该分区的最大位移
+     */
+    public void index(List<ChatMessage> messages, Map<Integer, Long> offsets) {
+        long start = System.nanoTime();
+        List<Document> documents = new ArrayList<>(messages.size());
+        for (ChatMessage message : messages) {
+            documents.add(toDocument(message));
+        }
+        commitLock.readLock().lock();
+        try {
+            writer.addDocuments(documents);
+            offsets.forEach((partition, offset) -> indexedOffsets.merge(partition, offset, Math::max));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            commitLock.readLock().unlock();
+        }
+        indexedCounter.increment(documents.size());
+        indexTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 按时间倒序搜索
+     *
+     * @param keywords        搜索词，按正文同样的规则分词，各词都须命中
+     * @param participantId   可见的单聊参与者，为null时不包含单聊
+     * @param conversationIds 可见的会话（群）
+     * @param before          只取该消息ID之前（不含），为null从最新开始
+     */
+    public List<ChatMessage> search(String keywords, Long participantId, Collection<Long> conversationIds,
+                                    Long before, int limit) {
+        Query text = queryBuilder.createBooleanQuery(CONTENT, keywords, BooleanClause.Occur.MUST);
+        if (text == null || (participantId == null && conversationIds.isEmpty())) {
+            return List.of();
+        }
+
+        BooleanQuery.Builder visible = new BooleanQuery.Builder();
+        if (participantId != null) {
+            visible.add(LongPoint.newExactQuery(PARTICIPANT, participantId), BooleanClause.Occur.SHOULD);
+        }
+        if (!conversationIds.isEmpty()) {
+            visible.add(LongPoint.newSetQuery(CONVERSATION_ID, conversationIds), BooleanClause.Occur.SHOULD);
+        }
+        BooleanQuery.Builder query = new BooleanQuery.Builder()
+                .add(text, BooleanClause.Occur.MUST)
+                .add(visible.build(), BooleanClause.Occur.FILTER);
+        if (before != null) {
+            query.add(LongPoint.newRangeQuery(MESSAGE_ID, Long.MIN_VALUE, before - 1), BooleanClause.Occur.FILTER);
+        }
+
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                TopFieldDocs top = searcher.search(query.build(), limit, NEWEST_FIRST, false);
+                StoredFields storedFields = searcher.storedFields();
+                List<ChatMessage> messages = new ArrayList<>(top.scoreDocs.length);
+                for (ScoreDoc scoreDoc : top.scoreDocs) {
+                    messages.add(toMessage(storedFields.document(scoreDoc.doc)));
+                }
+                return messages;
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 刷新搜索视图，使已写入的消息可被搜到
+     */
+    public void refresh() {
+        try {
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            log.error("索引刷新失败", e);
+        }
+    }
+
+    /**
+     * 提交索引，连同各分区已索引到的位移
+     */
+    public void commit() throws IOException {
+        long start = System.nanoTime();
+        commitLock.writeLock().lock();
+        try {
+            Map<String, String> commitData = new HashMap<>();
+            indexedOffsets.forEach((partition, offset) -> commitData.put(OFFSET_PREFIX + partition, String.valueOf(offset)));
+            writer.setLiveCommitData(commitData.entrySet());
+            writer.commit();
+        } finally {
+            commitLock.writeLock().unlock();
+        }
+        commitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private void commitQuietly() {
+        try {
+            commit();
+        } catch (Exception e) {
+            log.error("索引提交失败", e);
+        }
+    }
+
+    private static Map<Integer, Long> readOffsets(IndexWriter writer) {
+        Map<Integer, Long> offsets = new HashMap<>();
+        Iterable<Map.Entry<String, String>> commitData = writer.getLiveCommitData();
+        if (commitData != null) {
+            for (Map.Entry<String, String> entry : commitData) {
+                if (entry.getKey().startsWith(OFFSET_PREFIX)) {
+                    offsets.put(Integer.parseInt(entry.getKey().substring(OFFSET_PREFIX.length())),
+                            Long.parseLong(entry.getValue()));
+                }
+            }
+        }
+        return offsets;
+    }
+
+    private static Document toDocument(ChatMessage message) {
+        long messageId = message.getMessageId();
+        long conversationId = message.getConversationId();
+        Document document = new Document();
+        document.add(new LongPoint(MESSAGE_ID, messageId));
+        document.add(new NumericDocValuesField(MESSAGE_ID, messageId));
+        document.add(new StoredField(MESSAGE_ID, messageId));
+        document.add(new LongPoint(CONVERSATION_ID, conversationId));
+        document.add(new StoredField(CONVERSATION_ID, conversationId));
+        if (ConversationIds.isSingle(conversationId)) {
+            long senderId = message.getSenderId();
+            document.add(new LongPoint(PARTICIPANT, senderId));
+            document.add(new LongPoint(PARTICIPANT, ConversationIds.peerOf(conversationId, senderId)));
+        }
+        document.add(new StoredField(SENDER_ID, message.getSenderId()));
+        document.add(new StoredField(SEND_TIME, message.getSendTime() == null ? 0 : message.getSendTime()));
+        document.add(new TextField(CONTENT, message.getContent() == null ? "" : message.getContent(), Field.Store.YES));
+        return document;
+    }
+
+    private static ChatMessage toMessage(Document document) {
+        return ChatMessage.builder()
+                .messageId(document.getField(MESSAGE_ID).numericValue().longValue())
+                .conversationId(document.getField(CONVERSATION_ID).numericValue().longValue())
+                .senderId(document.getField(SENDER_ID).numericValue().longValue())
+                .sendTime(document.getField(SEND_TIME).numericValue().longValue())
+                .content(document.get(CONTENT))
+                .build();
+    }
+}
@@ -0,0 +1,67 @@
+package com.distri.chat.biz.search.infra.mq;
+
+import com.distri.chat.biz.message.domain.model.ChatMessage;
+import com.distri.chat.biz.search.infra.index.MessageIndex;
+import com.distri.chat.config.KafkaConfig;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 消息索引消费者
+ * 每个节点独立的消费组，各自维护完整的本地索引；分配到分区时按索引提交数据中的位移定位，
+ * 本地索引没有该分区时从头消费（受主题保留期限制）
+ */
+@Slf4j
+@Component
+public class MessageIndexConsumer implements ConsumerSeekAware {
+
+    private final MessageIndex messageIndex;
+    private final ObjectMapper objectMapper;
+
+    public MessageIndexConsumer(MessageIndex messageIndex, ObjectMapper objectMapper) {
+        this.messageIndex = messageIndex;
+        this.objectMapper = objectMapper;
+    }
+
+    @KafkaListener(topics = KafkaConfig.MESSAGE_TOPIC,
+            groupId = "#{'distri-chat-search-' + @gatewayProperties.nodeId}",
+            containerFactory = KafkaConfig.BATCH_LISTENER_FACTORY,
+            properties = "auto.offset.reset=earliest")
+    public void onMessages(List<ConsumerRecord<String, String>> records) {
+        List<ChatMessage> messages = new ArrayList<>(records.size());
+        Map<Integer, Long> offsets = new HashMap<>();
+        for (ConsumerRecord<String, String> record : records) {
+            offsets.merge(record.partition(), record.offset(), Math::max);
+            try {
+                messages.add(objectMapper.readValue(record.value(), ChatMessage.class));
+            } catch (JsonProcessingException e) {
+                log.error("消息反序列化失败，不建索引：partition={}, offset={}", record.partition(), record.offset(), e);
+            }
+        }
+        messageIndex.index(messages, offsets);
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        Map<Integer, Long> indexed = messageIndex.indexedOffsets();
+        for (TopicPartition partition : assignments.keySet()) {
+            Long offset = indexed.get(partition.partition());
+            if (offset == null) {
+                callback.seekToBeginning(partition.topic(), partition.partition());
+            } else {
+                callback.seek(partition.topic(), partition.partition(), offset + 1);
+            }
+        }
+    }
+}
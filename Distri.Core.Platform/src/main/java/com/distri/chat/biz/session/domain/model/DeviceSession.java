@@ -0,0 +1,41 @@
+package com.distri.chat.biz.session.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 设备会话：某个设备当前连接在哪个网关节点
+ * Redis中以 "nodeId|connectedAt" 存储在用户会话Hash的clientId字段下
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeviceSession {
+
+    private String clientId;
+
+    private String nodeId;
+
+    // 连接建立时间（毫秒）
+    private long connectedAt;
+
+    public String encodeValue() {
+        return nodeId + "|" + connectedAt;
+    }
+
+    /**
+     * 解析Redis中的字段值，格式不合法时返回null
+     */
+    public static DeviceSession decode(String clientId, String value) {
+        int separator = value == null ? -1 : value.lastIndexOf('|');
+        if (separator <= 0) {
+            return null;
+        }
+        try {
+            return new DeviceSession(clientId, value.substring(0, separator), Long.parseLong(value.substring(separator + 1)));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
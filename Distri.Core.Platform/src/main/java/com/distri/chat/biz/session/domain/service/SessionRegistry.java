@@ -0,0 +1,511 @@
+package com.distri.chat.biz.session.domain.service;
+
+import com.distri.chat.biz.session.domain.model.DeviceSession;
+import com.distri.chat.biz.user.domain.event.UserEvent;
+import com.distri.chat.biz.user.infra.mq.UserEventPublisher;
+import com.distri.chat.gateway.GatewayProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 分布式会话注册表
+ * <p>
+ * Redis中每个用户一个Hash：distri-chat:session:{userId}，字段为clientId，值为 "nodeId|connectedAt"。
+ * 连接/断开与心跳续期都不在调用线程（Netty EventLoop）上访问Redis，
+ * 而是入队后由定时任务批量以pipeline写入，10万会话的续期只需少量往返。
+ * lookup带短TTL的本地近缓存，供消息路由使用。
+ * <p>
+ * 在线状态按用户聚合：连接/断开脚本原子地返回变更前后该用户是否还有在线设备，
+ * 同一批内按用户合并后只有真正的上线/下线才发布用户事件，多端登录、换设备不产生事件。
+ * 节点宕机后残留的会话由路由发现该节点无订阅者时清理（见 evictNode），用户因此没有在线设备时发布下线事件；
+ * 兜底由TTL过期清理：distri-chat:session:expiry 按用户记录会话键的过期时间，各节点定时扫描已到期的用户（见 sweepExpired），
+ * 键确已过期时原子地移出索引，只有移出成功的节点发布下线事件。
+ */
+@Slf4j
+@Service
+public class SessionRegistry {
+
+    private static final String SESSION_KEY_PREFIX = "distri-chat:session:";
+    // 有在线设备的用户 -> 会话键的过期时间（毫秒）；用户最后一台设备注销或被清理时移出
+    private static final byte[] EXPIRY_INDEX_KEY = bytes("distri-chat:session:expiry");
+
+    private static final int MAX_OPS_PER_FLUSH = 5000;
+
+    // 停机时Redis不可用的情况下最多尝试的次数，避免阻塞停机
+    private static final int SHUTDOWN_FLUSH_ATTEMPTS = 3;
+
+    // 返回值两位：bit1为变更前用户是否有在线设备，bit0为变更后是否有在线设备
+    private static final byte[] REGISTER_SCRIPT = ("local before = redis.call('HLEN', KEYS[1]) "
+            + "redis.call('HSET', KEYS[1], ARGV[1], ARGV[2]) redis.call('EXPIRE', KEYS[1], ARGV[3]) "
+            + "redis.call('ZADD', KEYS[2], ARGV[5], ARGV[4]) "
+            + "return (before > 0 and 2 or 0) + 1").getBytes(StandardCharsets.UTF_8);
+
+    // 仅当字段仍指向本节点时才删除，避免误删设备在其他节点上的新会话；返回值同上
+    private static final byte[] UNREGISTER_SCRIPT = ("local before = redis.call('HLEN', KEYS[1]) "
+            + "local v = redis.call('HGET', KEYS[1], ARGV[1]) "
+            + "if v and string.sub(v, 1, string.len(ARGV[2])) == ARGV[2] then redis.call('HDEL', KEYS[1], ARGV[1]) end "
+            + "local after = redis.call('HLEN', KEYS[1]) "
+            + "if after == 0 then redis.call('ZREM', KEYS[2], ARGV[3]) end "
+            + "return (before > 0 and 2 or 0) + (after > 0 and 1 or 0)").getBytes(StandardCharsets.UTF_8);
+
+    // 删除指向指定节点的全部字段，返回 删除数 * 2 + (删除后用户已无在线设备 ? 1 : 0)
+    private static final byte[] EVICT_NODE_SCRIPT = ("local n = 0 local fields = redis.call('HGETALL', KEYS[1]) "
+            + "for i = 1, #fields, 2 do "
+            + "if string.sub(fields[i + 1], 1, string.len(ARGV[1])) == ARGV[1] then redis.call('HDEL', KEYS[1], fields[i]) n = n + 1 end "
+            + "end "
+            + "if n > 0 and redis.call('HLEN', KEYS[1]) == 0 then redis.call('ZREM', KEYS[2], ARGV[2]) return n * 2 + 1 end "
+            + "return n * 2").getBytes(StandardCharsets.UTF_8);
+
+    // 续期：键仍存在时才推进索引中的过期时间，避免为已下线的用户留下索引项
+    private static final byte[] TOUCH_SCRIPT = ("if redis.call('EXPIRE', KEYS[1], ARGV[1]) == 1 then "
+            + "redis.call('ZADD', KEYS[2], ARGV[3], ARGV[2]) end return 0").getBytes(StandardCharsets.UTF_8);
+
+    // 到期扫描：键已过期则移出索引并返回1（由本节点发布下线）；键仍存在（其他节点刚续期）则按剩余TTL修正索引，返回0
+    private static final byte[] SWEEP_SCRIPT = ("local ttl = redis.call('PTTL', KEYS[1]) "
+            + "if ttl == -2 then return redis.call('ZREM', KEYS[2], ARGV[1]) end "
+            + "if ttl < 0 then ttl = tonumber(ARGV[3]) end "
+            + "redis.call('ZADD', KEYS[2], tonumber(ARGV[2]) + ttl, ARGV[1]) return 0").getBytes(StandardCharsets.UTF_8);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final UserEventPublisher userEventPublisher;
+    private final String nodeId;
+    private final long sessionTtlSeconds;
+
+    private final ConcurrentLinkedQueue<SessionOp> pendingOps = new ConcurrentLinkedQueue<>();
+    private final Set<Long> touchedUsers = ConcurrentHashMap.newKeySet();
+    private final Cache<Long, Map<String, DeviceSession>> nearCache;
+
+    // 写入失败的批次，下次刷新时先于pendingOps中的新变更原样重试；至多一批，新变更排在其后，顺序不变
+    private List<SessionOp> failedBatch;
+    // 串行化定时刷新与停机刷新，保护failedBatch；刷新期间要访问Redis与Kafka，
+    // 用ReentrantLock而不是synchronized，虚拟线程模式下阻塞时不占住载体线程
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final Counter onlineCounter;
+    private final Counter offlineCounter;
+    private final Counter suppressedCounter;
+    private final Counter flushFailedCounter;
+
+    public SessionRegistry(RedisTemplate<String, Object> redisTemplate,
+                           UserEventPublisher userEventPublisher,
+                           GatewayProperties gatewayProperties,
+                           MeterRegistry meterRegistry,
+                           @Value("${session.ttl-seconds:180}") long sessionTtlSeconds,
+                           @Value("${session.near-cache.ttl-millis:2000}") long nearCacheTtlMillis,
+                           @Value("${session.near-cache.max-size:200000}") long nearCacheMaxSize) {
+        this.redisTemplate = redisTemplate;
+        this.userEventPublisher = userEventPublisher;
+        this.nodeId = gatewayProperties.getNodeId();
+        this.sessionTtlSeconds = sessionTtlSeconds;
+        this.nearCache = Caffeine.newBuilder()
+                .maximumSize(nearCacheMaxSize)
+                .expireAfterWrite(Duration.ofMillis(nearCacheTtlMillis))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, nearCache, "session.lookup");
+        Gauge.builder("session.pending.ops", pendingOps, ConcurrentLinkedQueue::size)
+                .description("待写入Redis的会话变更数")
+                .register(meterRegistry);
+        Gauge.builder("session.pending.touches", touchedUsers, Set::size)
+                .description("待续期的用户会话数")
+                .register(meterRegistry);
+        this.onlineCounter = Counter.builder("presence.change")
+                .tag("state", "online")
+                .description("发布的用户在线状态变更数")
+                .register(meterRegistry);
+        this.offlineCounter = Counter.builder("presence.change")
+                .tag("state", "offline")
+                .description("发布的用户在线状态变更数")
+                .register(meterRegistry);
+        this.suppressedCounter = Counter.builder("presence.suppressed")
+                .description("未改变用户在线状态、不发布事件的设备连接/断开数")
+                .register(meterRegistry);
+        this.flushFailedCounter = Counter.builder("session.flush.failed")
+                .description("写入Redis失败、等待重试的会话变更批次数")
+                .register(meterRegistry);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 登记设备连接到本节点（异步）
+     */
+    public void register(Long userId, String clientId) {
+        pendingOps.offer(new SessionOp(true, userId, clientId, System.currentTimeMillis()));
+        nearCache.invalidate(userId);
+    }
+
+    /**
+     * 注销设备在本节点的连接（异步）
+     */
+    public void unregister(Long userId, String clientId) {
+        pendingOps.offer(new SessionOp(false, userId, clientId, System.currentTimeMillis()));
+        nearCache.invalidate(userId);
+    }
+
+    /**
+     * 心跳续期：只做标记，由定时任务批量刷新TTL
+     */
+    public void touch(Long userId) {
+        touchedUsers.add(userId);
+    }
+
+    /**
+     * 查询用户所有在线设备及其所在节点
+     *
+     * @return clientId到会话的映射，不在线时为空
+     */
+    public Map<String, DeviceSession> lookup(Long userId) {
+        return nearCache.get(userId, this::loadSessions);
+    }
+
+    /**
+     * 批量查询多个用户的在线设备，近缓存未命中的用户以一次pipeline读取
+     *
+     * @return 仅包含在线用户
+     */
+    public Map<Long, Map<String, DeviceSession>> lookupAll(Collection<Long> userIds) {
+        Map<Long, Map<String, DeviceSession>> all = nearCache.getAll(userIds, this::loadSessionsBatch);
+        Map<Long, Map<String, DeviceSession>> online = new HashMap<>();
+        for (Map.Entry<Long, Map<String, DeviceSession>> entry : all.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                online.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return online;
+    }
+
+    /**
+     * 清理已下线节点上的残留会话：删除这些用户指向该节点的设备会话，已重连到其他节点的设备不受影响
+     * 以pipeline执行，不在EventLoop上调用；因此没有在线设备的用户发布下线事件
+     *
+     * @return 删除的设备会话数
+     */
+    public long evictNode(String deadNodeId, Collection<Long> userIds) {
+        if (nodeId.equals(deadNodeId) || userIds.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = new ArrayList<>(userIds);
+        byte[] prefix = bytes(deadNodeId + "|");
+        long evicted = 0;
+        List<Long> offline = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += MAX_OPS_PER_FLUSH) {
+            List<Long> chunk = ids.subList(from, Math.min(from + MAX_OPS_PER_FLUSH, ids.size()));
+            List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (Long userId : chunk) {
+                    connection.scriptingCommands().eval(EVICT_NODE_SCRIPT, ReturnType.INTEGER, 2,
+                            key(userId), EXPIRY_INDEX_KEY, prefix, bytes(String.valueOf(userId)));
+                }
+                return null;
+            });
+            for (int i = 0; i < results.size(); i++) {
+                if (results.get(i) instanceof Number number) {
+                    evicted += number.longValue() >> 1;
+                    if ((number.longValue() & 1) != 0) {
+                        offline.add(chunk.get(i));
+                    }
+                }
+            }
+        }
+        nearCache.invalidateAll(ids);
+        publishOffline(offline, deadNodeId);
+        return evicted;
+    }
+
+    /**
+     * 兜底清理TTL过期的会话：节点宕机且没有路由触发evictNode时，其用户的会话键因不再续期而过期，
+     * 在这里补发下线事件。多个节点同时扫描时由脚本原子地移出索引，每个用户只发布一次
+     */
+    @Scheduled(fixedDelayString = "${session.expiry-sweep-interval-millis:30000}")
+    public void sweepExpired() {
+        try {
+            List<Long> offline = new ArrayList<>();
+            List<Long> due;
+            do {
+                long now = System.currentTimeMillis();
+                Set<byte[]> members = redisTemplate.execute((RedisCallback<Set<byte[]>>) connection ->
+                        connection.zSetCommands().zRangeByScore(EXPIRY_INDEX_KEY, 0, now, 0, MAX_OPS_PER_FLUSH));
+                due = new ArrayList<>(members == null ? 0 : members.size());
+                if (members != null) {
+                    for (byte[] member : members) {
+                        due.add(Long.valueOf(new String(member, StandardCharsets.UTF_8)));
+                    }
+                }
+                if (due.isEmpty()) {
+                    break;
+                }
+                List<Long> batch = due;
+                byte[] nowArg = bytes(String.valueOf(now));
+                byte[] ttlArg = bytes(String.valueOf(sessionTtlSeconds * 1000));
+                List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    for (Long userId : batch) {
+                        connection.scriptingCommands().eval(SWEEP_SCRIPT, ReturnType.INTEGER, 2,
+                                key(userId), EXPIRY_INDEX_KEY, bytes(String.valueOf(userId)), nowArg, ttlArg);
+                    }
+                    return null;
+                });
+                for (int i = 0; i < results.size(); i++) {
+                    if (results.get(i) instanceof Number number && number.longValue() == 1) {
+                        offline.add(batch.get(i));
+                    }
+                }
+            } while (due.size() == MAX_OPS_PER_FLUSH);
+            nearCache.invalidateAll(offline);
+            publishOffline(offline, null);
+        } catch (Exception e) {
+            log.error("过期会话扫描失败", e);
+        }
+    }
+
+    private void publishOffline(List<Long> userIds, String sessionNodeId) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<UserEvent> events = new ArrayList<>(userIds.size());
+        for (Long userId : userIds) {
+            events.add(UserEvent.builder()
+                    .type(UserEvent.USER_OFFLINE)
+                    .userId(userId)
+                    .nodeId(sessionNodeId)
+                    .timestamp(now)
+                    .build());
+        }
+        offlineCounter.increment(events.size());
+        userEventPublisher.publishAll(events);
+    }
+
+    private Map<String, DeviceSession> loadSessions(Long userId) {
+        return decodeSessions(redisTemplate.opsForHash().entries(SESSION_KEY_PREFIX + userId));
+    }
+
+    private Map<Long, Map<String, DeviceSession>> loadSessionsBatch(Set<? extends Long> userIds) {
+        List<Long> ids = new ArrayList<>(userIds);
+        List<Object> results = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += MAX_OPS_PER_FLUSH) {
+            List<Long> chunk = ids.subList(from, Math.min(from + MAX_OPS_PER_FLUSH, ids.size()));
+            results.addAll(redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (Long userId : chunk) {
+                    connection.hashCommands().hGetAll(key(userId));
+                }
+                return null;
+            }));
+        }
+
+        Map<Long, Map<String, DeviceSession>> sessions = new HashMap<>(ids.size() * 2);
+        for (int i = 0; i < ids.size(); i++) {
+            @SuppressWarnings("unchecked")
+            Map<Object, Object> entries = (Map<Object, Object>) results.get(i);
+            sessions.put(ids.get(i), decodeSessions(entries));
+        }
+        return sessions;
+    }
+
+    private static Map<String, DeviceSession> decodeSessions(Map<Object, Object> entries) {
+        if (entries == null || entries.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, DeviceSession> sessions = new HashMap<>(entries.size() * 2);
+        for (Map.Entry<Object, Object> entry : entries.entrySet()) {
+            String clientId = entry.getKey().toString();
+            DeviceSession session = DeviceSession.decode(clientId, String.valueOf(entry.getValue()));
+            if (session != null) {
+                sessions.put(clientId, session);
+            }
+        }
+        return sessions;
+    }
+
+    /**
+     * 批量写入连接/断开变更
+     * 写入失败时保留该批次，下次先重试它再取新变更，Redis短暂不可用不会丢失连接/断开记录
+     */
+    @Scheduled(fixedDelayString = "${session.flush-interval-millis:50}")
+    public void flushOps() {
+        flushLock.lock();
+        try {
+            flushBatch();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushBatch() {
+        List<SessionOp> batch = failedBatch;
+        if (batch == null) {
+            if (pendingOps.isEmpty()) {
+                return;
+            }
+            batch = new ArrayList<>(Math.min(pendingOps.size(), MAX_OPS_PER_FLUSH));
+            SessionOp op;
+            while (batch.size() < MAX_OPS_PER_FLUSH && (op = pendingOps.poll()) != null) {
+                batch.add(op);
+            }
+        }
+
+        List<SessionOp> ops = batch;
+        List<Object> results;
+        try {
+            results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (SessionOp item : ops) {
+                    writeOp(connection, item);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            failedBatch = ops;
+            flushFailedCounter.increment();
+            log.error("会话变更写入Redis失败，稍后重试，条数={}", ops.size(), e);
+            return;
+        }
+
+        failedBatch = null;
+        publishChanges(ops, results);
+    }
+
+    /**
+     * 同一批内按用户合并：取第一次变更前与最后一次变更后的状态比较，不同才发布
+     */
+    private void publishChanges(List<SessionOp> batch, List<Object> results) {
+        Map<Long, PresenceChange> changes = new LinkedHashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            SessionOp op = batch.get(i);
+            long flags = results.get(i) instanceof Number number ? number.longValue() : 0;
+            boolean wasOnline = (flags & 2) != 0;
+            boolean online = (flags & 1) != 0;
+            PresenceChange previous = changes.get(op.userId);
+            changes.put(op.userId, new PresenceChange(previous == null ? wasOnline : previous.wasOnline, online, op));
+        }
+
+        List<UserEvent> events = new ArrayList<>();
+        for (Map.Entry<Long, PresenceChange> entry : changes.entrySet()) {
+            PresenceChange change = entry.getValue();
+            if (change.wasOnline == change.online) {
+                continue;
+            }
+            (change.online ? onlineCounter : offlineCounter).increment();
+            events.add(UserEvent.builder()
+                    .type(change.online ? UserEvent.USER_ONLINE : UserEvent.USER_OFFLINE)
+                    .userId(entry.getKey())
+                    .clientId(change.lastOp.clientId)
+                    .nodeId(nodeId)
+                    .timestamp(change.lastOp.timestamp)
+                    .build());
+        }
+        suppressedCounter.increment(batch.size() - events.size());
+        if (!events.isEmpty()) {
+            userEventPublisher.publishAll(events);
+        }
+    }
+
+    /**
+     * 批量续期心跳用户的会话TTL
+     */
+    @Scheduled(fixedDelayString = "${session.refresh-interval-millis:10000}")
+    public void flushTouches() {
+        if (touchedUsers.isEmpty()) {
+            return;
+        }
+
+        List<Long> userIds = new ArrayList<>(touchedUsers.size());
+        Iterator<Long> iterator = touchedUsers.iterator();
+        while (iterator.hasNext()) {
+            userIds.add(iterator.next());
+            iterator.remove();
+        }
+
+        byte[] ttl = bytes(String.valueOf(sessionTtlSeconds));
+        byte[] expireAt = bytes(String.valueOf(System.currentTimeMillis() + sessionTtlSeconds * 1000));
+        try {
+            for (int from = 0; from < userIds.size(); from += MAX_OPS_PER_FLUSH) {
+                List<Long> chunk = userIds.subList(from, Math.min(from + MAX_OPS_PER_FLUSH, userIds.size()));
+                redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    for (Long userId : chunk) {
+                        connection.scriptingCommands().eval(TOUCH_SCRIPT, ReturnType.INTEGER, 2,
+                                key(userId), EXPIRY_INDEX_KEY, ttl, bytes(String.valueOf(userId)), expireAt);
+                    }
+                    return null;
+                });
+            }
+        } catch (Exception e) {
+            log.error("会话续期失败，条数={}", userIds.size(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushLock.lock();
+        try {
+            int failures = 0;
+            while ((failedBatch != null || !pendingOps.isEmpty()) && failures < SHUTDOWN_FLUSH_ATTEMPTS) {
+                flushBatch();
+                if (failedBatch != null) {
+                    failures++;
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void writeOp(RedisConnection connection, SessionOp op) {
+        byte[] key = key(op.userId);
+        byte[] field = bytes(op.clientId);
+        byte[] member = bytes(String.valueOf(op.userId));
+        if (op.connect) {
+            DeviceSession session = new DeviceSession(op.clientId, nodeId, op.timestamp);
+            connection.scriptingCommands().eval(REGISTER_SCRIPT, ReturnType.INTEGER, 2,
+                    key, EXPIRY_INDEX_KEY, field, bytes(session.encodeValue()), bytes(String.valueOf(sessionTtlSeconds)),
+                    member, bytes(String.valueOf(System.currentTimeMillis() + sessionTtlSeconds * 1000)));
+        } else {
+            connection.scriptingCommands().eval(UNREGISTER_SCRIPT, ReturnType.INTEGER, 2,
+                    key, EXPIRY_INDEX_KEY, field, bytes(nodeId + "|"), member);
+        }
+    }
+
+    private static byte[] key(Long userId) {
+        return bytes(SESSION_KEY_PREFIX + userId);
+    }
+
+    private static byte[] bytes(String value) {
+        return RedisSerializer.string().serialize(value);
+    }
+
+    private record SessionOp(boolean connect, Long userId, String clientId, long timestamp) {
+    }
+
+    private record PresenceChange(boolean wasOnline, boolean online, SessionOp lastOp) {
+    }
+}
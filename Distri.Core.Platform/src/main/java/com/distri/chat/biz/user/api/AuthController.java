@@ -1,26 +1,36 @@
 package com.distri.chat.biz.user.api;
 
+import com.distri.chat.biz.user.api.request.RefreshTokenRequest;
+import com.distri.chat.biz.user.api.request.RevokeTokenRequest;
 import com.distri.chat.biz.user.api.request.UserLoginRequest;
 import com.distri.chat.biz.user.api.request.UserRegisterRequest;
+import com.distri.chat.biz.user.api.response.TokenRefreshResponse;
 import com.distri.chat.biz.user.api.response.UserAuthResponse;
 import com.distri.chat.biz.user.domain.model.User;
 import com.distri.chat.biz.user.domain.service.UserAuthService;
+import com.distri.chat.biz.user.infra.cache.RefreshTokenStore;
+import com.distri.chat.common.auth.AuthInterceptor;
 import com.distri.chat.common.dto.Result;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * 认证控制器
- * 处理用户注册和登录
+ * 处理用户注册、登录、令牌续期与吊销
+ * 接口返回CompletableFuture，等待BCrypt期间释放Servlet线程
  */
 @RestController
 @RequestMapping("/api/auth")
-@Tag(name = "用户认证", description = "用户注册、登录接口")
+@Tag(name = "用户认证", description = "用户注册、登录、令牌续期、登出接口")
 public class AuthController {
 
     private final UserAuthService userAuthService;
@@ -31,39 +41,57 @@ public class AuthController {
 
     @Operation(summary = "用户注册", description = "通过手机号和密码注册")
     @PostMapping("/register")
-    public Result<UserAuthResponse> register(@Valid @RequestBody UserRegisterRequest req) {
+    public CompletableFuture<Result<UserAuthResponse>> register(@Valid @RequestBody UserRegisterRequest req) {
+        return userAuthService.register(req.getPhone(), req.getPassword())
+                .thenApply(user -> Result.success(buildAuthResponse(user)));
+    }
 
-        User user = userAuthService.register(req.getPhone(), req.getPassword());
+    @Operation(summary = "用户登录", description = "通过手机号和密码登录")
+    @PostMapping("/login")
+    public CompletableFuture<Result<UserAuthResponse>> login(@Valid @RequestBody UserLoginRequest req) {
+        return userAuthService.login(req.getPhone(), req.getPassword())
+                .thenApply(user -> Result.success("登录成功", buildAuthResponse(user)));
+    }
 
-        String clientId = userAuthService.generateClientId();
-        String accessToken = userAuthService.generateAccessToken(user.getId(), clientId);
+    @Operation(summary = "刷新令牌", description = "用刷新令牌换取新的令牌对，旧刷新令牌随即作废")
+    @PostMapping("/refresh")
+    public Result<TokenRefreshResponse> refresh(@Valid @RequestBody RefreshTokenRequest req) {
+        RefreshTokenStore.Binding binding = userAuthService.refresh(req.getRefreshToken());
+        return Result.success(new TokenRefreshResponse(
+                binding.userId(),
+                binding.clientId(),
+                userAuthService.generateAccessToken(binding.userId(), binding.clientId()),
+                userAuthService.generateRefreshToken(binding.userId(), binding.clientId())
+        ));
+    }
 
-        UserAuthResponse response = new UserAuthResponse(
-                user.getId(),
-                accessToken,
-                clientId,
-                user.getNickname(),
-                user.getAvatar()
-        );
+    @Operation(summary = "退出登录", description = "吊销当前访问令牌直到其自然过期")
+    @PostMapping("/logout")
+    public Result<Void> logout(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        userAuthService.logout(AuthInterceptor.bearerToken(authorization));
+        return Result.success();
+    }
 
-        return Result.success(response);
+    @Operation(summary = "吊销令牌", description = "吊销本人的另一个访问令牌，对应设备被强制下线")
+    @PostMapping("/revoke")
+    public Result<Void> revoke(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                               @Valid @RequestBody RevokeTokenRequest req) {
+        userAuthService.revoke(AuthInterceptor.bearerToken(authorization), req.getToken());
+        return Result.success();
     }
 
-    @Operation(summary = "用户登录", description = "通过手机号和密码登录")
-    @PostMapping("/login")
-    public Result<UserAuthResponse> login(@Valid @RequestBody UserLoginRequest req) {
-        User user = userAuthService.login(req.getPhone(), req.getPassword());
+    private UserAuthResponse buildAuthResponse(User user) {
         String clientId = userAuthService.generateClientId();
         String accessToken = userAuthService.generateAccessToken(user.getId(), clientId);
+        String refreshToken = userAuthService.generateRefreshToken(user.getId(), clientId);
 
-        UserAuthResponse response = new UserAuthResponse(
+        return new UserAuthResponse(
                 user.getId(),
                 accessToken,
+                refreshToken,
                 clientId,
                 user.getNickname(),
                 user.getAvatar()
         );
-
-        return Result.success("登录成功", response);
     }
 }
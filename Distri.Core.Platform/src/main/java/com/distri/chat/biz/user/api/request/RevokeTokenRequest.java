@@ -0,0 +1,19 @@
+package com.distri.chat.biz.user.api.request;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevokeTokenRequest {
+
+    // 要吊销的访问令牌（须属于当前用户，例如其他设备的令牌）
+    @NotBlank(message = "令牌不能为空")
+    private String token;
+
+}
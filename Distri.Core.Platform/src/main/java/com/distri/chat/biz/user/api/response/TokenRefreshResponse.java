@@ -0,0 +1,17 @@
+package com.distri.chat.biz.user.api.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenRefreshResponse {
+    private Long userId;
+    private String clientId;
+    private String accessToken;
+    private String refreshToken;
+}
@@ -12,6 +12,7 @@ import lombok.NoArgsConstructor;
 public class UserAuthResponse {
     private Long userId;
     private String accessToken;
+    private String refreshToken;
     private String clientId;
     private String nickname;
     private String avatar;
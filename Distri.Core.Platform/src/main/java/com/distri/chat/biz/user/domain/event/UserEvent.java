@@ -0,0 +1,39 @@
+package com.distri.chat.biz.user.domain.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 用户事件
+ * 发布到 distri-chat-v1-user-event，以userId为消息key保证同一用户的事件有序
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserEvent {
+
+    // 用户注册，经发件箱与users行同一事务写入
+    public static final String USER_REGISTERED = "USER_REGISTERED";
+    // 用户第一台设备上线
+    public static final String USER_ONLINE = "USER_ONLINE";
+    // 用户最后一台设备下线
+    public static final String USER_OFFLINE = "USER_OFFLINE";
+    // 已读回执批次，负载见 ReadReceiptEvent
+    public static final String READ_RECEIPTS = "READ_RECEIPTS";
+
+    // 事件类型
+    private String type;
+
+    private Long userId;
+
+    private String clientId;
+
+    // 网关节点ID
+    private String nodeId;
+
+    // 事件发生时间（毫秒）
+    private Long timestamp;
+}
@@ -1,60 +1,219 @@
 package com.distri.chat.biz.user.domain.service;
 
+import com.distri.chat.biz.user.domain.event.UserEvent;
 import com.distri.chat.biz.user.domain.model.User;
+import com.distri.chat.biz.user.infra.cache.PhoneExistenceIndex;
+import com.distri.chat.biz.user.infra.cache.RefreshTokenStore;
 import com.distri.chat.biz.user.infra.repo.UserMapper;
+import com.distri.chat.common.auth.TokenRevocationService;
 import com.distri.chat.common.exception.BusinessException;
+import com.distri.chat.common.metrics.OutcomeTimer;
+import com.distri.chat.common.outbox.OutboxWriter;
+import com.distri.chat.common.ratelimit.RateLimiter;
+import com.distri.chat.common.ratelimit.RateLimiterRegistry;
 import com.distri.chat.common.utils.JwtUtil;
+import com.distri.chat.config.KafkaConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * 用户领域服务
  * 负责用户注册、登录、认证等核心业务逻辑
+ * 各入口按结果记录耗时（auth.service），注册/登录含排队与BCrypt的完整异步耗时
  */
 @Service
 @Slf4j
 public class UserAuthService {
 
     private final UserMapper userMapper;
-    private final BCryptPasswordEncoder passwordEncoder;
+    private final PhoneExistenceIndex phoneExistenceIndex;
+    private final PasswordHashService passwordHashService;
     private final JwtUtil jwtUtil;
+    private final OutboxWriter outboxWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final TokenRevocationService tokenRevocationService;
+    private final RefreshTokenStore refreshTokenStore;
+    private final RateLimiter loginPhoneLimiter;
+    private final ExecutorService persistExecutor;
 
-    public UserAuthService(UserMapper userMapper, JwtUtil jwtUtil) {
+    private final OutcomeTimer registerTimer;
+    private final OutcomeTimer loginTimer;
+    private final OutcomeTimer refreshTimer;
+    private final OutcomeTimer logoutTimer;
+    private final OutcomeTimer revokeTimer;
+
+    public UserAuthService(UserMapper userMapper,
+                           PhoneExistenceIndex phoneExistenceIndex,
+                           PasswordHashService passwordHashService,
+                           JwtUtil jwtUtil,
+                           OutboxWriter outboxWriter,
+                           TransactionTemplate transactionTemplate,
+                           TokenRevocationService tokenRevocationService,
+                           RefreshTokenStore refreshTokenStore,
+                           RateLimiterRegistry rateLimiterRegistry,
+                           MeterRegistry meterRegistry,
+                           @Value("${ratelimit.login.phone.permits-per-second:0.1}") double loginPermitsPerSecond,
+                           @Value("${ratelimit.login.phone.burst:5}") int loginBurst,
+                           @Value("${auth.persist.pool-size:8}") int persistPoolSize,
+                           @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
         this.userMapper = userMapper;
-        this.passwordEncoder = new BCryptPasswordEncoder();
+        this.phoneExistenceIndex = phoneExistenceIndex;
+        this.passwordHashService = passwordHashService;
         this.jwtUtil = jwtUtil;
+        this.outboxWriter = outboxWriter;
+        this.transactionTemplate = transactionTemplate;
+        this.tokenRevocationService = tokenRevocationService;
+        this.refreshTokenStore = refreshTokenStore;
+        this.loginPhoneLimiter = rateLimiterRegistry.limiter("login-phone", loginPermitsPerSecond, loginBurst);
+        // 注册落库与哈希分池：哈希池只做BCrypt，阻塞的MySQL事务不占用其定长线程
+        this.persistExecutor = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("auth-persist-", 0).factory())
+                : Executors.newFixedThreadPool(persistPoolSize, new CustomizableThreadFactory("auth-persist-"));
+
+        this.registerTimer = serviceTimer(meterRegistry, "register");
+        this.loginTimer = serviceTimer(meterRegistry, "login");
+        this.refreshTimer = serviceTimer(meterRegistry, "refresh");
+        this.logoutTimer = serviceTimer(meterRegistry, "logout");
+        this.revokeTimer = serviceTimer(meterRegistry, "revoke");
     }
 
-    public User register(String phone, String password) {
-        User user = userMapper.findByPhone(phone);
-        if (user != null) {
-            throw BusinessException.badRequest("手机号已被注册");
+    /**
+     * 注册用户
+     * 密码加密在哈希线程池上完成，落库事务切到独立的持久化线程池，均不占用请求线程；
+     * 手机号查重先走本地索引快速路径，最终由uk_phone唯一键保证，不再先查后插；
+     * USER_REGISTERED事件与用户行在同一事务写入发件箱，由中继异步投递到Kafka
+     */
+    public CompletableFuture<User> register(String phone, String password) {
+        long start = System.nanoTime();
+        try {
+            if (phoneExistenceIndex.isRegistered(phone)) {
+                throw BusinessException.badRequest("手机号已被注册");
+            }
+
+            return passwordHashService.encode(password).thenApplyAsync(encodedPassword -> {
+                User newUser = new User(phone, encodedPassword);
+                newUser.setNickname(phone);
+
+                try {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        userMapper.insert(newUser);
+                        outboxWriter.append(KafkaConfig.USER_EVENT_TOPIC, String.valueOf(newUser.getId()), UserEvent.builder()
+                                .type(UserEvent.USER_REGISTERED)
+                                .userId(newUser.getId())
+                                .timestamp(System.currentTimeMillis())
+                                .build());
+                    });
+                } catch (RuntimeException e) {
+                    registerTimer.record(start, false);
+                    if (e instanceof DuplicateKeyException) {
+                        phoneExistenceIndex.add(phone);
+                        throw BusinessException.badRequest("手机号已被注册");
+                    }
+                    throw e;
+                }
+                phoneExistenceIndex.add(phone);
+                registerTimer.record(start, true);
+                return newUser;
+            }, persistExecutor);
+        } catch (RuntimeException e) {
+            registerTimer.record(start, false);
+            throw e;
         }
+    }
 
-        String encodedPassword = passwordEncoder.encode(password);
+    /**
+     * 用户登录
+     * 密码校验在哈希线程池上完成，不占用请求线程；同一手机号的尝试次数受限，超出时不再进入BCrypt。
+     * 密码哈希不在用户缓存中，这里按uk_phone直接读库，改密后立即生效；返回前清除哈希
+     */
+    public CompletableFuture<User> login(String phone, String password) {
+        long start = System.nanoTime();
+        try {
+            loginPhoneLimiter.acquire(phone, "登录尝试过于频繁，请稍后再试");
+            User user = userMapper.findByPhone(phone);
+            if (user == null) {
+                throw BusinessException.badRequest("手机号未注册");
+            }
 
-        User newUser = new User(phone, encodedPassword);
-        newUser.setNickname(phone);
+            return passwordHashService.matches(password, user.getPassword()).thenApply(matched -> {
+                loginTimer.record(start, matched);
+                if (!matched) {
+                    throw BusinessException.badRequest("密码错误");
+                }
 
-        userMapper.insert(newUser);
-        return newUser;
+                log.info("用户登录成功：手机号={}, 用户ID={}", phone, user.getId());
+                user.setPassword(null);
+                return user;
+            });
+        } catch (RuntimeException e) {
+            loginTimer.record(start, false);
+            throw e;
+        }
     }
 
-    public User login(String phone, String password) {
-        User user = userMapper.findByPhone(phone);
-        if (user == null) {
-            throw BusinessException.badRequest("手机号未注册");
+    /**
+     * 用刷新令牌换取新的访问令牌与刷新令牌
+     * 不校验密码、不查库：刷新令牌一经使用即作废，设备ID保持不变
+     */
+    public RefreshTokenStore.Binding refresh(String refreshToken) {
+        long start = System.nanoTime();
+        RefreshTokenStore.Binding binding = null;
+        try {
+            binding = refreshTokenStore.consume(refreshToken);
+        } finally {
+            refreshTimer.record(start, binding != null);
+        }
+        if (binding == null) {
+            throw BusinessException.unauthorized("刷新令牌无效，请重新登录");
         }
+        return binding;
+    }
 
-        if (!passwordEncoder.matches(password, user.getPassword())) {
-            throw BusinessException.badRequest("密码错误");
+    /**
+     * 退出登录：吊销当前访问令牌与该设备的刷新令牌，该设备的长连接随之关闭
+     */
+    public void logout(String accessToken) {
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            JwtUtil.JwtClaims claims = jwtUtil.parseToken(accessToken);
+            refreshTokenStore.revoke(claims.getClientId());
+            tokenRevocationService.revoke(claims);
+            succeeded = true;
+        } finally {
+            logoutTimer.record(start, succeeded);
         }
+    }
 
-        log.info("用户登录成功：手机号={}, 用户ID={}", phone, user.getId());
-        return user;
+    /**
+     * 吊销本人的另一个访问令牌（如踢下其他设备）
+     */
+    public void revoke(String accessToken, String targetToken) {
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            JwtUtil.JwtClaims caller = jwtUtil.parseToken(accessToken);
+            JwtUtil.JwtClaims target = jwtUtil.verifyToken(targetToken);
+            if (!caller.getUserId().equals(target.getUserId())) {
+                throw BusinessException.forbidden("只能吊销本人的访问令牌");
+            }
+            refreshTokenStore.revoke(target.getClientId());
+            tokenRevocationService.revoke(target);
+            succeeded = true;
+        } finally {
+            revokeTimer.record(start, succeeded);
+        }
     }
 
     public String generateClientId() {
@@ -71,4 +230,21 @@ public class UserAuthService {
     public String generateAccessToken(Long userId, String clientId) {
         return jwtUtil.generateToken(userId, clientId);
     }
+
+    /**
+     * 签发绑定设备的刷新令牌
+     */
+    public String generateRefreshToken(Long userId, String clientId) {
+        return refreshTokenStore.issue(userId, clientId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        persistExecutor.shutdown();
+    }
+
+    private static OutcomeTimer serviceTimer(MeterRegistry meterRegistry, String method) {
+        return new OutcomeTimer(meterRegistry, "auth.service", "认证服务各入口耗时", OutcomeTimer.LATENCY_SLOS,
+                "method", method);
+    }
 }
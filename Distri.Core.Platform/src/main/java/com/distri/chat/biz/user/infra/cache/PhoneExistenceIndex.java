@@ -0,0 +1,151 @@
+package com.distri.chat.biz.user.infra.cache;
+
+import com.distri.chat.biz.user.domain.model.User;
+import com.distri.chat.biz.user.infra.repo.UserMapper;
+import com.distri.chat.common.utils.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 手机号存在性索引
+ * <p>
+ * 本地布隆过滤器 + Redis集合两级判断：布隆判定"不存在"时直接放行，
+ * 判定"可能存在"时再查Redis集合。该索引只是快速路径，
+ * 最终以users表uk_phone唯一键为准（见UserAuthService对重复键的转换）。
+ */
+@Component
+@Slf4j
+public class PhoneExistenceIndex {
+
+    private static final String PHONE_SET_KEY = "distri-chat:user:phones";
+
+    private final UserMapper userMapper;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final BloomFilter bloomFilter;
+    private final int warmupBatchSize;
+
+    private final Counter bloomNegativeCounter;
+    private final Counter redisHitCounter;
+    private final Counter falsePositiveCounter;
+
+    private volatile boolean warmedUp = false;
+
+    public PhoneExistenceIndex(UserMapper userMapper,
+                               RedisTemplate<String, Object> redisTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${user.phone-index.expected-insertions:5000000}") long expectedInsertions,
+                               @Value("${user.phone-index.false-positive-rate:0.001}") double falsePositiveRate,
+                               @Value("${user.phone-index.warmup-batch-size:5000}") int warmupBatchSize) {
+        this.userMapper = userMapper;
+        this.redisTemplate = redisTemplate;
+        this.bloomFilter = new BloomFilter(expectedInsertions, falsePositiveRate);
+        this.warmupBatchSize = warmupBatchSize;
+
+        this.bloomNegativeCounter = Counter.builder("user.phone.index")
+                .tag("result", "bloom_negative")
+                .register(meterRegistry);
+        this.redisHitCounter = Counter.builder("user.phone.index")
+                .tag("result", "redis_hit")
+                .register(meterRegistry);
+        this.falsePositiveCounter = Counter.builder("user.phone.index")
+                .tag("result", "false_positive")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 判断手机号是否已注册（快速路径）
+     * 返回false不代表一定未注册，调用方仍需依赖唯一键兜底
+     */
+    public boolean isRegistered(String phone) {
+        if (!bloomFilter.mightContain(phone)) {
+            bloomNegativeCounter.increment();
+            return false;
+        }
+
+        try {
+            Boolean member = redisTemplate.opsForSet().isMember(PHONE_SET_KEY, phone);
+            if (Boolean.TRUE.equals(member)) {
+                redisHitCounter.increment();
+                return true;
+            }
+        } catch (Exception e) {
+            log.warn("查询手机号索引失败，回退到唯一键校验：{}", e.getMessage());
+            return false;
+        }
+
+        falsePositiveCounter.increment();
+        return false;
+    }
+
+    /**
+     * 记录已注册手机号（注册成功或命中重复键后调用）
+     */
+    public void add(String phone) {
+        bloomFilter.put(phone);
+        try {
+            redisTemplate.opsForSet().add(PHONE_SET_KEY, phone);
+        } catch (Exception e) {
+            log.warn("写入手机号索引失败：{}", e.getMessage());
+        }
+    }
+
+    public boolean isWarmedUp() {
+        return warmedUp;
+    }
+
+    /**
+     * 启动后在后台线程按主键游标分批预热，不阻塞启动；
+     * 预热完成前布隆过滤器可能漏判，由唯一键兜底，结果依然正确
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startWarmup() {
+        Thread warmupThread = new Thread(this::warmup, "phone-index-warmup");
+        warmupThread.setDaemon(true);
+        warmupThread.start();
+    }
+
+    private void warmup() {
+        long startTime = System.currentTimeMillis();
+        long lastId = 0;
+        long total = 0;
+
+        try {
+            boolean fillRedis = !Boolean.TRUE.equals(redisTemplate.hasKey(PHONE_SET_KEY));
+            while (true) {
+                List<User> batch = userMapper.findPhonesAfter(lastId, warmupBatchSize);
+                if (batch.isEmpty()) {
+                    break;
+                }
+
+                Object[] phones = new Object[batch.size()];
+                for (int i = 0; i < batch.size(); i++) {
+                    String phone = batch.get(i).getPhone();
+                    bloomFilter.put(phone);
+                    phones[i] = phone;
+                }
+                if (fillRedis) {
+                    redisTemplate.opsForSet().add(PHONE_SET_KEY, phones);
+                }
+
+                total += batch.size();
+                lastId = batch.get(batch.size() - 1).getId();
+                if (batch.size() < warmupBatchSize) {
+                    break;
+                }
+            }
+            warmedUp = true;
+            log.info("手机号索引预热完成：条数={}, 耗时={}ms, 布隆位数={}, 哈希函数数={}",
+                    total, System.currentTimeMillis() - startTime, bloomFilter.bitSize(), bloomFilter.hashFunctions());
+        } catch (Exception e) {
+            log.error("手机号索引预热失败，已加载条数={}", total, e);
+        }
+    }
+}
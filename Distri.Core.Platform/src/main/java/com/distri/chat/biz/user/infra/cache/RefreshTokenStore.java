@@ -0,0 +1,135 @@
+package com.distri.chat.biz.user.infra.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HexFormat;
+
+/**
+ * 刷新令牌存储
+ * <p>
+ * 刷新令牌为32字节随机串，Redis中只保存其SHA-256摘要：distri-chat:auth:refresh:{摘要} -> userId|clientId，
+ * 另以 distri-chat:auth:refresh-client:{clientId} 记录设备当前的摘要，用于登出时一并作废。
+ * 每次使用即轮换：GETDEL取出旧令牌保证只能用一次，再签发新令牌并重置有效期（滑动续期）。
+ */
+@Component
+@Slf4j
+public class RefreshTokenStore {
+
+    private static final String REFRESH_KEY_PREFIX = "distri-chat:auth:refresh:";
+    private static final String CLIENT_KEY_PREFIX = "distri-chat:auth:refresh-client:";
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final Duration ttl;
+
+    private final Counter rotatedCounter;
+    private final Counter rejectedCounter;
+
+    public RefreshTokenStore(RedisTemplate<String, Object> redisTemplate,
+                             MeterRegistry meterRegistry,
+                             @Value("${auth.refresh.ttl-days:30}") long ttlDays) {
+        this.redisTemplate = redisTemplate;
+        this.ttl = Duration.ofDays(ttlDays);
+
+        this.rotatedCounter = Counter.builder("auth.refresh")
+                .tag("result", "rotated")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("auth.refresh")
+                .tag("result", "rejected")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 为设备签发刷新令牌，覆盖该设备之前的令牌
+     */
+    public String issue(Long userId, String clientId) {
+        byte[] random = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(random);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(random);
+        String digest = digest(token);
+
+        Object previous = redisTemplate.opsForValue().getAndSet(CLIENT_KEY_PREFIX + clientId, digest);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            long seconds = ttl.toSeconds();
+            connection.stringCommands().setEx(bytes(REFRESH_KEY_PREFIX + digest), seconds, bytes(userId + "|" + clientId));
+            connection.keyCommands().expire(bytes(CLIENT_KEY_PREFIX + clientId), seconds);
+            if (previous != null && !digest.equals(previous)) {
+                connection.keyCommands().del(bytes(REFRESH_KEY_PREFIX + previous));
+            }
+            return null;
+        });
+        return token;
+    }
+
+    /**
+     * 消费刷新令牌（只能成功一次）
+     *
+     * @return 令牌绑定的用户与设备；令牌不存在、已过期或已被使用时返回null
+     */
+    public Binding consume(String token) {
+        Object value = redisTemplate.opsForValue().getAndDelete(REFRESH_KEY_PREFIX + digest(token));
+        Binding binding = value == null ? null : Binding.decode(value.toString());
+        if (binding == null) {
+            rejectedCounter.increment();
+            return null;
+        }
+        rotatedCounter.increment();
+        return binding;
+    }
+
+    /**
+     * 作废设备当前的刷新令牌（登出、踢下线）
+     */
+    public void revoke(String clientId) {
+        Object digest = redisTemplate.opsForValue().getAndDelete(CLIENT_KEY_PREFIX + clientId);
+        if (digest != null) {
+            redisTemplate.delete(REFRESH_KEY_PREFIX + digest);
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return RedisSerializer.string().serialize(value);
+    }
+
+    /**
+     * 刷新令牌绑定的用户与设备，编码为 userId|clientId
+     */
+    public record Binding(Long userId, String clientId) {
+
+        static Binding decode(String value) {
+            int separator = value.indexOf('|');
+            if (separator <= 0) {
+                return null;
+            }
+            try {
+                return new Binding(Long.parseLong(value.substring(0, separator)), value.substring(separator + 1));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.distri.chat.biz.user.infra.cache;
+
+import com.distri.chat.biz.user.domain.model.User;
+import com.distri.chat.biz.user.infra.repo.UserMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 用户两级缓存
+ * <p>
+ * L1为本地Caffeine（容量有界 + 短TTL），L2为Redis；均未命中时回源UserMapper。
+ * 同一节点上冷key的并发请求由Caffeine合并为一次加载，避免击穿。
+ * 更新/删除（含@TableLogic逻辑删除）必须经由本类，以便同步失效两级缓存；
+ * 其他节点的L1最多在TTL内读到旧值。
+ * 缓存的是不含密码哈希的用户资料：凭据不进入L1/L2，登录校验密码时直接读库，避免用到其他节点上过期的哈希。
+ * 会话列表按页批量读取单聊对方的资料（见 ConversationController）。
+ */
+@Component
+@Slf4j
+public class UserCache {
+
+    private static final String USER_KEY_PREFIX = "distri-chat:user:id:";
+    private static final String PHONE_KEY_PREFIX = "distri-chat:user:phone:";
+
+    private final UserMapper userMapper;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration redisTtl;
+
+    private final Cache<Long, User> userById;
+    private final Cache<String, Long> idByPhone;
+
+    private final Counter redisHitCounter;
+    private final Counter redisMissCounter;
+
+    public UserCache(UserMapper userMapper,
+                     RedisTemplate<String, Object> redisTemplate,
+                     ObjectMapper objectMapper,
+                     MeterRegistry meterRegistry,
+                     @Value("${user.cache.local.max-size:100000}") long localMaxSize,
+                     @Value("${user.cache.local.ttl-seconds:60}") long localTtlSeconds,
+                     @Value("${user.cache.redis.ttl-seconds:1800}") long redisTtlSeconds) {
+        this.userMapper = userMapper;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.redisTtl = Duration.ofSeconds(redisTtlSeconds);
+
+        this.userById = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(localTtlSeconds))
+                .recordStats()
+                .build();
+        this.idByPhone = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(localTtlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, userById, "user.by_id");
+        CaffeineCacheMetrics.monitor(meterRegistry, idByPhone, "user.by_phone");
+
+        this.redisHitCounter = Counter.builder("user.cache.redis")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.redisMissCounter = Counter.builder("user.cache.redis")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 按ID查询用户，不存在返回null
+     */
+    public User getById(Long id) {
+        return userById.get(id, this::loadById);
+    }
+
+    /**
+     * 按手机号查询用户，不存在返回null
+     */
+    public User getByPhone(String phone) {
+        Long id = idByPhone.get(phone, this::loadIdByPhone);
+        return id == null ? null : getById(id);
+    }
+
+    /**
+     * 批量查询用户
+     * L1未命中的部分先批量读Redis，仍未命中的用一次IN查询回源
+     *
+     * @return 用户ID到用户的映射，不存在的ID不会出现在结果中
+     */
+    public Map<Long, User> getUsers(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return userById.getAll(ids, this::loadAll);
+    }
+
+    /**
+     * 更新用户并失效缓存
+     */
+    public void update(User user) {
+        User existing = getById(user.getId());
+        userMapper.updateById(user);
+        evict(user.getId(), existing == null ? user.getPhone() : existing.getPhone());
+    }
+
+    /**
+     * 逻辑删除用户并失效缓存
+     */
+    public void delete(Long id) {
+        User existing = getById(id);
+        userMapper.deleteById(id);
+        evict(id, existing == null ? null : existing.getPhone());
+    }
+
+    /**
+     * 失效两级缓存中的用户
+     */
+    public void evict(Long id, String phone) {
+        List<String> keys = new ArrayList<>(2);
+        keys.add(USER_KEY_PREFIX + id);
+        if (phone != null) {
+            keys.add(PHONE_KEY_PREFIX + phone);
+        }
+        try {
+            redisTemplate.delete(keys);
+        } catch (DataAccessException e) {
+            log.warn("删除用户缓存失败：userId={}, {}", id, e.getMessage());
+        }
+
+        userById.invalidate(id);
+        if (phone != null) {
+            idByPhone.invalidate(phone);
+        }
+    }
+
+    private User loadById(Long id) {
+        User cached = readRedis(USER_KEY_PREFIX + id);
+        if (cached != null) {
+            return cached;
+        }
+
+        User user = withoutCredential(userMapper.selectById(id));
+        if (user != null) {
+            writeRedis(Collections.singletonList(user));
+        }
+        return user;
+    }
+
+    private Long loadIdByPhone(String phone) {
+        try {
+            Object id = redisTemplate.opsForValue().get(PHONE_KEY_PREFIX + phone);
+            if (id != null) {
+                redisHitCounter.increment();
+                return Long.valueOf(id.toString());
+            }
+            redisMissCounter.increment();
+        } catch (DataAccessException e) {
+            log.warn("读取用户缓存失败：phone={}, {}", phone, e.getMessage());
+        }
+
+        User user = withoutCredential(userMapper.findByPhone(phone));
+        if (user == null) {
+            return null;
+        }
+        userById.put(user.getId(), user);
+        writeRedis(Collections.singletonList(user));
+        return user.getId();
+    }
+
+    private Map<Long, User> loadAll(Set<? extends Long> ids) {
+        List<Long> idList = new ArrayList<>(ids);
+        List<String> keys = new ArrayList<>(idList.size());
+        for (Long id : idList) {
+            keys.add(USER_KEY_PREFIX + id);
+        }
+
+        List<Object> cached = null;
+        try {
+            cached = redisTemplate.opsForValue().multiGet(keys);
+        } catch (DataAccessException e) {
+            log.warn("批量读取用户缓存失败：{}", e.getMessage());
+        }
+
+        Map<Long, User> result = new HashMap<>(idList.size() * 2);
+        List<Long> misses = new ArrayList<>();
+        for (int i = 0; i < idList.size(); i++) {
+            User user = cached == null ? null : deserialize(cached.get(i));
+            if (user != null) {
+                result.put(idList.get(i), user);
+            } else {
+                misses.add(idList.get(i));
+            }
+        }
+        redisHitCounter.increment(result.size());
+        redisMissCounter.increment(misses.size());
+
+        if (!misses.isEmpty()) {
+            List<User> loaded = userMapper.selectBatchIds(misses);
+            for (User user : loaded) {
+                result.put(user.getId(), withoutCredential(user));
+            }
+            writeRedis(loaded);
+        }
+        return result;
+    }
+
+    private User readRedis(String key) {
+        try {
+            User user = deserialize(redisTemplate.opsForValue().get(key));
+            if (user != null) {
+                redisHitCounter.increment();
+                return user;
+            }
+            redisMissCounter.increment();
+        } catch (DataAccessException e) {
+            log.warn("读取用户缓存失败：key={}, {}", key, e.getMessage());
+        }
+        return null;
+    }
+
+    private void writeRedis(List<User> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+        try {
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                    RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                    for (User user : users) {
+                        ops.opsForValue().set(USER_KEY_PREFIX + user.getId(), serialize(user), redisTtl);
+                        ops.opsForValue().set(PHONE_KEY_PREFIX + user.getPhone(), user.getId().toString(), redisTtl);
+                    }
+                    return null;
+                }
+            });
+        } catch (DataAccessException e) {
+            log.warn("写入用户缓存失败：{}", e.getMessage());
+        }
+    }
+
+    private static User withoutCredential(User user) {
+        if (user != null) {
+            user.setPassword(null);
+        }
+        return user;
+    }
+
+    private String serialize(User user) {
+        try {
+            return objectMapper.writeValueAsString(user);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("用户序列化失败", e);
+        }
+    }
+
+    private User deserialize(Object json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json.toString(), User.class);
+        } catch (JsonProcessingException e) {
+            log.warn("用户缓存反序列化失败：{}", e.getMessage());
+            return null;
+        }
+    }
+}
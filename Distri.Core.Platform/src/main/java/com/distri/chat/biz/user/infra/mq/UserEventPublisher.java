@@ -0,0 +1,51 @@
+package com.distri.chat.biz.user.infra.mq;
+
+import com.distri.chat.biz.user.domain.event.UserEvent;
+import com.distri.chat.config.KafkaConfig;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 用户事件生产者
+ * 异步发送，失败只记录日志，不影响调用方；批量发布时由生产者按linger攒批
+ */
+@Slf4j
+@Component
+public class UserEventPublisher {
+
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+
+    public UserEventPublisher(KafkaTemplate<String, String> kafkaTemplate, ObjectMapper objectMapper) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    public void publishAll(List<UserEvent> events) {
+        for (UserEvent event : events) {
+            publish(event);
+        }
+    }
+
+    public void publish(UserEvent event) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            log.error("用户事件序列化失败：{}", event, e);
+            return;
+        }
+
+        kafkaTemplate.send(KafkaConfig.USER_EVENT_TOPIC, String.valueOf(event.getUserId()), payload)
+                .whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        log.warn("用户事件发送失败：type={}, userId={}, {}", event.getType(), event.getUserId(), ex.getMessage());
+                    }
+                });
+    }
+}
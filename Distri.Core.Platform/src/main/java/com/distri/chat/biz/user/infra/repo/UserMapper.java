@@ -3,8 +3,11 @@ package com.distri.chat.biz.user.infra.repo;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.distri.chat.biz.user.domain.model.User;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
+import java.util.List;
+
 /**
  * 用户数据访问层
  */
@@ -16,4 +19,10 @@ public interface UserMapper extends BaseMapper<User> {
      */
     @Select("SELECT * FROM users WHERE phone = #{phone} AND deleted = 0")
     User findByPhone(String phone);
+
+    /**
+     * 按主键游标分批读取手机号（含已逻辑删除的记录，与uk_phone口径一致）
+     */
+    @Select("SELECT id, phone FROM users WHERE id > #{lastId} ORDER BY id LIMIT #{limit}")
+    List<User> findPhonesAfter(@Param("lastId") long lastId, @Param("limit") int limit);
 }
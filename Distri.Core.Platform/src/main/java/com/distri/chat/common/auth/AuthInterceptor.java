@@ -0,0 +1,52 @@
+package com.distri.chat.common.auth;
+
+import com.distri.chat.common.exception.BusinessException;
+import com.distri.chat.common.utils.JwtUtil;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * 访问令牌拦截器
+ * 校验 Authorization: Bearer {token}，通过后把userId/clientId放入请求属性，
+ * 控制器用 @RequestAttribute(AuthInterceptor.USER_ID) 读取
+ */
+@Component
+public class AuthInterceptor implements HandlerInterceptor {
+
+    public static final String USER_ID = "distri.userId";
+    public static final String CLIENT_ID = "distri.clientId";
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final JwtUtil jwtUtil;
+
+    public AuthInterceptor(JwtUtil jwtUtil) {
+        this.jwtUtil = jwtUtil;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String token = bearerToken(request.getHeader(HttpHeaders.AUTHORIZATION));
+        if (token == null) {
+            throw BusinessException.unauthorized("缺少访问令牌");
+        }
+
+        JwtUtil.JwtClaims claims = jwtUtil.parseToken(token);
+        request.setAttribute(USER_ID, claims.getUserId());
+        request.setAttribute(CLIENT_ID, claims.getClientId());
+        return true;
+    }
+
+    /**
+     * 从Authorization头取出Bearer令牌，缺失或格式不符时返回null
+     */
+    public static String bearerToken(String header) {
+        if (header == null || !header.startsWith(BEARER_PREFIX)) {
+            return null;
+        }
+        return header.substring(BEARER_PREFIX.length()).trim();
+    }
+}
@@ -0,0 +1,88 @@
+package com.distri.chat.common.auth;
+
+import com.distri.chat.common.utils.BloomFilter;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 本地令牌吊销名单
+ * <p>
+ * 精确集合（jti -> 过期时间）前面挂一个布隆过滤器：绝大多数未吊销的令牌在过滤器处即返回，
+ * 只有命中过滤器的才查精确集合，误判不会导致误拒。布隆过滤器不支持删除，
+ * 过期条目清理到一定数量或集合超出容量时整体重建。
+ */
+public class TokenDenylist {
+
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private final long expectedSize;
+    private final double falsePositiveRate;
+
+    private volatile BloomFilter prefilter;
+    private long capacity;
+    private long purgedSinceRebuild;
+
+    public TokenDenylist(long expectedSize, double falsePositiveRate) {
+        this.expectedSize = expectedSize;
+        this.falsePositiveRate = falsePositiveRate;
+        this.capacity = expectedSize;
+        this.prefilter = new BloomFilter(expectedSize, falsePositiveRate);
+    }
+
+    public boolean contains(String jti) {
+        return jti != null && prefilter.mightContain(jti) && revoked.containsKey(jti);
+    }
+
+    /**
+     * @return 是否为新加入的条目
+     */
+    public boolean add(String jti, long expiresAt) {
+        if (revoked.putIfAbsent(jti, expiresAt) != null) {
+            return false;
+        }
+        prefilter.put(jti);
+        return true;
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    /**
+     * 清理已过期的条目（令牌本身已过期，验签即被拒绝），必要时重建过滤器；只由单个线程调用
+     *
+     * @return 清理的条目数
+     */
+    public int purgeExpired(long now) {
+        int purged = 0;
+        Iterator<Map.Entry<String, Long>> iterator = revoked.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getValue() <= now) {
+                iterator.remove();
+                purged++;
+            }
+        }
+
+        purgedSinceRebuild += purged;
+        int size = revoked.size();
+        if (size > capacity || purgedSinceRebuild > capacity / 4) {
+            rebuild(Math.max(expectedSize, size * 2L));
+        }
+        return purged;
+    }
+
+    private void rebuild(long newCapacity) {
+        BloomFilter filter = new BloomFilter(newCapacity, falsePositiveRate);
+        for (String jti : revoked.keySet()) {
+            filter.put(jti);
+        }
+        prefilter = filter;
+        // 切换前并发加入、写进旧过滤器的条目在第二遍补上
+        for (String jti : revoked.keySet()) {
+            filter.put(jti);
+        }
+        capacity = newCapacity;
+        purgedSinceRebuild = 0;
+    }
+}
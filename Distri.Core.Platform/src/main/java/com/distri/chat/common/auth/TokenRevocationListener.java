@@ -0,0 +1,10 @@
+package com.distri.chat.common.auth;
+
+/**
+ * 令牌吊销回调
+ * 本节点首次得知某个令牌被吊销时调用（含本节点发起与其他节点广播），在Redis监听线程上执行，不应阻塞
+ */
+public interface TokenRevocationListener {
+
+    void onRevoked(Long userId, String clientId);
+}
@@ -0,0 +1,201 @@
+package com.distri.chat.common.auth;
+
+import com.distri.chat.common.utils.JwtUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 令牌吊销
+ * <p>
+ * 吊销时写入 distri-chat:auth:revoked:{jti}（TTL为令牌剩余有效期），追加到按吊销时间排序的吊销日志ZSET，
+ * 并通过发布订阅广播；各节点把收到的jti加入本地名单，鉴权只查本地内存，不访问Redis。
+ * 启动时从吊销日志加载仍在有效期内的条目，之后定期补读最近的日志，弥补订阅断线期间漏掉的广播。
+ */
+@Slf4j
+@Service
+public class TokenRevocationService implements MessageListener {
+
+    private static final String REVOKED_KEY_PREFIX = "distri-chat:auth:revoked:";
+    private static final String REVOKED_LOG_KEY = "distri-chat:auth:revoked-log";
+    private static final String REVOKED_CHANNEL = "distri-chat:auth:revoked";
+
+    // 补读日志时向前多读的时间，覆盖节点间时钟偏差
+    private static final long SYNC_OVERLAP_MILLIS = 60_000;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectProvider<TokenRevocationListener> listeners;
+    private final long maxTokenLifeMillis;
+    private final TokenDenylist denylist;
+
+    private volatile long lastSyncedAt;
+
+    private final Counter revokedCounter;
+
+    public TokenRevocationService(RedisTemplate<String, Object> redisTemplate,
+                                  RedisMessageListenerContainer listenerContainer,
+                                  ObjectProvider<TokenRevocationListener> listeners,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${jwt.access-expiration-minutes:30}") long accessExpirationMinutes,
+                                  @Value("${auth.revocation.expected-size:1000000}") long expectedSize,
+                                  @Value("${auth.revocation.false-positive-rate:0.001}") double falsePositiveRate) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.listeners = listeners;
+        this.maxTokenLifeMillis = TimeUnit.MINUTES.toMillis(accessExpirationMinutes);
+        this.denylist = new TokenDenylist(expectedSize, falsePositiveRate);
+
+        this.revokedCounter = Counter.builder("auth.revoked")
+                .description("本节点发起的令牌吊销数")
+                .register(meterRegistry);
+        Gauge.builder("auth.denylist.size", denylist, TokenDenylist::size)
+                .description("本地吊销名单中的令牌数")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        listenerContainer.addMessageListener(this, ChannelTopic.of(REVOKED_CHANNEL));
+        lastSyncedAt = System.currentTimeMillis() - maxTokenLifeMillis;
+        sync();
+        log.info("令牌吊销名单已加载：{}条", denylist.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        listenerContainer.removeMessageListener(this);
+    }
+
+    /**
+     * 热路径：只查本地内存
+     */
+    public boolean isRevoked(String jti) {
+        return denylist.contains(jti);
+    }
+
+    /**
+     * 吊销令牌直到其自然过期
+     */
+    public void revoke(JwtUtil.JwtClaims claims) {
+        long now = System.currentTimeMillis();
+        long expiresAt = claims.getExpiration().getTime();
+        if (expiresAt <= now || claims.getJwtId() == null) {
+            return;
+        }
+
+        RevokedToken token = new RevokedToken(claims.getJwtId(), expiresAt, claims.getUserId(), claims.getClientId());
+        byte[] encoded = bytes(token.encode());
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.stringCommands().setEx(bytes(REVOKED_KEY_PREFIX + token.jti()),
+                    Math.max(1, TimeUnit.MILLISECONDS.toSeconds(expiresAt - now)), bytes(String.valueOf(expiresAt)));
+            byte[] logKey = bytes(REVOKED_LOG_KEY);
+            connection.zSetCommands().zAdd(logKey, now, encoded);
+            connection.zSetCommands().zRemRangeByScore(logKey, 0, now - maxTokenLifeMillis);
+            connection.publish(bytes(REVOKED_CHANNEL), encoded);
+            return null;
+        });
+        revokedCounter.increment();
+        apply(token);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        RevokedToken token = RevokedToken.decode(RedisSerializer.string().deserialize(message.getBody()));
+        if (token == null) {
+            log.warn("无法解析的吊销广播：{}", message);
+            return;
+        }
+        apply(token);
+    }
+
+    /**
+     * 补读最近的吊销日志
+     */
+    @Scheduled(fixedDelayString = "${auth.revocation.sync-interval-millis:30000}")
+    public void sync() {
+        long now = System.currentTimeMillis();
+        try {
+            Set<Object> entries = redisTemplate.opsForZSet()
+                    .rangeByScore(REVOKED_LOG_KEY, lastSyncedAt - SYNC_OVERLAP_MILLIS, Double.POSITIVE_INFINITY);
+            if (entries != null) {
+                for (Object entry : entries) {
+                    RevokedToken token = RevokedToken.decode(String.valueOf(entry));
+                    if (token != null && token.expiresAt() > now) {
+                        apply(token);
+                    }
+                }
+            }
+            lastSyncedAt = now;
+        } catch (Exception e) {
+            log.error("同步令牌吊销日志失败", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${auth.revocation.purge-interval-millis:60000}")
+    public void purgeExpired() {
+        int purged = denylist.purgeExpired(System.currentTimeMillis());
+        if (purged > 0) {
+            log.debug("清理过期吊销条目：{}条", purged);
+        }
+    }
+
+    private void apply(RevokedToken token) {
+        if (!denylist.add(token.jti(), token.expiresAt())) {
+            return;
+        }
+        listeners.orderedStream().forEach(listener -> {
+            try {
+                listener.onRevoked(token.userId(), token.clientId());
+            } catch (Exception e) {
+                log.warn("令牌吊销回调失败：{}", listener.getClass().getSimpleName(), e);
+            }
+        });
+    }
+
+    private static byte[] bytes(String value) {
+        return RedisSerializer.string().serialize(value);
+    }
+
+    /**
+     * 吊销记录，编码为 jti|expiresAt|userId|clientId
+     */
+    private record RevokedToken(String jti, long expiresAt, Long userId, String clientId) {
+
+        String encode() {
+            return jti + "|" + expiresAt + "|" + userId + "|" + clientId;
+        }
+
+        static RevokedToken decode(String value) {
+            if (value == null) {
+                return null;
+            }
+            String[] parts = value.split("\\|", 4);
+            if (parts.length != 4) {
+                return null;
+            }
+            try {
+                return new RevokedToken(parts[0], Long.parseLong(parts[1]), Long.parseLong(parts[2]), parts[3]);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -53,6 +53,14 @@ public class BusinessException extends RuntimeException {
         return new BusinessException(404, message);
     }
 
+    public static BusinessException tooManyRequests(String message) {
+        return new BusinessException(429, message);
+    }
+
+    public static BusinessException serviceUnavailable(String message) {
+        return new BusinessException(503, message);
+    }
+
     public static BusinessException business(String message) {
         return new BusinessException(500, message);
     }
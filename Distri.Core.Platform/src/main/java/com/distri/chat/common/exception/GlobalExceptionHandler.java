@@ -1,6 +1,8 @@
 package com.distri.chat.common.exception;
 
 import com.distri.chat.common.dto.Result;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
@@ -12,23 +14,43 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
  * 全局异常处理器
  * 统一处理各类异常，返回标准的Result格式
+ * 按错误类型与错误码计数（api.errors），计数器按错误码首次出现时创建并缓存
  */
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(GlobalExceptionHandler.class);
 
+    private final MeterRegistry meterRegistry;
+    private final Map<Integer, Counter> businessErrorCounters = new ConcurrentHashMap<>();
+    private final Counter validationErrorCounter;
+    private final Counter systemErrorCounter;
+
+    public GlobalExceptionHandler(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.validationErrorCounter = errorCounter("validation", 400);
+        this.systemErrorCounter = errorCounter("system", 500);
+    }
+
     /**
      * 业务异常处理
      */
     @ExceptionHandler(BusinessException.class)
     public ResponseEntity<Result<Object>> handleBusinessException(BusinessException e) {
-        logger.warn("业务异常：{}", e.getMessage());
+        businessErrorCounter(e.getCode()).increment();
+        if (e.getCode() == HttpStatus.TOO_MANY_REQUESTS.value()) {
+            // 限流拒绝在被刷接口时量很大，不逐条告警
+            logger.debug("请求被限流：{}", e.getMessage());
+        } else {
+            logger.warn("业务异常：{}", e.getMessage());
+        }
 
         Result<Object> result = Result.error(e.getCode(), e.getMessage());
         HttpStatus status = HttpStatus.valueOf(e.getCode());
@@ -41,6 +63,7 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Result<Object>> handleValidationException(MethodArgumentNotValidException e) {
+        validationErrorCounter.increment();
         logger.warn("参数校验失败：{}", e.getMessage());
 
         List<FieldError> fieldErrors = e.getBindingResult().getFieldErrors();
@@ -57,6 +80,7 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(BindException.class)
     public ResponseEntity<Result<Object>> handleBindException(BindException e) {
+        validationErrorCounter.increment();
         logger.warn("参数绑定失败：{}", e.getMessage());
 
         List<FieldError> fieldErrors = e.getBindingResult().getFieldErrors();
@@ -73,6 +97,7 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<Result<Object>> handleIllegalArgumentException(IllegalArgumentException e) {
+        validationErrorCounter.increment();
         logger.warn("非法参数：{}", e.getMessage());
 
         Result<Object> result = Result.badRequest(e.getMessage());
@@ -84,6 +109,7 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<Result<Object>> handleRuntimeException(RuntimeException e) {
+        systemErrorCounter.increment();
         logger.error("运行时异常", e);
 
         Result<Object> result = Result.error("系统异常，请稍后重试");
@@ -95,9 +121,26 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Result<Object>> handleException(Exception e) {
+        systemErrorCounter.increment();
         logger.error("系统异常", e);
 
         Result<Object> result = Result.error("系统异常，请联系管理员");
         return ResponseEntity.internalServerError().body(result);
     }
+
+    private Counter businessErrorCounter(Integer code) {
+        Counter counter = businessErrorCounters.get(code);
+        if (counter == null) {
+            counter = businessErrorCounters.computeIfAbsent(code, c -> errorCounter("business", c));
+        }
+        return counter;
+    }
+
+    private Counter errorCounter(String type, int code) {
+        return Counter.builder("api.errors")
+                .description("接口返回的错误数")
+                .tag("type", type)
+                .tag("code", String.valueOf(code))
+                .register(meterRegistry);
+    }
 }
@@ -0,0 +1,228 @@
+package com.distri.chat.common.id;
+
+import com.baomidou.mybatisplus.core.incrementer.IdentifierGenerator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 雪花ID生成器
+ * <pre>
+ * +---------+--------------------+---------------+-------------+
+ * | 0 (1位) | 毫秒时间戳 (41位)   | workerId (10位) | 序号 (12位) |
+ * +---------+--------------------+---------------+-------------+
+ * </pre>
+ * 时间戳与序号合并为一个逻辑时钟，用一个AtomicLong做CAS推进，无锁；
+ * 同一毫秒序号用尽时直接借用下一毫秒，时钟回拨时沿逻辑时钟继续发号，
+ * 只有领先真实时钟超过容忍值才拒绝发号。
+ * 租用的workerId在最近一次成功续期后超过租约时长即停止发号（Redis不可达时租约可能已被其他节点取得），
+ * 直到续期或重新租用成功。
+ * 作为MyBatis-Plus的IdentifierGenerator注册，实体使用 IdType.ASSIGN_ID 即可。
+ */
+@Slf4j
+@Component
+public class SnowflakeIdGenerator implements IdentifierGenerator {
+
+    // 2024-01-01T00:00:00Z
+    public static final long EPOCH = 1704067200000L;
+
+    private static final int SEQUENCE_BITS = 12;
+    private static final int WORKER_ID_BITS = 10;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    public static final int MAX_WORKER_ID = (1 << WORKER_ID_BITS) - 1;
+
+    // 单次批量申请上限
+    public static final int MAX_BATCH_SIZE = 65536;
+
+    private final WorkerIdLease workerIdLease;
+    private final int configuredWorkerId;
+    private final long maxDriftMillis;
+
+    // (毫秒 << 12) | 序号，记录最后一个已发出的值
+    private final AtomicLong state = new AtomicLong();
+    private volatile int workerId = -1;
+    // 租约到期时刻（毫秒），配置的workerId不过期
+    private volatile long leaseExpiresAt = Long.MAX_VALUE;
+
+    private final Counter driftRejectedCounter;
+    private final Counter leaseExpiredCounter;
+
+    public SnowflakeIdGenerator(WorkerIdLease workerIdLease,
+                                MeterRegistry meterRegistry,
+                                @Value("${id.worker-id:-1}") int configuredWorkerId,
+                                @Value("${id.max-drift-millis:2000}") long maxDriftMillis) {
+        if (configuredWorkerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("id.worker-id超出范围：" + configuredWorkerId);
+        }
+        this.workerIdLease = workerIdLease;
+        this.configuredWorkerId = configuredWorkerId;
+        this.maxDriftMillis = maxDriftMillis;
+
+        this.driftRejectedCounter = Counter.builder("id.drift.rejected")
+                .description("逻辑时钟领先真实时钟超限而拒绝发号的次数")
+                .register(meterRegistry);
+        this.leaseExpiredCounter = Counter.builder("id.lease.expired.rejected")
+                .description("workerId租约超时未续期而拒绝发号的次数")
+                .register(meterRegistry);
+        Gauge.builder("id.drift.millis", this, SnowflakeIdGenerator::currentDriftMillis)
+                .description("逻辑时钟领先真实时钟的毫秒数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 配置了id.worker-id则直接使用，否则从Redis租用
+     */
+    @PostConstruct
+    public void init() {
+        if (configuredWorkerId >= 0) {
+            workerId = configuredWorkerId;
+            log.info("使用配置的workerId：{}", workerId);
+            return;
+        }
+        lease();
+    }
+
+    @Override
+    public Long nextId(Object entity) {
+        return nextId();
+    }
+
+    public long nextId() {
+        int worker = currentWorkerId();
+        return compose(reserve(1), worker);
+    }
+
+    /**
+     * 一次CAS预留count个连续ID，供热点路径批量使用
+     */
+    public long[] nextIds(int count) {
+        if (count <= 0 || count > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("批量数量非法：" + count);
+        }
+        int worker = currentWorkerId();
+        long first = reserve(count);
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = compose(first + i, worker);
+        }
+        return ids;
+    }
+
+    /**
+     * 从ID中取出生成时间（毫秒时间戳）
+     */
+    public static long timestampOf(long id) {
+        return (id >>> (WORKER_ID_BITS + SEQUENCE_BITS)) + EPOCH;
+    }
+
+    /**
+     * 某时刻之前生成的ID都小于该值，可用于按时间定位游标
+     */
+    public static long minIdAt(long timestampMillis) {
+        return (timestampMillis - EPOCH) << (WORKER_ID_BITS + SEQUENCE_BITS);
+    }
+
+    @Scheduled(fixedDelayString = "${id.worker.renew-interval-millis:20000}")
+    public void renewLease() {
+        if (configuredWorkerId >= 0) {
+            return;
+        }
+        int current = workerId;
+        try {
+            long attemptedAt = System.currentTimeMillis();
+            if (current >= 0 && workerIdLease.renew(current, lastMillis())) {
+                leaseExpiresAt = attemptedAt + workerIdLease.leaseMillis();
+                return;
+            }
+            log.warn("workerId租约丢失，重新获取：workerId={}", current);
+            workerId = -1;
+            lease();
+        } catch (Exception e) {
+            // 保留workerId：租约未到期前照常发号，到期后由currentWorkerId拒绝
+            log.error("workerId续期失败：workerId={}, 租约剩余={}ms",
+                    current, leaseExpiresAt - System.currentTimeMillis(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        int current = workerId;
+        if (configuredWorkerId < 0 && current >= 0) {
+            try {
+                workerIdLease.release(current, lastMillis());
+            } catch (Exception e) {
+                log.warn("释放workerId租约失败：workerId={}", current, e);
+            }
+        }
+    }
+
+    /**
+     * 租用workerId，租约到期时刻从发起抢占时算起，偏保守
+     */
+    private void lease() {
+        long attemptedAt = System.currentTimeMillis();
+        int leased = workerIdLease.acquire();
+        advanceTo(workerIdLease.lastMillis(leased));
+        leaseExpiresAt = attemptedAt + workerIdLease.leaseMillis();
+        workerId = leased;
+    }
+
+    /**
+     * 推进逻辑时钟，返回预留区间的第一个值
+     */
+    private long reserve(int count) {
+        while (true) {
+            long now = System.currentTimeMillis() - EPOCH;
+            long prev = state.get();
+            long first = Math.max(now << SEQUENCE_BITS, prev + 1);
+            long last = first + count - 1;
+            if ((last >>> SEQUENCE_BITS) - now > maxDriftMillis) {
+                driftRejectedCounter.increment();
+                throw new IllegalStateException("时钟回拨或发号过快，逻辑时钟领先超过" + maxDriftMillis + "ms");
+            }
+            if (state.compareAndSet(prev, last)) {
+                return first;
+            }
+        }
+    }
+
+    private void advanceTo(long millis) {
+        long target = millis << SEQUENCE_BITS | SEQUENCE_MASK;
+        state.accumulateAndGet(target, Math::max);
+    }
+
+    private int currentWorkerId() {
+        int worker = workerId;
+        if (worker < 0) {
+            throw new IllegalStateException("workerId不可用");
+        }
+        if (System.currentTimeMillis() >= leaseExpiresAt) {
+            leaseExpiredCounter.increment();
+            throw new IllegalStateException("workerId租约已过期未续期：" + worker);
+        }
+        return worker;
+    }
+
+    private long lastMillis() {
+        return state.get() >>> SEQUENCE_BITS;
+    }
+
+    private double currentDriftMillis() {
+        return Math.max(0, lastMillis() - (System.currentTimeMillis() - EPOCH));
+    }
+
+    private static long compose(long clock, int worker) {
+        return ((clock >>> SEQUENCE_BITS) << (WORKER_ID_BITS + SEQUENCE_BITS))
+                | ((long) worker << SEQUENCE_BITS)
+                | (clock & SEQUENCE_MASK);
+    }
+}
@@ -0,0 +1,112 @@
+package com.distri.chat.common.id;
+
+import com.distri.chat.gateway.GatewayProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 雪花ID的workerId租约
+ * <p>
+ * 每个workerId对应Redis键 distri-chat:id:worker:{id}，SET NX EX 抢占，定期续期；
+ * 同时记录该workerId最后使用的毫秒数，下一个持有者从该时间之后继续发号，
+ * 避免节点间时钟偏差导致同一workerId下的ID重复。
+ */
+@Slf4j
+@Component
+public class WorkerIdLease {
+
+    private static final String WORKER_KEY_PREFIX = "distri-chat:id:worker:";
+    private static final String LAST_MILLIS_SUFFIX = ":last";
+    private static final Duration LAST_MILLIS_TTL = Duration.ofDays(7);
+
+    // 仅持有者可续期
+    private static final DefaultRedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then "
+                    + "return redis.call('EXPIRE', KEYS[1], ARGV[2]) end return 0", Long.class);
+
+    // 仅持有者可释放
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then "
+                    + "return redis.call('DEL', KEYS[1]) end return 0", Long.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final String owner;
+    private final long leaseSeconds;
+
+    public WorkerIdLease(RedisTemplate<String, Object> redisTemplate,
+                         GatewayProperties gatewayProperties,
+                         @Value("${id.worker.lease-seconds:60}") long leaseSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.owner = gatewayProperties.getNodeId() + "#" + UUID.randomUUID();
+        this.leaseSeconds = leaseSeconds;
+    }
+
+    /**
+     * 从随机位置开始依次尝试抢占一个空闲workerId
+     */
+    public int acquire() {
+        int start = ThreadLocalRandom.current().nextInt(SnowflakeIdGenerator.MAX_WORKER_ID + 1);
+        for (int i = 0; i <= SnowflakeIdGenerator.MAX_WORKER_ID; i++) {
+            int workerId = (start + i) & SnowflakeIdGenerator.MAX_WORKER_ID;
+            Boolean ok = redisTemplate.opsForValue()
+                    .setIfAbsent(workerKey(workerId), owner, Duration.ofSeconds(leaseSeconds));
+            if (Boolean.TRUE.equals(ok)) {
+                log.info("获取workerId租约：workerId={}, owner={}", workerId, owner);
+                return workerId;
+            }
+        }
+        throw new IllegalStateException("workerId已全部被占用");
+    }
+
+    /**
+     * 该workerId上一个持有者最后使用的毫秒数（相对纪元），无记录返回0
+     */
+    public long lastMillis(int workerId) {
+        Object value = redisTemplate.opsForValue().get(workerKey(workerId) + LAST_MILLIS_SUFFIX);
+        return value == null ? 0 : Long.parseLong(value.toString());
+    }
+
+    /**
+     * 续期并记录当前已用到的毫秒数
+     *
+     * @return false表示租约已丢失
+     */
+    public boolean renew(int workerId, long lastMillis) {
+        Long result = redisTemplate.execute(RENEW_SCRIPT, List.of(workerKey(workerId)),
+                owner, String.valueOf(leaseSeconds));
+        if (result == null || result == 0) {
+            return false;
+        }
+        saveLastMillis(workerId, lastMillis);
+        return true;
+    }
+
+    /**
+     * 租约时长（毫秒），自发起抢占或续期的时刻算起
+     */
+    public long leaseMillis() {
+        return leaseSeconds * 1000;
+    }
+
+    public void release(int workerId, long lastMillis) {
+        saveLastMillis(workerId, lastMillis);
+        redisTemplate.execute(RELEASE_SCRIPT, List.of(workerKey(workerId)), owner);
+    }
+
+    private void saveLastMillis(int workerId, long lastMillis) {
+        redisTemplate.opsForValue().set(workerKey(workerId) + LAST_MILLIS_SUFFIX,
+                String.valueOf(lastMillis), LAST_MILLIS_TTL);
+    }
+
+    private static String workerKey(int workerId) {
+        return WORKER_KEY_PREFIX + workerId;
+    }
+}
@@ -0,0 +1,109 @@
+package com.distri.chat.common.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MyBatis语句指标
+ * <p>
+ * 在Executor层按MappedStatement id（如 ...UserMapper.findByPhone）记录耗时（db.statement）与返回/影响行数（db.statement.rows）。
+ * 每个语句的计量器首次执行时创建并缓存，之后每次调用只有一次Map查找和两次记录，不分配对象。
+ * 语句是毫秒级操作，耗时与行数只发布几个固定的SLO桶，不开百分位直方图。
+ * 由MyBatis-Plus自动配置收集为插件。
+ */
+@Component
+@Intercepts({
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class}),
+        @Signature(type = Executor.class, method = "update",
+                args = {MappedStatement.class, Object.class})
+})
+public class MybatisMetricsInterceptor implements Interceptor {
+
+    // 行数分布只看量级
+    private static final double[] ROW_SLOS = {1, 10, 100, 1000};
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, StatementMeters> meters = new ConcurrentHashMap<>();
+
+    public MybatisMetricsInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        MappedStatement statement = (MappedStatement) invocation.getArgs()[0];
+        StatementMeters statementMeters = meters(statement);
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = invocation.proceed();
+        } catch (Throwable e) {
+            statementMeters.errorTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+        statementMeters.successTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (result instanceof List<?> rows) {
+            statementMeters.rows.record(rows.size());
+        } else if (result instanceof Integer affected) {
+            statementMeters.rows.record(affected);
+        }
+        return result;
+    }
+
+    private StatementMeters meters(MappedStatement statement) {
+        String id = statement.getId();
+        StatementMeters statementMeters = meters.get(id);
+        if (statementMeters == null) {
+            statementMeters = meters.computeIfAbsent(id, k -> new StatementMeters(k, statement.getSqlCommandType().name()));
+        }
+        return statementMeters;
+    }
+
+    private final class StatementMeters {
+
+        final Timer successTimer;
+        final Timer errorTimer;
+        final DistributionSummary rows;
+
+        StatementMeters(String statement, String command) {
+            this.successTimer = timer(statement, command, "success");
+            this.errorTimer = timer(statement, command, "error");
+            this.rows = DistributionSummary.builder("db.statement.rows")
+                    .description("语句返回或影响的行数")
+                    .tag("statement", statement)
+                    .tag("command", command)
+                    .serviceLevelObjectives(ROW_SLOS)
+                    .register(meterRegistry);
+        }
+
+        private Timer timer(String statement, String command, String outcome) {
+            return Timer.builder("db.statement")
+                    .description("MyBatis语句执行耗时")
+                    .tag("statement", statement)
+                    .tag("command", command)
+                    .tag("outcome", outcome)
+                    .serviceLevelObjectives(OutcomeTimer.LATENCY_SLOS)
+                    .register(meterRegistry);
+        }
+    }
+}
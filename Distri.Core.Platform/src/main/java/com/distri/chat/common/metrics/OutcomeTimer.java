@@ -0,0 +1,54 @@
+package com.distri.chat.common.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按结果（success/error）区分的一对预注册Timer
+ * 调用方自行取 System.nanoTime() 作为起点，记录时不分配对象
+ * <p>
+ * 默认只有次数、总耗时与最大值，不带直方图：任何直方图（百分位或SLO桶）都会让单次记录的开销翻倍，
+ * 微秒级的热点操作（如JWT签发验签）用默认构造；毫秒级的操作可传入几个固定SLO桶，
+ * Prometheus侧用 histogram_quantile 在这些桶上估算分位数
+ */
+public final class OutcomeTimer {
+
+    /**
+     * 毫秒级操作的SLO桶，语句指标共用
+     */
+    public static final Duration[] LATENCY_SLOS = {
+            Duration.ofMillis(1), Duration.ofMillis(10), Duration.ofMillis(100), Duration.ofSeconds(1)
+    };
+
+    private final Timer success;
+    private final Timer error;
+
+    public OutcomeTimer(MeterRegistry meterRegistry, String name, String description, String... tags) {
+        this(meterRegistry, name, description, null, tags);
+    }
+
+    /**
+     * @param slos 直方图桶上限，为空表示不发布直方图
+     */
+    public OutcomeTimer(MeterRegistry meterRegistry, String name, String description, Duration[] slos, String... tags) {
+        this.success = build(meterRegistry, name, description, slos, tags, "success");
+        this.error = build(meterRegistry, name, description, slos, tags, "error");
+    }
+
+    public void record(long startNanos, boolean succeeded) {
+        (succeeded ? success : error).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static Timer build(MeterRegistry meterRegistry, String name, String description, Duration[] slos,
+                               String[] tags, String outcome) {
+        return Timer.builder(name)
+                .description(description)
+                .tags(tags)
+                .tag("outcome", outcome)
+                .serviceLevelObjectives(slos)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,51 @@
+package com.distri.chat.common.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * 合并/节流的收益统计：收到的事件数、实际发出的事件数，以及二者算出的削减比例
+ * 削减比例 = 1 - 发出/收到，尚未收到事件时为0
+ */
+public final class ReductionMeter {
+
+    private final Counter received;
+    private final Counter emitted;
+
+    public ReductionMeter(MeterRegistry meterRegistry, String name, String description, String... tags) {
+        this.received = Counter.builder(name + ".received")
+                .description(description + "：收到的事件数")
+                .tags(tags)
+                .register(meterRegistry);
+        this.emitted = Counter.builder(name + ".emitted")
+                .description(description + "：合并后发出的事件数")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder(name + ".reduction.ratio", this, ReductionMeter::ratio)
+                .description(description + "：削减比例")
+                .tags(tags)
+                .register(meterRegistry);
+    }
+
+    public void received() {
+        received.increment();
+    }
+
+    public void emitted(long count) {
+        emitted.increment(count);
+    }
+
+    public double receivedCount() {
+        return received.count();
+    }
+
+    public double emittedCount() {
+        return emitted.count();
+    }
+
+    public double ratio() {
+        double in = received.count();
+        return in == 0 ? 0 : 1 - emitted.count() / in;
+    }
+}
@@ -0,0 +1,37 @@
+package com.distri.chat.common.outbox;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 发件箱事件
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@TableName("event_outbox")
+public class OutboxEvent {
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    @TableField(value = "topic")
+    private String topic;
+
+    @TableField(value = "event_key")
+    private String eventKey;
+
+    @TableField(value = "payload")
+    private String payload;
+
+    // 写入时间（毫秒），用于判断自增ID空洞是否为已回滚的事务
+    @TableField(value = "create_time")
+    private Long createTime;
+}
@@ -0,0 +1,36 @@
+package com.distri.chat.common.outbox;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+/**
+ * 发件箱数据访问层
+ */
+@Mapper
+public interface OutboxMapper extends BaseMapper<OutboxEvent> {
+
+    /**
+     * 按id游标顺序读取一批待投递事件
+     */
+    @Select("SELECT id, topic, event_key, payload, create_time FROM event_outbox "
+            + "WHERE id > #{afterId} ORDER BY id LIMIT #{limit}")
+    List<OutboxEvent> findAfter(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    /**
+     * 读取id区间内的事件，用于复查跳过的空洞中是否有迟到提交的行
+     */
+    @Select("SELECT id, topic, event_key, payload, create_time FROM event_outbox "
+            + "WHERE id BETWEEN #{fromId} AND #{toId} ORDER BY id LIMIT #{limit}")
+    List<OutboxEvent> findBetween(@Param("fromId") long fromId, @Param("toId") long toId, @Param("limit") int limit);
+
+    /**
+     * 删除一段已投递的连续id，区间内的行须全部已投递
+     */
+    @Delete("DELETE FROM event_outbox WHERE id BETWEEN #{fromId} AND #{toId}")
+    int deleteRange(@Param("fromId") long fromId, @Param("toId") long toId);
+}
@@ -0,0 +1,295 @@
+package com.distri.chat.common.outbox;
+
+import com.distri.chat.gateway.GatewayProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 发件箱中继
+ * <p>
+ * 集群内通过Redis租约选出唯一的中继节点，按id游标顺序批量读取发件箱，整批发送到Kafka（幂等生产者）
+ * 并等待全部确认后推进游标，再按连续id区间删除本批已投递的行（不删除未读到的行）。发送失败时游标不动，下轮从原位置重发；
+ * 进程崩溃后新的中继从表头继续，已发送未删除的事件会再发一次，消费方需按事件幂等处理。
+ * <p>
+ * 自增id按分配顺序而非提交顺序可见：遇到id空洞时，空洞之后的行写入未超过 outbox.relay.gap-timeout-millis
+ * 则先停在空洞前等待未提交的事务，超过则视为事务已回滚而跳过。写发件箱的事务耗时须小于该值。
+ * 成为中继后不知道表头之前是否还有未提交的事务，在投递出第一批之前每轮从表头读取，第一行同样按空洞之后的行对待；
+ * 跳过的空洞在 outbox.relay.gap-recheck-millis 内每轮复查，超时后才提交的行仍会补发。
+ * 中继等待Kafka确认可能阻塞，使用独立线程，不占用共享的@Scheduled调度线程。
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    private static final String LEASE_KEY = "distri-chat:outbox:relay";
+
+    private static final long UNKNOWN_CURSOR = -1;
+
+    private static final int MAX_SKIPPED_GAPS = 1024;
+
+    // 仅持有者可续期
+    private static final DefaultRedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then "
+                    + "return redis.call('EXPIRE', KEYS[1], ARGV[2]) end return 0", Long.class);
+
+    // 仅持有者可释放
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then "
+                    + "return redis.call('DEL', KEYS[1]) end return 0", Long.class);
+
+    private final OutboxMapper outboxMapper;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final String owner;
+    private final int batchSize;
+    private final long leaseSeconds;
+    private final long gapTimeoutMillis;
+    private final long gapRecheckMillis;
+    private final long sendTimeoutMillis;
+    private final long intervalMillis;
+    private final ScheduledExecutorService executor;
+
+    // 以下状态只在中继线程上访问
+    private boolean leader;
+    private long leaseRenewedAt;
+    // 本中继最后投递的id；未知时从表头读取，表头之前可能还有未提交的事务
+    private long cursor = UNKNOWN_CURSOR;
+    private final ArrayDeque<SkippedGap> skippedGaps = new ArrayDeque<>();
+
+    private final AtomicLong lagMillis = new AtomicLong();
+    private final Counter publishedCounter;
+    private final Timer batchTimer;
+    private final Timer lagTimer;
+
+    public OutboxRelay(OutboxMapper outboxMapper,
+                       KafkaTemplate<String, String> kafkaTemplate,
+                       RedisTemplate<String, Object> redisTemplate,
+                       GatewayProperties gatewayProperties,
+                       MeterRegistry meterRegistry,
+                       @Value("${outbox.relay.batch-size:1000}") int batchSize,
+                       @Value("${outbox.relay.lease-seconds:30}") long leaseSeconds,
+                       @Value("${outbox.relay.gap-timeout-millis:10000}") long gapTimeoutMillis,
+                       @Value("${outbox.relay.gap-recheck-millis:60000}") long gapRecheckMillis,
+                       @Value("${outbox.relay.send-timeout-millis:10000}") long sendTimeoutMillis,
+                       @Value("${outbox.relay.interval-millis:100}") long intervalMillis) {
+        this.outboxMapper = outboxMapper;
+        this.kafkaTemplate = kafkaTemplate;
+        this.redisTemplate = redisTemplate;
+        this.owner = gatewayProperties.getNodeId() + "#" + UUID.randomUUID();
+        this.batchSize = batchSize;
+        this.leaseSeconds = leaseSeconds;
+        this.gapTimeoutMillis = gapTimeoutMillis;
+        this.gapRecheckMillis = gapRecheckMillis;
+        this.sendTimeoutMillis = sendTimeoutMillis;
+        this.intervalMillis = intervalMillis;
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("outbox-relay-");
+        threadFactory.setDaemon(true);
+        this.executor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+
+        this.publishedCounter = Counter.builder("outbox.relay.published")
+                .description("中继投递到Kafka的事件数")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("outbox.relay.batch")
+                .description("单批读取、发送并确认的耗时")
+                .register(meterRegistry);
+        this.lagTimer = Timer.builder("outbox.relay.lag")
+                .description("事件从写入发件箱到投递到Kafka的延迟")
+                .register(meterRegistry);
+        Gauge.builder("outbox.relay.lag.current", lagMillis, AtomicLong::get)
+                .description("最近一批中最早事件的投递延迟（毫秒），无积压时为0")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        executor.scheduleWithFixedDelay(this::relay, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void relay() {
+        try {
+            while (holdLease() && relayBatch() == batchSize) {
+                // 整批读满说明仍有积压，继续下一批
+            }
+        } catch (Exception e) {
+            log.error("发件箱中继失败，游标={}", cursor, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(sendTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (leader) {
+            redisTemplate.execute(RELEASE_SCRIPT, List.of(LEASE_KEY), owner);
+            leader = false;
+        }
+    }
+
+    /**
+     * @return 本批投递的事件数
+     */
+    private int relayBatch() throws Exception {
+        long now = System.currentTimeMillis();
+        recheckSkippedGaps(now);
+
+        List<OutboxEvent> rows = outboxMapper.findAfter(Math.max(cursor, 0), batchSize);
+        if (rows.isEmpty()) {
+            lagMillis.set(0);
+            return 0;
+        }
+
+        List<OutboxEvent> ready = readyPrefix(rows, now);
+        if (ready.isEmpty()) {
+            return 0;
+        }
+
+        publish(ready, now);
+        cursor = ready.get(ready.size() - 1).getId();
+        return ready.size();
+    }
+
+    /**
+     * 整批发送并等待全部确认，再删除这些行
+     */
+    private void publish(List<OutboxEvent> events, long now) throws Exception {
+        long startTime = System.nanoTime();
+        List<CompletableFuture<SendResult<String, String>>> futures = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            futures.add(kafkaTemplate.send(event.getTopic(), event.getEventKey(), event.getPayload()));
+        }
+        kafkaTemplate.flush();
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(sendTimeoutMillis, TimeUnit.MILLISECONDS);
+        batchTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+
+        long oldestLag = now - events.get(0).getCreateTime();
+        lagTimer.record(oldestLag, TimeUnit.MILLISECONDS);
+        lagMillis.set(oldestLag);
+        publishedCounter.increment(events.size());
+
+        // 按连续id区间删除，区间内只有本批的行；一批至多batchSize行，不需再分批
+        long from = events.get(0).getId();
+        long to = from;
+        for (int i = 1; i < events.size(); i++) {
+            long id = events.get(i).getId();
+            if (id != to + 1) {
+                outboxMapper.deleteRange(from, to);
+                from = id;
+            }
+            to = id;
+        }
+        outboxMapper.deleteRange(from, to);
+    }
+
+    /**
+     * 取从游标开始连续的一段；遇到尚未超时的id空洞时停在空洞前，超时跳过的空洞记下待复查。
+     * 游标未知时第一行之前可能有未提交的事务，同样等到第一行超时
+     */
+    private List<OutboxEvent> readyPrefix(List<OutboxEvent> rows, long now) {
+        List<OutboxEvent> ready = new ArrayList<>(rows.size());
+        long expected = cursor + 1;
+        for (OutboxEvent row : rows) {
+            boolean known = cursor != UNKNOWN_CURSOR || !ready.isEmpty();
+            boolean gap = !known || row.getId() != expected;
+            if (gap && now - row.getCreateTime() < gapTimeoutMillis) {
+                break;
+            }
+            if (known && row.getId() != expected) {
+                skipGap(expected, row.getId() - 1, now);
+            }
+            ready.add(row);
+            expected = row.getId() + 1;
+        }
+        return ready;
+    }
+
+    private void skipGap(long fromId, long toId, long now) {
+        if (skippedGaps.size() == MAX_SKIPPED_GAPS) {
+            SkippedGap dropped = skippedGaps.poll();
+            log.warn("发件箱跳过的空洞过多，不再复查：[{}, {}]", dropped.fromId(), dropped.toId());
+        }
+        skippedGaps.offer(new SkippedGap(fromId, toId, now));
+    }
+
+    /**
+     * 补发跳过的空洞中超时后才提交的行；复查期满的空洞移出
+     */
+    private void recheckSkippedGaps(long now) throws Exception {
+        Iterator<SkippedGap> iterator = skippedGaps.iterator();
+        while (iterator.hasNext()) {
+            SkippedGap gap = iterator.next();
+            List<OutboxEvent> late = outboxMapper.findBetween(gap.fromId(), gap.toId(), batchSize);
+            if (!late.isEmpty()) {
+                log.warn("发件箱空洞[{}, {}]中有超时后提交的事件，补发{}条", gap.fromId(), gap.toId(), late.size());
+                publish(late, now);
+            }
+            if (now - gap.skippedAt() >= gapRecheckMillis) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * 持有或抢占中继租约；租约丢失后游标作废，重新成为中继时从表头恢复
+     */
+    private boolean holdLease() {
+        long now = System.currentTimeMillis();
+        if (leader) {
+            if (now - leaseRenewedAt < TimeUnit.SECONDS.toMillis(leaseSeconds) / 3) {
+                return true;
+            }
+            Long renewed = redisTemplate.execute(RENEW_SCRIPT, List.of(LEASE_KEY), owner, String.valueOf(leaseSeconds));
+            if (renewed != null && renewed == 1) {
+                leaseRenewedAt = now;
+                return true;
+            }
+            log.warn("发件箱中继租约丢失：owner={}", owner);
+            leader = false;
+            cursor = UNKNOWN_CURSOR;
+            skippedGaps.clear();
+        }
+
+        Boolean acquired = redisTemplate.opsForValue().setIfAbsent(LEASE_KEY, owner, Duration.ofSeconds(leaseSeconds));
+        if (!Boolean.TRUE.equals(acquired)) {
+            return false;
+        }
+        leader = true;
+        leaseRenewedAt = now;
+        cursor = UNKNOWN_CURSOR;
+        skippedGaps.clear();
+        log.info("成为发件箱中继：owner={}", owner);
+        return true;
+    }
+
+    private record SkippedGap(long fromId, long toId, long skippedAt) {
+    }
+}
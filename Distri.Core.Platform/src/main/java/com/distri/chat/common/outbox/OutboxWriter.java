@@ -0,0 +1,39 @@
+package com.distri.chat.common.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 发件箱写入
+ * 必须在业务事务内调用，事件与业务数据一起提交或回滚；请求路径上不访问Kafka
+ */
+@Component
+public class OutboxWriter {
+
+    private final OutboxMapper outboxMapper;
+    private final ObjectMapper objectMapper;
+
+    public OutboxWriter(OutboxMapper outboxMapper, ObjectMapper objectMapper) {
+        this.outboxMapper = outboxMapper;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(String topic, String key, Object event) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("发件箱事件序列化失败：" + event, e);
+        }
+        outboxMapper.insert(OutboxEvent.builder()
+                .topic(topic)
+                .eventKey(key)
+                .payload(payload)
+                .createTime(System.currentTimeMillis())
+                .build());
+    }
+}
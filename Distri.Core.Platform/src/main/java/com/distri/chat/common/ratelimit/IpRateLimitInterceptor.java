@@ -0,0 +1,74 @@
+package com.distri.chat.common.ratelimit;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * 按来源IP限流
+ * 挂在认证接口上，在进入BCrypt与查库之前拦下暴力尝试
+ * <p>
+ * 部署在反向代理之后时开启 ratelimit.auth.trust-forwarded-for，并把 ratelimit.auth.trusted-proxy-hops 设为受信代理的层数。
+ * X-Forwarded-For的左侧由客户端任意填写，代理只会在右侧追加，因此从右往左数第hops个地址才是最外层代理看到的对端地址。
+ * 最外层代理必须用对端地址覆盖该头而不是追加到客户端带来的值上（nginx：proxy_set_header X-Forwarded-For $remote_addr），
+ * 内层代理再依次追加；否则hops配置与实际层数不符时，取到的仍可能是客户端伪造的地址。
+ */
+@Component
+public class IpRateLimitInterceptor implements HandlerInterceptor {
+
+    private static final String FORWARDED_FOR = "X-Forwarded-For";
+
+    private final RateLimiter limiter;
+    private final boolean trustForwardedFor;
+    private final int trustedProxyHops;
+
+    public IpRateLimitInterceptor(RateLimiterRegistry rateLimiterRegistry,
+                                  @Value("${ratelimit.auth.ip.permits-per-second:1}") double permitsPerSecond,
+                                  @Value("${ratelimit.auth.ip.burst:20}") int burst,
+                                  @Value("${ratelimit.auth.trust-forwarded-for:false}") boolean trustForwardedFor,
+                                  @Value("${ratelimit.auth.trusted-proxy-hops:1}") int trustedProxyHops) {
+        if (trustedProxyHops < 1) {
+            throw new IllegalArgumentException("ratelimit.auth.trusted-proxy-hops至少为1");
+        }
+        this.limiter = rateLimiterRegistry.limiter("auth-ip", permitsPerSecond, burst);
+        this.trustForwardedFor = trustForwardedFor;
+        this.trustedProxyHops = trustedProxyHops;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        limiter.acquire(clientIp(request), "请求过于频繁，请稍后再试");
+        return true;
+    }
+
+    private String clientIp(HttpServletRequest request) {
+        if (trustForwardedFor) {
+            String forwarded = request.getHeader(FORWARDED_FOR);
+            if (forwarded != null && !forwarded.isBlank()) {
+                String ip = fromRight(forwarded, trustedProxyHops);
+                if (!ip.isEmpty()) {
+                    return ip;
+                }
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    /**
+     * 从右往左取第hops个地址；地址数不足hops时全部由受信代理写入，取最左一个
+     */
+    private static String fromRight(String forwarded, int hops) {
+        int end = forwarded.length();
+        for (int i = 1; i < hops; i++) {
+            int comma = forwarded.lastIndexOf(',', end - 1);
+            if (comma < 0) {
+                break;
+            }
+            end = comma;
+        }
+        int start = forwarded.lastIndexOf(',', end - 1) + 1;
+        return forwarded.substring(start, end).trim();
+    }
+}
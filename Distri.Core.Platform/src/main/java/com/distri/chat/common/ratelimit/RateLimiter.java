@@ -0,0 +1,90 @@
+package com.distri.chat.common.ratelimit;
+
+import com.distri.chat.common.exception.BusinessException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按键（IP、手机号、userId等）限流
+ * <p>
+ * 每个键一个本地令牌桶，放行时只在本地计数；由RateLimiterRegistry定期把各键的增量批量累加到Redis，
+ * 并把其他节点同期的消耗从本地桶中扣除。集群总速率在一个同步周期内可能短暂超出配置值。
+ * 长时间未访问的键自动淘汰。
+ */
+public class RateLimiter {
+
+    private final String name;
+    private final double permitsPerSecond;
+    private final int burst;
+    private final Cache<String, Entry> entries;
+    private final Counter rejectedCounter;
+
+    RateLimiter(String name, double permitsPerSecond, int burst, long maxKeys, Duration idleTimeout, Counter rejectedCounter) {
+        this.name = name;
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(idleTimeout)
+                .build();
+        this.rejectedCounter = rejectedCounter;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean tryAcquire(String key) {
+        Entry entry = entries.get(key, k -> new Entry(new TokenBucket(permitsPerSecond, burst)));
+        entry.touched = true;
+        if (!entry.bucket.tryAcquire()) {
+            rejectedCounter.increment();
+            return false;
+        }
+        entry.pending.increment();
+        return true;
+    }
+
+    /**
+     * 取不到令牌时抛出429
+     */
+    public void acquire(String key, String message) {
+        if (!tryAcquire(key)) {
+            throw BusinessException.tooManyRequests(message);
+        }
+    }
+
+    long estimatedSize() {
+        return entries.estimatedSize();
+    }
+
+    Map<String, Entry> activeEntries() {
+        return entries.asMap();
+    }
+
+    /**
+     * 单个键的状态；pending/touched 由请求线程写，其余字段只在同步线程上访问
+     */
+    static final class Entry {
+
+        final TokenBucket bucket;
+
+        // 上次同步以来本节点放行的次数
+        final LongAdder pending = new LongAdder();
+
+        // 上次同步以来是否被访问过
+        volatile boolean touched;
+
+        // 上次同步后Redis中的全局计数，-1表示尚未同步
+        long lastGlobal = -1;
+
+        Entry(TokenBucket bucket) {
+            this.bucket = bucket;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.distri.chat.common.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 限流器注册与跨节点同步
+ * <p>
+ * 每个同步周期只对本周期内被访问过的键发一次流水线：INCRBY distri-chat:ratelimit:{限流器}:{键} 本地增量 并续期，
+ * 返回的全局计数减去上次看到的计数与本地增量，即为其他节点同期的消耗，从本地桶中扣除。
+ * 请求路径上不访问Redis；Redis不可用时各节点退化为单机限流。
+ */
+@Slf4j
+@Component
+public class RateLimiterRegistry {
+
+    private static final String KEY_PREFIX = "distri-chat:ratelimit:";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final long syncIntervalMillis;
+    private final long maxKeys;
+    private final Map<String, RateLimiter> limiters = new ConcurrentHashMap<>();
+
+    public RateLimiterRegistry(RedisTemplate<String, Object> redisTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${ratelimit.sync-interval-millis:1000}") long syncIntervalMillis,
+                               @Value("${ratelimit.max-keys:100000}") long maxKeys) {
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.syncIntervalMillis = syncIntervalMillis;
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * 获取或创建限流器；同名限流器只创建一次
+     */
+    public RateLimiter limiter(String name, double permitsPerSecond, int burst) {
+        return limiters.computeIfAbsent(name, n -> {
+            // 空闲到桶已回满再淘汰，淘汰后重建的新桶与原桶等价
+            long refillMillis = (long) (TimeUnit.SECONDS.toMillis(burst) / permitsPerSecond);
+            Duration idleTimeout = Duration.ofMillis(Math.max(refillMillis, syncIntervalMillis * 10));
+            Counter rejected = Counter.builder("ratelimit.rejected")
+                    .description("被限流拒绝的请求数")
+                    .tag("limiter", n)
+                    .register(meterRegistry);
+            RateLimiter limiter = new RateLimiter(n, permitsPerSecond, burst, maxKeys, idleTimeout, rejected);
+            Gauge.builder("ratelimit.keys", limiter, RateLimiter::estimatedSize)
+                    .description("本地跟踪的限流键数")
+                    .tag("limiter", n)
+                    .register(meterRegistry);
+            return limiter;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${ratelimit.sync-interval-millis:1000}")
+    public void sync() {
+        for (RateLimiter limiter : limiters.values()) {
+            try {
+                sync(limiter);
+            } catch (Exception e) {
+                log.warn("限流计数同步失败：{}", limiter.getName(), e);
+            }
+        }
+    }
+
+    private void sync(RateLimiter limiter) {
+        List<String> keys = new ArrayList<>();
+        List<RateLimiter.Entry> batch = new ArrayList<>();
+        List<Long> deltas = new ArrayList<>();
+        for (Map.Entry<String, RateLimiter.Entry> e : limiter.activeEntries().entrySet()) {
+            RateLimiter.Entry entry = e.getValue();
+            if (!entry.touched) {
+                // 空闲期间的全局计数不再可比，下次访问时重新对齐
+                entry.lastGlobal = -1;
+                continue;
+            }
+            entry.touched = false;
+            keys.add(KEY_PREFIX + limiter.getName() + ":" + e.getKey());
+            batch.add(entry);
+            deltas.add(entry.pending.sumThenReset());
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        long ttlMillis = syncIntervalMillis * 10;
+        List<Object> results;
+        try {
+            results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (int i = 0; i < keys.size(); i++) {
+                    byte[] key = RedisSerializer.string().serialize(keys.get(i));
+                    connection.stringCommands().incrBy(key, deltas.get(i));
+                    connection.keyCommands().pExpire(key, ttlMillis);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            // 增量放回，下个周期重试
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).pending.add(deltas.get(i));
+                batch.get(i).touched = true;
+            }
+            throw e;
+        }
+
+        long now = System.nanoTime();
+        for (int i = 0; i < batch.size(); i++) {
+            RateLimiter.Entry entry = batch.get(i);
+            long global = ((Number) results.get(i * 2)).longValue();
+            long delta = deltas.get(i);
+            // 首次同步或Redis计数已过期重置时不扣除
+            if (entry.lastGlobal >= 0 && global >= entry.lastGlobal + delta) {
+                entry.bucket.charge(global - entry.lastGlobal - delta, now);
+            }
+            entry.lastGlobal = global;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.distri.chat.common.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 无锁令牌桶
+ * <p>
+ * 以GCRA形式实现：只保存一个"理论到达时间"tat，取令牌即把tat推后一个令牌间隔，
+ * tat超出当前时间一个桶容量的时长即为桶空。一次CAS完成，不加锁、不分配对象，可在EventLoop上调用。
+ */
+public final class TokenBucket {
+
+    // 生成一个令牌所需的纳秒数
+    private final long intervalNanos;
+
+    // 桶满时可透支的总时长
+    private final long burstNanos;
+
+    private final AtomicLong tat;
+
+    public TokenBucket(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("令牌桶速率与容量必须为正数");
+        }
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.burstNanos = intervalNanos * burst;
+        this.tat = new AtomicLong(System.nanoTime());
+    }
+
+    public boolean tryAcquire() {
+        return tryAcquire(System.nanoTime());
+    }
+
+    public boolean tryAcquire(long nowNanos) {
+        while (true) {
+            long current = tat.get();
+            long next = Math.max(current, nowNanos) + intervalNanos;
+            if (next - nowNanos > burstNanos) {
+                return false;
+            }
+            if (tat.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 扣除在别处消耗的令牌（如其他节点上的请求），最多扣到桶空
+     */
+    public void charge(long permits, long nowNanos) {
+        if (permits <= 0) {
+            return;
+        }
+        long cost = permits > burstNanos / intervalNanos ? burstNanos : permits * intervalNanos;
+        tat.getAndUpdate(current -> Math.min(Math.max(current, nowNanos) + cost, nowNanos + burstNanos));
+    }
+}
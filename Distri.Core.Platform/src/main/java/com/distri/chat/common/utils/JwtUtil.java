@@ -1,22 +1,38 @@
 package com.distri.chat.common.utils;
 
+import com.distri.chat.common.auth.TokenRevocationService;
 import com.distri.chat.common.exception.BusinessException;
+import com.distri.chat.common.metrics.OutcomeTimer;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.Date;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 /**
  * JWT工具类
  * 负责JWT token的生成、解析和验证
+ * <p>
+ * 密钥与解析器在启动时构建一次并复用；已验签的token按剩余有效期缓存，
+ * 同一token重复校验（握手、REST调用）时不再重复执行HMAC。
+ * 验签通过后再查本地吊销名单，已吊销（登出/踢下线）的token被拒绝。
+ * 访问令牌有效期较短并带随机抖动，过期后由刷新令牌续期，避免集中过期引发重新登录潮。
  */
 @Component
 public class JwtUtil {
@@ -27,9 +43,53 @@ public class JwtUtil {
     @Value("${jwt.secret:distriChat2025SecretKeyForJwtTokenGeneration}")
     private String jwtSecret;
 
-    // JWT过期时间（小时）
-    @Value("${jwt.expiration-hours:24}")
-    private int jwtExpirationHours;
+    // 访问令牌有效期（分钟），到期前客户端用刷新令牌换取新令牌
+    @Value("${jwt.access-expiration-minutes:30}")
+    private long accessExpirationMinutes;
+
+    // 有效期随机缩短的最大比例，使各客户端的续期时间错开
+    @Value("${jwt.access-expiration-jitter:0.2}")
+    private double accessExpirationJitter;
+
+    // 已验签token缓存的最大条目数
+    @Value("${jwt.cache.max-size:100000}")
+    private long claimsCacheMaxSize;
+
+    private final MeterRegistry meterRegistry;
+
+    private final TokenRevocationService tokenRevocationService;
+
+    private SecretKey secretKey;
+
+    private JwtParser jwtParser;
+
+    private Cache<String, JwtClaims> claimsCache;
+
+    private OutcomeTimer signTimer;
+
+    private OutcomeTimer verifyTimer;
+
+    public JwtUtil(MeterRegistry meterRegistry, TokenRevocationService tokenRevocationService) {
+        this.meterRegistry = meterRegistry;
+        this.tokenRevocationService = tokenRevocationService;
+    }
+
+    @PostConstruct
+    public void init() {
+        this.secretKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        this.jwtParser = Jwts.parser()
+                .verifyWith(secretKey)
+                .build();
+        this.claimsCache = Caffeine.newBuilder()
+                .maximumSize(claimsCacheMaxSize)
+                .expireAfter(new ClaimsExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, claimsCache, "jwt.claims");
+        this.signTimer = new OutcomeTimer(meterRegistry, "auth.jwt", "JWT签发与验签耗时", "op", "sign");
+        this.verifyTimer = new OutcomeTimer(meterRegistry, "auth.jwt", "JWT签发与验签耗时", "op", "verify");
+        logger.info("JWT认证组件初始化完成，验签缓存容量={}", claimsCacheMaxSize);
+    }
 
     /**
      * 生成JWT token
@@ -39,44 +99,70 @@ public class JwtUtil {
      * @return JWT token字符串
      */
     public String generateToken(Long userId, String clientId) {
+        long start = System.nanoTime();
+        boolean succeeded = false;
         try {
-            LocalDateTime now = LocalDateTime.now();
-            LocalDateTime expiration = now.plusHours(jwtExpirationHours);
-
-            SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+            Instant now = Instant.now();
+            long lifeSeconds = TimeUnit.MINUTES.toSeconds(accessExpirationMinutes);
+            long jitterSeconds = (long) (lifeSeconds * accessExpirationJitter * ThreadLocalRandom.current().nextDouble());
+            Instant expiration = now.plusSeconds(lifeSeconds - jitterSeconds);
 
-            return Jwts.builder()
+            String token = Jwts.builder()
                     .subject(userId.toString())                    // 用户ID作为subject
                     .claim("user_id", userId)                      // 用户ID
                     .claim("client_id", clientId)                  // 设备ID
                     .claim("type", "access_token")                 // token类型
                     .id(UUID.randomUUID().toString())              // token唯一标识
-                    .issuedAt(Date.from(now.atZone(ZoneId.systemDefault()).toInstant()))
-                    .expiration(Date.from(expiration.atZone(ZoneId.systemDefault()).toInstant()))
-                    .signWith(key, Jwts.SIG.HS256)
+                    .issuedAt(Date.from(now))
+                    .expiration(Date.from(expiration))
+                    .signWith(secretKey, Jwts.SIG.HS256)
                     .compact();
+            succeeded = true;
+            return token;
 
         } catch (Exception e) {
             logger.error("生成JWT token失败", e);
             throw BusinessException.business("生成访问令牌失败");
+        } finally {
+            signTimer.record(start, succeeded);
         }
     }
 
     /**
      * 解析JWT token
+     * 优先命中验签缓存，未命中时验签并写入缓存；已吊销的token抛出未授权
      *
      * @param token JWT token字符串
      * @return JwtClaims 包含用户信息的对象
      */
     public JwtClaims parseToken(String token) {
-        try {
-            SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        if (StringUtils.isBlank(token)) {
+            throw BusinessException.unauthorized("访问令牌无效");
+        }
+
+        JwtClaims claims = claimsCache.getIfPresent(token);
+        if (claims == null) {
+            claims = verifyToken(token);
+            claimsCache.put(token, claims);
+        }
 
-            Claims claims = Jwts.parser()
-                    .verifyWith(key)
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
+        if (tokenRevocationService.isRevoked(claims.getJwtId())) {
+            throw BusinessException.unauthorized("访问令牌已失效，请重新登录");
+        }
+        return claims;
+    }
+
+    /**
+     * 验签并解析JWT token（不经过缓存）
+     *
+     * @param token JWT token字符串
+     * @return JwtClaims 包含用户信息的对象
+     */
+    public JwtClaims verifyToken(String token) {
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            Claims claims = jwtParser.parseSignedClaims(token).getPayload();
 
             Long userId = claims.get("user_id", Long.class);
             String clientId = claims.get("client_id", String.class);
@@ -85,8 +171,12 @@ public class JwtUtil {
                 throw BusinessException.unauthorized("token格式错误");
             }
 
-            return new JwtClaims(userId, clientId, claims.getId(), claims.getExpiration());
+            JwtClaims result = new JwtClaims(userId, clientId, claims.getId(), claims.getExpiration());
+            succeeded = true;
+            return result;
 
+        } catch (BusinessException e) {
+            throw e;
         } catch (ExpiredJwtException e) {
             logger.warn("JWT token已过期: {}", e.getMessage());
             throw BusinessException.unauthorized("访问令牌已过期，请重新登录");
@@ -105,6 +195,8 @@ public class JwtUtil {
         } catch (Exception e) {
             logger.error("解析JWT token失败", e);
             throw BusinessException.unauthorized("访问令牌解析失败");
+        } finally {
+            verifyTimer.record(start, succeeded);
         }
     }
 
@@ -143,6 +235,28 @@ public class JwtUtil {
         return parseToken(token).getClientId();
     }
 
+    /**
+     * 缓存条目按token自身的过期时间失效
+     */
+    private static class ClaimsExpiry implements Expiry<String, JwtClaims> {
+
+        @Override
+        public long expireAfterCreate(String token, JwtClaims claims, long currentTime) {
+            long remainingMillis = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String token, JwtClaims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(token, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String token, JwtClaims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
     /**
      * JWT Claims封装类
      */
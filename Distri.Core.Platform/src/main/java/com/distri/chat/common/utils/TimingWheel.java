@@ -0,0 +1,91 @@
+package com.distri.chat.common.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 哈希时间轮
+ * <p>
+ * 槽数为2的幂，每个刻度只处理当前槽中的元素，由回调决定移出还是按剩余时间重新挂入后面的槽；
+ * 超过一圈的延迟先挂到最远的槽，届时回调再次判断。挂入与处理均为O(1)，由单个后台线程推进。
+ * 回调在时间轮线程上执行，不应阻塞。
+ */
+@Slf4j
+public final class TimingWheel<T> {
+
+    @FunctionalInterface
+    public interface TickHandler<T> {
+
+        /**
+         * @return 需要再次检查时的剩余毫秒，小于等于0表示移出时间轮
+         */
+        long onTick(T item, long now);
+    }
+
+    private final long tickMillis;
+    private final int mask;
+    private final ConcurrentLinkedQueue<T>[] buckets;
+    private final TickHandler<T> handler;
+    private final ScheduledExecutorService executor;
+
+    // 只由时间轮线程推进，其他线程读取后计算挂入的槽
+    private volatile long tick;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(String threadNamePrefix, long tickMillis, long maxDelayMillis, TickHandler<T> handler) {
+        this.tickMillis = Math.max(1, tickMillis);
+        this.handler = handler;
+
+        int wheelSize = Integer.highestOneBit((int) Math.max(2, maxDelayMillis / this.tickMillis + 1) * 2 - 1);
+        this.mask = wheelSize - 1;
+        this.buckets = new ConcurrentLinkedQueue[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new ConcurrentLinkedQueue<>();
+        }
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(threadNamePrefix);
+        threadFactory.setDaemon(true);
+        this.executor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    public void start() {
+        executor.scheduleAtFixedRate(this::advance, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 挂入时间轮，至少在下一个刻度才会被处理
+     */
+    public void schedule(T item, long delayMillis) {
+        long ticks = Math.min(Math.max(1, (delayMillis + tickMillis - 1) / tickMillis), mask);
+        buckets[(int) ((tick + ticks) & mask)].offer(item);
+    }
+
+    private void advance() {
+        long current = tick + 1;
+        tick = current;
+        ConcurrentLinkedQueue<T> bucket = buckets[(int) (current & mask)];
+        long now = System.currentTimeMillis();
+
+        // 重新挂入的元素至少到下一个刻度，不会回到当前槽
+        T item;
+        while ((item = bucket.poll()) != null) {
+            try {
+                long remaining = handler.onTick(item, now);
+                if (remaining > 0) {
+                    schedule(item, remaining);
+                }
+            } catch (Exception e) {
+                log.error("时间轮回调异常，移出元素：{}", item, e);
+            }
+        }
+    }
+}
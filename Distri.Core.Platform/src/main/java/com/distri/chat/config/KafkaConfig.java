@@ -1,12 +1,32 @@
 package com.distri.chat.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.ssl.SslBundles;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerConsumerListener;
+import org.springframework.kafka.core.MicrometerProducerListener;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+
+import java.util.Map;
 
 /**
  * Kafka配置类
@@ -18,6 +38,29 @@ public class KafkaConfig {
 
     private static final Logger logger = LoggerFactory.getLogger(KafkaConfig.class);
 
+    public static final String MESSAGE_TOPIC = "distri-chat-v1-message";
+
+    public static final String USER_EVENT_TOPIC = "distri-chat-v1-user-event";
+
+    /**
+     * 批量消费监听容器工厂
+     */
+    public static final String BATCH_LISTENER_FACTORY = "batchKafkaListenerContainerFactory";
+
+    /**
+     * 在Netty EventLoop上发送聊天消息所用的模板
+     */
+    public static final String MESSAGE_KAFKA_TEMPLATE = "messageKafkaTemplate";
+
+    @Value("${kafka.topic.message.partitions:3}")
+    private int messagePartitions;
+
+    @Value("${kafka.topic.user-event.partitions:3}")
+    private int userEventPartitions;
+
+    @Value("${kafka.topic.replicas:1}")
+    private int replicas;
+
     public KafkaConfig() {
         logger.info("Kafka配置已加载，开始初始化必需的Topics");
     }
@@ -27,9 +70,9 @@ public class KafkaConfig {
      */
     @Bean
     public NewTopic messageTopic() {
-        return TopicBuilder.name("distri-chat-v1-message")
-                .partitions(3)
-                .replicas(1)
+        return TopicBuilder.name(MESSAGE_TOPIC)
+                .partitions(messagePartitions)
+                .replicas(replicas)
                 .build();
     }
 
@@ -38,9 +81,92 @@ public class KafkaConfig {
      */
     @Bean
     public NewTopic userEventTopic() {
-        return TopicBuilder.name("distri-chat-v1-user-event")
-                .partitions(3)
-                .replicas(1)
+        return TopicBuilder.name(USER_EVENT_TOPIC)
+                .partitions(userEventPartitions)
+                .replicas(replicas)
                 .build();
     }
+
+    /**
+     * 生产者工厂
+     * 在spring.kafka.producer配置基础上开启幂等与压缩，并用linger/batch攒批提高吞吐；
+     * 客户端指标（发送速率、请求耗时、批大小等）注册到MeterRegistry
+     */
+    @Bean
+    public ProducerFactory<String, String> producerFactory(
+            KafkaProperties kafkaProperties,
+            SslBundles sslBundles,
+            MeterRegistry meterRegistry,
+            @Value("${kafka.producer.linger-ms:5}") int lingerMs,
+            @Value("${kafka.producer.batch-size:65536}") int batchSize,
+            @Value("${kafka.producer.compression-type:lz4}") String compressionType) {
+        Map<String, Object> props = kafkaProperties.buildProducerProperties(sslBundles);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.ACKS_CONFIG, "all");
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        props.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        DefaultKafkaProducerFactory<String, String> producerFactory = new DefaultKafkaProducerFactory<>(props);
+        producerFactory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return producerFactory;
+    }
+
+    @Bean
+    @Primary
+    public KafkaTemplate<String, String> kafkaTemplate(ProducerFactory<String, String> producerFactory) {
+        return new KafkaTemplate<>(producerFactory);
+    }
+
+    /**
+     * 聊天消息模板
+     * send在元数据未就绪或发送缓冲已满时会同步阻塞，最长max.block.ms（默认60秒）；
+     * 消息帧在EventLoop上发送，阻塞会卡住该线程上的全部连接，因此单独把上限收紧到亚秒级，
+     * 超时以失败回执返回，由客户端重发
+     */
+    @Bean(MESSAGE_KAFKA_TEMPLATE)
+    public KafkaTemplate<String, String> messageKafkaTemplate(
+            ProducerFactory<String, String> producerFactory,
+            @Value("${kafka.producer.message.max-block-ms:200}") long maxBlockMs) {
+        return new KafkaTemplate<>(producerFactory, Map.of(ProducerConfig.MAX_BLOCK_MS_CONFIG, maxBlockMs));
+    }
+
+    /**
+     * 批量消费监听容器工厂
+     * 每次poll的一批记录整体交给监听方法，按分区并发，批处理完成后统一提交位移；
+     * 消费端客户端指标含各分区积压（kafka.consumer.fetch.manager.records.lag / records.lag.max）；
+     * 自定义工厂不经过Boot的容器配置器，虚拟线程开关需在此处自行应用到消费线程
+     */
+    @Bean(BATCH_LISTENER_FACTORY)
+    public ConcurrentKafkaListenerContainerFactory<String, String> batchKafkaListenerContainerFactory(
+            KafkaProperties kafkaProperties,
+            SslBundles sslBundles,
+            MeterRegistry meterRegistry,
+            @Value("${kafka.consumer.max-poll-records:500}") int maxPollRecords,
+            @Value("${kafka.consumer.fetch-min-bytes:16384}") int fetchMinBytes,
+            @Value("${kafka.consumer.fetch-max-wait-ms:20}") int fetchMaxWaitMs,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        Map<String, Object> props = kafkaProperties.buildConsumerProperties(sslBundles);
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        props.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, fetchMinBytes);
+        props.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, fetchMaxWaitMs);
+
+        ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        DefaultKafkaConsumerFactory<String, String> consumerFactory = new DefaultKafkaConsumerFactory<>(props);
+        consumerFactory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        factory.setConsumerFactory(consumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(messagePartitions);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor listenerExecutor = new SimpleAsyncTaskExecutor("kafka-listener-");
+            listenerExecutor.setVirtualThreads(true);
+            factory.getContainerProperties().setListenerTaskExecutor(listenerExecutor);
+        }
+        return factory;
+    }
 }
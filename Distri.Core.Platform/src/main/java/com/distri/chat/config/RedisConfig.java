@@ -1,10 +1,16 @@
 package com.distri.chat.config;
 
+import io.lettuce.core.metrics.MicrometerOptions;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.Executors;
 
 /**
  * Redis配置类
@@ -28,4 +34,43 @@ public class RedisConfig {
         template.afterPropertiesSet();
         return template;
     }
+
+    /**
+     * 二进制值模板：用于跨节点路由等自行编码的负载，值不经过字符串转换
+     */
+    @Bean
+    public RedisTemplate<String, byte[]> byteRedisTemplate(RedisConnectionFactory connectionFactory) {
+        RedisTemplate<String, byte[]> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(RedisSerializer.byteArray());
+
+        template.afterPropertiesSet();
+        return template;
+    }
+
+    /**
+     * 订阅监听容器：消息在独立的单线程上分发，保证同一频道内按发布顺序处理
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("redis-listener-");
+        threadFactory.setDaemon(true);
+        container.setTaskExecutor(Executors.newSingleThreadExecutor(threadFactory));
+        return container;
+    }
+
+    /**
+     * Lettuce命令耗时指标（lettuce.command.completion / lettuce.command.firstresponse，按命令类型区分），
+     * 由actuator的Lettuce指标自动配置挂到客户端上；开启直方图以便在Prometheus侧计算分位数
+     */
+    @Bean
+    public MicrometerOptions lettuceMicrometerOptions() {
+        return MicrometerOptions.builder()
+                .histogram(true)
+                .build();
+    }
 }
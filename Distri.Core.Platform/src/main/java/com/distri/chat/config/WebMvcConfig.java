@@ -0,0 +1,32 @@
+package com.distri.chat.config;
+
+import com.distri.chat.common.auth.AuthInterceptor;
+import com.distri.chat.common.ratelimit.IpRateLimitInterceptor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Web MVC配置类
+ * /api/** 下除认证接口外都需要访问令牌；认证接口按来源IP限流
+ */
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final AuthInterceptor authInterceptor;
+    private final IpRateLimitInterceptor ipRateLimitInterceptor;
+
+    public WebMvcConfig(AuthInterceptor authInterceptor, IpRateLimitInterceptor ipRateLimitInterceptor) {
+        this.authInterceptor = authInterceptor;
+        this.ipRateLimitInterceptor = ipRateLimitInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(ipRateLimitInterceptor)
+                .addPathPatterns("/api/auth/**");
+        registry.addInterceptor(authInterceptor)
+                .addPathPatterns("/api/**")
+                .excludePathPatterns("/api/auth/**");
+    }
+}
@@ -0,0 +1,63 @@
+package com.distri.chat.gateway;
+
+import com.distri.chat.common.utils.JwtUtil;
+import com.distri.chat.gateway.handler.ChatFrameHandler;
+import com.distri.chat.gateway.handler.GatewaySessionHandler;
+import com.distri.chat.gateway.handler.HandshakeAuthHandler;
+import com.distri.chat.gateway.handler.WebSocketFrameCodec;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolConfig;
+import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 网关连接pipeline
+ * HTTP编解码 -> 握手鉴权 -> WebSocket协议升级 -> 帧编解码 -> 会话处理 -> 帧分发
+ * 读空闲检测由会话处理登记到全局共享的心跳时间轮（HeartbeatWheel）完成
+ */
+public class GatewayChannelInitializer extends ChannelInitializer<SocketChannel> {
+
+    // 握手请求只需很小的聚合缓冲，握手完成后聚合器会被移除
+    private static final int HANDSHAKE_MAX_CONTENT_LENGTH = 8 * 1024;
+
+    private final GatewayProperties properties;
+    private final JwtUtil jwtUtil;
+    private final GatewaySessionHandler sessionHandler;
+    private final ChatFrameHandler frameHandler;
+    private final WebSocketFrameCodec frameCodec = new WebSocketFrameCodec();
+    private final WebSocketServerProtocolConfig protocolConfig;
+
+    public GatewayChannelInitializer(GatewayProperties properties,
+                                     JwtUtil jwtUtil,
+                                     GatewaySessionHandler sessionHandler,
+                                     ChatFrameHandler frameHandler) {
+        this.properties = properties;
+        this.jwtUtil = jwtUtil;
+        this.sessionHandler = sessionHandler;
+        this.frameHandler = frameHandler;
+        this.protocolConfig = WebSocketServerProtocolConfig.newBuilder()
+                .websocketPath(properties.getPath())
+                .checkStartsWith(false)
+                .maxFramePayloadLength(properties.getMaxFramePayloadLength())
+                .handshakeTimeoutMillis(TimeUnit.SECONDS.toMillis(10))
+                .dropPongFrames(true)
+                .build();
+    }
+
+    @Override
+    protected void initChannel(SocketChannel ch) {
+        ChannelPipeline pipeline = ch.pipeline();
+        pipeline.addLast("http-codec", new HttpServerCodec());
+        pipeline.addLast("http-aggregator", new HttpObjectAggregator(HANDSHAKE_MAX_CONTENT_LENGTH));
+        pipeline.addLast("handshake-auth", new HandshakeAuthHandler(jwtUtil, properties.getPath()));
+        pipeline.addLast("websocket", new WebSocketServerProtocolHandler(protocolConfig));
+        pipeline.addLast("frame-codec", frameCodec);
+        pipeline.addLast("session", sessionHandler);
+        pipeline.addLast("frames", frameHandler);
+    }
+}
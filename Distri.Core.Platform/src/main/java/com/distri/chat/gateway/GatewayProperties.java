@@ -0,0 +1,68 @@
+package com.distri.chat.gateway;
+
+import lombok.Getter;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * 网关配置
+ */
+@Getter
+@Component
+public class GatewayProperties {
+
+    // 节点ID，未配置时使用 主机名:端口
+    @Value("${gateway.node-id:}")
+    private String nodeId;
+
+    // 是否启动Netty网关
+    @Value("${gateway.enabled:true}")
+    private boolean enabled;
+
+    // 监听端口
+    @Value("${gateway.port:9100}")
+    private int port;
+
+    // WebSocket路径
+    @Value("${gateway.path:/ws}")
+    private String path;
+
+    // boss线程数
+    @Value("${gateway.boss-threads:1}")
+    private int bossThreads;
+
+    // worker线程数，0表示使用Netty默认值（CPU核数*2）
+    @Value("${gateway.worker-threads:0}")
+    private int workerThreads;
+
+    // 读空闲超时（秒）
+    @Value("${gateway.idle-timeout-seconds:90}")
+    private int idleTimeoutSeconds;
+
+    // 心跳时间轮的刻度（毫秒），超时检测精度
+    @Value("${gateway.heartbeat-tick-millis:1000}")
+    private long heartbeatTickMillis;
+
+    // 单帧最大负载
+    @Value("${gateway.max-frame-payload-length:65536}")
+    private int maxFramePayloadLength;
+
+    // 全连接队列长度
+    @Value("${gateway.so-backlog:4096}")
+    private int soBacklog;
+
+    public String getNodeId() {
+        if (StringUtils.isBlank(nodeId)) {
+            try {
+                nodeId = InetAddress.getLocalHost().getHostName() + ":" + port;
+            } catch (UnknownHostException e) {
+                nodeId = "localhost:" + port;
+            }
+        }
+        return nodeId;
+    }
+}
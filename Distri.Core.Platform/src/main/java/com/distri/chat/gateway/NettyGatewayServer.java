@@ -0,0 +1,146 @@
+package com.distri.chat.gateway;
+
+import com.distri.chat.biz.session.domain.service.SessionRegistry;
+import com.distri.chat.common.utils.JwtUtil;
+import com.distri.chat.gateway.delivery.DeliveryTracker;
+import com.distri.chat.gateway.handler.ChatFrameHandler;
+import com.distri.chat.gateway.handler.FrameProcessor;
+import com.distri.chat.gateway.handler.GatewaySessionHandler;
+import com.distri.chat.gateway.session.HeartbeatWheel;
+import com.distri.chat.gateway.session.LocalChannelRegistry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.AdaptiveRecvByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * Netty WebSocket网关
+ * <p>
+ * Linux下优先使用epoll传输；所有连接共享池化直接内存分配器，
+ * 并收紧接收缓冲与写水位，使单节点可承载10万级空闲长连接。
+ */
+@Slf4j
+@Component
+public class NettyGatewayServer implements SmartLifecycle {
+
+    private final GatewayProperties properties;
+    private final JwtUtil jwtUtil;
+    private final LocalChannelRegistry channelRegistry;
+    private final SessionRegistry sessionRegistry;
+    private final HeartbeatWheel heartbeatWheel;
+    private final DeliveryTracker deliveryTracker;
+    private final ObjectProvider<FrameProcessor> frameProcessors;
+
+    private EventLoopGroup bossGroup;
+    private EventLoopGroup workerGroup;
+    private Channel serverChannel;
+    private volatile boolean running = false;
+
+    public NettyGatewayServer(GatewayProperties properties,
+                              JwtUtil jwtUtil,
+                              LocalChannelRegistry channelRegistry,
+                              SessionRegistry sessionRegistry,
+                              HeartbeatWheel heartbeatWheel,
+                              DeliveryTracker deliveryTracker,
+                              ObjectProvider<FrameProcessor> frameProcessors,
+                              MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.jwtUtil = jwtUtil;
+        this.channelRegistry = channelRegistry;
+        this.sessionRegistry = sessionRegistry;
+        this.heartbeatWheel = heartbeatWheel;
+        this.deliveryTracker = deliveryTracker;
+        this.frameProcessors = frameProcessors;
+
+        Gauge.builder("gateway.connections", channelRegistry, LocalChannelRegistry::connectionCount)
+                .description("本节点WebSocket连接数")
+                .register(meterRegistry);
+        Gauge.builder("gateway.online.users", channelRegistry, LocalChannelRegistry::onlineUserCount)
+                .description("本节点在线用户数")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        if (!properties.isEnabled()) {
+            log.info("Netty网关未启用");
+            return;
+        }
+
+        boolean epoll = Epoll.isAvailable();
+        Class<? extends ServerChannel> channelClass;
+        if (epoll) {
+            bossGroup = new EpollEventLoopGroup(properties.getBossThreads(), new DefaultThreadFactory("gateway-boss"));
+            workerGroup = new EpollEventLoopGroup(properties.getWorkerThreads(), new DefaultThreadFactory("gateway-worker"));
+            channelClass = EpollServerSocketChannel.class;
+        } else {
+            bossGroup = new NioEventLoopGroup(properties.getBossThreads(), new DefaultThreadFactory("gateway-boss"));
+            workerGroup = new NioEventLoopGroup(properties.getWorkerThreads(), new DefaultThreadFactory("gateway-worker"));
+            channelClass = NioServerSocketChannel.class;
+        }
+
+        GatewaySessionHandler sessionHandler = new GatewaySessionHandler(channelRegistry, sessionRegistry, heartbeatWheel, deliveryTracker);
+        ChatFrameHandler frameHandler = new ChatFrameHandler(frameProcessors.orderedStream().toList(), heartbeatWheel);
+
+        ServerBootstrap bootstrap = new ServerBootstrap()
+                .group(bossGroup, workerGroup)
+                .channel(channelClass)
+                .option(ChannelOption.SO_BACKLOG, properties.getSoBacklog())
+                .option(ChannelOption.SO_REUSEADDR, true)
+                .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                .childOption(ChannelOption.RCVBUF_ALLOCATOR, new AdaptiveRecvByteBufAllocator(64, 512, 64 * 1024))
+                .childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(32 * 1024, 64 * 1024))
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childOption(ChannelOption.SO_KEEPALIVE, false)
+                .childHandler(new GatewayChannelInitializer(properties, jwtUtil, sessionHandler, frameHandler));
+
+        try {
+            serverChannel = bootstrap.bind(properties.getPort()).sync().channel();
+            running = true;
+            log.info("Netty网关已启动：端口={}, 路径={}, 传输={}", properties.getPort(), properties.getPath(), epoll ? "epoll" : "nio");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stop();
+            throw new IllegalStateException("Netty网关启动被中断", e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (serverChannel != null) {
+            serverChannel.close().syncUninterruptibly();
+            serverChannel = null;
+        }
+        if (workerGroup != null) {
+            workerGroup.shutdownGracefully().syncUninterruptibly();
+            workerGroup = null;
+        }
+        if (bossGroup != null) {
+            bossGroup.shutdownGracefully().syncUninterruptibly();
+            bossGroup = null;
+        }
+        log.info("Netty网关已停止");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
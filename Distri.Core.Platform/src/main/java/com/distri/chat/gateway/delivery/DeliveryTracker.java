@@ -0,0 +1,208 @@
+package com.distri.chat.gateway.delivery;
+
+import com.distri.chat.common.utils.TimingWheel;
+import com.distri.chat.gateway.protocol.ChatFrame;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 可靠投递跟踪
+ * <p>
+ * 每个连接一个投递窗口（首次投递时创建），最多 delivery.window-size 帧已发送未确认；
+ * 客户端以DELIVER_ACK累计确认并可附带选择确认。超时未确认的帧由全节点共享的时间轮驱动重传，
+ * 时间轮上每个有未确认帧的连接只占一个元素，而不是每帧一个定时器。
+ * <p>
+ * 单连接内存有界：窗口、积压队列（delivery.max-backlog，超出即判定为慢消费者并断开，重连后由收件箱同步补齐）
+ * 与去重环均为固定上限。写缓冲超过高水位时停止向该连接写出并暂停读取其上行数据，恢复可写后继续。
+ */
+@Slf4j
+@Component
+public class DeliveryTracker {
+
+    private static final AttributeKey<DeliveryWindow> WINDOW = AttributeKey.valueOf("distri.deliveryWindow");
+
+    private final int windowSize;
+    private final int maxBacklog;
+    private final int dedupSize;
+    private final long retransmitTimeoutMillis;
+    private final int maxRetransmits;
+    private final TimingWheel<Channel> retransmitWheel;
+
+    private final Counter deliveredCounter;
+    private final Counter ackedCounter;
+    private final Counter retransmitCounter;
+    private final Counter duplicateCounter;
+    private final Counter slowConsumerCounter;
+    private final Counter unresponsiveCounter;
+    private final Counter readPausedCounter;
+
+    public DeliveryTracker(MeterRegistry meterRegistry,
+                           @Value("${delivery.window-size:64}") int windowSize,
+                           @Value("${delivery.max-backlog:1024}") int maxBacklog,
+                           @Value("${delivery.dedup-size:128}") int dedupSize,
+                           @Value("${delivery.retransmit-timeout-millis:3000}") long retransmitTimeoutMillis,
+                           @Value("${delivery.max-retransmits:5}") int maxRetransmits,
+                           @Value("${delivery.retransmit-tick-millis:100}") long retransmitTickMillis) {
+        this.windowSize = windowSize;
+        this.maxBacklog = maxBacklog;
+        this.dedupSize = dedupSize;
+        this.retransmitTimeoutMillis = retransmitTimeoutMillis;
+        this.maxRetransmits = maxRetransmits;
+        this.retransmitWheel = new TimingWheel<>("delivery-wheel-", retransmitTickMillis, retransmitTimeoutMillis, this::check);
+
+        this.deliveredCounter = Counter.builder("delivery.sent")
+                .description("首次写出的DELIVER帧数")
+                .register(meterRegistry);
+        this.ackedCounter = Counter.builder("delivery.acked")
+                .description("被客户端确认的DELIVER帧数")
+                .register(meterRegistry);
+        this.retransmitCounter = Counter.builder("delivery.retransmit")
+                .description("超时重传的DELIVER帧数")
+                .register(meterRegistry);
+        this.duplicateCounter = Counter.builder("delivery.duplicate")
+                .description("同一连接上重复投递而被丢弃的消息数")
+                .register(meterRegistry);
+        this.slowConsumerCounter = Counter.builder("delivery.slow.consumer")
+                .description("积压超限被断开的连接数")
+                .register(meterRegistry);
+        this.unresponsiveCounter = Counter.builder("delivery.unresponsive")
+                .description("超过最大重传次数仍未确认而被断开的连接数")
+                .register(meterRegistry);
+        this.readPausedCounter = Counter.builder("delivery.read.paused")
+                .description("因写缓冲超过高水位暂停读取的次数")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        retransmitWheel.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        retransmitWheel.stop();
+    }
+
+    /**
+     * 向连接投递一批DELIVER帧，可在任意线程调用；帧对象可被多个连接共用，写出时各自复制并编号
+     */
+    public void deliver(Channel channel, List<ChatFrame> frames) {
+        if (channel.eventLoop().inEventLoop()) {
+            doDeliver(channel, frames);
+        } else {
+            channel.eventLoop().execute(() -> doDeliver(channel, frames));
+        }
+    }
+
+    /**
+     * 处理客户端确认，须在连接的EventLoop上调用
+     */
+    public void ack(Channel channel, long cumulative, long[] selective) {
+        DeliveryWindow window = channel.attr(WINDOW).get();
+        if (window == null) {
+            return;
+        }
+        ackedCounter.increment(window.ack(cumulative, selective));
+        drain(channel, window);
+    }
+
+    /**
+     * 写缓冲高低水位切换：不可写时暂停读取，恢复可写后继续读取并写出积压帧
+     */
+    public void onWritabilityChanged(Channel channel) {
+        if (!channel.isWritable()) {
+            if (channel.config().isAutoRead()) {
+                channel.config().setAutoRead(false);
+                readPausedCounter.increment();
+            }
+            return;
+        }
+        channel.config().setAutoRead(true);
+        DeliveryWindow window = channel.attr(WINDOW).get();
+        if (window != null) {
+            drain(channel, window);
+        }
+    }
+
+    private void doDeliver(Channel channel, List<ChatFrame> frames) {
+        if (!channel.isActive()) {
+            return;
+        }
+        DeliveryWindow window = channel.attr(WINDOW).get();
+        if (window == null) {
+            window = new DeliveryWindow(windowSize, dedupSize);
+            channel.attr(WINDOW).set(window);
+        }
+
+        for (ChatFrame frame : frames) {
+            if (window.isDuplicate(frame.getMessageId())) {
+                duplicateCounter.increment();
+                continue;
+            }
+            window.enqueue(frame);
+        }
+        drain(channel, window);
+
+        if (window.backlogSize() > maxBacklog) {
+            slowConsumerCounter.increment();
+            log.warn("连接投递积压超限，断开：{}, 积压={}", channel, window.backlogSize());
+            channel.close();
+        }
+    }
+
+    private void drain(Channel channel, DeliveryWindow window) {
+        int written = window.drain(channel, System.currentTimeMillis());
+        if (written > 0) {
+            deliveredCounter.increment(written);
+            channel.flush();
+        }
+        if (window.inFlight > 0 && window.scheduled.compareAndSet(false, true)) {
+            retransmitWheel.schedule(channel, retransmitTimeoutMillis);
+        }
+    }
+
+    /**
+     * 时间轮回调：有未确认帧时转到EventLoop上重传并继续挂在时间轮上，否则移出
+     */
+    private long check(Channel channel, long now) {
+        DeliveryWindow window = channel.attr(WINDOW).get();
+        if (window == null || !channel.isActive()) {
+            return 0;
+        }
+        if (window.inFlight == 0) {
+            window.scheduled.set(false);
+            // 复查，避免与EventLoop上刚写出的帧竞争而漏挂
+            if (window.inFlight == 0 || !window.scheduled.compareAndSet(false, true)) {
+                return 0;
+            }
+        }
+        channel.eventLoop().execute(() -> retransmit(channel, window));
+        return Math.max(1, retransmitTimeoutMillis / 2);
+    }
+
+    private void retransmit(Channel channel, DeliveryWindow window) {
+        if (!channel.isActive()) {
+            return;
+        }
+        int written = window.retransmit(channel, System.currentTimeMillis(), retransmitTimeoutMillis, maxRetransmits);
+        if (written < 0) {
+            unresponsiveCounter.increment();
+            log.warn("连接超过最大重传次数未确认，断开：{}", channel);
+            channel.close();
+            return;
+        }
+        if (written > 0) {
+            retransmitCounter.increment(written);
+            channel.flush();
+        }
+    }
+}
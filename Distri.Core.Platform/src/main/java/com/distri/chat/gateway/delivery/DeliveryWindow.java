@@ -0,0 +1,152 @@
+package com.distri.chat.gateway.delivery;
+
+import com.distri.chat.gateway.protocol.ChatFrame;
+import io.netty.channel.Channel;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 单个连接的投递窗口
+ * <p>
+ * 投递ID在连接内从1递增。[base, nextId) 为已发送未确认的区间，存放在按ID取模的环形数组中，
+ * 窗口满或连接不可写时新帧暂存在积压队列；另有一个最近消息ID环用于去重。
+ * 除标注volatile/原子的字段外只在连接所属的EventLoop上访问。
+ */
+final class DeliveryWindow {
+
+    private final int windowSize;
+    private final int mask;
+    private final ChatFrame[] frames;
+    private final long[] sentAt;
+    private final int[] attempts;
+
+    private long base = 1;
+    private long nextId = 1;
+
+    private final ArrayDeque<ChatFrame> backlog = new ArrayDeque<>();
+
+    private final long[] recentMessageIds;
+    private int recentCursor;
+
+    // 已发送未确认的帧数，供时间轮线程判断是否需要继续检查
+    volatile int inFlight;
+
+    // 是否已挂在重传时间轮上，保证每个连接最多一个时间轮元素
+    final AtomicBoolean scheduled = new AtomicBoolean();
+
+    DeliveryWindow(int windowSize, int dedupSize) {
+        this.windowSize = windowSize;
+        int capacity = Integer.highestOneBit(Math.max(2, windowSize) * 2 - 1);
+        this.mask = capacity - 1;
+        this.frames = new ChatFrame[capacity];
+        this.sentAt = new long[capacity];
+        this.attempts = new int[capacity];
+        this.recentMessageIds = new long[dedupSize];
+    }
+
+    /**
+     * 最近投递过的消息ID判重，未出现过则记录
+     */
+    boolean isDuplicate(long messageId) {
+        if (messageId == 0) {
+            return false;
+        }
+        for (long recent : recentMessageIds) {
+            if (recent == messageId) {
+                return true;
+            }
+        }
+        recentMessageIds[recentCursor] = messageId;
+        recentCursor = (recentCursor + 1) % recentMessageIds.length;
+        return false;
+    }
+
+    void enqueue(ChatFrame frame) {
+        backlog.offer(frame);
+    }
+
+    int backlogSize() {
+        return backlog.size();
+    }
+
+    /**
+     * 在窗口与写缓冲允许的范围内把积压帧编号并写出（不flush）
+     *
+     * @return 写出的帧数
+     */
+    int drain(Channel channel, long now) {
+        int written = 0;
+        while (nextId - base < windowSize && channel.isWritable() && !backlog.isEmpty()) {
+            ChatFrame frame = backlog.poll().withDeliveryId(nextId);
+            int index = (int) (nextId & mask);
+            frames[index] = frame;
+            sentAt[index] = now;
+            attempts[index] = 0;
+            channel.write(frame);
+            nextId++;
+            written++;
+        }
+        inFlight = (int) (nextId - base);
+        return written;
+    }
+
+    /**
+     * 累计确认cumulative及之前的全部投递，另按selective逐个确认
+     *
+     * @return 新确认的帧数
+     */
+    int ack(long cumulative, long[] selective) {
+        int acked = 0;
+        long upTo = Math.min(cumulative, nextId - 1);
+        for (long id = base; id <= upTo; id++) {
+            acked += clear(id);
+        }
+        if (upTo >= base) {
+            base = upTo + 1;
+        }
+        for (long id : selective) {
+            if (id >= base && id < nextId) {
+                acked += clear(id);
+            }
+        }
+        while (base < nextId && frames[(int) (base & mask)] == null) {
+            base++;
+        }
+        inFlight = (int) (nextId - base);
+        return acked;
+    }
+
+    /**
+     * 重传超时未确认的帧（不flush）
+     *
+     * @return 重传的帧数；有帧超过最大重传次数时返回-1
+     */
+    int retransmit(Channel channel, long now, long timeoutMillis, int maxRetransmits) {
+        int written = 0;
+        for (long id = base; id < nextId; id++) {
+            int index = (int) (id & mask);
+            ChatFrame frame = frames[index];
+            if (frame == null || now - sentAt[index] < timeoutMillis) {
+                continue;
+            }
+            if (attempts[index] >= maxRetransmits) {
+                return -1;
+            }
+            channel.write(frame);
+            sentAt[index] = now;
+            attempts[index]++;
+            written++;
+        }
+        return written;
+    }
+
+    private int clear(long id) {
+        int index = (int) (id & mask);
+        if (frames[index] == null) {
+            return 0;
+        }
+        frames[index] = null;
+        return 1;
+    }
+}
@@ -0,0 +1,46 @@
+package com.distri.chat.gateway.handler;
+
+import com.distri.chat.gateway.protocol.ChatFrame;
+import com.distri.chat.gateway.protocol.FrameType;
+import com.distri.chat.gateway.session.HeartbeatWheel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 上行帧分发
+ * 任意上行帧都视为存活并刷新心跳时间；按帧类型交给对应的FrameProcessor，未注册的类型回ERROR帧；全局共享一个实例
+ */
+@Slf4j
+@ChannelHandler.Sharable
+public class ChatFrameHandler extends SimpleChannelInboundHandler<ChatFrame> {
+
+    private final Map<FrameType, FrameProcessor> processors = new EnumMap<>(FrameType.class);
+    private final HeartbeatWheel heartbeatWheel;
+
+    public ChatFrameHandler(List<FrameProcessor> processors, HeartbeatWheel heartbeatWheel) {
+        this.heartbeatWheel = heartbeatWheel;
+        for (FrameProcessor processor : processors) {
+            FrameProcessor previous = this.processors.put(processor.type(), processor);
+            if (previous != null) {
+                throw new IllegalStateException("重复的帧处理器：" + processor.type());
+            }
+        }
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, ChatFrame frame) {
+        heartbeatWheel.touch(ctx.channel());
+        FrameProcessor processor = processors.get(frame.getType());
+        if (processor == null) {
+            ctx.writeAndFlush(ChatFrame.error(frame.getSeq(), "不支持的帧类型：" + frame.getType()));
+            return;
+        }
+        processor.process(ctx.channel(), frame);
+    }
+}
@@ -0,0 +1,47 @@
+package com.distri.chat.gateway.handler;
+
+import com.distri.chat.gateway.delivery.DeliveryTracker;
+import com.distri.chat.gateway.protocol.ChatFrame;
+import com.distri.chat.gateway.protocol.FrameType;
+import io.netty.channel.Channel;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Component;
+
+/**
+ * 投递确认帧：deliveryId为累计确认位置（该ID及之前的投递均已收到），
+ * body可附带逗号分隔的选择确认ID（累计位置之后已收到的投递）；不回执
+ */
+@Component
+public class DeliverAckFrameProcessor implements FrameProcessor {
+
+    private static final long[] NO_SELECTIVE = new long[0];
+
+    private final DeliveryTracker deliveryTracker;
+
+    public DeliverAckFrameProcessor(DeliveryTracker deliveryTracker) {
+        this.deliveryTracker = deliveryTracker;
+    }
+
+    @Override
+    public FrameType type() {
+        return FrameType.DELIVER_ACK;
+    }
+
+    @Override
+    public void process(Channel channel, ChatFrame frame) {
+        long[] selective = NO_SELECTIVE;
+        if (StringUtils.isNotBlank(frame.getBody())) {
+            String[] parts = StringUtils.split(frame.getBody(), ',');
+            selective = new long[parts.length];
+            try {
+                for (int i = 0; i < parts.length; i++) {
+                    selective[i] = Long.parseLong(parts[i].trim());
+                }
+            } catch (NumberFormatException e) {
+                channel.writeAndFlush(ChatFrame.error(frame.getSeq(), "投递ID格式错误"));
+                return;
+            }
+        }
+        deliveryTracker.ack(channel, frame.getDeliveryId(), selective);
+    }
+}
@@ -0,0 +1,17 @@
+package com.distri.chat.gateway.handler;
+
+import com.distri.chat.gateway.protocol.ChatFrame;
+import com.distri.chat.gateway.protocol.FrameType;
+import io.netty.channel.Channel;
+
+/**
+ * 上行帧处理器
+ * 每种帧类型对应一个Spring Bean，由ChatFrameHandler按类型分发；
+ * 在EventLoop线程上执行，实现中不得有阻塞调用
+ */
+public interface FrameProcessor {
+
+    FrameType type();
+
+    void process(Channel channel, ChatFrame frame);
+}
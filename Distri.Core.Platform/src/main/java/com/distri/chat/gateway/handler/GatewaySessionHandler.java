@@ -0,0 +1,82 @@
+package com.distri.chat.gateway.handler;
+
+import com.distri.chat.biz.session.domain.service.SessionRegistry;
+import com.distri.chat.gateway.delivery.DeliveryTracker;
+import com.distri.chat.gateway.session.ChannelAttributes;
+import com.distri.chat.gateway.session.HeartbeatWheel;
+import com.distri.chat.gateway.session.LocalChannelRegistry;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 连接生命周期处理
+ * 握手完成后登记到本地注册表、分布式会话注册表与心跳时间轮，断开（含心跳超时被关闭）后注销；全局共享一个实例
+ */
+@Slf4j
+@ChannelHandler.Sharable
+public class GatewaySessionHandler extends ChannelInboundHandlerAdapter {
+
+    private final LocalChannelRegistry channelRegistry;
+    private final SessionRegistry sessionRegistry;
+    private final HeartbeatWheel heartbeatWheel;
+    private final DeliveryTracker deliveryTracker;
+
+    public GatewaySessionHandler(LocalChannelRegistry channelRegistry,
+                                 SessionRegistry sessionRegistry,
+                                 HeartbeatWheel heartbeatWheel,
+                                 DeliveryTracker deliveryTracker) {
+        this.channelRegistry = channelRegistry;
+        this.sessionRegistry = sessionRegistry;
+        this.heartbeatWheel = heartbeatWheel;
+        this.deliveryTracker = deliveryTracker;
+    }
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        if (evt instanceof WebSocketServerProtocolHandler.HandshakeComplete) {
+            Channel channel = ctx.channel();
+            Long userId = ChannelAttributes.userId(channel);
+            String clientId = ChannelAttributes.clientId(channel);
+
+            Channel previous = channelRegistry.bind(userId, clientId, channel);
+            if (previous != null && previous != channel) {
+                log.info("设备重复连接，关闭旧连接：userId={}, clientId={}", userId, clientId);
+                previous.close();
+            }
+            sessionRegistry.register(userId, clientId);
+            heartbeatWheel.add(channel);
+            return;
+        }
+
+        super.userEventTriggered(ctx, evt);
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        deliveryTracker.onWritabilityChanged(ctx.channel());
+        super.channelWritabilityChanged(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        Channel channel = ctx.channel();
+        Long userId = ChannelAttributes.userId(channel);
+        String clientId = ChannelAttributes.clientId(channel);
+        if (userId != null && clientId != null) {
+            if (channelRegistry.unbind(userId, clientId, channel)) {
+                sessionRegistry.unregister(userId, clientId);
+            }
+        }
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        log.warn("网关连接异常，关闭：{}, {}", ctx.channel(), cause.getMessage());
+        ctx.close();
+    }
+}
@@ -0,0 +1,100 @@
+package com.distri.chat.gateway.handler;
+
+import com.distri.chat.common.exception.BusinessException;
+import com.distri.chat.common.utils.JwtUtil;
+import com.distri.chat.gateway.protocol.FrameProtocol;
+import com.distri.chat.gateway.session.ChannelAttributes;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import io.netty.util.CharsetUtil;
+import io.netty.util.ReferenceCountUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+
+/**
+ * WebSocket握手鉴权
+ * 在协议升级前校验访问令牌，并把(userId, clientId)及帧协议（?proto=json|binary）绑定到Channel；
+ * 校验通过后自身从pipeline移除，后续帧不再经过
+ */
+@Slf4j
+public class HandshakeAuthHandler extends ChannelInboundHandlerAdapter {
+
+    private static final String TOKEN_PARAM = "token";
+    private static final String PROTOCOL_PARAM = "proto";
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final JwtUtil jwtUtil;
+    private final String websocketPath;
+
+    public HandshakeAuthHandler(JwtUtil jwtUtil, String websocketPath) {
+        this.jwtUtil = jwtUtil;
+        this.websocketPath = websocketPath;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (!(msg instanceof FullHttpRequest request)) {
+            ReferenceCountUtil.release(msg);
+            ctx.close();
+            return;
+        }
+
+        QueryStringDecoder decoder = new QueryStringDecoder(request.uri());
+        if (!websocketPath.equals(decoder.path())) {
+            request.release();
+            sendError(ctx, HttpResponseStatus.NOT_FOUND, "资源不存在");
+            return;
+        }
+
+        JwtUtil.JwtClaims claims;
+        try {
+            claims = jwtUtil.parseToken(extractToken(request, decoder));
+        } catch (BusinessException e) {
+            request.release();
+            sendError(ctx, HttpResponseStatus.UNAUTHORIZED, e.getMessage());
+            return;
+        }
+
+        ctx.channel().attr(ChannelAttributes.USER_ID).set(claims.getUserId());
+        ctx.channel().attr(ChannelAttributes.CLIENT_ID).set(claims.getClientId());
+        List<String> protocols = decoder.parameters().get(PROTOCOL_PARAM);
+        ctx.channel().attr(ChannelAttributes.PROTOCOL)
+                .set(FrameProtocol.fromParam(protocols == null || protocols.isEmpty() ? null : protocols.get(0)));
+
+        // 去掉查询参数，交给WebSocketServerProtocolHandler按路径完成握手
+        request.setUri(websocketPath);
+        ctx.pipeline().remove(this);
+        ctx.fireChannelRead(request);
+    }
+
+    private String extractToken(FullHttpRequest request, QueryStringDecoder decoder) {
+        List<String> tokens = decoder.parameters().get(TOKEN_PARAM);
+        if (tokens != null && !tokens.isEmpty()) {
+            return tokens.get(0);
+        }
+        String authorization = request.headers().get(HttpHeaderNames.AUTHORIZATION);
+        if (authorization != null && authorization.startsWith(BEARER_PREFIX)) {
+            return authorization.substring(BEARER_PREFIX.length());
+        }
+        return null;
+    }
+
+    private void sendError(ChannelHandlerContext ctx, HttpResponseStatus status, String message) {
+        ByteBuf content = Unpooled.copiedBuffer(message, CharsetUtil.UTF_8);
+        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, status, content);
+        response.headers().set(HttpHeaderNames.CONTENT_TYPE, "text/plain; charset=UTF-8");
+        response.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, content.readableBytes());
+        ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+    }
+}
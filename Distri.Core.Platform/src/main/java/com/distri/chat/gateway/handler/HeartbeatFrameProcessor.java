@@ -0,0 +1,32 @@
+package com.distri.chat.gateway.handler;
+
+import com.distri.chat.biz.session.domain.service.SessionRegistry;
+import com.distri.chat.gateway.protocol.ChatFrame;
+import com.distri.chat.gateway.protocol.FrameType;
+import com.distri.chat.gateway.session.ChannelAttributes;
+import io.netty.channel.Channel;
+import org.springframework.stereotype.Component;
+
+/**
+ * 心跳帧：原样回送序号，并标记会话待续期
+ */
+@Component
+public class HeartbeatFrameProcessor implements FrameProcessor {
+
+    private final SessionRegistry sessionRegistry;
+
+    public HeartbeatFrameProcessor(SessionRegistry sessionRegistry) {
+        this.sessionRegistry = sessionRegistry;
+    }
+
+    @Override
+    public FrameType type() {
+        return FrameType.HEARTBEAT;
+    }
+
+    @Override
+    public void process(Channel channel, ChatFrame frame) {
+        sessionRegistry.touch(ChannelAttributes.userId(channel));
+        channel.writeAndFlush(ChatFrame.of(FrameType.HEARTBEAT, frame.getSeq()));
+    }
+}
@@ -0,0 +1,91 @@
+package com.distri.chat.gateway.handler;
+
+import com.distri.chat.biz.message.domain.service.MessageSendService;
+import com.distri.chat.common.exception.BusinessException;
+import com.distri.chat.common.ratelimit.RateLimiter;
+import com.distri.chat.common.ratelimit.RateLimiterRegistry;
+import com.distri.chat.common.ratelimit.TokenBucket;
+import com.distri.chat.gateway.protocol.ChatFrame;
+import com.distri.chat.gateway.protocol.FrameType;
+import com.distri.chat.gateway.session.ChannelAttributes;
+import io.netty.channel.Channel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletionException;
+
+/**
+ * 消息帧：写入Kafka成功后回执MESSAGE_ACK，失败回ERROR，均沿用请求序号
+ * 请求序号即消息的clientSeq，同一设备内递增且跨重连不复用；没收到回执时以原序号重发，服务端回执原消息ID
+ * 发送前先过单连接令牌桶与按用户的跨节点限流（同一用户多设备合计），超限直接回ERROR
+ */
+@Slf4j
+@Component
+public class MessageFrameProcessor implements FrameProcessor {
+
+    private static final String RATE_LIMITED = "发送过于频繁，请稍后再试";
+
+    private final MessageSendService messageSendService;
+    private final RateLimiter userLimiter;
+    private final double connectionPermitsPerSecond;
+    private final int connectionBurst;
+
+    public MessageFrameProcessor(MessageSendService messageSendService,
+                                 RateLimiterRegistry rateLimiterRegistry,
+                                 @Value("${ratelimit.message.user.permits-per-second:20}") double userPermitsPerSecond,
+                                 @Value("${ratelimit.message.user.burst:50}") int userBurst,
+                                 @Value("${ratelimit.message.connection.permits-per-second:10}") double connectionPermitsPerSecond,
+                                 @Value("${ratelimit.message.connection.burst:30}") int connectionBurst) {
+        this.messageSendService = messageSendService;
+        this.userLimiter = rateLimiterRegistry.limiter("message-user", userPermitsPerSecond, userBurst);
+        this.connectionPermitsPerSecond = connectionPermitsPerSecond;
+        this.connectionBurst = connectionBurst;
+    }
+
+    @Override
+    public FrameType type() {
+        return FrameType.MESSAGE;
+    }
+
+    @Override
+    public void process(Channel channel, ChatFrame frame) {
+        long seq = frame.getSeq();
+        if (!connectionBucket(channel).tryAcquire()
+                || !userLimiter.tryAcquire(String.valueOf(ChannelAttributes.userId(channel)))) {
+            channel.writeAndFlush(ChatFrame.error(seq, RATE_LIMITED));
+            return;
+        }
+        try {
+            messageSendService.send(ChannelAttributes.userId(channel), ChannelAttributes.clientId(channel),
+                            frame.getConversationId(), seq, frame.getBody())
+                    .whenComplete((message, ex) -> {
+                        if (ex == null) {
+                            ChatFrame ack = ChatFrame.of(FrameType.MESSAGE_ACK, seq);
+                            ack.setConversationId(message.getConversationId());
+                            ack.setMessageId(message.getMessageId() == null ? 0 : message.getMessageId());
+                            channel.writeAndFlush(ack);
+                        } else {
+                            Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                            if (cause instanceof BusinessException) {
+                                channel.writeAndFlush(ChatFrame.error(seq, cause.getMessage()));
+                                return;
+                            }
+                            log.warn("消息写入失败：userId={}, seq={}", ChannelAttributes.userId(channel), seq, cause);
+                            channel.writeAndFlush(ChatFrame.error(seq, "消息发送失败"));
+                        }
+                    });
+        } catch (BusinessException e) {
+            channel.writeAndFlush(ChatFrame.error(seq, e.getMessage()));
+        }
+    }
+
+    private TokenBucket connectionBucket(Channel channel) {
+        TokenBucket bucket = channel.attr(ChannelAttributes.MESSAGE_BUCKET).get();
+        if (bucket == null) {
+            bucket = new TokenBucket(connectionPermitsPerSecond, connectionBurst);
+            channel.attr(ChannelAttributes.MESSAGE_BUCKET).set(bucket);
+        }
+        return bucket;
+    }
+}
@@ -0,0 +1,49 @@
+package com.distri.chat.gateway.handler;
+
+import com.distri.chat.biz.presence.domain.service.PresenceSubscriptionService;
+import com.distri.chat.common.exception.BusinessException;
+import com.distri.chat.gateway.protocol.ChatFrame;
+import com.distri.chat.gateway.protocol.FrameType;
+import io.netty.channel.Channel;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 在线状态订阅帧：body为逗号分隔的用户ID，整体替换该连接的订阅；回执沿用请求序号，
+ * 随后以seq为0的PRESENCE帧推送各用户当前状态及后续变更（userId为状态所属用户，body为ONLINE/OFFLINE）
+ */
+@Component
+public class PresenceFrameProcessor implements FrameProcessor {
+
+    private final PresenceSubscriptionService presenceSubscriptionService;
+
+    public PresenceFrameProcessor(PresenceSubscriptionService presenceSubscriptionService) {
+        this.presenceSubscriptionService = presenceSubscriptionService;
+    }
+
+    @Override
+    public FrameType type() {
+        return FrameType.PRESENCE;
+    }
+
+    @Override
+    public void process(Channel channel, ChatFrame frame) {
+        Set<Long> targets = new HashSet<>();
+        try {
+            for (String part : StringUtils.split(StringUtils.defaultString(frame.getBody()), ',')) {
+                targets.add(Long.parseLong(part.trim()));
+            }
+            presenceSubscriptionService.subscribe(channel, targets);
+        } catch (NumberFormatException e) {
+            channel.writeAndFlush(ChatFrame.error(frame.getSeq(), "用户ID格式错误"));
+            return;
+        } catch (BusinessException e) {
+            channel.writeAndFlush(ChatFrame.error(frame.getSeq(), e.getMessage()));
+            return;
+        }
+        channel.writeAndFlush(ChatFrame.of(FrameType.PRESENCE, frame.getSeq()));
+    }
+}
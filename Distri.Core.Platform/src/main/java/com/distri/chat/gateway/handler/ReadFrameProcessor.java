@@ -0,0 +1,61 @@
+package com.distri.chat.gateway.handler;
+
+import com.distri.chat.biz.ephemeral.domain.service.ReadReceiptService;
+import com.distri.chat.biz.message.domain.service.ConversationAccess;
+import com.distri.chat.common.exception.BusinessException;
+import com.distri.chat.common.id.SnowflakeIdGenerator;
+import com.distri.chat.gateway.protocol.ChatFrame;
+import com.distri.chat.gateway.protocol.FrameType;
+import com.distri.chat.gateway.session.ChannelAttributes;
+import io.netty.channel.Channel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletionException;
+
+/**
+ * 已读帧：conversationId + messageId表示已读到该消息（含），成功不回执，参数错误或非会话成员回ERROR
+ * 合并后会话在线成员（含本人其他设备）收到seq为0的READ帧（userId为已读者，messageId为已读位置）
+ * <p>
+ * 已读位置只进不退，messageId的生成时间晚于当前时间（允许receipt.max-clock-skew-millis的节点间时钟偏差）即视为无效，
+ * 避免伪造的超大ID把已读位置永久钉住并广播给其他成员
+ */
+@Component
+public class ReadFrameProcessor implements FrameProcessor {
+
+    private final ReadReceiptService readReceiptService;
+    private final ConversationAccess conversationAccess;
+    private final long maxClockSkewMillis;
+
+    public ReadFrameProcessor(ReadReceiptService readReceiptService, ConversationAccess conversationAccess,
+                              @Value("${receipt.max-clock-skew-millis:5000}") long maxClockSkewMillis) {
+        this.readReceiptService = readReceiptService;
+        this.conversationAccess = conversationAccess;
+        this.maxClockSkewMillis = maxClockSkewMillis;
+    }
+
+    @Override
+    public FrameType type() {
+        return FrameType.READ;
+    }
+
+    @Override
+    public void process(Channel channel, ChatFrame frame) {
+        long messageId = frame.getMessageId();
+        if (messageId <= 0 || SnowflakeIdGenerator.timestampOf(messageId) > System.currentTimeMillis() + maxClockSkewMillis) {
+            channel.writeAndFlush(ChatFrame.error(frame.getSeq(), "消息ID无效"));
+            return;
+        }
+        Long userId = ChannelAttributes.userId(channel);
+        // 群成员未缓存时在加载线程上完成，回到本连接的EventLoop继续处理
+        conversationAccess.checkParticipantAsync(userId, frame.getConversationId()).whenCompleteAsync((ignored, ex) -> {
+            if (ex != null) {
+                Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                channel.writeAndFlush(ChatFrame.error(frame.getSeq(),
+                        cause instanceof BusinessException ? cause.getMessage() : "成员校验失败"));
+                return;
+            }
+            readReceiptService.onRead(userId, frame.getConversationId(), messageId);
+        }, channel.eventLoop());
+    }
+}
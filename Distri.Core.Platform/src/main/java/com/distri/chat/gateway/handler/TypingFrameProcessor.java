@@ -0,0 +1,48 @@
+package com.distri.chat.gateway.handler;
+
+import com.distri.chat.biz.ephemeral.domain.service.TypingService;
+import com.distri.chat.biz.message.domain.service.ConversationAccess;
+import com.distri.chat.common.exception.BusinessException;
+import com.distri.chat.gateway.protocol.ChatFrame;
+import com.distri.chat.gateway.protocol.FrameType;
+import com.distri.chat.gateway.session.ChannelAttributes;
+import io.netty.channel.Channel;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletionException;
+
+/**
+ * 正在输入帧：conversationId为所在会话，成功不回执，非会话成员回ERROR
+ * 会话其他在线成员收到seq为0的TYPING帧（userId为输入者）
+ */
+@Component
+public class TypingFrameProcessor implements FrameProcessor {
+
+    private final TypingService typingService;
+    private final ConversationAccess conversationAccess;
+
+    public TypingFrameProcessor(TypingService typingService, ConversationAccess conversationAccess) {
+        this.typingService = typingService;
+        this.conversationAccess = conversationAccess;
+    }
+
+    @Override
+    public FrameType type() {
+        return FrameType.TYPING;
+    }
+
+    @Override
+    public void process(Channel channel, ChatFrame frame) {
+        Long userId = ChannelAttributes.userId(channel);
+        // 群成员未缓存时在加载线程上完成，回到本连接的EventLoop继续处理
+        conversationAccess.checkParticipantAsync(userId, frame.getConversationId()).whenCompleteAsync((ignored, ex) -> {
+            if (ex != null) {
+                Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                channel.writeAndFlush(ChatFrame.error(frame.getSeq(),
+                        cause instanceof BusinessException ? cause.getMessage() : "成员校验失败"));
+                return;
+            }
+            typingService.onTyping(userId, frame.getConversationId());
+        }, channel.eventLoop());
+    }
+}
@@ -0,0 +1,58 @@
+package com.distri.chat.gateway.handler;
+
+import com.distri.chat.gateway.protocol.BinaryFrameCodec;
+import com.distri.chat.gateway.protocol.ChatFrame;
+import com.distri.chat.gateway.protocol.FrameProtocol;
+import com.distri.chat.gateway.protocol.JsonFrameCodec;
+import com.distri.chat.gateway.session.ChannelAttributes;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.MessageToMessageCodec;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+
+import java.util.List;
+
+/**
+ * WebSocket帧与ChatFrame互转
+ * 二进制连接使用BinaryFrameCodec，JSON连接使用JsonFrameCodec；无状态，全局共享
+ */
+@ChannelHandler.Sharable
+public class WebSocketFrameCodec extends MessageToMessageCodec<WebSocketFrame, ChatFrame> {
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, ChatFrame frame, List<Object> out) throws Exception {
+        ByteBuf buf = ctx.alloc().ioBuffer();
+        try {
+            if (ChannelAttributes.protocol(ctx.channel()) == FrameProtocol.JSON) {
+                JsonFrameCodec.encode(frame, buf);
+                out.add(new TextWebSocketFrame(buf));
+            } else {
+                BinaryFrameCodec.encode(frame, buf);
+                out.add(new BinaryWebSocketFrame(buf));
+            }
+        } catch (Exception e) {
+            buf.release();
+            throw e;
+        }
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, WebSocketFrame msg, List<Object> out) throws Exception {
+        ByteBuf content = msg.content();
+        if (msg instanceof BinaryWebSocketFrame) {
+            while (content.isReadable()) {
+                ChatFrame frame = BinaryFrameCodec.decode(content);
+                if (frame == null) {
+                    throw new CorruptedFrameException("二进制帧不完整");
+                }
+                out.add(frame);
+            }
+        } else if (msg instanceof TextWebSocketFrame) {
+            out.add(JsonFrameCodec.decode(content));
+        }
+    }
+}
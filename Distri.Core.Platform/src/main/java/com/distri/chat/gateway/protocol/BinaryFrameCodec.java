@@ -0,0 +1,145 @@
+package com.distri.chat.gateway.protocol;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.TooLongFrameException;
+import io.netty.util.CharsetUtil;
+
+/**
+ * 二进制帧编解码
+ * <pre>
+ * +---------------+---------+------------+---------------+--------------+---------------+-------------------+-----------+
+ * | varint length | type(1) | varint seq | varint convId | varint msgId | varint userId | varint deliveryId | UTF-8 body|
+ * +---------------+---------+------------+---------------+--------------+---------------+-------------------+-----------+
+ * </pre>
+ * length为其后全部字节数。编解码直接读写ByteBuf，不经过中间byte[]。
+ */
+public final class BinaryFrameCodec {
+
+    public static final int MAX_FRAME_LENGTH = 64 * 1024;
+
+    private BinaryFrameCodec() {
+    }
+
+    /**
+     * 编码帧到out
+     */
+    public static void encode(ChatFrame frame, ByteBuf out) {
+        String body = frame.getBody();
+        int bodyLength = body == null ? 0 : ByteBufUtil.utf8Bytes(body);
+        int payloadLength = 1
+                + varintSize(frame.getSeq())
+                + varintSize(frame.getConversationId())
+                + varintSize(frame.getMessageId())
+                + varintSize(frame.getUserId())
+                + varintSize(frame.getDeliveryId())
+                + bodyLength;
+        if (payloadLength > MAX_FRAME_LENGTH) {
+            throw new TooLongFrameException("帧长度超限：" + payloadLength);
+        }
+
+        out.ensureWritable(varintSize(payloadLength) + payloadLength);
+        writeVarint(out, payloadLength);
+        out.writeByte(frame.getType().code());
+        writeVarint(out, frame.getSeq());
+        writeVarint(out, frame.getConversationId());
+        writeVarint(out, frame.getMessageId());
+        writeVarint(out, frame.getUserId());
+        writeVarint(out, frame.getDeliveryId());
+        if (bodyLength > 0) {
+            ByteBufUtil.reserveAndWriteUtf8(out, body, bodyLength);
+        }
+    }
+
+    /**
+     * 从in解码一帧
+     *
+     * @return 数据不足一帧时返回null且不移动读指针
+     */
+    public static ChatFrame decode(ByteBuf in) {
+        int start = in.readerIndex();
+        long payloadLength = readVarint(in);
+        if (payloadLength < 0) {
+            in.readerIndex(start);
+            return null;
+        }
+        if (payloadLength > MAX_FRAME_LENGTH || payloadLength < 6) {
+            throw new CorruptedFrameException("帧长度非法：" + payloadLength);
+        }
+        if (in.readableBytes() < payloadLength) {
+            in.readerIndex(start);
+            return null;
+        }
+
+        int end = in.readerIndex() + (int) payloadLength;
+        FrameType type = FrameType.fromCode(in.readByte());
+        if (type == null) {
+            throw new CorruptedFrameException("未知帧类型");
+        }
+        long seq = readVarintStrict(in, end);
+        long conversationId = readVarintStrict(in, end);
+        long messageId = readVarintStrict(in, end);
+        long userId = readVarintStrict(in, end);
+        long deliveryId = readVarintStrict(in, end);
+
+        String body = null;
+        int bodyLength = end - in.readerIndex();
+        if (bodyLength > 0) {
+            body = in.toString(in.readerIndex(), bodyLength, CharsetUtil.UTF_8);
+        }
+        in.readerIndex(end);
+
+        return new ChatFrame(type, seq, conversationId, messageId, userId, deliveryId, body);
+    }
+
+    static int varintSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    static void writeVarint(ByteBuf out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    /**
+     * 读取varint，数据不足时返回-1
+     */
+    static long readVarint(ByteBuf in) {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (!in.isReadable()) {
+                return -1;
+            }
+            byte b = in.readByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new CorruptedFrameException("varint过长");
+    }
+
+    private static long readVarintStrict(ByteBuf in, int end) {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (in.readerIndex() >= end) {
+                throw new CorruptedFrameException("帧头不完整");
+            }
+            byte b = in.readByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new CorruptedFrameException("varint过长");
+    }
+}
@@ -0,0 +1,50 @@
+package com.distri.chat.gateway.protocol;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 网关帧
+ * 各字段含义随帧类型而定，未使用的ID字段为0
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatFrame {
+
+    private FrameType type;
+
+    // 请求序号/投递序号；MESSAGE帧的请求序号为设备内递增的clientSeq，用于重发去重
+    private long seq;
+
+    private long conversationId;
+
+    private long messageId;
+
+    // 相关用户：投递帧中为发送者，状态类帧中为状态所属用户
+    private long userId;
+
+    // 投递ID：DELIVER帧中为连接内递增的投递编号，DELIVER_ACK中为累计确认位置
+    private long deliveryId;
+
+    // UTF-8文本负载
+    private String body;
+
+    public static ChatFrame of(FrameType type, long seq) {
+        return new ChatFrame(type, seq, 0, 0, 0, 0, null);
+    }
+
+    /**
+     * 复制一帧并设置投递ID（同一帧发往多个连接时各自编号）
+     */
+    public ChatFrame withDeliveryId(long deliveryId) {
+        return new ChatFrame(type, seq, conversationId, messageId, userId, deliveryId, body);
+    }
+
+    public static ChatFrame error(long seq, String message) {
+        return new ChatFrame(FrameType.ERROR, seq, 0, 0, 0, 0, message);
+    }
+}
@@ -0,0 +1,17 @@
+package com.distri.chat.gateway.protocol;
+
+/**
+ * 连接使用的帧协议，握手时通过查询参数proto选择
+ */
+public enum FrameProtocol {
+
+    // 二进制帧（默认）
+    BINARY,
+
+    // JSON文本帧，供浏览器调试
+    JSON;
+
+    public static FrameProtocol fromParam(String value) {
+        return "json".equalsIgnoreCase(value) ? JSON : BINARY;
+    }
+}
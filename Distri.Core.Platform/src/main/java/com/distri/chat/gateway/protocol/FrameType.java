@@ -0,0 +1,53 @@
+package com.distri.chat.gateway.protocol;
+
+import com.fasterxml.jackson.core.io.SerializedString;
+
+/**
+ * 帧类型
+ * code为二进制协议中的类型字节，名称用于JSON调试模式
+ */
+public enum FrameType {
+
+    HEARTBEAT(1),
+    MESSAGE(2),
+    MESSAGE_ACK(3),
+    DELIVER(4),
+    DELIVER_ACK(5),
+    TYPING(6),
+    PRESENCE(7),
+    READ(8),
+    ERROR(127);
+
+    private static final FrameType[] BY_CODE = new FrameType[128];
+
+    static {
+        for (FrameType type : values()) {
+            BY_CODE[type.code] = type;
+        }
+    }
+
+    private final byte code;
+
+    // 预编码的JSON字符串，序列化时不再转义
+    private final SerializedString jsonName;
+
+    FrameType(int code) {
+        this.code = (byte) code;
+        this.jsonName = new SerializedString(name());
+    }
+
+    public byte code() {
+        return code;
+    }
+
+    public SerializedString jsonName() {
+        return jsonName;
+    }
+
+    /**
+     * 按类型字节查找，未知类型返回null
+     */
+    public static FrameType fromCode(byte code) {
+        return code < 0 ? null : BY_CODE[code];
+    }
+}
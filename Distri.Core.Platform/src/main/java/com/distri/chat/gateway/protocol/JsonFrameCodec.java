@@ -0,0 +1,123 @@
+package com.distri.chat.gateway.protocol;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SerializedString;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.handler.codec.CorruptedFrameException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * JSON帧编解码（浏览器调试模式）
+ * <p>
+ * 使用Jackson流式API直接读写ByteBuf，字段名与帧类型名预编码；
+ * ID字段以字符串输出，避免JS中64位整数丢失精度，解码时兼容数字与字符串。
+ */
+public final class JsonFrameCodec {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final SerializedString FIELD_TYPE = new SerializedString("type");
+    private static final SerializedString FIELD_SEQ = new SerializedString("seq");
+    private static final SerializedString FIELD_CONVERSATION_ID = new SerializedString("conversationId");
+    private static final SerializedString FIELD_MESSAGE_ID = new SerializedString("messageId");
+    private static final SerializedString FIELD_USER_ID = new SerializedString("userId");
+    private static final SerializedString FIELD_DELIVERY_ID = new SerializedString("deliveryId");
+    private static final SerializedString FIELD_BODY = new SerializedString("body");
+
+    private JsonFrameCodec() {
+    }
+
+    public static void encode(ChatFrame frame, ByteBuf out) throws IOException {
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator((OutputStream) new ByteBufOutputStream(out), JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeFieldName(FIELD_TYPE);
+            generator.writeString(frame.getType().jsonName());
+            generator.writeFieldName(FIELD_SEQ);
+            generator.writeNumber(frame.getSeq());
+            if (frame.getConversationId() != 0) {
+                generator.writeFieldName(FIELD_CONVERSATION_ID);
+                generator.writeString(Long.toString(frame.getConversationId()));
+            }
+            if (frame.getMessageId() != 0) {
+                generator.writeFieldName(FIELD_MESSAGE_ID);
+                generator.writeString(Long.toString(frame.getMessageId()));
+            }
+            if (frame.getUserId() != 0) {
+                generator.writeFieldName(FIELD_USER_ID);
+                generator.writeString(Long.toString(frame.getUserId()));
+            }
+            if (frame.getDeliveryId() != 0) {
+                generator.writeFieldName(FIELD_DELIVERY_ID);
+                generator.writeNumber(frame.getDeliveryId());
+            }
+            if (frame.getBody() != null) {
+                generator.writeFieldName(FIELD_BODY);
+                generator.writeString(frame.getBody());
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    public static ChatFrame decode(ByteBuf in) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser((InputStream) new ByteBufInputStream(in))) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new CorruptedFrameException("JSON帧必须是对象");
+            }
+
+            ChatFrame frame = new ChatFrame();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "type" -> frame.setType(parseType(parser.getText()));
+                    case "seq" -> frame.setSeq(readLong(parser, value));
+                    case "conversationId" -> frame.setConversationId(readLong(parser, value));
+                    case "messageId" -> frame.setMessageId(readLong(parser, value));
+                    case "userId" -> frame.setUserId(readLong(parser, value));
+                    case "deliveryId" -> frame.setDeliveryId(readLong(parser, value));
+                    case "body" -> frame.setBody(value == JsonToken.VALUE_NULL ? null : parser.getText());
+                    default -> parser.skipChildren();
+                }
+            }
+
+            if (frame.getType() == null) {
+                throw new CorruptedFrameException("JSON帧缺少type");
+            }
+            return frame;
+        }
+    }
+
+    private static FrameType parseType(String name) {
+        try {
+            return FrameType.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            throw new CorruptedFrameException("未知帧类型：" + name);
+        }
+    }
+
+    private static long readLong(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getLongValue();
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            try {
+                return Long.parseLong(parser.getText());
+            } catch (NumberFormatException e) {
+                throw new CorruptedFrameException("数字字段格式错误：" + parser.getText());
+            }
+        }
+        if (token == JsonToken.VALUE_NULL) {
+            return 0;
+        }
+        throw new CorruptedFrameException("数字字段类型错误");
+    }
+}
@@ -0,0 +1,46 @@
+package com.distri.chat.gateway.session;
+
+import com.distri.chat.common.ratelimit.TokenBucket;
+import com.distri.chat.gateway.protocol.FrameProtocol;
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+
+import java.util.Set;
+
+/**
+ * 网关连接上绑定的属性
+ * 直接挂在Channel上，不额外维护每连接的会话对象，降低单连接堆占用
+ */
+public final class ChannelAttributes {
+
+    public static final AttributeKey<Long> USER_ID = AttributeKey.valueOf("distri.userId");
+
+    public static final AttributeKey<String> CLIENT_ID = AttributeKey.valueOf("distri.clientId");
+
+    public static final AttributeKey<FrameProtocol> PROTOCOL = AttributeKey.valueOf("distri.protocol");
+
+    // 最近一次收到上行帧的时间（毫秒），由心跳时间轮惰性检查
+    public static final AttributeKey<Long> LAST_SEEN = AttributeKey.valueOf("distri.lastSeen");
+
+    // 该连接订阅了在线状态的用户
+    public static final AttributeKey<Set<Long>> PRESENCE_SUBSCRIPTIONS = AttributeKey.valueOf("distri.presenceSubscriptions");
+
+    // 该连接的上行消息令牌桶，首条消息时创建
+    public static final AttributeKey<TokenBucket> MESSAGE_BUCKET = AttributeKey.valueOf("distri.messageBucket");
+
+    private ChannelAttributes() {
+    }
+
+    public static Long userId(Channel channel) {
+        return channel.attr(USER_ID).get();
+    }
+
+    public static String clientId(Channel channel) {
+        return channel.attr(CLIENT_ID).get();
+    }
+
+    public static FrameProtocol protocol(Channel channel) {
+        FrameProtocol protocol = channel.attr(PROTOCOL).get();
+        return protocol == null ? FrameProtocol.BINARY : protocol;
+    }
+}
@@ -0,0 +1,77 @@
+package com.distri.chat.gateway.session;
+
+import com.distri.chat.common.utils.TimingWheel;
+import com.distri.chat.gateway.GatewayProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.Channel;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 心跳超时检测
+ * <p>
+ * 全节点共用一个哈希时间轮代替每连接一个IdleStateHandler定时任务。收到上行帧只更新Channel上的lastSeen，
+ * 不移动槽位；连接到期时才检查：已超时则关闭，否则按剩余时间重新挂入。
+ * 持续心跳的连接每个超时周期只被检查一次，单连接的均摊开销为O(1)。
+ */
+@Slf4j
+@Component
+public class HeartbeatWheel {
+
+    private final long timeoutMillis;
+    private final TimingWheel<Channel> wheel;
+    private final Counter timeoutCounter;
+
+    public HeartbeatWheel(GatewayProperties properties, MeterRegistry meterRegistry) {
+        this.timeoutMillis = TimeUnit.SECONDS.toMillis(properties.getIdleTimeoutSeconds());
+        this.wheel = new TimingWheel<>("heartbeat-wheel-", properties.getHeartbeatTickMillis(), timeoutMillis, this::check);
+        this.timeoutCounter = Counter.builder("gateway.heartbeat.timeout")
+                .description("心跳超时被关闭的连接数")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        wheel.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        wheel.stop();
+    }
+
+    /**
+     * 握手完成后登记连接
+     */
+    public void add(Channel channel) {
+        channel.attr(ChannelAttributes.LAST_SEEN).set(System.currentTimeMillis());
+        wheel.schedule(channel, timeoutMillis);
+    }
+
+    /**
+     * 收到上行帧：只刷新lastSeen，到期时由时间轮惰性重排
+     */
+    public void touch(Channel channel) {
+        channel.attr(ChannelAttributes.LAST_SEEN).set(System.currentTimeMillis());
+    }
+
+    private long check(Channel channel, long now) {
+        if (!channel.isActive()) {
+            return 0;
+        }
+        Long lastSeen = channel.attr(ChannelAttributes.LAST_SEEN).get();
+        long remaining = (lastSeen == null ? 0 : lastSeen) + timeoutMillis - now;
+        if (remaining > 0) {
+            return remaining;
+        }
+        timeoutCounter.increment();
+        log.debug("心跳超时，关闭连接：{}", channel);
+        channel.close();
+        return 0;
+    }
+}
@@ -0,0 +1,79 @@
+package com.distri.chat.gateway.session;
+
+import io.netty.channel.Channel;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 本节点连接注册表
+ * 记录 userId -> (clientId -> Channel)，用于向本节点在线设备投递消息
+ */
+@Component
+public class LocalChannelRegistry {
+
+    private final Map<Long, Map<String, Channel>> channels = new ConcurrentHashMap<>();
+
+    private final AtomicInteger connectionCount = new AtomicInteger();
+
+    /**
+     * 绑定连接，同一设备重复连接时返回被替换的旧连接
+     * 写入在compute内完成，与unbind对同一userId互斥，避免写进被unbind移除的空表而丢失连接
+     */
+    public Channel bind(Long userId, String clientId, Channel channel) {
+        Channel[] previous = new Channel[1];
+        channels.compute(userId, (id, devices) -> {
+            if (devices == null) {
+                devices = new ConcurrentHashMap<>(4);
+            }
+            previous[0] = devices.put(clientId, channel);
+            return devices;
+        });
+        if (previous[0] == null) {
+            connectionCount.incrementAndGet();
+        }
+        return previous[0];
+    }
+
+    /**
+     * 解绑连接，仅当当前登记的仍是该连接时才移除
+     *
+     * @return 是否确实移除
+     */
+    public boolean unbind(Long userId, String clientId, Channel channel) {
+        boolean[] removed = new boolean[1];
+        channels.computeIfPresent(userId, (id, devices) -> {
+            removed[0] = devices.remove(clientId, channel);
+            return devices.isEmpty() ? null : devices;
+        });
+        if (removed[0]) {
+            connectionCount.decrementAndGet();
+        }
+        return removed[0];
+    }
+
+    public Channel get(Long userId, String clientId) {
+        Map<String, Channel> devices = channels.get(userId);
+        return devices == null ? null : devices.get(clientId);
+    }
+
+    /**
+     * 获取用户在本节点的全部设备连接
+     */
+    public Collection<Channel> getChannels(Long userId) {
+        Map<String, Channel> devices = channels.get(userId);
+        return devices == null ? Collections.emptyList() : devices.values();
+    }
+
+    public int connectionCount() {
+        return connectionCount.get();
+    }
+
+    public int onlineUserCount() {
+        return channels.size();
+    }
+}
@@ -0,0 +1,30 @@
+package com.distri.chat.gateway.session;
+
+import com.distri.chat.common.auth.TokenRevocationListener;
+import io.netty.channel.Channel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * 令牌被吊销后关闭该设备在本节点上的长连接
+ * clientId随每次登录签发，与令牌一一对应
+ */
+@Slf4j
+@Component
+public class RevokedTokenChannelCloser implements TokenRevocationListener {
+
+    private final LocalChannelRegistry channelRegistry;
+
+    public RevokedTokenChannelCloser(LocalChannelRegistry channelRegistry) {
+        this.channelRegistry = channelRegistry;
+    }
+
+    @Override
+    public void onRevoked(Long userId, String clientId) {
+        Channel channel = channelRegistry.get(userId, clientId);
+        if (channel != null) {
+            log.info("令牌已吊销，关闭连接：userId={}, clientId={}", userId, clientId);
+            channel.close();
+        }
+    }
+}
@@ -13,3 +13,149 @@ CREATE TABLE IF NOT EXISTS users (
     UNIQUE KEY uk_phone (phone)
     ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='用户表';
 
+
+-- 消息表：按会话ID分为 messages_0 ~ messages_7 共8张物理表（message.shard.count），路由见 MessageShardRouter
+-- 主键 (conversation_id, message_id)：同一会话的消息在聚簇索引上连续存放，历史按游标范围扫描
+CREATE TABLE IF NOT EXISTS messages_0 (
+    conversation_id BIGINT NOT NULL COMMENT '会话ID',
+    message_id BIGINT NOT NULL COMMENT '消息ID（雪花ID）',
+    sender_id BIGINT NOT NULL COMMENT '发送者用户ID',
+    sender_client_id VARCHAR(64) DEFAULT NULL COMMENT '发送设备ID',
+    client_seq BIGINT NOT NULL DEFAULT 0 COMMENT '客户端本地序号',
+    content TEXT NOT NULL COMMENT '消息内容',
+    send_time BIGINT NOT NULL COMMENT '服务端接收时间（毫秒）',
+    create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '入库时间',
+    PRIMARY KEY (conversation_id, message_id)
+    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='消息表分片0';
+
+CREATE TABLE IF NOT EXISTS messages_1 (
+    conversation_id BIGINT NOT NULL COMMENT '会话ID',
+    message_id BIGINT NOT NULL COMMENT '消息ID（雪花ID）',
+    sender_id BIGINT NOT NULL COMMENT '发送者用户ID',
+    sender_client_id VARCHAR(64) DEFAULT NULL COMMENT '发送设备ID',
+    client_seq BIGINT NOT NULL DEFAULT 0 COMMENT '客户端本地序号',
+    content TEXT NOT NULL COMMENT '消息内容',
+    send_time BIGINT NOT NULL COMMENT '服务端接收时间（毫秒）',
+    create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '入库时间',
+    PRIMARY KEY (conversation_id, message_id)
+    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='消息表分片1';
+
+CREATE TABLE IF NOT EXISTS messages_2 (
+    conversation_id BIGINT NOT NULL COMMENT '会话ID',
+    message_id BIGINT NOT NULL COMMENT '消息ID（雪花ID）',
+    sender_id BIGINT NOT NULL COMMENT '发送者用户ID',
+    sender_client_id VARCHAR(64) DEFAULT NULL COMMENT '发送设备ID',
+    client_seq BIGINT NOT NULL DEFAULT 0 COMMENT '客户端本地序号',
+    content TEXT NOT NULL COMMENT '消息内容',
+    send_time BIGINT NOT NULL COMMENT '服务端接收时间（毫秒）',
+    create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '入库时间',
+    PRIMARY KEY (conversation_id, message_id)
+    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='消息表分片2';
+
+CREATE TABLE IF NOT EXISTS messages_3 (
+    conversation_id BIGINT NOT NULL COMMENT '会话ID',
+    message_id BIGINT NOT NULL COMMENT '消息ID（雪花ID）',
+    sender_id BIGINT NOT NULL COMMENT '发送者用户ID',
+    sender_client_id VARCHAR(64) DEFAULT NULL COMMENT '发送设备ID',
+    client_seq BIGINT NOT NULL DEFAULT 0 COMMENT '客户端本地序号',
+    content TEXT NOT NULL COMMENT '消息内容',
+    send_time BIGINT NOT NULL COMMENT '服务端接收时间（毫秒）',
+    create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '入库时间',
+    PRIMARY KEY (conversation_id, message_id)
+    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='消息表分片3';
+
+CREATE TABLE IF NOT EXISTS messages_4 (
+    conversation_id BIGINT NOT NULL COMMENT '会话ID',
+    message_id BIGINT NOT NULL COMMENT '消息ID（雪花ID）',
+    sender_id BIGINT NOT NULL COMMENT '发送者用户ID',
+    sender_client_id VARCHAR(64) DEFAULT NULL COMMENT '发送设备ID',
+    client_seq BIGINT NOT NULL DEFAULT 0 COMMENT '客户端本地序号',
+    content TEXT NOT NULL COMMENT '消息内容',
+    send_time BIGINT NOT NULL COMMENT '服务端接收时间（毫秒）',
+    create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '入库时间',
+    PRIMARY KEY (conversation_id, message_id)
+    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='消息表分片4';
+
+CREATE TABLE IF NOT EXISTS messages_5 (
+    conversation_id BIGINT NOT NULL COMMENT '会话ID',
+    message_id BIGINT NOT NULL COMMENT '消息ID（雪花ID）',
+    sender_id BIGINT NOT NULL COMMENT '发送者用户ID',
+    sender_client_id VARCHAR(64) DEFAULT NULL COMMENT '发送设备ID',
+    client_seq BIGINT NOT NULL DEFAULT 0 COMMENT '客户端本地序号',
+    content TEXT NOT NULL COMMENT '消息内容',
+    send_time BIGINT NOT NULL COMMENT '服务端接收时间（毫秒）',
+    create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '入库时间',
+    PRIMARY KEY (conversation_id, message_id)
+    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='消息表分片5';
+
+CREATE TABLE IF NOT EXISTS messages_6 (
+    conversation_id BIGINT NOT NULL COMMENT '会话ID',
+    message_id BIGINT NOT NULL COMMENT '消息ID（雪花ID）',
+    sender_id BIGINT NOT NULL COMMENT '发送者用户ID',
+    sender_client_id VARCHAR(64) DEFAULT NULL COMMENT '发送设备ID',
+    client_seq BIGINT NOT NULL DEFAULT 0 COMMENT '客户端本地序号',
+    content TEXT NOT NULL COMMENT '消息内容',
+    send_time BIGINT NOT NULL COMMENT '服务端接收时间（毫秒）',
+    create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '入库时间',
+    PRIMARY KEY (conversation_id, message_id)
+    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='消息表分片6';
+
+CREATE TABLE IF NOT EXISTS messages_7 (
+    conversation_id BIGINT NOT NULL COMMENT '会话ID',
+    message_id BIGINT NOT NULL COMMENT '消息ID（雪花ID）',
+    sender_id BIGINT NOT NULL COMMENT '发送者用户ID',
+    sender_client_id VARCHAR(64) DEFAULT NULL COMMENT '发送设备ID',
+    client_seq BIGINT NOT NULL DEFAULT 0 COMMENT '客户端本地序号',
+    content TEXT NOT NULL COMMENT '消息内容',
+    send_time BIGINT NOT NULL COMMENT '服务端接收时间（毫秒）',
+    create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '入库时间',
+    PRIMARY KEY (conversation_id, message_id)
+    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='消息表分片7';
+
+-- 收件箱归档表：Redis收件箱超出上限的旧条目溢出到此处
+CREATE TABLE IF NOT EXISTS user_inbox (
+    user_id BIGINT NOT NULL COMMENT '接收者用户ID',
+    seq BIGINT NOT NULL COMMENT '收件箱序号',
+    conversation_id BIGINT NOT NULL COMMENT '会话ID',
+    message_id BIGINT NOT NULL COMMENT '消息ID',
+    create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '归档时间',
+    PRIMARY KEY (user_id, seq)
+    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='收件箱归档表';
+
+-- 群组表
+CREATE TABLE IF NOT EXISTS chat_groups (
+    id BIGINT PRIMARY KEY COMMENT '群ID（雪花ID，同时作为群聊会话ID）',
+    name VARCHAR(50) NOT NULL COMMENT '群名称',
+    owner_id BIGINT NOT NULL COMMENT '群主用户ID',
+    member_count INT NOT NULL DEFAULT 0 COMMENT '成员数',
+    create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    update_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    deleted TINYINT(1) NOT NULL DEFAULT 0 COMMENT '逻辑删除标记: 0-未删除, 1-已删除'
+    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='群组表';
+
+-- 群成员表
+CREATE TABLE IF NOT EXISTS group_members (
+    group_id BIGINT NOT NULL COMMENT '群ID',
+    user_id BIGINT NOT NULL COMMENT '成员用户ID',
+    join_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '入群时间',
+    PRIMARY KEY (group_id, user_id),
+    KEY idx_user (user_id)
+    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='群成员表';
+
+-- 事件发件箱：与业务数据同一事务写入，由中继按id顺序投递到Kafka后批量删除
+CREATE TABLE IF NOT EXISTS event_outbox (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT COMMENT '自增ID，中继游标',
+    topic VARCHAR(128) NOT NULL COMMENT '目标Kafka主题',
+    event_key VARCHAR(128) DEFAULT NULL COMMENT 'Kafka消息key',
+    payload TEXT NOT NULL COMMENT '事件JSON',
+    create_time BIGINT NOT NULL COMMENT '写入时间（毫秒）'
+    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='事件发件箱表';
+
+-- 会话已读位置：已读回执按（用户，会话）合并后批量写入，只前进不后退
+CREATE TABLE IF NOT EXISTS conversation_read_position (
+    user_id BIGINT NOT NULL COMMENT '用户ID',
+    conversation_id BIGINT NOT NULL COMMENT '会话ID',
+    read_message_id BIGINT NOT NULL COMMENT '已读到的消息ID（含）',
+    update_time BIGINT NOT NULL COMMENT '最后更新时间（毫秒）',
+    PRIMARY KEY (user_id, conversation_id)
+    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='会话已读位置表';